@@ -61,6 +61,26 @@ public class BlameLine implements Serializable
    */
   public BlameLine() {}
 
+  /**
+   * Creates a copy of the given blame line.
+   *
+   *
+   * @param other blame line to copy
+   *
+   * @since 1.58
+   */
+  public BlameLine(BlameLine other)
+  {
+    this.lineNumber = other.lineNumber;
+    this.revision = other.revision;
+    this.when = other.when;
+    this.description = other.description;
+    this.code = other.code;
+    this.author = (other.author != null)
+      ? new Person(other.author)
+      : null;
+  }
+
   /**
    * Constructs ...
    *
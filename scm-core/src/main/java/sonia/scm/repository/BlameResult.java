@@ -42,6 +42,7 @@ import com.google.common.collect.Lists;
 
 import java.io.Serializable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -75,6 +76,31 @@ public class BlameResult implements Serializable, Iterable<BlameLine>
    */
   public BlameResult() {}
 
+  /**
+   * Creates a copy of the given blame result.
+   *
+   *
+   * @param other blame result to copy
+   *
+   * @since 1.58
+   */
+  public BlameResult(BlameResult other)
+  {
+    this.total = other.total;
+
+    if (other.blameLines != null)
+    {
+      this.blameLines = new ArrayList<BlameLine>(other.blameLines.size());
+
+      for (BlameLine line : other.blameLines)
+      {
+        this.blameLines.add((line != null)
+          ? new BlameLine(line)
+          : null);
+      }
+    }
+  }
+
   /**
    * Constructs ...
    *
@@ -41,6 +41,7 @@ import com.google.common.base.Objects;
 
 import java.io.Serializable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -71,6 +72,33 @@ public class BrowserResult implements Iterable<FileObject>, Serializable
    */
   public BrowserResult() {}
 
+  /**
+   * Creates a copy of the given browser result.
+   *
+   *
+   * @param other browser result to copy
+   *
+   * @since 1.58
+   */
+  public BrowserResult(BrowserResult other)
+  {
+    this.revision = other.revision;
+    this.tag = other.tag;
+    this.branch = other.branch;
+
+    if (other.files != null)
+    {
+      this.files = new ArrayList<FileObject>(other.files.size());
+
+      for (FileObject file : other.files)
+      {
+        this.files.add((file != null)
+          ? new FileObject(file)
+          : null);
+      }
+    }
+  }
+
   /**
    * Constructs ...
    *
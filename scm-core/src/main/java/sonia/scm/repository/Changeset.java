@@ -48,6 +48,7 @@ import java.io.Serializable;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -77,6 +78,39 @@ public class Changeset extends BasicPropertiesAware
    */
   public Changeset() {}
 
+  /**
+   * Creates a copy of the given changeset.
+   *
+   *
+   * @param other changeset to copy
+   *
+   * @since 1.58
+   */
+  public Changeset(Changeset other)
+  {
+    this.id = other.id;
+    this.date = other.date;
+    this.description = other.description;
+    this.author = (other.author != null)
+      ? new Person(other.author)
+      : null;
+    this.branches = (other.branches != null)
+      ? new ArrayList<String>(other.branches)
+      : null;
+    this.parents = (other.parents != null)
+      ? new ArrayList<String>(other.parents)
+      : null;
+    this.tags = (other.tags != null)
+      ? new ArrayList<String>(other.tags)
+      : null;
+    this.modifications = (other.modifications != null)
+      ? new Modifications(other.modifications)
+      : null;
+    this.properties = (other.properties != null)
+      ? new HashMap<String, String>(other.properties)
+      : null;
+  }
+
   /**
    * Constructs a new instance of changeset.
    *
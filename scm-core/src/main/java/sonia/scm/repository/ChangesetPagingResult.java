@@ -41,6 +41,7 @@ import com.google.common.base.Objects;
 
 import java.io.Serializable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -72,6 +73,31 @@ public class ChangesetPagingResult implements Iterable<Changeset>, Serializable
    */
   public ChangesetPagingResult() {}
 
+  /**
+   * Creates a copy of the given changeset paging result.
+   *
+   *
+   * @param other changeset paging result to copy
+   *
+   * @since 1.58
+   */
+  public ChangesetPagingResult(ChangesetPagingResult other)
+  {
+    this.total = other.total;
+
+    if (other.changesets != null)
+    {
+      this.changesets = new ArrayList<Changeset>(other.changesets.size());
+
+      for (Changeset changeset : other.changesets)
+      {
+        this.changesets.add((changeset != null)
+          ? new Changeset(changeset)
+          : null);
+      }
+    }
+  }
+
   /**
    * Constructs a new changeset paging result.
    *
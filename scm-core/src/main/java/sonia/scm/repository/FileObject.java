@@ -62,6 +62,35 @@ public class FileObject implements LastModifiedAware, Serializable
   /** serial version uid */
   private static final long serialVersionUID = -5562537629609891499L;
 
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new {@link FileObject}.
+   *
+   */
+  public FileObject() {}
+
+  /**
+   * Creates a copy of the given file object.
+   *
+   *
+   * @param other file object to copy
+   *
+   * @since 1.58
+   */
+  public FileObject(FileObject other)
+  {
+    this.name = other.name;
+    this.path = other.path;
+    this.description = other.description;
+    this.directory = other.directory;
+    this.lastModified = other.lastModified;
+    this.length = other.length;
+    this.subRepository = (other.subRepository != null)
+      ? new SubRepository(other.subRepository)
+      : null;
+  }
+
   //~--- methods --------------------------------------------------------------
 
   /**
@@ -72,6 +72,27 @@ public class Modifications implements Serializable
    */
   public Modifications() {}
 
+  /**
+   * Creates a copy of the given modifications.
+   *
+   *
+   * @param other modifications to copy
+   *
+   * @since 1.58
+   */
+  public Modifications(Modifications other)
+  {
+    this.added = (other.added != null)
+      ? new ArrayList<String>(other.added)
+      : null;
+    this.modified = (other.modified != null)
+      ? new ArrayList<String>(other.modified)
+      : null;
+    this.removed = (other.removed != null)
+      ? new ArrayList<String>(other.removed)
+      : null;
+  }
+
   /**
    * Constructs ...
    *
@@ -71,6 +71,20 @@ public class Person implements Validateable, Serializable
    */
   public Person() {}
 
+  /**
+   * Creates a copy of the given person.
+   *
+   *
+   * @param other person to copy
+   *
+   * @since 1.58
+   */
+  public Person(Person other)
+  {
+    this.name = other.name;
+    this.mail = other.mail;
+  }
+
   /**
    * Constructs a new {@link Person}.
    *
@@ -35,6 +35,8 @@ package sonia.scm.repository;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.collect.Lists;
+
 import sonia.scm.ManagerDecorator;
 import sonia.scm.Type;
 
@@ -43,6 +45,9 @@ import sonia.scm.Type;
 import java.io.IOException;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -54,7 +59,7 @@ import javax.servlet.http.HttpServletRequest;
  */
 public class RepositoryManagerDecorator
   extends ManagerDecorator<Repository, RepositoryException>
-  implements RepositoryManager
+  implements SortedRepositoryManager
 {
 
   /**
@@ -256,6 +261,47 @@ public class RepositoryManagerDecorator
     return decorated.getChangesetViewer(repository);
   }
 
+  /**
+   * {@inheritDoc} If the decorated manager is not a
+   * {@link SortedRepositoryManager}, all repositories of the decorated manager
+   * are sorted in memory.
+   *
+   *
+   * @param key
+   * @param desc
+   * @param start
+   * @param limit
+   *
+   * @return
+   */
+  @Override
+  public Collection<Repository> getAll(RepositorySortKey key, boolean desc,
+    int start, int limit)
+  {
+    if (decorated instanceof SortedRepositoryManager)
+    {
+      return ((SortedRepositoryManager) decorated).getAll(key, desc, start,
+        limit);
+    }
+
+    Comparator<Repository> comparator = key.getComparator();
+
+    if (desc)
+    {
+      comparator = Collections.reverseOrder(comparator);
+    }
+
+    List<Repository> repositories =
+      Lists.newArrayList(decorated.getAll(comparator));
+    int size = repositories.size();
+    int from = Math.min(Math.max(start, 0), size);
+    int to = (limit < 0)
+      ? size
+      : Math.min(from + limit, size);
+
+    return repositories.subList(from, to);
+  }
+
   /**
    * {@inheritDoc}
    *
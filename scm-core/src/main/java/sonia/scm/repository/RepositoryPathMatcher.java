@@ -42,7 +42,9 @@ import sonia.scm.plugin.ExtensionPoint;
 public interface RepositoryPathMatcher {
   
   /**
-   * Returns {@code true} if the path matches the repository.
+   * Returns {@code true} if the path matches the repository. Since version 
+   * 1.58 the method is only called for repositories whose name is a prefix of
+   * the path, the longest name is checked first.
    * 
    * @param repository repository
    * @param path requested path without context and without type information extracted from uri
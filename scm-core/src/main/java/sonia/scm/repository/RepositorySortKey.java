@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Function;
+import com.google.common.collect.Ordering;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Comparator;
+
+/**
+ * Properties by which repositories can be sorted without comparing them by
+ * reflection. A {@link SortedRepositoryDAO} maintains a sort index for each
+ * key.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public enum RepositorySortKey
+{
+  NAME("name", Properties.NAME), TYPE("type", Properties.TYPE),
+  CREATION_DATE("creationDate", Properties.CREATION_DATE),
+  LAST_MODIFIED("lastModified", Properties.LAST_MODIFIED);
+
+  /**
+   * Constructs ...
+   *
+   *
+   * @param property
+   * @param function
+   */
+  @SuppressWarnings("unchecked")
+  private RepositorySortKey(String property,
+    Function<Repository, ? extends Comparable> function)
+  {
+    this.property = property;
+
+    // repositories with equal values are ordered by their id
+    this.comparator = Ordering.natural().nullsFirst().onResultOf(
+      function).compound(Ordering.natural().nullsFirst().onResultOf(
+        Properties.ID));
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Returns the sort key for the given bean property of a repository or null
+   * if there is no sort key for the property.
+   *
+   *
+   * @param property name of the bean property e.g. lastModified
+   *
+   * @return sort key or null
+   */
+  public static RepositorySortKey fromProperty(String property)
+  {
+    RepositorySortKey key = null;
+
+    for (RepositorySortKey k : values())
+    {
+      if (k.property.equals(property))
+      {
+        key = k;
+
+        break;
+      }
+    }
+
+    return key;
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns a comparator, which sorts repositories ascending by this key and
+   * by their id, if the values of the key are equal.
+   *
+   *
+   * @return comparator for this key
+   */
+  public Comparator<Repository> getComparator()
+  {
+    return comparator;
+  }
+
+  /**
+   * Returns the name of the bean property of this key.
+   *
+   *
+   * @return name of the bean property
+   */
+  public String getProperty()
+  {
+    return property;
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Functions to read the sort properties of a repository.
+   */
+  private static final class Properties
+  {
+
+    /** Field description */
+    private static final Function<Repository, Long> CREATION_DATE =
+      new Function<Repository, Long>()
+    {
+      @Override
+      public Long apply(Repository repository)
+      {
+        return repository.getCreationDate();
+      }
+    };
+
+    /** Field description */
+    private static final Function<Repository, String> ID =
+      new Function<Repository, String>()
+    {
+      @Override
+      public String apply(Repository repository)
+      {
+        return repository.getId();
+      }
+    };
+
+    /** Field description */
+    private static final Function<Repository, Long> LAST_MODIFIED =
+      new Function<Repository, Long>()
+    {
+      @Override
+      public Long apply(Repository repository)
+      {
+        return repository.getLastModified();
+      }
+    };
+
+    /** Field description */
+    private static final Function<Repository, String> NAME =
+      new Function<Repository, String>()
+    {
+      @Override
+      public String apply(Repository repository)
+      {
+        return repository.getName();
+      }
+    };
+
+    /** Field description */
+    private static final Function<Repository, String> TYPE =
+      new Function<Repository, String>()
+    {
+      @Override
+      public String apply(Repository repository)
+      {
+        return repository.getType();
+      }
+    };
+  }
+
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** comparator of the key */
+  private final Comparator<Repository> comparator;
+
+  /** name of the bean property */
+  private final String property;
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Collection;
+
+/**
+ * A {@link RepositoryManager} which is able to return sorted pages of
+ * repositories without sorting them by reflection. This interface is
+ * optional, callers must check whether the manager implements it and should
+ * use {@link RepositoryManager#getAll(java.util.Comparator, int, int)}
+ * otherwise.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public interface SortedRepositoryManager extends RepositoryManager
+{
+
+  /**
+   * Returns a page of the repositories, which are readable by the current
+   * user, sorted by the given key. If the {@link RepositoryDAO} is a
+   * {@link SortedRepositoryDAO}, the repositories are read from its sort
+   * index, permissions are only checked until the page is full and only the
+   * returned repositories are cloned.
+   *
+   *
+   * @param key sort key
+   * @param desc true for descending order
+   * @param start index of the first repository of the page
+   * @param limit maximum number of repositories, -1 for all repositories
+   *
+   * @return page of sorted repositories
+   */
+  public Collection<Repository> getAll(RepositorySortKey key, boolean desc,
+    int start, int limit);
+}
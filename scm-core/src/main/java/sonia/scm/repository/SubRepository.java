@@ -66,6 +66,21 @@ public class SubRepository implements Serializable
    */
   public SubRepository() {}
 
+  /**
+   * Creates a copy of the given sub repository.
+   *
+   *
+   * @param other sub repository to copy
+   *
+   * @since 1.58
+   */
+  public SubRepository(SubRepository other)
+  {
+    this.repositoryUrl = other.repositoryUrl;
+    this.browserUrl = other.browserUrl;
+    this.revision = other.revision;
+  }
+
   /**
    * Constructs ...
    *
@@ -35,6 +35,7 @@ package sonia.scm.repository;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import sonia.scm.event.Coalescable;
 import sonia.scm.repository.api.HookContext;
 
 //~--- JDK imports ------------------------------------------------------------
@@ -47,7 +48,7 @@ import java.util.Collection;
  * @author Sebastian Sdorra
  * @since 1.23
  */
-public class WrappedRepositoryHookEvent
+public class WrappedRepositoryHookEvent implements Coalescable
 {
 
   /**
@@ -108,6 +109,25 @@ public class WrappedRepositoryHookEvent
     return wrappedEvent.getChangesets();
   }
 
+  /**
+   * Returns the event class and the repository id as coalescing key, events
+   * for the same repository can be merged.
+   *
+   *
+   * @return coalescing key or null
+   *
+   * @since 1.58
+   */
+  @Override
+  public Object getCoalescingKey()
+  {
+    Repository repository = getRepository();
+
+    return (repository != null)
+      ? getClass().getName().concat(":").concat(repository.getId())
+      : null;
+  }
+
   /**
    * Returns the context of the current hook. The method returns null if no 
    * context is available for this hook event. It is possible to check if a hook 
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.cache.RegionKey;
 import sonia.scm.repository.BlameResult;
 import sonia.scm.repository.PreProcessorUtil;
 import sonia.scm.repository.Repository;
@@ -273,7 +274,7 @@ public final class BlameCommandBuilder
    * @version        Enter version here..., 12/06/05
    * @author         Enter your name here...
    */
-  static class CacheKey implements RepositoryCacheKey, Serializable
+  static class CacheKey implements RepositoryCacheKey, RegionKey, Serializable
   {
 
     /** Field description */
@@ -337,6 +338,18 @@ public final class BlameCommandBuilder
 
     //~--- get methods --------------------------------------------------------
 
+    /**
+     * Returns the id of the repository as region.
+     *
+     *
+     * @return id of the repository
+     */
+    @Override
+    public String getRegion()
+    {
+      return repositoryId;
+    }
+
     /**
      * Method description
      *
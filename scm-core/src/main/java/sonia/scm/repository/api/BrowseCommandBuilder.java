@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.cache.RegionKey;
 import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
 import sonia.scm.repository.FileObjectNameComparator;
@@ -346,7 +347,7 @@ public final class BrowseCommandBuilder
    * @version        Enter version here..., 12/06/05
    * @author         Enter your name here...
    */
-  static class CacheKey implements RepositoryCacheKey, Serializable
+  static class CacheKey implements RepositoryCacheKey, RegionKey, Serializable
   {
 
     /** Field description */
@@ -410,6 +411,18 @@ public final class BrowseCommandBuilder
 
     //~--- get methods --------------------------------------------------------
 
+    /**
+     * Returns the id of the repository as region.
+     *
+     *
+     * @return id of the repository
+     */
+    @Override
+    public String getRegion()
+    {
+      return repositoryId;
+    }
+
     /**
      * Method description
      *
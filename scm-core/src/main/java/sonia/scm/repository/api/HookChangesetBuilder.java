@@ -46,6 +46,7 @@ import sonia.scm.repository.PreProcessorUtil;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.spi.HookChangesetProvider;
 import sonia.scm.repository.spi.HookChangesetRequest;
+import sonia.scm.repository.spi.HookChangesetResponse;
 
 //~--- JDK imports ------------------------------------------------------------
 
@@ -63,10 +64,6 @@ import java.util.List;
 public final class HookChangesetBuilder
 {
 
-  /** request */
-  private static final HookChangesetRequest request =
-    new HookChangesetRequest();
-
   /**
    * the logger for HookChangesetBuilder
    */
@@ -109,17 +106,24 @@ public final class HookChangesetBuilder
 
   /**
    * Returns an {@link Iterable} which is able to return all {@link Changeset}s
-   * which are added to the repository.
+   * which are added to the repository. Most implementations read the
+   * changesets lazily, while the {@link Iterable} is consumed.
    *
    * @return {@link Iterable} for added {@link Changeset}s
    */
   public Iterable<Changeset> getChangesets()
   {
-    Iterable<Changeset> changesets =
-      provider.handleRequest(request).getChangesets();
+    HookChangesetRequest request = new HookChangesetRequest();
+
+    request.setDisableModifications(disableModifications);
+
+    HookChangesetResponse response = provider.handleRequest(request);
+    Iterable<Changeset> changesets = response.getChangesets();
 
     if (!disablePreProcessors)
     {
+      final boolean shared = response.isShared();
+
       changesets = Iterables.transform(changesets,
         new Function<Changeset, Changeset>()
       {
@@ -127,11 +131,17 @@ public final class HookChangesetBuilder
         @Override
         public Changeset apply(Changeset c)
         {
-          Changeset copy = null;
+          Changeset copy = c;
 
           try
           {
-            copy = DeepCopy.copy(c);
+
+            // changesets which are shared must not be modified
+            if (shared)
+            {
+              copy = DeepCopy.copy(c);
+            }
+
             preProcessorUtil.prepareForReturn(repository, copy,
               !disableEscaping);
           }
@@ -140,11 +150,6 @@ public final class HookChangesetBuilder
             logger.error("could not create a copy of changeset", ex);
           }
 
-          if (copy == null)
-          {
-            copy = c;
-          }
-
           return copy;
         }
 
@@ -190,11 +195,36 @@ public final class HookChangesetBuilder
     return this;
   }
 
+  /**
+   * Disables the calculation of the modifications for the returned
+   * changesets. The modifications are often the most expensive part of a
+   * changeset, hooks which need only the ids or messages of the changesets
+   * should disable them. <b>Note:</b> This option is a hint, implementations
+   * which are not able to skip the modifications could ignore it.
+   *
+   *
+   * @param disableModifications true to disable the modifications
+   *
+   * @return {@code this}
+   *
+   * @since 1.58
+   */
+  public HookChangesetBuilder setDisableModifications(
+    boolean disableModifications)
+  {
+    this.disableModifications = disableModifications;
+
+    return this;
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** disable escaping */
   private boolean disableEscaping = false;
 
+  /** disable modifications */
+  private boolean disableModifications = false;
+
   /** disable pre processors marker */
   private boolean disablePreProcessors = false;
 
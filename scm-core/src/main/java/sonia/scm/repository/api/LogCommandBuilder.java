@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.cache.RegionKey;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
 import sonia.scm.repository.PreProcessorUtil;
@@ -87,6 +88,15 @@ import java.io.Serializable;
  *          log.setPath("pom.xml").disablePagingLimit().getChangesets();
  * </code></pre>
  *
+ * Retrieve changesets without modifications, which is much faster for
+ * repositories with large trees. The modifications of a single changeset
+ * could be fetched on demand with {@link #getChangeset(String)}:<br />
+ * <pre><code>
+ * LogCommandBuilder log = repositoryService.getLogCommand();
+ * ChangesetPagingResult changesetPagingResult =
+ *          log.setDisableModifications(true).getChangesets();
+ * </code></pre>
+ *
  * @author Sebastian Sdorra
  * @since 1.17
  */
@@ -333,6 +343,29 @@ public final class LogCommandBuilder
     return this;
   }
 
+  /**
+   * Disables the calculation of the modifications for the changesets returned
+   * by {@link #getChangesets()}. The modifications are often the most
+   * expensive part of a changeset and are not required for simple listings.
+   * Changesets returned by {@link #getChangeset(String)} contain always their
+   * modifications. <b>Note:</b> This option is a hint, implementations which
+   * are not able to skip the modifications could ignore it.
+   *
+   *
+   * @param disableModifications true to disable the modifications
+   *
+   * @return {@code this}
+   *
+   * @since 1.58
+   */
+  public LogCommandBuilder setDisableModifications(
+    boolean disableModifications)
+  {
+    request.setDisableModifications(disableModifications);
+
+    return this;
+  }
+
   /**
    * Disable the execution of pre processors.
    *
@@ -434,7 +467,7 @@ public final class LogCommandBuilder
    * @version        Enter version here..., 12/06/05
    * @author         Enter your name here...
    */
-  static class CacheKey implements RepositoryCacheKey, Serializable
+  static class CacheKey implements RepositoryCacheKey, RegionKey, Serializable
   {
 
     /** Field description */
@@ -513,6 +546,18 @@ public final class LogCommandBuilder
 
     //~--- get methods --------------------------------------------------------
 
+    /**
+     * Returns the id of the repository as region.
+     *
+     *
+     * @return id of the repository
+     */
+    @Override
+    public String getRegion()
+    {
+      return repositoryId;
+    }
+
     /**
      * Method description
      *
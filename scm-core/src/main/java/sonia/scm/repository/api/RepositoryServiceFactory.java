@@ -48,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import sonia.scm.HandlerEvent;
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.cache.RegionCache;
 import sonia.scm.config.ScmConfiguration;
 import sonia.scm.repository.BlameResult;
 import sonia.scm.repository.Branches;
@@ -408,9 +409,20 @@ public final class RepositoryServiceFactory
         logger.debug("clear caches for repository id {}", repositoryId);
       }
 
-      RepositoryCacheKeyFilter filter = new RepositoryCacheKeyFilter(repositoryId);
+      RepositoryCacheKeyFilter filter = null;
+
+      // the keys of all repository caches use the repository id as region,
+      // caches without region support are cleared by a filter over all keys
       for (Cache<?,?> cache : caches) {
-        cache.removeAll(filter);
+        if (cache instanceof RegionCache) {
+          ((RegionCache<?,?>) cache).removeRegion(repositoryId);
+        } else {
+          if (filter == null) {
+            filter = new RepositoryCacheKeyFilter(repositoryId);
+          }
+
+          cache.removeAll(filter);
+        }
       }
     }
   }
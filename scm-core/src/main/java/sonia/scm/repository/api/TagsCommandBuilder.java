@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.cache.RegionKey;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryCacheKey;
 import sonia.scm.repository.RepositoryException;
@@ -200,7 +201,7 @@ public final class TagsCommandBuilder
    * @version        Enter version here..., 12/07/05
    * @author         Enter your name here...
    */
-  static class CacheKey implements RepositoryCacheKey
+  static class CacheKey implements RepositoryCacheKey, RegionKey
   {
 
     /**
@@ -256,6 +257,18 @@ public final class TagsCommandBuilder
 
     //~--- get methods --------------------------------------------------------
 
+    /**
+     * Returns the id of the repository as region.
+     *
+     *
+     * @return id of the repository
+     */
+    @Override
+    public String getRegion()
+    {
+      return repositoryId;
+    }
+
     /**
      * Method description
      *
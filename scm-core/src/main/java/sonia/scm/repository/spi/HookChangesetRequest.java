@@ -34,11 +34,47 @@ package sonia.scm.repository.spi;
 import sonia.scm.repository.Changeset;
 
 /**
- * Request object to retrieve {@link Changeset}s during a hook. At the moment 
- * this object has no functionality, but it is used to be prepared for further 
- * functions.
+ * Request object to retrieve {@link Changeset}s during a hook.
  *
  * @author Sebastian Sdorra
  * @since 1.33
  */
-public final class HookChangesetRequest {}
+public final class HookChangesetRequest
+{
+
+  /**
+   * Returns true if the modifications of the changesets should not be
+   * calculated.
+   *
+   *
+   * @return true if the modifications are disabled
+   *
+   * @since 1.58
+   */
+  public boolean isDisableModifications()
+  {
+    return disableModifications;
+  }
+
+  //~--- set methods ----------------------------------------------------------
+
+  /**
+   * Disables the calculation of the modifications. <b>Note:</b> This option
+   * is a hint, implementations which are not able to skip the modifications
+   * could ignore it.
+   *
+   *
+   * @param disableModifications true to disable the modifications
+   *
+   * @since 1.58
+   */
+  public void setDisableModifications(boolean disableModifications)
+  {
+    this.disableModifications = disableModifications;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** disable modifications */
+  private boolean disableModifications = false;
+}
@@ -51,8 +51,27 @@ public final class HookChangesetResponse
    * @param changesets added changesets
    */
   public HookChangesetResponse(Iterable<Changeset> changesets)
+  {
+    this(changesets, true);
+  }
+
+  /**
+   * Constructs a new {@link HookChangesetResponse}. Implementations which
+   * create new {@link Changeset} objects on each iteration, should pass false
+   * for the shared parameter. This allows the api to skip the copy of each
+   * changeset, before it is modified by the pre processors.
+   *
+   *
+   * @param changesets added changesets
+   * @param shared true if the changeset objects are shared between
+   *   iterations
+   *
+   * @since 1.58
+   */
+  public HookChangesetResponse(Iterable<Changeset> changesets, boolean shared)
   {
     this.changesets = changesets;
+    this.shared = shared;
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -68,8 +87,25 @@ public final class HookChangesetResponse
     return changesets;
   }
 
+  /**
+   * Returns true if the changeset objects are shared between iterations and
+   * must be copied before they are modified.
+   *
+   *
+   * @return true if the changeset objects are shared
+   *
+   * @since 1.58
+   */
+  public boolean isShared()
+  {
+    return shared;
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** added changesets */
   private Iterable<Changeset> changesets;
+
+  /** changeset objects are shared between iterations */
+  private boolean shared;
 }
@@ -83,7 +83,8 @@ public final class LogCommandRequest implements Serializable, Resetable
       && Objects.equal(pagingStart, other.pagingStart)
       && Objects.equal(pagingLimit, other.pagingLimit)
       && Objects.equal(path, other.path) 
-      && Objects.equal(branch, other.branch);
+      && Objects.equal(branch, other.branch)
+      && Objects.equal(disableModifications, other.disableModifications);
     //J+
   }
 
@@ -97,7 +98,7 @@ public final class LogCommandRequest implements Serializable, Resetable
   public int hashCode()
   {
     return Objects.hashCode(startChangeset, endChangeset, pagingStart,
-      pagingLimit, path, branch);
+      pagingLimit, path, branch, disableModifications);
   }
 
   /**
@@ -113,6 +114,7 @@ public final class LogCommandRequest implements Serializable, Resetable
     pagingLimit = 20;
     path = null;
     branch = null;
+    disableModifications = false;
   }
 
   /**
@@ -132,6 +134,7 @@ public final class LogCommandRequest implements Serializable, Resetable
                   .add("pagingLimit", pagingLimit)
                   .add("path", path)
                   .add("branch", branch)
+                  .add("disableModifications", disableModifications)
                   .toString();
     //J+
   }
@@ -149,6 +152,19 @@ public final class LogCommandRequest implements Serializable, Resetable
     this.branch = branch;
   }
 
+  /**
+   * Disables the calculation of the modifications of each changeset.
+   *
+   *
+   * @param disableModifications true to disable the modifications
+   *
+   * @since 1.58
+   */
+  public void setDisableModifications(boolean disableModifications)
+  {
+    this.disableModifications = disableModifications;
+  }
+
   /**
    * Method description
    *
@@ -272,6 +288,20 @@ public final class LogCommandRequest implements Serializable, Resetable
     return startChangeset;
   }
 
+  /**
+   * Returns true if the modifications of the changesets should not be
+   * calculated.
+   *
+   *
+   * @return true if the modifications are disabled
+   *
+   * @since 1.58
+   */
+  boolean isDisableModifications()
+  {
+    return disableModifications;
+  }
+
   /**
    * Method description
    *
@@ -288,6 +318,9 @@ public final class LogCommandRequest implements Serializable, Resetable
   /** Field description */
   private String branch;
 
+  /** disable the calculation of modifications */
+  private boolean disableModifications = false;
+
   /** Field description */
   private String endChangeset;
 
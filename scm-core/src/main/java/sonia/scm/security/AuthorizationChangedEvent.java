@@ -30,6 +30,7 @@
  */
 package sonia.scm.security;
 
+import sonia.scm.event.Coalescable;
 import sonia.scm.event.Event;
 
 /**
@@ -40,12 +41,18 @@ import sonia.scm.event.Event;
  * @since 1.52
  */
 @Event
-public final class AuthorizationChangedEvent {
+public final class AuthorizationChangedEvent implements Coalescable {
+  
+  /** coalescing key of events which affects every user */
+  private static final Object EVERY_USER = new Object();
   
   private final String nameOfAffectedUser;
   
-  private AuthorizationChangedEvent(String nameOfAffectedUser) {
+  private final boolean revoking;
+  
+  private AuthorizationChangedEvent(String nameOfAffectedUser, boolean revoking) {
     this.nameOfAffectedUser = nameOfAffectedUser;
+    this.revoking = revoking;
   }
   
   /**
@@ -66,13 +73,50 @@ public final class AuthorizationChangedEvent {
     return nameOfAffectedUser;
   }
   
+  /**
+   * Returns {@code true} if the data change could have removed permissions, e.g. a deleted user, group, repository
+   * or permission. Cached authorization data must be invalidated immediately for such events.
+   * 
+   * @return {@code true} if permissions could have been removed
+   * @since 1.58
+   */
+  public boolean isRevoking() {
+    return revoking;
+  }
+  
+  /**
+   * Returns the name of the affected user or a shared key for events which
+   * affects every user. Revoking events return {@code null}, because they must
+   * never be delayed by a coalescing window.
+   * 
+   * @return coalescing key or {@code null}
+   * @since 1.58
+   */
+  @Override
+  public Object getCoalescingKey() {
+    if (revoking) {
+      return null;
+    }
+    return nameOfAffectedUser != null ? nameOfAffectedUser : EVERY_USER;
+  }
+  
   /**
    * Creates a new event which affects every user.
    * 
    * @return new event for every user
    */
   public static AuthorizationChangedEvent createForEveryUser() {
-    return new AuthorizationChangedEvent(null);
+    return new AuthorizationChangedEvent(null, false);
+  }
+  
+  /**
+   * Creates a new event which affects every user and could have removed permissions.
+   * 
+   * @return new revoking event for every user
+   * @since 1.58
+   */
+  public static AuthorizationChangedEvent createRevokingForEveryUser() {
+    return new AuthorizationChangedEvent(null, true);
   }
   
   /**
@@ -83,7 +127,19 @@ public final class AuthorizationChangedEvent {
    * @return new event for a single user
    */
   public static AuthorizationChangedEvent createForUser(String nameOfAffectedUser) {
-    return new AuthorizationChangedEvent(nameOfAffectedUser);
+    return new AuthorizationChangedEvent(nameOfAffectedUser, false);
+  }
+  
+  /**
+   * Create a new event which affect a single user and could have removed permissions.
+   * 
+   * @param nameOfAffectedUser name of affected user
+   * 
+   * @return new revoking event for a single user
+   * @since 1.58
+   */
+  public static AuthorizationChangedEvent createRevokingForUser(String nameOfAffectedUser) {
+    return new AuthorizationChangedEvent(nameOfAffectedUser, true);
   }
   
 }
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.security;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+
+import org.apache.shiro.codec.Hex;
+
+import sonia.scm.util.AssertUtil;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * {@link PasswordEncryptionHandler} which stores passwords as salted
+ * PBKDF2WithHmacSHA1 hashes. The hash contains the number of iterations and
+ * the salt, in the form {PBKDF2}iterations$salt$hash, so that the number of
+ * iterations can be raised with the system property
+ * {@link #PROPERTY_ITERATIONS} without invalidating stored passwords.
+ * Unsalted hashes of the {@link MessageDigestEncryptionHandler} are still
+ * accepted by {@link #matches(String, String)}, they are replaced as soon as
+ * the password is changed.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public class PBKDF2EncryptionHandler implements PasswordEncryptionHandler
+{
+
+  /** algorithm of the key derivation */
+  public static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+
+  /** default number of iterations */
+  public static final int DEFAULT_ITERATIONS = 10000;
+
+  /** prefix of hashes created by this handler */
+  public static final String PREFIX = "{PBKDF2}";
+
+  /** system property for the number of iterations */
+  public static final String PROPERTY_ITERATIONS =
+    "sonia.scm.security.pbkdf2.iterations";
+
+  /** length of the hash in bytes */
+  private static final int HASH_LENGTH = 20;
+
+  /** length of the salt in bytes */
+  private static final int SALT_LENGTH = 16;
+
+  /** separator of iterations, salt and hash */
+  private static final char SEPARATOR = '$';
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new handler, which reads the number of iterations from the
+   * system property {@link #PROPERTY_ITERATIONS}.
+   *
+   */
+  public PBKDF2EncryptionHandler()
+  {
+    this(Integer.getInteger(PROPERTY_ITERATIONS, DEFAULT_ITERATIONS));
+  }
+
+  /**
+   * Constructs a new handler.
+   *
+   *
+   * @param iterations number of iterations for new hashes
+   */
+  public PBKDF2EncryptionHandler(int iterations)
+  {
+    AssertUtil.assertPositive(iterations);
+    this.iterations = iterations;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Creates a salted hash of the given password.
+   *
+   *
+   * @param value plain password
+   *
+   * @return salted hash
+   */
+  @Override
+  public String encrypt(String value)
+  {
+    AssertUtil.assertIsNotEmpty(value);
+
+    byte[] salt = new byte[SALT_LENGTH];
+
+    random.nextBytes(salt);
+
+    StringBuilder result = new StringBuilder(PREFIX);
+
+    result.append(iterations).append(SEPARATOR);
+    result.append(Hex.encodeToString(salt)).append(SEPARATOR);
+    result.append(Hex.encodeToString(hash(value, salt, iterations)));
+
+    return result.toString();
+  }
+
+  /**
+   * Returns true if the password matches the stored hash. The stored hash is
+   * either a hash of this handler or an unsalted hex encoded SHA-1 hash.
+   *
+   *
+   * @param password plain password
+   * @param encrypted stored hash of the password
+   *
+   * @return true if the password matches
+   */
+  @Override
+  public boolean matches(String password, String encrypted)
+  {
+    boolean result = false;
+
+    if ((password != null) && (encrypted != null))
+    {
+      if (encrypted.startsWith(PREFIX))
+      {
+        result = matchesPBKDF2(password, encrypted);
+      }
+      else
+      {
+        result = legacyHandler.encrypt(password).equalsIgnoreCase(encrypted);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Derives the hash of a password.
+   *
+   *
+   * @param password plain password
+   * @param salt salt
+   * @param iterations number of iterations
+   *
+   * @return hash of the password
+   */
+  @VisibleForTesting
+  static byte[] hash(String password, byte[] salt, int iterations)
+  {
+    PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations,
+                        HASH_LENGTH * 8);
+
+    try
+    {
+      return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(
+        spec).getEncoded();
+    }
+    catch (GeneralSecurityException ex)
+    {
+      throw new EncryptionException(ex);
+    }
+    finally
+    {
+      spec.clearPassword();
+    }
+  }
+
+  /**
+   * Compares the password with a hash of this handler.
+   *
+   *
+   * @param password plain password
+   * @param encrypted hash of this handler
+   *
+   * @return true if the password matches
+   */
+  private boolean matchesPBKDF2(String password, String encrypted)
+  {
+    boolean result = false;
+    Iterator<String> parts =
+      Splitter.on(SEPARATOR).split(
+        encrypted.substring(PREFIX.length())).iterator();
+
+    try
+    {
+      int storedIterations = Integer.parseInt(parts.next());
+      byte[] salt = Hex.decode(parts.next());
+      byte[] hash = Hex.decode(parts.next());
+
+      if (storedIterations > 0)
+      {
+        result = MessageDigest.isEqual(hash,
+          hash(password, salt, storedIterations));
+      }
+    }
+    catch (IllegalArgumentException | NoSuchElementException ex)
+    {
+
+      // malformed hash, never matches
+      result = false;
+    }
+
+    return result;
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the number of iterations for new hashes.
+   *
+   *
+   * @return number of iterations
+   */
+  public int getIterations()
+  {
+    return iterations;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** verifies unsalted hashes of older versions */
+  private final MessageDigestEncryptionHandler legacyHandler =
+    new MessageDigestEncryptionHandler();
+
+  /** source of the salts */
+  private final SecureRandom random = new SecureRandom();
+
+  /** number of iterations for new hashes */
+  private final int iterations;
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+
+package sonia.scm.security;
+
+/**
+ * Verify passwords against stored hashes.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public final class Passwords
+{
+
+  /**
+   * Constructs ...
+   *
+   */
+  private Passwords() {}
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Returns true if the password matches the stored hash. The
+   * {@link PasswordEncryptionHandler#matches(String, String)} method is used
+   * if the handler supports it, otherwise the password is hashed with
+   * {@link EncryptionHandler#encrypt(String)} and compared with the stored
+   * hash.
+   *
+   *
+   * @param handler encryption handler
+   * @param password plain password
+   * @param encrypted stored hash of the password
+   *
+   * @return true if the password matches
+   */
+  public static boolean matches(EncryptionHandler handler, String password,
+    String encrypted)
+  {
+    boolean result;
+
+    if (handler instanceof PasswordEncryptionHandler)
+    {
+      result = ((PasswordEncryptionHandler) handler).matches(password,
+        encrypted);
+    }
+    else
+    {
+      result = handler.encrypt(password).equalsIgnoreCase(encrypted);
+    }
+
+    return result;
+  }
+}
@@ -34,6 +34,7 @@ package sonia.scm.store;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -79,10 +80,28 @@ public interface BlobStore extends StoreBase<Blob>
   //~--- get methods ----------------------------------------------------------
 
   /**
-   * Return all blob object which are stored in this BlobStore.
+   * Return all blob object which are stored in this BlobStore. The returned
+   * list holds every blob of the store in memory, large stores should be
+   * traversed with {@link #iterator(String)} instead.
    *
    *
    * @return a list of all blob object
    */
   public List<Blob> getAll();
+
+  /**
+   * Returns an iterator, which reads the blobs of this BlobStore lazily. The
+   * blobs are returned in a stable order, which allows to page through the
+   * store: the iteration starts after the blob with the given id, which does
+   * not have to exist anymore.
+   *
+   *
+   * @param start id of the last blob of the previous page or {@code null} to
+   *   start with the first blob
+   *
+   * @return lazy iterator over the blobs of the store
+   *
+   * @since 1.58
+   */
+  public Iterator<Blob> iterator(String start);
 }
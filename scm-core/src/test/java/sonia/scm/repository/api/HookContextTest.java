@@ -39,6 +39,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 import org.junit.Before;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -129,6 +130,27 @@ public class HookContextTest {
     assertEquals("1", changesets.get(0).getId());
   }
   
+  /**
+   * Tests {@link HookChangesetBuilder#setDisableModifications(boolean)} and the
+   * handling of changesets which are not shared between iterations.
+   */
+  @Test
+  public void testGetChangesetProviderWithDisabledModifications() {
+    Changeset changeset = new Changeset("2", Long.MIN_VALUE, new Person("Arthur"));
+    HookChangesetResponse response = new HookChangesetResponse(Lists.newArrayList(changeset), false);
+    when(changesetProvider.handleRequest(any(HookChangesetRequest.class))).thenReturn(response);
+    
+    HookChangesetBuilder builder = context.getChangesetProvider();
+    List<Changeset> changesets = builder.setDisableModifications(true).getChangesetList();
+    
+    ArgumentCaptor<HookChangesetRequest> captor = ArgumentCaptor.forClass(HookChangesetRequest.class);
+    verify(changesetProvider).handleRequest(captor.capture());
+    assertTrue(captor.getValue().isDisableModifications());
+    
+    // changesets which are not shared, are not copied
+    assertSame(changeset, changesets.get(0));
+  }
+  
   /**
    * Tests {@link HookContext#isFeatureSupported(sonia.scm.repository.api.HookFeature)}.
    */
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+package sonia.scm.security;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PBKDF2EncryptionHandler}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class PBKDF2EncryptionHandlerTest {
+
+  private final PBKDF2EncryptionHandler handler = new PBKDF2EncryptionHandler(1000);
+
+  /**
+   * Tests that a created hash matches its password and nothing else.
+   */
+  @Test
+  public void testMatches() {
+    String hash = handler.encrypt("hallo123");
+    assertTrue(hash.startsWith(PBKDF2EncryptionHandler.PREFIX + "1000$"));
+    assertTrue(handler.matches("hallo123", hash));
+    assertFalse(handler.matches("hallo124", hash));
+  }
+
+  /**
+   * Tests that every hash uses a new salt.
+   */
+  @Test
+  public void testSalted() {
+    String first = handler.encrypt("hallo123");
+    String second = handler.encrypt("hallo123");
+    assertNotEquals(first, second);
+    assertTrue(handler.matches("hallo123", second));
+  }
+
+  /**
+   * Tests that hashes with another number of iterations are still verified.
+   */
+  @Test
+  public void testMatchesOtherIterations() {
+    String hash = new PBKDF2EncryptionHandler(10).encrypt("hallo123");
+    assertTrue(handler.matches("hallo123", hash));
+  }
+
+  /**
+   * Tests that unsalted hashes of the {@link MessageDigestEncryptionHandler}
+   * are verified.
+   */
+  @Test
+  public void testMatchesLegacyHash() {
+    String hash = new MessageDigestEncryptionHandler().encrypt("hallo123");
+    assertTrue(handler.matches("hallo123", hash));
+    assertTrue(handler.matches("hallo123", hash.toUpperCase()));
+    assertFalse(handler.matches("hallo124", hash));
+  }
+
+  /**
+   * Tests that malformed hashes never match.
+   */
+  @Test
+  public void testMalformedHash() {
+    assertFalse(handler.matches("hallo123", PBKDF2EncryptionHandler.PREFIX));
+    assertFalse(handler.matches("hallo123", PBKDF2EncryptionHandler.PREFIX + "x$00$00"));
+    assertFalse(handler.matches("hallo123", PBKDF2EncryptionHandler.PREFIX + "0$00$00"));
+    assertFalse(handler.matches("hallo123", null));
+  }
+
+}
@@ -65,7 +65,8 @@ public class XmlGroupDAO extends AbstractXmlDAO<Group, XmlGroupDatabase>
   @Inject
   public XmlGroupDAO(StoreFactory storeFactory)
   {
-    super(storeFactory.getStore(XmlGroupDatabase.class, STORE_NAME));
+    super(storeFactory.getStore(XmlGroupDatabase.class, STORE_NAME),
+      Group.class);
   }
 
   //~--- methods --------------------------------------------------------------
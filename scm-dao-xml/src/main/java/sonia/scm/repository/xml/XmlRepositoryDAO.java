@@ -38,10 +38,15 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 import sonia.scm.repository.Repository;
-import sonia.scm.repository.RepositoryDAO;
+import sonia.scm.repository.RepositorySortKey;
+import sonia.scm.repository.SortedRepositoryDAO;
 import sonia.scm.store.StoreFactory;
 import sonia.scm.xml.AbstractXmlDAO;
 
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Collection;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -49,7 +54,7 @@ import sonia.scm.xml.AbstractXmlDAO;
 @Singleton
 public class XmlRepositoryDAO
         extends AbstractXmlDAO<Repository, XmlRepositoryDatabase>
-        implements RepositoryDAO
+        implements SortedRepositoryDAO
 {
 
   /** Field description */
@@ -66,7 +71,8 @@ public class XmlRepositoryDAO
   @Inject
   public XmlRepositoryDAO(StoreFactory storeFactory)
   {
-    super(storeFactory.getStore(XmlRepositoryDatabase.class, STORE_NAME));
+    super(storeFactory.getStore(XmlRepositoryDatabase.class, STORE_NAME),
+      Repository.class);
   }
 
   //~--- methods --------------------------------------------------------------
@@ -103,6 +109,21 @@ public class XmlRepositoryDAO
     return db.get(type, name);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param key
+   * @param desc
+   *
+   * @return
+   */
+  @Override
+  public Collection<Repository> getAll(RepositorySortKey key, boolean desc)
+  {
+    return db.getSorted(key, desc);
+  }
+
   //~--- methods --------------------------------------------------------------
 
   /**
@@ -36,13 +36,22 @@ package sonia.scm.repository.xml;
 //~--- non-JDK imports --------------------------------------------------------
 
 import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositorySortKey;
 import sonia.scm.xml.XmlDatabase;
 
 //~--- JDK imports ------------------------------------------------------------
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import javax.xml.bind.Unmarshaller;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -100,6 +109,28 @@ public class XmlRepositoryDatabase implements XmlDatabase<Repository>
     return createKey(repository.getType(), repository.getName());
   }
 
+  /**
+   * Creates an empty sort index for each sort key.
+   *
+   *
+   * @return empty sort indexes
+   */
+  private static Map<RepositorySortKey,
+    NavigableSet<Repository>> createSortIndex()
+  {
+    Map<RepositorySortKey, NavigableSet<Repository>> index =
+      new EnumMap<RepositorySortKey,
+        NavigableSet<Repository>>(RepositorySortKey.class);
+
+    for (RepositorySortKey key : RepositorySortKey.values())
+    {
+      index.put(key,
+        new ConcurrentSkipListSet<Repository>(key.getComparator()));
+    }
+
+    return index;
+  }
+
   /**
    * Method description
    *
@@ -109,7 +140,104 @@ public class XmlRepositoryDatabase implements XmlDatabase<Repository>
   @Override
   public void add(Repository repository)
   {
-    repositoryMap.put(createKey(repository), repository);
+    Repository old = repositoryMap.put(createKey(repository), repository);
+
+    if (old != null)
+    {
+      removeFromIndex(old);
+    }
+
+    addToIndex(repository);
+  }
+
+  /**
+   * Rebuilds the index of the repositories by id, after the repository map
+   * was filled by jaxb.
+   *
+   *
+   * @param unmarshaller
+   * @param parent
+   */
+  void afterUnmarshal(Unmarshaller unmarshaller, Object parent)
+  {
+    idIndex.clear();
+
+    for (NavigableSet<Repository> index : sortIndex.values())
+    {
+      index.clear();
+    }
+
+    for (Repository r : repositoryMap.values())
+    {
+      addToIndex(r);
+    }
+  }
+
+  /**
+   * Adds the repository to the index by id and to the sort indexes.
+   *
+   *
+   * @param repository repository
+   */
+  private void addToIndex(Repository repository)
+  {
+    if (repository.getId() != null)
+    {
+      idIndex.put(repository.getId(), repository);
+    }
+
+    for (NavigableSet<Repository> index : sortIndex.values())
+    {
+      index.add(repository);
+    }
+  }
+
+  /**
+   * Removes the repository from the index by id and from the sort indexes.
+   *
+   *
+   * @param repository repository
+   */
+  private void removeFromIndex(Repository repository)
+  {
+    if (repository.getId() != null)
+    {
+      idIndex.remove(repository.getId());
+    }
+
+    for (NavigableSet<Repository> index : sortIndex.values())
+    {
+      if (!index.remove(repository))
+      {
+
+        // the sorted properties of the stored instance were changed in place
+        removeByIdentity(index, repository);
+      }
+    }
+  }
+
+  /**
+   * Removes the repository instance from the sort index, without using the
+   * order of the index.
+   *
+   *
+   * @param index sort index
+   * @param repository repository instance
+   */
+  private void removeByIdentity(NavigableSet<Repository> index,
+    Repository repository)
+  {
+    Iterator<Repository> it = index.iterator();
+
+    while (it.hasNext())
+    {
+      if (it.next() == repository)
+      {
+        it.remove();
+
+        break;
+      }
+    }
   }
 
   /**
@@ -162,7 +290,12 @@ public class XmlRepositoryDatabase implements XmlDatabase<Repository>
    */
   public void remove(Repository repository)
   {
-    repositoryMap.remove(createKey(repository));
+    Repository old = repositoryMap.remove(createKey(repository));
+
+    if (old != null)
+    {
+      removeFromIndex(old);
+    }
   }
 
   /**
@@ -178,7 +311,10 @@ public class XmlRepositoryDatabase implements XmlDatabase<Repository>
   {
     Repository r = get(id);
 
-    remove(r);
+    if (r != null)
+    {
+      remove(r);
+    }
 
     return r;
   }
@@ -222,19 +358,30 @@ public class XmlRepositoryDatabase implements XmlDatabase<Repository>
   @Override
   public Repository get(String id)
   {
-    Repository repository = null;
+    return (id != null)
+      ? idIndex.get(id)
+      : null;
+  }
 
-    for (Repository r : values())
-    {
-      if (r.getId().equals(id))
-      {
-        repository = r;
+  /**
+   * Returns a read only view of the sort index for the given key.
+   *
+   *
+   * @param key sort key
+   * @param desc true for descending order
+   *
+   * @return repositories ordered by the sort key
+   */
+  public Collection<Repository> getSorted(RepositorySortKey key, boolean desc)
+  {
+    NavigableSet<Repository> index = sortIndex.get(key);
 
-        break;
-      }
+    if (desc)
+    {
+      index = index.descendingSet();
     }
 
-    return repository;
+    return Collections.unmodifiableCollection(index);
   }
 
   /**
@@ -292,6 +439,14 @@ public class XmlRepositoryDatabase implements XmlDatabase<Repository>
   /** Field description */
   private Long creationTime;
 
+  /** repositories by id, not stored */
+  private transient Map<String, Repository> idIndex =
+    new ConcurrentHashMap<String, Repository>();
+
+  /** repositories ordered by each sort key, not stored */
+  private transient Map<RepositorySortKey, NavigableSet<Repository>> sortIndex =
+    createSortIndex();
+
   /** Field description */
   private Long lastModified;
 
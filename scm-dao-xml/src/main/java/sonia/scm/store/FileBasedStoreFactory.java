@@ -87,6 +87,21 @@ public class FileBasedStoreFactory
    * @return
    */
   protected File getDirectory(String name)
+  {
+    File storeDirectory = new File(getDataDirectory(), name);
+
+    IOUtil.mkdirs(storeDirectory);
+
+    return storeDirectory;
+  }
+
+  /**
+   * Returns the directory, which contains the directories of all stores.
+   *
+   *
+   * @return data directory
+   */
+  protected File getDataDirectory()
   {
     if (dataDirectory == null)
     {
@@ -95,11 +110,7 @@ public class FileBasedStoreFactory
       logger.debug("create data directory {}", dataDirectory);
     }
 
-    File storeDirectory = new File(dataDirectory, name);
-
-    IOUtil.mkdirs(storeDirectory);
-
-    return storeDirectory;
+    return dataDirectory;
   }
 
   //~--- fields ---------------------------------------------------------------
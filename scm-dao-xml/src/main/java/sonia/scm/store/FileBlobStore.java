@@ -30,37 +30,81 @@
  */
 
 
+
 package sonia.scm.store;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.Charsets;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hashing;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import sonia.scm.security.KeyGenerator;
+import sonia.scm.util.IOUtil;
 
 //~--- JDK imports ------------------------------------------------------------
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
+ * Stores blobs as files in a sharded directory layout. Each blob is stored in
+ * two levels of directories, which are named after the first four hex
+ * characters of the blob id, e.g. {@code ab/cd/abcdef...blob}. Content
+ * addressed ids like the sha256 of lfs objects are used as they are, all other
+ * ids are sharded by their sha1 hash. Blob stores with the flat layout of
+ * older versions are migrated in place by the {@link FileBlobStoreFactory}.
  *
  * @author Sebastian Sdorra
  */
 public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore
 {
 
+  /** matcher for lower case hex ids */
+  private static final CharMatcher HEX = CharMatcher.inRange('0',
+                                           '9').or(CharMatcher.inRange('a',
+                                             'f'));
+
+  /** length of the name of a shard directory */
+  private static final int SHARD_LENGTH = 2;
+
   /** Field description */
   private static final String SUFFIX = ".blob";
 
+  /** accepts blob files */
+  private static final FileFilter BLOB_FILTER = new FileFilter()
+  {
+    @Override
+    public boolean accept(File file)
+    {
+      return file.isFile() && file.getName().endsWith(SUFFIX);
+    }
+  };
+
+  /** accepts shard directories */
+  private static final FileFilter SHARD_FILTER = new FileFilter()
+  {
+    @Override
+    public boolean accept(File file)
+    {
+      return file.isDirectory() && (file.getName().length() == SHARD_LENGTH);
+    }
+  };
+
   /**
    * the logger for FileBlobStore
    */
@@ -84,6 +128,31 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore
 
   //~--- methods --------------------------------------------------------------
 
+  /**
+   * Removes all blobs and shard directories of the store.
+   *
+   */
+  @Override
+  public void clear()
+  {
+    logger.debug("clear store");
+
+    for (File first : list(directory, SHARD_FILTER))
+    {
+      for (File second : list(first, SHARD_FILTER))
+      {
+        for (File file : listBlobs(second))
+        {
+          remove(file);
+        }
+
+        remove(second);
+      }
+
+      remove(first);
+    }
+  }
+
   /**
    * Method description
    *
@@ -120,7 +189,10 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore
         throw new EntryAlreadyExistsStoreException(
           "blob with id ".concat(id).concat(" allready exists"));
       }
-      else if (!file.createNewFile())
+
+      IOUtil.mkdirs(file.getParentFile());
+
+      if (!file.createNewFile())
       {
         throw new StoreException("could not create blob for id ".concat(id));
       }
@@ -133,6 +205,20 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore
     return new FileBlob(id, file);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param start
+   *
+   * @return
+   */
+  @Override
+  public Iterator<Blob> iterator(String start)
+  {
+    return new BlobIterator(start);
+  }
+
   /**
    * Method description
    *
@@ -159,14 +245,7 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore
   {
     logger.trace("get all items from data store");
 
-    Builder<Blob> builder = ImmutableList.builder();
-
-    for (File file : directory.listFiles())
-    {
-      builder.add(read(file));
-    }
-
-    return builder.build();
+    return ImmutableList.copyOf(iterator(null));
   }
 
   //~--- methods --------------------------------------------------------------
@@ -194,8 +273,273 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore
     return blob;
   }
 
+  /**
+   * Returns the sorted files of the directory, which are accepted by the
+   * filter.
+   *
+   *
+   * @param directory
+   * @param filter
+   *
+   * @return
+   */
+  private static List<File> list(File directory, FileFilter filter)
+  {
+    List<File> files;
+    File[] children = directory.listFiles(filter);
+
+    if (children == null)
+    {
+      files = Collections.emptyList();
+    }
+    else
+    {
+      Arrays.sort(children);
+      files = Arrays.asList(children);
+    }
+
+    return files;
+  }
+
+  /**
+   * Returns the blob files of the directory sorted by their id.
+   *
+   *
+   * @param directory
+   *
+   * @return
+   */
+  private List<File> listBlobs(File directory)
+  {
+    return idOrdering.sortedCopy(list(directory, BLOB_FILTER));
+  }
+
+  /**
+   * Moves the blobs of the flat layout, which was used before 1.58, into
+   * their shard directories. A blob, which was already moved to its shard
+   * directory, is skipped.
+   *
+   */
+  void migrate()
+  {
+    File[] files = directory.listFiles(BLOB_FILTER);
+
+    if ((files != null) && (files.length > 0))
+    {
+      logger.info("migrate {} blobs of {} to sharded layout", files.length,
+        directory);
+
+      for (File file : files)
+      {
+        File target = getFile(getId(file));
+
+        IOUtil.mkdirs(target.getParentFile());
+
+        if (!file.renameTo(target) && (file.exists() ||!target.exists()))
+        {
+          throw new StoreException(
+            "could not migrate blob ".concat(file.getPath()));
+        }
+      }
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the file of the blob in its shard directory.
+   *
+   *
+   * @param id id of the blob
+   *
+   * @return file of the blob
+   */
+  @Override
+  protected File getFile(String id)
+  {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(id),
+      "id argument is required");
+
+    String key = getShardKey(id);
+    File shard = new File(new File(directory, key.substring(0,
+                   SHARD_LENGTH)), key.substring(SHARD_LENGTH,
+                     SHARD_LENGTH * 2));
+
+    return new File(shard, id.concat(SUFFIX));
+  }
+
+  /**
+   * Returns the key, which is used to select the shard directories of the
+   * blob.
+   *
+   *
+   * @param id id of the blob
+   *
+   * @return hex key
+   */
+  private String getShardKey(String id)
+  {
+    String key = id;
+
+    if ((id.length() < SHARD_LENGTH * 2) ||!HEX.matchesAllOf(id))
+    {
+      key = Hashing.sha1().hashString(id, Charsets.UTF_8).toString();
+    }
+
+    return key;
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Walks lazily through the shard directories. Only the directory, which is
+   * currently visited, is listed. Blobs are returned in the order of their
+   * shard directories and ids, iteration starts after the given id.
+   */
+  private class BlobIterator extends AbstractIterator<Blob>
+  {
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param start
+     */
+    BlobIterator(String start)
+    {
+      this.start = start;
+
+      if (start != null)
+      {
+        String key = getShardKey(start);
+
+        firstShard = key.substring(0, SHARD_LENGTH);
+        secondShard = key.substring(SHARD_LENGTH, SHARD_LENGTH * 2);
+      }
+
+      firstLevel = list(directory, SHARD_FILTER).iterator();
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * Method description
+     *
+     *
+     * @return
+     */
+    @Override
+    protected Blob computeNext()
+    {
+      Blob blob = null;
+
+      while (blob == null)
+      {
+        if (files.hasNext())
+        {
+          File file = files.next();
+
+          if ((startInLeaf == null)
+            || (getId(file).compareTo(startInLeaf) > 0))
+          {
+            blob = read(file);
+          }
+        }
+        else if (secondLevel.hasNext())
+        {
+          File second = secondLevel.next();
+          int c = compare(second, secondShard, startInSecond);
+
+          if (c >= 0)
+          {
+            startInLeaf = (c == 0)
+              ? start
+              : null;
+            files = listBlobs(second).iterator();
+          }
+        }
+        else if (firstLevel.hasNext())
+        {
+          File first = firstLevel.next();
+          int c = compare(first, firstShard, true);
+
+          if (c >= 0)
+          {
+            startInSecond = c == 0;
+            secondLevel = list(first, SHARD_FILTER).iterator();
+          }
+        }
+        else
+        {
+          return endOfData();
+        }
+      }
+
+      return blob;
+    }
+
+    /**
+     * Compares the name of the shard directory with the shard of the start id.
+     *
+     *
+     * @param shard
+     * @param startShard
+     * @param active true if the parent directory is the shard of the start id
+     *
+     * @return
+     */
+    private int compare(File shard, String startShard, boolean active)
+    {
+      int c = 1;
+
+      if ((startShard != null) && active)
+      {
+        c = shard.getName().compareTo(startShard);
+      }
+
+      return c;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** blob files of the current leaf directory */
+    private Iterator<File> files = Collections.<File>emptyIterator();
+
+    /** first level shard directories */
+    private final Iterator<File> firstLevel;
+
+    /** second level shard directories of the current first level directory */
+    private Iterator<File> secondLevel = Collections.<File>emptyIterator();
+
+    /** id of the last blob of the previous page */
+    private final String start;
+
+    /** first shard of the start id */
+    private String firstShard;
+
+    /** second shard of the start id */
+    private String secondShard;
+
+    /** true if the current first level directory is the shard of start */
+    private boolean startInSecond = false;
+
+    /** start id, if the current leaf directory is the shard of start */
+    private String startInLeaf;
+  }
+
+
   //~--- fields ---------------------------------------------------------------
 
-  /** key generator */
+  /** orders blob files by their id */
+  private final Ordering<File> idOrdering = new Ordering<File>()
+  {
+    @Override
+    public int compare(File left, File right)
+    {
+      return getId(left).compareTo(getId(right));
+    }
+  };
+
+  /** Field description */
   private final KeyGenerator keyGenerator;
 }
@@ -40,14 +40,26 @@ import com.google.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sonia.scm.EagerSingleton;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.security.KeyGenerator;
 
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
+ * Creates {@link FileBlobStore}s. Stores with the flat layout of older
+ * versions are migrated once, when the factory is created at startup.
  *
  * @author Sebastian Sdorra
  */
 @Singleton
+@EagerSingleton
 public class FileBlobStoreFactory extends FileBasedStoreFactory
   implements BlobStoreFactory
 {
@@ -76,6 +88,38 @@ public class FileBlobStoreFactory extends FileBasedStoreFactory
   {
     super(context, DIRECTORY_NAME);
     this.keyGenerator = keyGenerator;
+
+    File[] directories = getDataDirectory().listFiles();
+
+    if (directories != null)
+    {
+      for (File directory : directories)
+      {
+        if (directory.isDirectory())
+        {
+          migrate(new FileBlobStore(keyGenerator, directory), directory);
+        }
+      }
+    }
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Migrates the store to the sharded layout, if this was not done before
+   * for its directory.
+   *
+   *
+   * @param store blob store
+   * @param directory directory of the store
+   */
+  private synchronized void migrate(FileBlobStore store, File directory)
+  {
+    if (!migrated.contains(directory))
+    {
+      store.migrate();
+      migrated.add(directory);
+    }
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -93,11 +137,23 @@ public class FileBlobStoreFactory extends FileBasedStoreFactory
   {
     logger.debug("create new blob with name {}", name);
 
-    return new FileBlobStore(keyGenerator, getDirectory(name));
+    File directory = getDirectory(name);
+    FileBlobStore store = new FileBlobStore(keyGenerator, directory);
+
+    if (!migrated.contains(directory))
+    {
+      migrate(store, directory);
+    }
+
+    return store;
   }
 
   //~--- fields ---------------------------------------------------------------
 
   /** key generator */
   private final KeyGenerator keyGenerator;
+
+  /** directories of the stores, which are already migrated */
+  private final Set<File> migrated =
+    Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
 }
@@ -39,6 +39,7 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +53,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
@@ -61,6 +63,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -75,15 +81,29 @@ import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 /**
+ * Configuration entry store which stores its entries in a xml file. The file
+ * is always written to a temporary file first, which replaces the store file
+ * afterwards. If the system property {@link #PROPERTY_WRITE_BEHIND} is set to
+ * true, all changes within a short time window are written with a single
+ * write of the store file. The delayed writes are executed by the executor of
+ * the {@link JAXBConfigurationEntryStoreFactory}, which writes all pending
+ * changes when it is closed.
  *
  * @author Sebastian Sdorra
  *
  * @param <V>
  */
 public class JAXBConfigurationEntryStore<V>
-  implements ConfigurationEntryStore<V>
+  implements BulkConfigurationEntryStore<V>
 {
 
+  /**
+   * system property to enable the write behind mode
+   * @since 1.58
+   */
+  public static final String PROPERTY_WRITE_BEHIND =
+    "sonia.scm.store.writebehind";
+
   /** Field description */
   private static final String TAG_CONFIGURATION = "configuration";
 
@@ -102,6 +122,9 @@ public class JAXBConfigurationEntryStore<V>
   private static final Logger logger =
     LoggerFactory.getLogger(JAXBConfigurationEntryStore.class);
 
+  /** delay in milliseconds between the first change and the write */
+  private static final long WRITE_BEHIND_DELAY = 200;
+
   //~--- constructors ---------------------------------------------------------
 
   /**
@@ -115,10 +138,29 @@ public class JAXBConfigurationEntryStore<V>
    */
   JAXBConfigurationEntryStore(File file, KeyGenerator keyGenerator,
     Class<V> type)
+  {
+    this(file, keyGenerator, type, null);
+  }
+
+  /**
+   * Constructs a new configuration entry store.
+   *
+   *
+   * @param file store file
+   * @param keyGenerator key generator
+   * @param type type of the entries
+   * @param writeBehindExecutor executor for delayed writes or null to write
+   *   every change immediately
+   *
+   * @since 1.58
+   */
+  JAXBConfigurationEntryStore(File file, KeyGenerator keyGenerator,
+    Class<V> type, ScheduledExecutorService writeBehindExecutor)
   {
     this.file = file;
     this.keyGenerator = keyGenerator;
     this.type = type;
+    this.writeBehindExecutor = writeBehindExecutor;
 
     try
     {
@@ -149,7 +191,7 @@ public class JAXBConfigurationEntryStore<V>
     synchronized (file)
     {
       entries.clear();
-      store();
+      changed();
     }
   }
 
@@ -186,7 +228,7 @@ public class JAXBConfigurationEntryStore<V>
     synchronized (file)
     {
       entries.put(id, item);
-      store();
+      changed();
     }
   }
 
@@ -204,7 +246,62 @@ public class JAXBConfigurationEntryStore<V>
     synchronized (file)
     {
       entries.remove(id);
-      store();
+      changed();
+    }
+  }
+
+  /**
+   * Writes all pending changes of the write behind mode to the store file.
+   *
+   * @since 1.58
+   */
+  public void flush()
+  {
+    synchronized (file)
+    {
+      if (scheduledWrite != null)
+      {
+        scheduledWrite.cancel(false);
+        scheduledWrite = null;
+      }
+
+      if (dirty)
+      {
+        store();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param update
+   */
+  @Override
+  public void update(BulkUpdate<V> update)
+  {
+    logger.debug("start bulk update of configuration store");
+
+    synchronized (file)
+    {
+      bulkDepth++;
+
+      try
+      {
+        update.apply(this);
+      }
+      finally
+      {
+        bulkDepth--;
+      }
+
+      // changes of a bulk update are written immediately, even in write
+      // behind mode
+      if ((bulkDepth == 0) && dirty)
+      {
+        flush();
+      }
     }
   }
 
@@ -256,6 +353,32 @@ public class JAXBConfigurationEntryStore<V>
 
   //~--- methods --------------------------------------------------------------
 
+  /**
+   * Writes the store or marks the store as dirty, if the write is delayed by a
+   * bulk update or by the write behind mode. Must be called with the lock of
+   * the store.
+   */
+  private void changed()
+  {
+    if (bulkDepth > 0)
+    {
+      dirty = true;
+    }
+    else if (writeBehindExecutor != null)
+    {
+      dirty = true;
+
+      if (scheduledWrite == null)
+      {
+        scheduleWrite();
+      }
+    }
+    else
+    {
+      store();
+    }
+  }
+
   /**
    * Method description
    *
@@ -315,13 +438,48 @@ public class JAXBConfigurationEntryStore<V>
    * Method description
    *
    *
+   * @param target
+   *
    * @return
    *
    * @throws FileNotFoundException
    */
-  private Writer createWriter() throws FileNotFoundException
+  private Writer createWriter(File target) throws FileNotFoundException
+  {
+    return new OutputStreamWriter(new FileOutputStream(target),
+      Charsets.UTF_8);
+  }
+
+  /**
+   * Schedules a delayed write of the store. If the executor was already shut
+   * down by the factory, the store is written immediately. Must be called with
+   * the lock of the store.
+   */
+  private void scheduleWrite()
   {
-    return new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8);
+    try
+    {
+      scheduledWrite = writeBehindExecutor.schedule(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            flush();
+          }
+          catch (StoreException ex)
+          {
+            logger.error("could not write configuration store", ex);
+          }
+        }
+      }, WRITE_BEHIND_DELAY, TimeUnit.MILLISECONDS);
+    }
+    catch (RejectedExecutionException ex)
+    {
+      logger.debug("write behind executor is shut down, write store directly");
+      store();
+    }
   }
 
   /**
@@ -403,15 +561,19 @@ public class JAXBConfigurationEntryStore<V>
   {
     logger.debug("store configuration to {}", file);
 
+    // write to a temporary file first, to never leave a half written store
+    File tempFile = new File(file.getParentFile(),
+                      file.getName().concat(".tmp"));
+    Writer output = null;
     IndentXMLStreamWriter writer = null;
 
     try
     {
+      output = createWriter(tempFile);
+
       //J-
       writer = new IndentXMLStreamWriter(
-        XMLOutputFactory.newInstance().createXMLStreamWriter(
-          createWriter()
-        )
+        XMLOutputFactory.newInstance().createXMLStreamWriter(output)
       );
       //J+
       writer.writeStartDocument();
@@ -449,6 +611,13 @@ public class JAXBConfigurationEntryStore<V>
       // configuration end
       writer.writeEndElement();
       writer.writeEndDocument();
+      writer.close();
+      writer = null;
+      output.close();
+      output = null;
+
+      JAXBStore.replace(tempFile, file);
+      dirty = false;
     }
     catch (Exception ex)
     {
@@ -457,6 +626,27 @@ public class JAXBConfigurationEntryStore<V>
     finally
     {
       close(writer);
+      close(output);
+    }
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param output
+   */
+  private void close(Writer output)
+  {
+    try
+    {
+      Closeables.close(output, true);
+    }
+    catch (IOException ex)
+    {
+
+      // never thrown, because the exception is swallowed
+      logger.error("could not close output", ex);
     }
   }
 
@@ -476,4 +666,16 @@ public class JAXBConfigurationEntryStore<V>
 
   /** Field description */
   private Class<V> type;
+
+  /** executor for delayed writes or null, if the write behind mode is off */
+  private final ScheduledExecutorService writeBehindExecutor;
+
+  /** depth of nested bulk updates, guarded by the lock of the store */
+  private int bulkDepth = 0;
+
+  /** true if the store has changes, which are not written yet */
+  private boolean dirty = false;
+
+  /** scheduled write of the write behind mode or null */
+  private ScheduledFuture<?> scheduledWrite;
 }
@@ -35,6 +35,7 @@ package sonia.scm.store;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -47,17 +48,25 @@ import sonia.scm.util.IOUtil;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.io.Closeable;
 import java.io.File;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  *
  * @author Sebastian Sdorra
  */
 @Singleton
 public class JAXBConfigurationEntryStoreFactory
-  implements ConfigurationEntryStoreFactory
+  implements ConfigurationEntryStoreFactory, Closeable
 {
 
+  /** maximum time in seconds to wait for pending writes on close */
+  private static final long CLOSE_TIMEOUT = 10;
+
   /**
    * the logger for JAXBConfigurationEntryStoreFactory
    */
@@ -81,6 +90,53 @@ public class JAXBConfigurationEntryStoreFactory
     directory = new File(context.getBaseDirectory(),
       StoreConstants.CONFIGDIRECTORY_NAME);
     IOUtil.mkdirs(directory);
+
+    if (Boolean.getBoolean(JAXBConfigurationEntryStore.PROPERTY_WRITE_BEHIND))
+    {
+      //J-
+      writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+          .setNameFormat("ConfigurationEntryStore-%d")
+          .setDaemon(true)
+          .build()
+      );
+      //J+
+    }
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Writes the pending changes of all stores in write behind mode and stops
+   * the executor of the delayed writes. Stores which are changed afterwards,
+   * write their changes immediately.
+   *
+   * @since 1.58
+   */
+  @Override
+  public void close()
+  {
+    if (writeBehindExecutor != null)
+    {
+      logger.debug("write pending changes of configuration stores");
+
+      // delayed writes which are already scheduled, are executed after shutdown
+      writeBehindExecutor.shutdown();
+
+      try
+      {
+        if (!writeBehindExecutor.awaitTermination(CLOSE_TIMEOUT,
+          TimeUnit.SECONDS))
+        {
+          logger.warn("pending changes of configuration stores not written");
+        }
+      }
+      catch (InterruptedException ex)
+      {
+        logger.warn("interrupted while waiting for pending writes", ex);
+        Thread.currentThread().interrupt();
+      }
+    }
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -105,7 +161,8 @@ public class JAXBConfigurationEntryStoreFactory
     return new JAXBConfigurationEntryStore<T>(
       new File(directory,name.concat(StoreConstants.FILE_EXTENSION)), 
       keyGenerator, 
-      type
+      type,
+      writeBehindExecutor
     );
     //J+
   }
@@ -117,4 +174,7 @@ public class JAXBConfigurationEntryStoreFactory
 
   /** Field description */
   private KeyGenerator keyGenerator;
+
+  /** executor for delayed writes or null, if the write behind mode is off */
+  private ScheduledExecutorService writeBehindExecutor;
 }
@@ -41,6 +41,11 @@ import org.slf4j.LoggerFactory;
 //~--- JDK imports ------------------------------------------------------------
 
 import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -84,6 +89,19 @@ public class JAXBStore<T> extends AbstractListenableStore<T>
 
   //~--- get methods ----------------------------------------------------------
 
+  /**
+   * Returns the file of the store.
+   *
+   *
+   * @return file of the store
+   *
+   * @since 1.58
+   */
+  public File getFile()
+  {
+    return configFile;
+  }
+
   /**
    * Method description
    *
@@ -148,15 +166,46 @@ public class JAXBStore<T> extends AbstractListenableStore<T>
       Marshaller marshaller = context.createMarshaller();
 
       marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-      marshaller.marshal(object, configFile);
+
+      // write to a temporary file first, to never leave a half written store
+      File tempFile = new File(configFile.getParentFile(),
+                        configFile.getName().concat(".tmp"));
+
+      marshaller.marshal(object, tempFile);
+      replace(tempFile, configFile);
       fireEvent(object);
     }
-    catch (JAXBException ex)
+    catch (JAXBException | IOException ex)
     {
       throw new StoreException(ex);
     }
   }
 
+  /**
+   * Replaces the target file with the source file. The file is moved
+   * atomically, if the file system supports atomic moves.
+   *
+   *
+   * @param source source file
+   * @param target target file
+   *
+   * @throws IOException
+   */
+  static void replace(File source, File target) throws IOException
+  {
+    try
+    {
+      Files.move(source.toPath(), target.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (AtomicMoveNotSupportedException ex)
+    {
+      logger.trace("file system does not support atomic moves", ex);
+      Files.move(source.toPath(), target.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
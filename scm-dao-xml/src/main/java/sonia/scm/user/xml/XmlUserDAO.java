@@ -65,7 +65,7 @@ public class XmlUserDAO extends AbstractXmlDAO<User, XmlUserDatabase>
   @Inject
   public XmlUserDAO(StoreFactory storeFactory)
   {
-    super(storeFactory.getStore(XmlUserDatabase.class, STORE_NAME));
+    super(storeFactory.getStore(XmlUserDatabase.class, STORE_NAME), User.class);
   }
 
   //~--- methods --------------------------------------------------------------
@@ -35,19 +35,33 @@ package sonia.scm.xml;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import sonia.scm.GenericDAO;
 import sonia.scm.ModelObject;
 import sonia.scm.group.xml.XmlGroupDAO;
+import sonia.scm.store.JAXBStore;
 import sonia.scm.store.Store;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.io.File;
+
 import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Base class for xml based data access objects. Without journal every change
+ * rewrites the whole database. If the journal mode is enabled with the system
+ * property {@link #PROPERTY_JOURNAL}, changes are appended to a
+ * {@link XmlDatabaseJournal} and are written to the database file in batches
+ * by a background task.
  *
  * @author Sebastian Sdorra
  *
@@ -58,9 +72,30 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
         T extends XmlDatabase<I>> implements GenericDAO<I>
 {
 
+  /**
+   * system property to enable the journal mode
+   * @since 1.58
+   */
+  public static final String PROPERTY_JOURNAL = "sonia.scm.xml.journal";
+
   /** Field description */
   public static final String TYPE = "xml";
 
+  /** file extension of the journal */
+  private static final String JOURNAL_EXTENSION = ".journal";
+
+  /** delay in seconds between the first change and the next compaction */
+  private static final long COMPACTION_DELAY = 5;
+
+  /** number of journal entries, which start a compaction without delay */
+  private static final int COMPACTION_THRESHOLD = 1000;
+
+  /** executor for the compaction of journals */
+  private static final ScheduledExecutorService compactionExecutor =
+    Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("XmlJournalCompaction-%d")
+        .setDaemon(true).build());
+
   /**
    * the logger for XmlGroupDAO
    */
@@ -87,6 +122,30 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
     }
   }
 
+  /**
+   * Constructs a new dao, which uses a journal for changes, if the journal
+   * mode is enabled and the store is file based.
+   *
+   *
+   * @param store store of the database
+   * @param type type of the items
+   *
+   * @since 1.58
+   */
+  protected AbstractXmlDAO(Store<T> store, Class<I> type)
+  {
+    this(store);
+
+    if (Boolean.getBoolean(PROPERTY_JOURNAL) && (store instanceof JAXBStore))
+    {
+      File file = ((JAXBStore<T>) store).getFile();
+
+      journal = new XmlDatabaseJournal<I>(type,
+        new File(file.getParentFile(), file.getName().concat(JOURNAL_EXTENSION)));
+      recover();
+    }
+  }
+
   //~--- methods --------------------------------------------------------------
 
   /**
@@ -124,8 +183,19 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
 
     synchronized (store)
     {
-      db.add(clone(item));
-      storeDB();
+      I clone = clone(item);
+
+      db.add(clone);
+
+      if (journal != null)
+      {
+        journal.put(clone);
+        journalChanged();
+      }
+      else
+      {
+        storeDB();
+      }
     }
   }
 
@@ -177,7 +247,16 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
     synchronized (store)
     {
       db.remove(item.getId());
-      storeDB();
+
+      if (journal != null)
+      {
+        journal.remove(item.getId());
+        journalChanged();
+      }
+      else
+      {
+        storeDB();
+      }
     }
   }
 
@@ -198,9 +277,20 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
 
     synchronized (store)
     {
+      I clone = clone(item);
+
       db.remove(item.getId());
-      db.add(clone(item));
-      storeDB();
+      db.add(clone);
+
+      if (journal != null)
+      {
+        journal.put(clone);
+        journalChanged();
+      }
+      else
+      {
+        storeDB();
+      }
     }
   }
 
@@ -287,11 +377,90 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
     store.set(db);
   }
 
+  /**
+   * Writes all journaled changes to the database file and truncates the
+   * journal.
+   *
+   * @since 1.58
+   */
+  protected void compact()
+  {
+    synchronized (store)
+    {
+      compaction = null;
+
+      if ((journal != null) && (journal.size() > 0))
+      {
+        logger.debug("compact {} journal entries into xml database",
+          journal.size());
+
+        // the database is written with the time of the last change
+        store.set(db);
+        journal.truncate();
+      }
+    }
+  }
+
+  /**
+   * Updates the modification time and schedules a compaction of the journal.
+   * Must be called with the lock of the store.
+   */
+  private void journalChanged()
+  {
+    db.setLastModified(System.currentTimeMillis());
+
+    long delay = (journal.size() >= COMPACTION_THRESHOLD)
+      ? 0
+      : COMPACTION_DELAY;
+
+    // a delayed compaction is replaced, if the journal becomes too large
+    if ((compaction == null)
+      || ((delay == 0) && (compaction.getDelay(TimeUnit.SECONDS) > 0)
+        && compaction.cancel(false)))
+    {
+      compaction = compactionExecutor.schedule(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          compact();
+        }
+      }, delay, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Applies the changes of the journal, which were not compacted before the
+   * last shutdown.
+   */
+  private void recover()
+  {
+    synchronized (store)
+    {
+      int count = journal.replay(db);
+
+      if (count > 0)
+      {
+        logger.info("recovered {} changes from journal", count);
+        store.set(db);
+      }
+
+      // remove the journal, even if it contains only an incomplete entry
+      journal.truncate();
+    }
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
   private final Store<T> store;
 
+  /** journal for changes or null, if the journal mode is disabled */
+  private XmlDatabaseJournal<I> journal;
+
+  /** scheduled compaction of the journal or null */
+  private ScheduledFuture<?> compaction;
+
   /** Field description */
   protected T db;
 }
@@ -0,0 +1,445 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.xml;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.ModelObject;
+import sonia.scm.store.StoreException;
+import sonia.scm.util.IOUtil;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.zip.CRC32;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Append-only journal for the changes of a {@link XmlDatabase}. Every change
+ * is written as a single entry to the end of the journal file, so that the
+ * costs of a change are independent of the size of the database. The journal
+ * is replayed on top of the last snapshot of the database and is truncated,
+ * after the changes were written to a new snapshot.
+ * <p>
+ * Each entry consists of a header line with the operation, the time of the
+ * change, the length and the crc32 checksum of the payload, followed by the
+ * payload itself. The payload of a put is the marshalled item, the payload of
+ * a remove is the id of the item. Every entry is synced to the disk before the
+ * change returns. An incomplete or corrupt entry at the end of the journal,
+ * which could be the result of a crash during a write, is ignored during the
+ * replay.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ *
+ * @param <I> type of items
+ */
+public class XmlDatabaseJournal<I extends ModelObject> implements Closeable
+{
+
+  /** operation for added or modified items */
+  private static final String OP_PUT = "put";
+
+  /** operation for removed items */
+  private static final String OP_REMOVE = "remove";
+
+  /** separator of the header fields */
+  private static final char SEPARATOR = ' ';
+
+  /** end of header and payload */
+  private static final int TERMINATOR = '\n';
+
+  /** maximum length of a header line */
+  private static final int MAX_HEADER_LENGTH = 128;
+
+  /**
+   * the logger for XmlDatabaseJournal
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(XmlDatabaseJournal.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new journal.
+   *
+   *
+   * @param type type of the journaled items
+   * @param file journal file
+   */
+  public XmlDatabaseJournal(Class<I> type, File file)
+  {
+    this.type = type;
+    this.file = file;
+
+    try
+    {
+      this.context = JAXBContext.newInstance(type);
+    }
+    catch (JAXBException ex)
+    {
+      throw new StoreException("could not create jaxb context", ex);
+    }
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Closes the journal file.
+   *
+   */
+  @Override
+  public synchronized void close()
+  {
+    IOUtil.close(output);
+    output = null;
+  }
+
+  /**
+   * Appends an added or modified item to the journal.
+   *
+   *
+   * @param item added or modified item
+   */
+  public synchronized void put(I item)
+  {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    try
+    {
+      Marshaller marshaller = context.createMarshaller();
+
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+      marshaller.marshal(item, baos);
+    }
+    catch (JAXBException ex)
+    {
+      throw new StoreException("could not marshal item ".concat(item.getId()),
+        ex);
+    }
+
+    append(OP_PUT, baos.toByteArray());
+  }
+
+  /**
+   * Appends a removed item to the journal.
+   *
+   *
+   * @param id id of the removed item
+   */
+  public synchronized void remove(String id)
+  {
+    append(OP_REMOVE, id.getBytes(Charsets.UTF_8));
+  }
+
+  /**
+   * Applies all entries of the journal to the given database and returns the
+   * number of applied entries.
+   *
+   *
+   * @param database database
+   *
+   * @return number of applied entries
+   */
+  public synchronized int replay(XmlDatabase<I> database)
+  {
+    int count = 0;
+
+    if (file.exists())
+    {
+      CountingInputStream input = null;
+
+      try
+      {
+        long length = file.length();
+
+        input = new CountingInputStream(
+          new BufferedInputStream(new FileInputStream(file)));
+
+        while (replay(input, length, database))
+        {
+          count++;
+        }
+      }
+      catch (IOException ex)
+      {
+        throw new StoreException("could not read journal ".concat(file.getPath()),
+          ex);
+      }
+      finally
+      {
+        IOUtil.close(input);
+      }
+    }
+
+    entries = count;
+    logger.debug("replayed {} entries from journal {}", count, file);
+
+    return count;
+  }
+
+  /**
+   * Removes all entries from the journal. The journal should only be
+   * truncated, after all of its entries are part of a snapshot.
+   *
+   */
+  public synchronized void truncate()
+  {
+    close();
+
+    if (file.exists() &&!file.delete())
+    {
+      throw new StoreException("could not delete journal ".concat(file.getPath()));
+    }
+
+    entries = 0;
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the number of entries in the journal.
+   *
+   *
+   * @return number of entries
+   */
+  public synchronized int size()
+  {
+    return entries;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  private void append(String op, byte[] payload)
+  {
+    CRC32 crc = new CRC32();
+
+    crc.update(payload);
+
+    StringBuilder header = new StringBuilder(op);
+
+    header.append(SEPARATOR).append(System.currentTimeMillis());
+    header.append(SEPARATOR).append(payload.length);
+    header.append(SEPARATOR).append(crc.getValue());
+
+    ByteArrayOutputStream entry =
+      new ByteArrayOutputStream(payload.length + MAX_HEADER_LENGTH);
+
+    try
+    {
+      entry.write(header.toString().getBytes(Charsets.UTF_8));
+      entry.write(TERMINATOR);
+      entry.write(payload);
+      entry.write(TERMINATOR);
+
+      if (output == null)
+      {
+        output = new FileOutputStream(file, true);
+      }
+
+      output.write(entry.toByteArray());
+
+      // the change must survive a crash of the machine, not only of the jvm
+      output.getFD().sync();
+      entries++;
+    }
+    catch (IOException ex)
+    {
+      throw new StoreException("could not write journal ".concat(file.getPath()),
+        ex);
+    }
+  }
+
+  private boolean replay(CountingInputStream input, long length,
+    XmlDatabase<I> database)
+    throws IOException
+  {
+    String header = readHeader(input);
+
+    if (header == null)
+    {
+      return false;
+    }
+
+    String[] parts = header.split(String.valueOf(SEPARATOR));
+
+    if (parts.length != 4)
+    {
+      logger.warn("found corrupt header in journal {}, ignore remaining entries",
+        file);
+
+      return false;
+    }
+
+    byte[] payload;
+    long time;
+    long checksum;
+
+    try
+    {
+      time = Long.parseLong(parts[1]);
+
+      int payloadLength = Integer.parseInt(parts[2]);
+
+      // a length beyond the end of the file is the result of a corrupt header
+      if ((payloadLength < 0) || (payloadLength > length - input.getCount()))
+      {
+        throw new EOFException("invalid payload length");
+      }
+
+      payload = new byte[payloadLength];
+      checksum = Long.parseLong(parts[3]);
+      ByteStreams.readFully(input, payload);
+
+      if (input.read() != TERMINATOR)
+      {
+        throw new EOFException("missing terminator");
+      }
+    }
+    catch (NumberFormatException | EOFException ex)
+    {
+      logger.warn("found incomplete entry in journal {}, ignore remaining entries",
+        file);
+
+      return false;
+    }
+
+    CRC32 crc = new CRC32();
+
+    crc.update(payload);
+
+    if (crc.getValue() != checksum)
+    {
+      logger.warn("found entry with wrong checksum in journal {}, ignore remaining entries",
+        file);
+
+      return false;
+    }
+
+    if (OP_PUT.equals(parts[0]))
+    {
+      I item = unmarshal(payload);
+
+      database.remove(item.getId());
+      database.add(item);
+    }
+    else if (OP_REMOVE.equals(parts[0]))
+    {
+      database.remove(new String(payload, Charsets.UTF_8));
+    }
+    else
+    {
+      logger.warn("found unknown operation {} in journal {}, ignore remaining entries",
+        parts[0], file);
+
+      return false;
+    }
+
+    database.setLastModified(time);
+
+    return true;
+  }
+
+  private String readHeader(InputStream input) throws IOException
+  {
+    StringBuilder header = new StringBuilder();
+    int c = input.read();
+
+    while ((c >= 0) && (c != TERMINATOR))
+    {
+      if (header.length() >= MAX_HEADER_LENGTH)
+      {
+        return "";
+      }
+
+      header.append((char) c);
+      c = input.read();
+    }
+
+    // a header which is not terminated, is the result of an incomplete write
+    return (c == TERMINATOR)
+      ? header.toString()
+      : null;
+  }
+
+  private I unmarshal(byte[] payload)
+  {
+    try
+    {
+      return context.createUnmarshaller().unmarshal(
+        new StreamSource(new ByteArrayInputStream(payload)), type).getValue();
+    }
+    catch (JAXBException ex)
+    {
+      throw new StoreException("could not unmarshal journal entry", ex);
+    }
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** jaxb context for the items */
+  private final JAXBContext context;
+
+  /** number of entries in the journal */
+  private int entries = 0;
+
+  /** journal file */
+  private final File file;
+
+  /** output stream of the journal file */
+  private FileOutputStream output;
+
+  /** type of the journaled items */
+  private final Class<I> type;
+}
@@ -30,12 +30,25 @@
  */
 
 
+
 package sonia.scm.store;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import org.junit.Test;
+
 import sonia.scm.security.UUIDKeyGenerator;
 
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -43,6 +56,80 @@ import sonia.scm.security.UUIDKeyGenerator;
 public class FileBlobStoreTest extends BlobStoreTestBase
 {
 
+  /** sha256 of an lfs object */
+  private static final String OID =
+    "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Tests that blobs of the flat layout are moved to their shard directories.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testMigration() throws IOException
+  {
+    File directory = new File(contextProvider.getBaseDirectory(),
+                       "var/blob/flat");
+
+    assertTrue(directory.mkdirs());
+    Files.write("content", new File(directory, OID.concat(".blob")),
+      Charsets.UTF_8);
+
+    // the factory migrates all existing stores, when it is created
+    new FileBlobStoreFactory(contextProvider, new UUIDKeyGenerator());
+
+    assertFalse(new File(directory, OID.concat(".blob")).exists());
+    assertTrue(new File(directory, "b9/4d/".concat(OID).concat(".blob")).exists());
+
+    Blob blob = createBlobStoreFactory().getBlobStore("flat").get(OID);
+
+    assertNotNull(blob);
+    assertEquals(7, blob.getSize());
+  }
+
+  /**
+   * Tests that a store, which was created after the factory, is migrated
+   * once, when it is opened.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testMigrationOfLateStore() throws IOException
+  {
+    BlobStoreFactory factory = createBlobStoreFactory();
+    File directory = new File(contextProvider.getBaseDirectory(),
+                       "var/blob/late");
+
+    assertTrue(directory.mkdirs());
+    Files.write("content", new File(directory, OID.concat(".blob")),
+      Charsets.UTF_8);
+    assertNotNull(factory.getBlobStore("late").get(OID));
+    assertNotNull(factory.getBlobStore("late").get(OID));
+  }
+
+  /**
+   * Tests that content addressed ids are sharded by their own prefix.
+   *
+   */
+  @Test
+  public void testShardedLayout()
+  {
+    File directory = new File(contextProvider.getBaseDirectory(), "sharded");
+    FileBlobStore store = new FileBlobStore(new UUIDKeyGenerator(), directory);
+
+    store.create(OID);
+    assertTrue(new File(directory, "b9/4d/".concat(OID).concat(".blob")).exists());
+
+    store.clear();
+    assertEquals(0, directory.list().length);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
   /**
    * Method description
    *
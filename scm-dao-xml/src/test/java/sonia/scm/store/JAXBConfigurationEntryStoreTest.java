@@ -35,7 +35,9 @@ package sonia.scm.store;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.Charsets;
 import com.google.common.io.Closeables;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 
 import org.junit.Test;
@@ -55,6 +57,8 @@ import java.io.OutputStream;
 import java.net.URL;
 
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  *
@@ -147,6 +151,139 @@ public class JAXBConfigurationEntryStoreTest
     assertEquals("repository:create", ap.getPermission());
   }
 
+  /**
+   * Method description
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testBulkUpdateWritesOnce() throws IOException
+  {
+    final String name = UUID.randomUUID().toString();
+    BulkConfigurationEntryStore<AssignedPermission> store =
+      (BulkConfigurationEntryStore<AssignedPermission>) createPermissionStore(
+        RESOURCE_FIXED, name);
+
+    store.update(new BulkUpdate<AssignedPermission>()
+    {
+
+      @Override
+      public void apply(DataStore<AssignedPermission> store)
+      {
+        store.put("a45", new AssignedPermission("tuser4", "repository:create"));
+        store.remove("3ZOHKUePB3");
+
+        // nothing is written before the bulk update is finished
+        ConfigurationEntryStore<AssignedPermission> other =
+          createConfigurationStoreFactory().getStore(AssignedPermission.class,
+            name);
+
+        assertNull(other.get("a45"));
+        assertNotNull(other.get("3ZOHKUePB3"));
+      }
+    });
+
+    ConfigurationEntryStore<AssignedPermission> reloaded =
+      createConfigurationStoreFactory().getStore(AssignedPermission.class,
+        name);
+
+    assertNotNull(reloaded.get("a45"));
+    assertNull(reloaded.get("3ZOHKUePB3"));
+    assertFalse(new File(getConfigFile(name).getPath().concat(".tmp")).exists());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteBehind() throws IOException
+  {
+    String name = UUID.randomUUID().toString();
+
+    copy(RESOURCE_FIXED, name);
+
+    File file = getConfigFile(name);
+    ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor();
+    JAXBConfigurationEntryStore<AssignedPermission> store =
+      new JAXBConfigurationEntryStore<AssignedPermission>(file,
+        new UUIDKeyGenerator(), AssignedPermission.class, executor);
+
+    try
+    {
+      store.put("a45", new AssignedPermission("tuser4", "repository:create"));
+      store.put("a46", new AssignedPermission("tuser5", "repository:create"));
+
+      // the changes are not written before the flush
+      String content = Files.toString(file, Charsets.UTF_8);
+
+      assertTrue(content.contains("3ZOHKUePB3"));
+      assertFalse(content.contains("tuser4"));
+      assertFalse(content.contains("tuser5"));
+
+      store.flush();
+
+      content = Files.toString(file, Charsets.UTF_8);
+      assertTrue(content.contains("3ZOHKUePB3"));
+      assertTrue(content.contains("tuser4"));
+      assertTrue(content.contains("tuser5"));
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+
+    ConfigurationEntryStore<AssignedPermission> other =
+      createConfigurationStoreFactory().getStore(AssignedPermission.class,
+        name);
+
+    assertEquals("tuser4", other.get("a45").getName());
+    assertEquals("tuser5", other.get("a46").getName());
+    assertEquals("tuser", other.get("3ZOHKUePB3").getName());
+  }
+
+  /**
+   * Tests that the factory writes the pending changes of its stores, when it
+   * is closed.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteBehindFlushOnClose() throws IOException
+  {
+    String name = UUID.randomUUID().toString();
+
+    copy(RESOURCE_FIXED, name);
+    System.setProperty(JAXBConfigurationEntryStore.PROPERTY_WRITE_BEHIND,
+      Boolean.TRUE.toString());
+
+    JAXBConfigurationEntryStoreFactory factory;
+
+    try
+    {
+      factory = new JAXBConfigurationEntryStoreFactory(new UUIDKeyGenerator(),
+        contextProvider);
+    }
+    finally
+    {
+      System.clearProperty(JAXBConfigurationEntryStore.PROPERTY_WRITE_BEHIND);
+    }
+
+    factory.getStore(AssignedPermission.class, name).put("a45",
+      new AssignedPermission("tuser4", "repository:create"));
+    assertFalse(Files.toString(getConfigFile(name),
+      Charsets.UTF_8).contains("tuser4"));
+
+    factory.close();
+    assertTrue(Files.toString(getConfigFile(name),
+      Charsets.UTF_8).contains("tuser4"));
+  }
+
   /**
    * Method description
    *
@@ -160,6 +297,21 @@ public class JAXBConfigurationEntryStoreTest
       contextProvider);
   }
 
+  /**
+   * Method description
+   *
+   *
+   * @param name
+   *
+   * @return
+   */
+  private File getConfigFile(String name)
+  {
+    File confdir = new File(contextProvider.getBaseDirectory(), "config");
+
+    return new File(confdir, name.concat(".xml"));
+  }
+
   /**
    * Method description
    *
@@ -172,8 +324,7 @@ public class JAXBConfigurationEntryStoreTest
   private void copy(String resource, String name) throws IOException
   {
     URL url = Resources.getResource(resource);
-    File confdir = new File(contextProvider.getBaseDirectory(), "config");
-    File file = new File(confdir, name.concat(".xml"));
+    File file = getConfigFile(name);
     OutputStream output = null;
 
     try
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.xml;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import org.junit.After;
+import org.junit.Test;
+
+import sonia.scm.AbstractTestBase;
+import sonia.scm.store.JAXBStoreFactory;
+import sonia.scm.user.User;
+import sonia.scm.user.xml.XmlUserDAO;
+import sonia.scm.user.xml.XmlUserDatabase;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link XmlDatabaseJournal} and the journal mode of
+ * {@link AbstractXmlDAO}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class XmlDatabaseJournalTest extends AbstractTestBase
+{
+
+  /**
+   * Disables the journal mode.
+   *
+   */
+  @After
+  public void disableJournal()
+  {
+    System.clearProperty(AbstractXmlDAO.PROPERTY_JOURNAL);
+  }
+
+  /**
+   * Tests replay of put and remove entries.
+   *
+   */
+  @Test
+  public void testReplay()
+  {
+    XmlDatabaseJournal<User> journal = createJournal();
+
+    journal.put(new User("trillian", "Tricia McMillan", "tricia@hitchhiker.com"));
+    journal.put(new User("dent", "Arthur Dent", "arthur@hitchhiker.com"));
+    journal.put(new User("dent", "Arthur Philip Dent", "arthur@hitchhiker.com"));
+    journal.remove("trillian");
+    journal.close();
+    assertEquals(4, journal.size());
+
+    XmlUserDatabase database = new XmlUserDatabase();
+
+    assertEquals(4, createJournal().replay(database));
+    assertEquals(1, database.values().size());
+    assertEquals("Arthur Philip Dent", database.get("dent").getDisplayName());
+  }
+
+  /**
+   * Tests that an incomplete entry at the end of the journal is ignored.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReplayWithIncompleteEntry() throws IOException
+  {
+    XmlDatabaseJournal<User> journal = createJournal();
+
+    journal.put(new User("dent", "Arthur Dent", "arthur@hitchhiker.com"));
+    journal.close();
+
+    // simulate a crash during the write of an entry
+    Files.append("put 1 512 42\n<users><name>trillian",
+      getJournalFile(), Charsets.UTF_8);
+
+    XmlUserDatabase database = new XmlUserDatabase();
+
+    assertEquals(1, createJournal().replay(database));
+    assertNotNull(database.get("dent"));
+    assertNull(database.get("trillian"));
+  }
+
+  /**
+   * Tests that entries with a wrong checksum are ignored.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReplayWithCorruptEntry() throws IOException
+  {
+    Files.write("remove 1 4 42\ndent\n", getJournalFile(), Charsets.UTF_8);
+
+    XmlUserDatabase database = new XmlUserDatabase();
+
+    database.add(new User("dent"));
+    assertEquals(0, createJournal().replay(database));
+    assertNotNull(database.get("dent"));
+  }
+
+  /**
+   * Tests that entries with a negative or a too large length are ignored,
+   * without allocating a buffer for the length.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReplayWithInvalidLength() throws IOException
+  {
+    XmlDatabaseJournal<User> journal = createJournal();
+
+    journal.put(new User("dent"));
+    journal.close();
+    Files.append("put 1 2147483647 42\n<users>", getJournalFile(),
+      Charsets.UTF_8);
+    assertEquals(1, createJournal().replay(new XmlUserDatabase()));
+
+    Files.write("remove 1 -4 42\ndent\n", getJournalFile(), Charsets.UTF_8);
+    assertEquals(0, createJournal().replay(new XmlUserDatabase()));
+  }
+
+  /**
+   * Tests truncate of the journal.
+   *
+   */
+  @Test
+  public void testTruncate()
+  {
+    XmlDatabaseJournal<User> journal = createJournal();
+
+    journal.put(new User("dent"));
+    journal.truncate();
+    assertEquals(0, journal.size());
+    assertFalse(getJournalFile().exists());
+    assertEquals(0, journal.replay(new XmlUserDatabase()));
+  }
+
+  /**
+   * Tests that a dao in journal mode recovers changes, which were not
+   * compacted into the database.
+   *
+   */
+  @Test
+  public void testDAORecovery()
+  {
+    System.setProperty(AbstractXmlDAO.PROPERTY_JOURNAL, Boolean.TRUE.toString());
+
+    XmlUserDAO dao = new XmlUserDAO(createStoreFactory());
+
+    dao.add(new User("dent", "Arthur Dent", "arthur@hitchhiker.com"));
+    dao.add(new User("trillian", "Tricia McMillan", "tricia@hitchhiker.com"));
+    dao.delete(new User("trillian"));
+    assertTrue(getStoreJournalFile().exists());
+
+    // a new dao simulates a restart before the compaction
+    dao = new XmlUserDAO(createStoreFactory());
+    assertNotNull(dao.get("dent"));
+    assertNull(dao.get("trillian"));
+    assertFalse(getStoreJournalFile().exists());
+
+    // recovered changes are part of the database
+    System.clearProperty(AbstractXmlDAO.PROPERTY_JOURNAL);
+    dao = new XmlUserDAO(createStoreFactory());
+    assertNotNull(dao.get("dent"));
+  }
+
+  /**
+   * Tests compaction of the journal.
+   *
+   */
+  @Test
+  public void testDAOCompaction()
+  {
+    System.setProperty(AbstractXmlDAO.PROPERTY_JOURNAL, Boolean.TRUE.toString());
+
+    XmlUserDAO dao = new XmlUserDAO(createStoreFactory());
+
+    dao.add(new User("dent", "Arthur Dent", "arthur@hitchhiker.com"));
+    dao.compact();
+    assertFalse(getStoreJournalFile().exists());
+
+    System.clearProperty(AbstractXmlDAO.PROPERTY_JOURNAL);
+    dao = new XmlUserDAO(createStoreFactory());
+    assertNotNull(dao.get("dent"));
+  }
+
+  private XmlDatabaseJournal<User> createJournal()
+  {
+    return new XmlDatabaseJournal<User>(User.class, getJournalFile());
+  }
+
+  private JAXBStoreFactory createStoreFactory()
+  {
+    JAXBStoreFactory factory = new JAXBStoreFactory();
+
+    factory.init(contextProvider);
+
+    return factory;
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  private File getJournalFile()
+  {
+    return new File(contextProvider.getBaseDirectory(), "test.journal");
+  }
+
+  private File getStoreJournalFile()
+  {
+    return new File(contextProvider.getBaseDirectory(),
+      "config/".concat(XmlUserDAO.STORE_NAME).concat(".xml.journal"));
+  }
+}
@@ -36,12 +36,9 @@ package sonia.scm.repository;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
 
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
-import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
@@ -61,7 +58,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 /**
  *
@@ -111,7 +107,7 @@ public class GitChangesetConverter implements Closeable
       this.revWalk = new RevWalk(repository);
     }
 
-    this.tags = GitUtil.createTagMap(repository, revWalk);
+    this.refs = GitRefSnapshot.get(repository);
     treeWalk = new TreeWalk(repository);
   }
 
@@ -139,23 +135,8 @@ public class GitChangesetConverter implements Closeable
    */
   public Changeset createChangeset(RevCommit commit) throws IOException
   {
-    List<String> branches = Lists.newArrayList();
-    Set<Ref> refs = repository.getAllRefsByPeeledObjectId().get(commit.getId());
-
-    if (Util.isNotEmpty(refs))
-    {
-
-      for (Ref ref : refs)
-      {
-        String branch = GitUtil.getBranch(ref);
-
-        if (branch != null)
-        {
-          branches.add(branch);
-        }
-      }
-
-    }
+    List<String> branches =
+      Lists.newArrayList(refs.getBranchesByCommit().get(commit.getId()));
 
     return createChangeset(commit, branches);
   }
@@ -224,14 +205,17 @@ public class GitChangesetConverter implements Closeable
       changeset.setParents(parentList);
     }
 
-    Modifications modifications = createModifications(treeWalk, commit);
-
-    if (modifications != null)
+    if (!disableModifications)
     {
-      changeset.setModifications(modifications);
+      Modifications modifications = createModifications(treeWalk, commit);
+
+      if (modifications != null)
+      {
+        changeset.setModifications(modifications);
+      }
     }
 
-    Collection<String> tagCollection = tags.get(commit.getId());
+    Collection<String> tagCollection = refs.getTagsByCommit().get(commit.getId());
 
     if (Util.isNotEmpty(tagCollection))
     {
@@ -245,6 +229,24 @@ public class GitChangesetConverter implements Closeable
     return changeset;
   }
 
+  //~--- set methods ----------------------------------------------------------
+
+  /**
+   * Disables the calculation of the modifications, which requires a diff
+   * against the tree of the parent commit.
+   *
+   *
+   * @param disableModifications true to disable the modifications
+   *
+   * @since 1.58
+   */
+  public void setDisableModifications(boolean disableModifications)
+  {
+    this.disableModifications = disableModifications;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
   /**
    * TODO: copy and rename
    *
@@ -350,14 +352,17 @@ public class GitChangesetConverter implements Closeable
 
   //~--- fields ---------------------------------------------------------------
 
+  /** disable the calculation of modifications */
+  private boolean disableModifications = false;
+
   /** Field description */
   private org.eclipse.jgit.lib.Repository repository;
 
   /** Field description */
   private RevWalk revWalk;
 
-  /** Field description */
-  private Multimap<ObjectId, String> tags;
+  /** shared snapshot of branches and tags */
+  private GitRefSnapshot refs;
 
   /** Field description */
   private TreeWalk treeWalk;
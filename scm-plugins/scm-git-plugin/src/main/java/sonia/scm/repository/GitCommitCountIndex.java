@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.util.IOUtil;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Persistent index of the number of commits which are reachable from a commit.
+ * The index is stored in the directory of the git repository and is used by
+ * the {@link sonia.scm.repository.spi.GitLogCommand} to calculate the total
+ * of a paged changeset request, without walking the whole history. Entries are
+ * keyed by commit id, which makes them immutable. The index is filled lazily
+ * by the log command and updated incrementally by the post receive hook.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public final class GitCommitCountIndex
+{
+
+  /** name of the index file in the git directory */
+  static final String FILENAME = "scm-commit-count.idx";
+
+  /** maximum number of entries, oldest entries are dropped first */
+  static final int MAX_ENTRIES = 512;
+
+  /** returned if the count of a commit is not indexed */
+  public static final int UNKNOWN = -1;
+
+  /**
+   * maximum number of commits, which are followed back from the head of a new
+   * ref to an indexed commit
+   */
+  static final int MAX_CREATED_STEPS = 100;
+
+  /** separator between commit id and count */
+  private static final char SEPARATOR = ' ';
+
+  /** locks for concurrent modifications of the same index file */
+  private static final Striped<Lock> locks = Striped.lock(32);
+
+  /**
+   * the logger for GitCommitCountIndex
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(GitCommitCountIndex.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new index for the given git repository.
+   *
+   *
+   * @param repository git repository
+   */
+  public GitCommitCountIndex(org.eclipse.jgit.lib.Repository repository)
+  {
+    this.repository = repository;
+    this.file = new File(repository.getDirectory(), FILENAME);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Stores the number of commits which are reachable from the given commit.
+   *
+   *
+   * @param commit commit id
+   * @param count number of reachable commits, including the commit itself
+   */
+  public void put(ObjectId commit, int count)
+  {
+    Lock lock = locks.get(file.getAbsolutePath());
+
+    lock.lock();
+
+    try
+    {
+      Map<String, Integer> entries = read();
+      String id = commit.name();
+
+      // move to the end, to keep the entry on trim
+      entries.remove(id);
+      entries.put(id, count);
+
+      Iterator<String> it = entries.keySet().iterator();
+
+      while (entries.size() > MAX_ENTRIES)
+      {
+        it.next();
+        it.remove();
+      }
+
+      write(entries);
+    }
+    catch (IOException ex)
+    {
+      logger.warn("could not write commit count index ".concat(file.getPath()),
+        ex);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Updates the index after a ref was moved from oldId to newId. The count for
+   * the new commit is calculated from the count of the old commit, by walking
+   * only the new commits. For a new ref the count is calculated from the
+   * nearest indexed commit, which is reached through at most
+   * {@link #MAX_CREATED_STEPS} commits with a single parent. The update is
+   * skipped, if no count is known to start from or if the ref update was not a
+   * fast-forward, in this case the count is calculated lazy by the next log
+   * request.
+   *
+   *
+   * @param oldId old id of the ref or the zero id for new refs
+   * @param newId new id of the ref
+   *
+   * @throws IOException
+   */
+  public void update(ObjectId oldId, ObjectId newId) throws IOException
+  {
+    if (!GitUtil.isValidObjectId(newId))
+    {
+      return;
+    }
+
+    if (!GitUtil.isValidObjectId(oldId))
+    {
+      updateCreated(newId);
+
+      return;
+    }
+
+    int count = get(oldId);
+
+    if (count == UNKNOWN)
+    {
+      logger.trace("count of commit {} is not indexed, skip update",
+        oldId.name());
+
+      return;
+    }
+
+    RevWalk walk = new RevWalk(repository);
+
+    try
+    {
+      walk.setRetainBody(false);
+
+      RevCommit newCommit = walk.parseCommit(newId);
+      RevCommit oldCommit = walk.parseCommit(oldId);
+
+      if (!walk.isMergedInto(oldCommit, newCommit))
+      {
+        logger.trace("{} is not a fast-forward of {}, skip update",
+          newId.name(), oldId.name());
+
+        return;
+      }
+
+      walk.reset();
+      walk.markUninteresting(oldCommit);
+      walk.markStart(newCommit);
+
+      while (walk.next() != null)
+      {
+        count++;
+      }
+
+      put(newId, count);
+    }
+    finally
+    {
+      GitUtil.release(walk);
+    }
+  }
+
+  /**
+   * Updates the index for the head of a new ref. The first parents of the
+   * head are followed back to an indexed commit, as long as each commit has
+   * a single parent, so the whole history is never walked during a push.
+   *
+   *
+   * @param newId head of the new ref
+   *
+   * @throws IOException
+   */
+  private void updateCreated(ObjectId newId) throws IOException
+  {
+    Map<String, Integer> entries = read();
+
+    if (entries.containsKey(newId.name()))
+    {
+      return;
+    }
+
+    RevWalk walk = new RevWalk(repository);
+
+    try
+    {
+      walk.setRetainBody(false);
+
+      RevCommit commit = walk.parseCommit(newId);
+      Integer count = null;
+      int steps = 0;
+
+      while ((count == null) && (commit.getParentCount() == 1)
+        && (steps < MAX_CREATED_STEPS))
+      {
+        commit = walk.parseCommit(commit.getParent(0));
+        count = entries.get(commit.name());
+        steps++;
+      }
+
+      if (count != null)
+      {
+        put(newId, count + steps);
+      }
+      else
+      {
+        logger.trace("no indexed ancestor of new ref {} found, skip update",
+          newId.name());
+      }
+    }
+    finally
+    {
+      GitUtil.release(walk);
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the number of commits which are reachable from the given commit or
+   * {@link #UNKNOWN} if the commit is not indexed.
+   *
+   *
+   * @param commit commit id
+   *
+   * @return number of reachable commits or {@link #UNKNOWN}
+   */
+  public int get(ObjectId commit)
+  {
+    int count = UNKNOWN;
+
+    try
+    {
+      Integer value = read().get(commit.name());
+
+      if (value != null)
+      {
+        count = value;
+      }
+    }
+    catch (IOException ex)
+    {
+      logger.warn("could not read commit count index ".concat(file.getPath()),
+        ex);
+    }
+
+    return count;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Reads all entries of the index file.
+   *
+   *
+   * @return entries in order of insertion
+   *
+   * @throws IOException
+   */
+  private LinkedHashMap<String, Integer> read() throws IOException
+  {
+    LinkedHashMap<String, Integer> entries = Maps.newLinkedHashMap();
+
+    if (file.exists())
+    {
+      BufferedReader reader = null;
+
+      try
+      {
+        reader = new BufferedReader(
+          new InputStreamReader(new FileInputStream(file), Charsets.US_ASCII));
+
+        String line = reader.readLine();
+
+        while (line != null)
+        {
+          List<String> parts = Splitter.on(SEPARATOR).splitToList(line);
+
+          if ((parts.size() == 2) && ObjectId.isId(parts.get(0)))
+          {
+            try
+            {
+              entries.put(parts.get(0), Integer.valueOf(parts.get(1)));
+            }
+            catch (NumberFormatException ex)
+            {
+              logger.debug("skip malformed index line {}", line);
+            }
+          }
+          else
+          {
+            logger.debug("skip malformed index line {}", line);
+          }
+
+          line = reader.readLine();
+        }
+      }
+      finally
+      {
+        IOUtil.close(reader);
+      }
+    }
+
+    return entries;
+  }
+
+  /**
+   * Writes the entries to a temporary file and replaces the index file
+   * atomically, so that concurrent readers never see a partially written index.
+   *
+   *
+   * @param entries index entries
+   *
+   * @throws IOException
+   */
+  private void write(Map<String, Integer> entries) throws IOException
+  {
+    File tmp = new File(file.getParentFile(), FILENAME.concat(".tmp"));
+    Writer writer = null;
+
+    try
+    {
+      writer = new OutputStreamWriter(new FileOutputStream(tmp),
+        Charsets.US_ASCII);
+
+      for (Map.Entry<String, Integer> e : entries.entrySet())
+      {
+        writer.append(e.getKey()).append(SEPARATOR);
+        writer.append(String.valueOf(e.getValue())).append('\n');
+      }
+    }
+    finally
+    {
+      IOUtil.close(writer);
+    }
+
+    Files.move(tmp.toPath(), file.toPath(),
+      StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** index file */
+  private final File file;
+
+  /** git repository */
+  private final org.eclipse.jgit.lib.Repository repository;
+}
@@ -35,6 +35,7 @@ package sonia.scm.repository;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -56,16 +57,25 @@ import sonia.scm.web.CollectingPackParserListener;
 
 import java.io.IOException;
 
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
+ * Collects the changesets of a push. The ids and branches of the new commits
+ * are collected once, the changesets are created lazily in chunks while the
+ * returned {@link Iterable} is consumed.
  *
  * @author Sebastian Sdorra
  */
 public class GitHookChangesetCollector
 {
 
+  /** number of changesets which are created with one rev walk */
+  private static final int CHUNK_SIZE = 100;
+
   /**
    * the logger for GitHookChangesetCollector
    */
@@ -98,18 +108,61 @@ public class GitHookChangesetCollector
    */
   public List<Changeset> collectChangesets()
   {
-    Map<String, Changeset> changesets = Maps.newLinkedHashMap();
+    return Lists.newArrayList(collectChangesets(false));
+  }
 
-    org.eclipse.jgit.lib.Repository repository = rpack.getRepository();
+  /**
+   * Returns an {@link Iterable} for the new changesets of the received hook.
+   * Every iteration creates new {@link Changeset} objects, only a chunk of
+   * the changesets is held in memory at a time.
+   *
+   *
+   * @param disableModifications true to skip the modifications
+   *
+   * @return new changesets
+   *
+   * @since 1.58
+   */
+  public Iterable<Changeset> collectChangesets(
+    final boolean disableModifications)
+  {
+    final Map<ObjectId, List<String>> commits = collectCommits();
 
-    RevWalk walk = null;
+    return new Iterable<Changeset>()
+    {
+      @Override
+      public Iterator<Changeset> iterator()
+      {
+        return new ChangesetIterator(rpack.getRepository(),
+          commits.entrySet().iterator(), disableModifications);
+      }
+    };
+  }
 
-    GitChangesetConverter converter = null;
+  /**
+   * Collects the ids and the branches of all new commits, without parsing
+   * the bodies of the commits.
+   *
+   *
+   * @return ids of the new commits with their branches in receive order
+   */
+  private synchronized Map<ObjectId, List<String>> collectCommits()
+  {
+    if (commits != null)
+    {
+      return commits;
+    }
+
+    commits = Maps.newLinkedHashMap();
+
+    RevWalk walk = null;
+    boolean retainBody = true;
 
     try
     {
       walk = rpack.getRevWalk();
-      converter = new GitChangesetConverter(repository, walk);
+      retainBody = walk.isRetainBody();
+      walk.setRetainBody(false);
 
       for (ReceiveCommand rc : receiveCommands)
       {
@@ -129,7 +182,7 @@ public class GitHookChangesetCollector
         {
           try
           {
-            collectChangesets(changesets, converter, walk, rc);
+            collectCommits(commits, walk, rc);
           }
           catch (IOException ex)
           {
@@ -152,15 +205,19 @@ public class GitHookChangesetCollector
     }
     finally
     {
-      IOUtil.close(converter);
+      if (walk != null)
+      {
+        walk.setRetainBody(retainBody);
+      }
+
       GitUtil.release(walk);
     }
 
-    return Lists.newArrayList(changesets.values());
+    return commits;
   }
 
-  private void collectChangesets(Map<String, Changeset> changesets,
-    GitChangesetConverter converter, RevWalk walk, ReceiveCommand rc)
+  private void collectCommits(Map<ObjectId, List<String>> commits,
+    RevWalk walk, ReceiveCommand rc)
     throws IncorrectObjectTypeException, IOException
   {
     ObjectId newId = rc.getNewId();
@@ -188,15 +245,14 @@ public class GitHookChangesetCollector
 
     while (commit != null)
     {
-      String id = commit.getId().name();
-      Changeset changeset = changesets.get(id);
+      List<String> branches = commits.get(commit);
 
-      if (changeset != null)
+      if (branches != null)
       {
         logger.trace(
           "commit {} already received durring this push, add branch {} to the commit",
           commit, branch);
-        changeset.getBranches().add(branch);
+        branches.add(branch);
       }
       else
       {
@@ -204,15 +260,11 @@ public class GitHookChangesetCollector
         // only append new commits
         if (listener.isNew(commit))
         {
+          logger.trace("retrieve commit {} for hook", commit.getId());
 
-          // parse commit body to avoid npe
-          walk.parseBody(commit);
-
-          changeset = converter.createChangeset(commit, branch);
-
-          logger.trace("retrieve commit {} for hook", changeset.getId());
-
-          changesets.put(id, changeset);
+          branches = Lists.newArrayListWithCapacity(1);
+          branches.add(branch);
+          commits.put(commit.copy(), branches);
         }
         else
         {
@@ -224,8 +276,116 @@ public class GitHookChangesetCollector
     }
   }
 
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Creates the changesets of the collected commits in chunks. Each chunk is
+   * read with its own {@link RevWalk}, which is released after the chunk was
+   * created.
+   */
+  private static class ChangesetIterator extends AbstractIterator<Changeset>
+  {
+
+    /**
+     * Constructs a new ChangesetIterator.
+     *
+     *
+     * @param repository git repository
+     * @param commits ids of the new commits with their branches
+     * @param disableModifications true to skip the modifications
+     */
+    public ChangesetIterator(org.eclipse.jgit.lib.Repository repository,
+      Iterator<Entry<ObjectId, List<String>>> commits,
+      boolean disableModifications)
+    {
+      this.repository = repository;
+      this.commits = commits;
+      this.disableModifications = disableModifications;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Changeset computeNext()
+    {
+      if (chunk.isEmpty())
+      {
+        readChunk();
+      }
+
+      Changeset changeset = chunk.poll();
+
+      if (changeset == null)
+      {
+        changeset = endOfData();
+      }
+
+      return changeset;
+    }
+
+    /**
+     * Creates the changesets for the next chunk of commits.
+     */
+    private void readChunk()
+    {
+      RevWalk walk = null;
+      GitChangesetConverter converter = null;
+
+      try
+      {
+        walk = new RevWalk(repository);
+        converter = new GitChangesetConverter(repository, walk);
+        converter.setDisableModifications(disableModifications);
+
+        while (commits.hasNext() && (chunk.size() < CHUNK_SIZE))
+        {
+          Entry<ObjectId, List<String>> e = commits.next();
+
+          try
+          {
+            RevCommit commit = walk.parseCommit(e.getKey());
+
+            chunk.add(converter.createChangeset(commit,
+              Lists.newArrayList(e.getValue())));
+          }
+          catch (IOException ex)
+          {
+            logger.error("could not create changeset for commit ".concat(
+              e.getKey().name()), ex);
+          }
+        }
+      }
+      finally
+      {
+        IOUtil.close(converter);
+        GitUtil.release(walk);
+      }
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** changesets of the current chunk */
+    private final LinkedList<Changeset> chunk = new LinkedList<Changeset>();
+
+    /** ids of the new commits with their branches */
+    private final Iterator<Entry<ObjectId, List<String>>> commits;
+
+    /** skip modifications */
+    private final boolean disableModifications;
+
+    /** git repository */
+    private final org.eclipse.jgit.lib.Repository repository;
+  }
+
+
   //~--- fields ---------------------------------------------------------------
 
+  /** ids of the new commits with their branches */
+  private Map<ObjectId, List<String>> commits;
+
   /** listener to track new objects */
   private final CollectingPackParserListener listener;
 
@@ -0,0 +1,354 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.util.IOUtil;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Persistent index of the last commits, which have modified the files of a
+ * directory. The index is stored in the directory of the git repository and is
+ * used by the {@link sonia.scm.repository.spi.GitBrowseCommand}. Every entry is
+ * keyed by the id of the browsed commit and the path of the directory, which
+ * makes the entries immutable. Each entry is stored in its own file, the oldest
+ * files are removed if the index grows beyond {@link #MAX_ENTRIES}.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public final class GitLastCommitIndex
+{
+
+  /** name of the index directory in the git directory */
+  static final String DIRECTORY = "scm-last-commit";
+
+  /** maximum number of entries, oldest entries are dropped first */
+  static final int MAX_ENTRIES = 256;
+
+  /** separator between commit id and path */
+  private static final char SEPARATOR = ' ';
+
+  /** locks for concurrent modifications of the same index */
+  private static final Striped<Lock> locks = Striped.lock(32);
+
+  /**
+   * the logger for GitLastCommitIndex
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(GitLastCommitIndex.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new index for the given git repository.
+   *
+   *
+   * @param repository git repository
+   */
+  public GitLastCommitIndex(org.eclipse.jgit.lib.Repository repository)
+  {
+    this.directory = new File(repository.getDirectory(), DIRECTORY);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Stores the last commits of the files of a directory.
+   *
+   *
+   * @param revision id of the browsed commit
+   * @param path path of the directory
+   * @param recursive true if the files of sub directories are included
+   * @param commits last commit id by file path
+   */
+  public void put(ObjectId revision, String path, boolean recursive,
+    Map<String, ObjectId> commits)
+  {
+    String key = createKey(revision, path, recursive);
+    File file = getFile(key);
+    Lock lock = locks.get(directory.getAbsolutePath());
+
+    lock.lock();
+
+    try
+    {
+      IOUtil.mkdirs(directory);
+      write(file, key, commits);
+      trim();
+    }
+    catch (IOException ex)
+    {
+      logger.warn("could not write last commit index ".concat(file.getPath()),
+        ex);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the last commits of the files of a directory or null, if the
+   * directory is not indexed for the given commit.
+   *
+   *
+   * @param revision id of the browsed commit
+   * @param path path of the directory
+   * @param recursive true if the files of sub directories are included
+   *
+   * @return last commit id by file path or null
+   */
+  public Map<String, ObjectId> get(ObjectId revision, String path,
+    boolean recursive)
+  {
+    Map<String, ObjectId> commits = null;
+    String key = createKey(revision, path, recursive);
+    File file = getFile(key);
+
+    if (file.exists())
+    {
+      try
+      {
+        commits = read(file, key);
+      }
+      catch (IOException ex)
+      {
+        logger.warn("could not read last commit index ".concat(file.getPath()),
+          ex);
+      }
+    }
+
+    return commits;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Method description
+   *
+   *
+   * @param revision
+   * @param path
+   * @param recursive
+   *
+   * @return
+   */
+  private String createKey(ObjectId revision, String path, boolean recursive)
+  {
+    StringBuilder key = new StringBuilder(revision.name());
+
+    key.append(SEPARATOR).append(recursive).append(SEPARATOR);
+
+    if (path != null)
+    {
+      key.append(path);
+    }
+
+    return key.toString();
+  }
+
+  /**
+   * Reads the entry from the given file. The first line of the file contains
+   * the key of the entry, to detect collisions of the file name.
+   *
+   *
+   * @param file index file
+   * @param key key of the entry
+   *
+   * @return last commit id by file path or null
+   *
+   * @throws IOException
+   */
+  private Map<String, ObjectId> read(File file, String key) throws IOException
+  {
+    Map<String, ObjectId> commits = null;
+    BufferedReader reader = null;
+
+    try
+    {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+        Charsets.UTF_8));
+
+      if (key.equals(reader.readLine()))
+      {
+        commits = Maps.newHashMap();
+
+        String line = reader.readLine();
+
+        while (line != null)
+        {
+          int index = line.indexOf(SEPARATOR);
+
+          if ((index > 0) && ObjectId.isId(line.substring(0, index)))
+          {
+            commits.put(line.substring(index + 1),
+              ObjectId.fromString(line.substring(0, index)));
+          }
+          else
+          {
+            logger.debug("skip malformed index line {}", line);
+          }
+
+          line = reader.readLine();
+        }
+      }
+    }
+    finally
+    {
+      IOUtil.close(reader);
+    }
+
+    return commits;
+  }
+
+  /**
+   * Removes the oldest entries, if the index contains more than
+   * {@link #MAX_ENTRIES} entries.
+   *
+   */
+  private void trim()
+  {
+    File[] files = directory.listFiles();
+
+    if ((files != null) && (files.length > MAX_ENTRIES))
+    {
+      Arrays.sort(files, new Comparator<File>()
+      {
+        @Override
+        public int compare(File file, File other)
+        {
+          return Long.compare(file.lastModified(), other.lastModified());
+        }
+      });
+
+      for (int i = 0; i < files.length - MAX_ENTRIES; i++)
+      {
+        if (!files[i].delete())
+        {
+          logger.debug("could not remove index file {}", files[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the entry to a temporary file and replaces the index file
+   * atomically, so that concurrent readers never see a partially written entry.
+   *
+   *
+   * @param file index file
+   * @param key key of the entry
+   * @param commits last commit id by file path
+   *
+   * @throws IOException
+   */
+  private void write(File file, String key, Map<String, ObjectId> commits)
+    throws IOException
+  {
+    File tmp = new File(directory, file.getName().concat(".tmp"));
+    Writer writer = null;
+
+    try
+    {
+      writer = new OutputStreamWriter(new FileOutputStream(tmp),
+        Charsets.UTF_8);
+      writer.append(key).append('\n');
+
+      for (Map.Entry<String, ObjectId> e : commits.entrySet())
+      {
+        writer.append(e.getValue().name()).append(SEPARATOR);
+        writer.append(e.getKey()).append('\n');
+      }
+    }
+    finally
+    {
+      IOUtil.close(writer);
+    }
+
+    Files.move(tmp.toPath(), file.toPath(),
+      StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Method description
+   *
+   *
+   * @param key
+   *
+   * @return
+   */
+  private File getFile(String key)
+  {
+    return new File(directory,
+      Hashing.sha1().hashString(key, Charsets.UTF_8).toString());
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** index directory */
+  private final File directory;
+}
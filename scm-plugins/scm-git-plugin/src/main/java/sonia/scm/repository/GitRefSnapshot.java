@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of the branches and tags of a git repository. Tags are
+ * already peeled to the commit they are pointing to. The snapshots are shared
+ * between all git commands of a repository and are invalidated, whenever the
+ * refs of the repository are changed by a push, a pull or an explicit cache
+ * clear event.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public final class GitRefSnapshot
+{
+
+  /** maximum number of cached snapshots */
+  private static final int MAXIMUM_SIZE = 200;
+
+  /** snapshots which are not used for this time are removed */
+  private static final long EXPIRE_AFTER_ACCESS = 30;
+
+  /** cached snapshots by directory */
+  private static final Cache<String, GitRefSnapshot> snapshots =
+    CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).expireAfterAccess(
+      EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES).build();
+
+  /**
+   * counts invalidations, to avoid caching of snapshots which were created
+   * during a concurrent ref update
+   */
+  private static final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * the logger for GitRefSnapshot
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(GitRefSnapshot.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new snapshot.
+   *
+   *
+   * @param branches branch names with their head
+   * @param tags tag names with their peeled commit
+   */
+  private GitRefSnapshot(ImmutableSortedMap<String, ObjectId> branches,
+    ImmutableSortedMap<String, ObjectId> tags)
+  {
+    this.branches = branches;
+    this.tags = tags;
+    this.branchesByCommit = invert(branches);
+    this.tagsByCommit = invert(tags);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Creates a new snapshot from the current refs of the repository, without
+   * using the cache.
+   *
+   *
+   * @param repository git repository
+   *
+   * @return new snapshot
+   */
+  public static GitRefSnapshot create(
+    org.eclipse.jgit.lib.Repository repository)
+  {
+    ImmutableSortedMap.Builder<String, ObjectId> branches =
+      ImmutableSortedMap.naturalOrder();
+    ImmutableSortedMap.Builder<String, ObjectId> tags =
+      ImmutableSortedMap.naturalOrder();
+
+    RevWalk walk = new RevWalk(repository);
+
+    try
+    {
+      walk.setRetainBody(false);
+
+      for (Ref ref : repository.getAllRefs().values())
+      {
+        String name = ref.getName();
+
+        if (GitUtil.isBranch(name) && (ref.getObjectId() != null))
+        {
+          branches.put(GitUtil.getBranch(name), ref.getObjectId());
+        }
+        else if (name.startsWith(Constants.R_TAGS))
+        {
+          putTag(repository, walk, tags, ref);
+        }
+      }
+    }
+    finally
+    {
+      GitUtil.release(walk);
+    }
+
+    return new GitRefSnapshot(branches.build(), tags.build());
+  }
+
+  /**
+   * Returns the snapshot of the given repository. The snapshot is created, if
+   * there is no valid snapshot in the cache.
+   *
+   *
+   * @param repository git repository
+   *
+   * @return snapshot of the refs
+   */
+  public static GitRefSnapshot get(org.eclipse.jgit.lib.Repository repository)
+  {
+    String key = createKey(repository.getDirectory());
+    GitRefSnapshot snapshot = snapshots.getIfPresent(key);
+
+    if (snapshot == null)
+    {
+      long before = invalidations.get();
+
+      logger.trace("create ref snapshot for {}", key);
+      snapshot = create(repository);
+
+      if (before == invalidations.get())
+      {
+        snapshots.put(key, snapshot);
+      }
+      else
+      {
+        logger.debug("refs of {} have changed during snapshot creation", key);
+      }
+    }
+
+    return snapshot;
+  }
+
+  /**
+   * Removes the snapshot of the repository in the given directory from the
+   * cache. The method must be called after the refs of a repository were
+   * modified.
+   *
+   *
+   * @param directory git directory
+   */
+  public static void invalidate(File directory)
+  {
+    String key = createKey(directory);
+
+    logger.debug("invalidate ref snapshot of {}", key);
+    invalidations.incrementAndGet();
+    snapshots.invalidate(key);
+  }
+
+  /**
+   * Creates the cache key for a git directory.
+   *
+   *
+   * @param directory git directory
+   *
+   * @return normalized absolute path
+   */
+  private static String createKey(File directory)
+  {
+    return directory.toPath().toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * Groups the ref names by their object id.
+   *
+   *
+   * @param refs ref names with object ids
+   *
+   * @return ref names by object id
+   */
+  private static ImmutableListMultimap<ObjectId, String> invert(
+    Map<String, ObjectId> refs)
+  {
+    ImmutableListMultimap.Builder<ObjectId, String> builder =
+      ImmutableListMultimap.builder();
+
+    for (Map.Entry<String, ObjectId> e : refs.entrySet())
+    {
+      builder.put(e.getValue(), e.getKey());
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Peels the tag to its commit and adds it to the builder. Tags which are not
+   * pointing to a commit are skipped.
+   *
+   *
+   * @param repository git repository
+   * @param walk rev walk used for peeling
+   * @param tags tag builder
+   * @param ref tag ref
+   */
+  private static void putTag(org.eclipse.jgit.lib.Repository repository,
+    RevWalk walk, ImmutableSortedMap.Builder<String, ObjectId> tags, Ref ref)
+  {
+    String name = GitUtil.getTagName(ref);
+
+    try
+    {
+      RevCommit commit = GitUtil.getCommit(repository, walk, ref);
+
+      if (commit != null)
+      {
+        tags.put(name, commit.copy());
+      }
+      else
+      {
+        logger.warn("could not find commit for tag {}", name);
+      }
+    }
+    catch (IOException ex)
+    {
+      logger.warn("could not read commit for tag ".concat(name), ex);
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns all branch names with the id of their head, ordered by name.
+   *
+   *
+   * @return branches
+   */
+  public ImmutableSortedMap<String, ObjectId> getBranches()
+  {
+    return branches;
+  }
+
+  /**
+   * Returns the branch names grouped by the commit of their head.
+   *
+   *
+   * @return branch names by commit
+   */
+  public ImmutableListMultimap<ObjectId, String> getBranchesByCommit()
+  {
+    return branchesByCommit;
+  }
+
+  /**
+   * Returns all tag names with the id of the commit they are pointing to,
+   * ordered by name.
+   *
+   *
+   * @return tags
+   */
+  public ImmutableSortedMap<String, ObjectId> getTags()
+  {
+    return tags;
+  }
+
+  /**
+   * Returns the tag names grouped by the commit they are pointing to.
+   *
+   *
+   * @return tag names by commit
+   */
+  public ImmutableListMultimap<ObjectId, String> getTagsByCommit()
+  {
+    return tagsByCommit;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** branches by name */
+  private final ImmutableSortedMap<String, ObjectId> branches;
+
+  /** branch names by head commit */
+  private final ImmutableListMultimap<ObjectId, String> branchesByCommit;
+
+  /** peeled tags by name */
+  private final ImmutableSortedMap<String, ObjectId> tags;
+
+  /** tag names by commit */
+  private final ImmutableListMultimap<ObjectId, String> tagsByCommit;
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEvent;
+import sonia.scm.plugin.ext.Extension;
+
+/**
+ * Listener which invalidates the {@link GitRefSnapshot} of a git repository, if the repository was deleted, if the
+ * caches of the repository are cleared or if new changesets are received.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+@Extension
+@EagerSingleton
+public class GitRefSnapshotListener {
+
+  /**
+   * the logger for GitRefSnapshotListener
+   */
+  private static final Logger logger = LoggerFactory.getLogger(GitRefSnapshotListener.class);
+
+  private final GitRepositoryHandler handler;
+
+  @Inject
+  public GitRefSnapshotListener(GitRepositoryHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Invalidates the snapshot of a deleted git repository.
+   *
+   * @param event repository event
+   */
+  @Subscribe
+  public void handleRepositoryEvent(RepositoryEvent event) {
+    if (event.getEventType() == HandlerEvent.DELETE) {
+      invalidate(event.getItem());
+    }
+  }
+
+  /**
+   * Invalidates the snapshot on an explicit cache clear.
+   *
+   * @param event clear cache event
+   */
+  @Subscribe
+  public void handleClearCacheEvent(ClearRepositoryCacheEvent event) {
+    invalidate(event.getRepository());
+  }
+
+  /**
+   * Invalidates the snapshot after changesets were received.
+   *
+   * @param event post receive hook event
+   */
+  @Subscribe
+  public void handlePostReceiveEvent(PostReceiveRepositoryHookEvent event) {
+    invalidate(event.getRepository());
+  }
+
+  private void invalidate(Repository repository) {
+    if (repository != null && GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      logger.trace("invalidate ref snapshot of repository {}", repository.getName());
+      GitRefSnapshot.invalidate(handler.getDirectory(repository));
+    }
+  }
+
+}
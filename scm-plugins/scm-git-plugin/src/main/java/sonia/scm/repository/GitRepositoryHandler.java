@@ -294,6 +294,24 @@ public class GitRepositoryHandler
 
   //~--- methods --------------------------------------------------------------
 
+  /**
+   * Removes the repository from the shared jgit repository cache, before the
+   * repository directory is deleted.
+   *
+   *
+   * @param repository repository to delete
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Override
+  public void delete(Repository repository)
+    throws RepositoryException, IOException
+  {
+    GitUtil.evictCached(getDirectory(repository));
+    super.delete(repository);
+  }
+
   /**
    * Method description
    *
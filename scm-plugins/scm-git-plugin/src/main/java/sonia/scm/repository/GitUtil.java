@@ -47,6 +47,8 @@ import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.RepositoryCache.FileKey;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
@@ -145,7 +147,7 @@ public final class GitUtil
   }
 
   /**
-   * TODO cache
+   * Method description
    *
    *
    * @param repository
@@ -153,7 +155,11 @@ public final class GitUtil
    *
    *
    * @return
+   *
+   * @deprecated use {@link GitRefSnapshot#getTagsByCommit()} instead, which
+   *             is shared between all commands of a repository
    */
+  @Deprecated
   public static Multimap<ObjectId,
     String> createTagMap(org.eclipse.jgit.lib.Repository repository,
       RevWalk revWalk)
@@ -224,6 +230,12 @@ public final class GitUtil
     {
       throw new RepositoryException("could not fetch", ex);
     }
+    finally
+    {
+
+      // fetch could follow tags of the remote repository
+      GitRefSnapshot.invalidate(git.getRepository().getDirectory());
+    }
   }
 
   /**
@@ -258,6 +270,42 @@ public final class GitUtil
     return builder.build();
   }
 
+  /**
+   * Borrows the git repository in the given directory from the shared jgit
+   * {@link RepositoryCache}. The returned repository is reference counted and
+   * shared with all other callers, it must be returned with
+   * {@link #close(org.eclipse.jgit.lib.Repository)} and must never be closed
+   * twice.
+   *
+   *
+   * @param directory repository directory
+   *
+   * @return shared repository
+   *
+   * @throws IOException
+   * @since 1.58
+   */
+  public static org.eclipse.jgit.lib.Repository openCached(File directory)
+    throws IOException
+  {
+    return RepositoryCache.open(FileKey.lenient(directory, FS.DETECTED), true);
+  }
+
+  /**
+   * Removes the git repository in the given directory from the shared jgit
+   * {@link RepositoryCache}. Handles which are still in use stay valid and are
+   * closed as soon as their last user returns them.
+   *
+   *
+   * @param directory repository directory
+   *
+   * @since 1.58
+   */
+  public static void evictCached(File directory)
+  {
+    RepositoryCache.unregister(FileKey.lenient(directory, FS.DETECTED));
+  }
+
   /**
    * Method description
    *
@@ -34,14 +34,12 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
-import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.ObjectId;
 
 import sonia.scm.repository.Branch;
+import sonia.scm.repository.GitRefSnapshot;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryException;
@@ -51,6 +49,7 @@ import sonia.scm.repository.RepositoryException;
 import java.io.IOException;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -75,7 +74,8 @@ public class GitBranchesCommand extends AbstractGitCommand
   //~--- get methods ----------------------------------------------------------
 
   /**
-   * Method description
+   * Returns the branches from the shared {@link GitRefSnapshot} of the
+   * repository.
    *
    *
    * @return
@@ -86,36 +86,12 @@ public class GitBranchesCommand extends AbstractGitCommand
   @Override
   public List<Branch> getBranches() throws RepositoryException, IOException
   {
-    List<Branch> branches = null;
+    GitRefSnapshot refs = GitRefSnapshot.get(open());
+    List<Branch> branches = Lists.newArrayList();
 
-    Git git = new Git(open());
-
-    try
-    {
-      List<Ref> refs = git.branchList().call();
-
-      branches = Lists.transform(refs, new Function<Ref, Branch>()
-      {
-
-        @Override
-        public Branch apply(Ref ref)
-        {
-          Branch branch = null;
-          String branchName = GitUtil.getBranch(ref);
-
-          if (branchName != null)
-          {
-            branch = new Branch(branchName, GitUtil.getId(ref.getObjectId()));
-          }
-
-          return branch;
-        }
-      });
-
-    }
-    catch (GitAPIException ex)
+    for (Map.Entry<String, ObjectId> e : refs.getBranches().entrySet())
     {
-      throw new RepositoryException("could not read branches", ex);
+      branches.add(new Branch(e.getKey(), GitUtil.getId(e.getValue())));
     }
 
     return branches;
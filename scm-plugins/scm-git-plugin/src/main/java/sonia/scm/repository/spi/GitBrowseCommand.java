@@ -48,6 +48,7 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 import org.slf4j.Logger;
@@ -55,6 +56,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
+import sonia.scm.repository.GitLastCommitIndex;
 import sonia.scm.repository.GitSubModuleParser;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.PathNotFoundException;
@@ -165,13 +167,15 @@ public class GitBrowseCommand extends AbstractGitCommand
    * @param request
    * @param revId
    * @param treeWalk
+   * @param pending files without last commit, the object id by path
    *
    * @return
    *
    * @throws IOException
    */
   private FileObject createFileObject(org.eclipse.jgit.lib.Repository repo,
-    BrowseCommandRequest request, ObjectId revId, TreeWalk treeWalk)
+    BrowseCommandRequest request, ObjectId revId, TreeWalk treeWalk,
+    Map<String, ObjectId> pending)
     throws IOException, RepositoryException
   {
     FileObject file;
@@ -208,20 +212,8 @@ public class GitBrowseCommand extends AbstractGitCommand
         // don't show message and date for directories to improve performance
         if (!file.isDirectory() &&!request.isDisableLastCommit())
         {
-          logger.trace("fetch last commit for {} at {}", path, revId.getName());
-
-          RevCommit commit = getLatestCommit(repo, revId, path);
-
-          if (commit != null)
-          {
-            file.setLastModified(GitUtil.getCommitTime(commit));
-            file.setDescription(commit.getShortMessage());
-          }
-          else if (logger.isWarnEnabled())
-          {
-            logger.warn("could not find latest commit for {} on {}", path,
-              revId);
-          }
+          // the last commits of all files are resolved at once
+          pending.put(path, treeWalk.getObjectId(0));
         }
       }
     }
@@ -239,8 +231,121 @@ public class GitBrowseCommand extends AbstractGitCommand
     return file;
   }
 
+  /**
+   * Finds the last commits, which have modified the given files, with a single
+   * walk through the history. Every commit of the walk is compared with its
+   * parents and a file is resolved by the first commit, which has introduced
+   * the content of the file at the browsed revision. Files which could not be
+   * resolved by the walk, are resolved one by one.
+   *
+   *
+   * @param repo git repository
+   * @param revId browsed revision
+   * @param files object id of the files by path
+   *
+   * @return commit id by file path
+   *
+   * @throws IOException
+   */
+  private Map<String, ObjectId> findLastCommits(
+    org.eclipse.jgit.lib.Repository repo, ObjectId revId,
+    Map<String, ObjectId> files)
+    throws IOException
+  {
+    Map<String, ObjectId> pending = Maps.newHashMap(files);
+    Map<String, ObjectId> commits = Maps.newHashMap();
+    RevWalk walk = null;
+    TreeWalk diff = null;
+
+    try
+    {
+      TreeFilter filter = PathFilterGroup.createFromStrings(pending.keySet());
+
+      walk = new RevWalk(repo);
+      walk.setRetainBody(false);
+      walk.setTreeFilter(AndTreeFilter.create(filter.clone(),
+        TreeFilter.ANY_DIFF));
+      walk.markStart(walk.parseCommit(revId));
+
+      diff = new TreeWalk(repo);
+      diff.setRecursive(true);
+      diff.setFilter(filter);
+
+      RevCommit commit = walk.next();
+
+      while ((commit != null) &&!pending.isEmpty())
+      {
+        diff.reset(commit.getTree());
+
+        for (RevCommit parent : commit.getParents())
+        {
+          walk.parseHeaders(parent);
+          diff.addTree(parent.getTree());
+        }
+
+        while (diff.next())
+        {
+          String path = diff.getPathString();
+          ObjectId id = pending.get(path);
+
+          if ((id != null) && id.equals(diff.getObjectId(0))
+            && isModified(diff))
+          {
+            commits.put(path, commit.copy());
+            pending.remove(path);
+          }
+        }
+
+        commit = walk.next();
+      }
+    }
+    finally
+    {
+      GitUtil.release(walk);
+      GitUtil.release(diff);
+    }
+
+    for (String path : pending.keySet())
+    {
+      logger.debug("could not resolve last commit of {} with a single walk",
+        path);
+
+      RevCommit commit = getLatestCommit(repo, revId, path);
+
+      if (commit != null)
+      {
+        commits.put(path, commit.copy());
+      }
+    }
+
+    return commits;
+  }
+
   //~--- get methods ----------------------------------------------------------
 
+  /**
+   * Returns true if the current entry of the tree walk, differs from the
+   * entries of all parent trees. The first tree of the walk is the tree of the
+   * commit, all other trees are the trees of its parents.
+   *
+   *
+   * @param diff tree walk
+   *
+   * @return true if the commit has modified the entry
+   */
+  private boolean isModified(TreeWalk diff)
+  {
+    boolean modified = true;
+
+    for (int i = 1; modified && (i < diff.getTreeCount()); i++)
+    {
+      modified = !diff.idEqual(0, i)
+        || (diff.getRawMode(0) != diff.getRawMode(i));
+    }
+
+    return modified;
+  }
+
   /**
    * Method description
    *
@@ -328,6 +433,7 @@ public class GitBrowseCommand extends AbstractGitCommand
       result = new BrowserResult();
 
       List<FileObject> files = Lists.newArrayList();
+      Map<String, ObjectId> pending = Maps.newHashMap();
 
       String path = request.getPath();
 
@@ -335,7 +441,8 @@ public class GitBrowseCommand extends AbstractGitCommand
       {
         while (treeWalk.next())
         {
-          FileObject fo = createFileObject(repo, request, revId, treeWalk);
+          FileObject fo = createFileObject(repo, request, revId, treeWalk,
+                            pending);
 
           if (fo != null)
           {
@@ -359,7 +466,8 @@ public class GitBrowseCommand extends AbstractGitCommand
 
             if (p.split("/").length > limit)
             {
-              FileObject fo = createFileObject(repo, request, revId, treeWalk);
+              FileObject fo = createFileObject(repo, request, revId,
+                                treeWalk, pending);
 
               if (fo != null)
               {
@@ -379,6 +487,11 @@ public class GitBrowseCommand extends AbstractGitCommand
         }
       }
 
+      if (!pending.isEmpty())
+      {
+        setLastCommits(repo, revWalk, request, revId, files, pending);
+      }
+
       result.setFiles(files);
       result.setRevision(revId.getName());
     }
@@ -454,6 +567,63 @@ public class GitBrowseCommand extends AbstractGitCommand
     return sub;
   }
 
+  //~--- set methods ----------------------------------------------------------
+
+  /**
+   * Sets date and description of the last commit to the given files. The last
+   * commits are read from the {@link GitLastCommitIndex} or are resolved with a
+   * single walk through the history, which is stored in the index afterwards.
+   *
+   *
+   * @param repo git repository
+   * @param revWalk rev walk of the browse command
+   * @param request browse request
+   * @param revId browsed revision
+   * @param files files of the browse result
+   * @param pending files without last commit, the object id by path
+   *
+   * @throws IOException
+   */
+  private void setLastCommits(org.eclipse.jgit.lib.Repository repo,
+    RevWalk revWalk, BrowseCommandRequest request, ObjectId revId,
+    List<FileObject> files, Map<String, ObjectId> pending)
+    throws IOException
+  {
+    GitLastCommitIndex index = new GitLastCommitIndex(repo);
+    String path = request.getPath();
+    Map<String, ObjectId> commits = index.get(revId, path,
+                                      request.isRecursive());
+
+    if ((commits == null) ||!commits.keySet().containsAll(pending.keySet()))
+    {
+      logger.trace("resolve last commits of {} files at {}", pending.size(),
+        revId.getName());
+      commits = findLastCommits(repo, revId, pending);
+      index.put(revId, path, request.isRecursive(), commits);
+    }
+
+    for (FileObject file : files)
+    {
+      if (pending.containsKey(file.getPath()))
+      {
+        ObjectId id = commits.get(file.getPath());
+
+        if (id != null)
+        {
+          RevCommit commit = revWalk.parseCommit(id);
+
+          file.setLastModified(GitUtil.getCommitTime(commit));
+          file.setDescription(commit.getShortMessage());
+        }
+        else if (logger.isWarnEnabled())
+        {
+          logger.warn("could not find latest commit for {} on {}",
+            file.getPath(), revId);
+        }
+      }
+    }
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** sub repository cache */
@@ -46,6 +46,9 @@ import java.io.File;
 import java.io.IOException;
 
 /**
+ * Context of all commands of a git repository. The jgit repository is
+ * borrowed from the shared and reference counted jgit repository cache, so
+ * that packs, pack indexes and refs are not reloaded for every request.
  *
  * @author Sebastian Sdorra
  */
@@ -74,7 +77,7 @@ public class GitContext implements Closeable
   //~--- methods --------------------------------------------------------------
 
   /**
-   * Method description
+   * Returns the borrowed repository to the shared repository cache.
    *
    */
   @Override
@@ -82,7 +85,7 @@ public class GitContext implements Closeable
   {
     if (logger.isTraceEnabled())
     {
-      logger.trace("close git repository {}", directory);
+      logger.trace("release git repository {}", directory);
     }
 
     GitUtil.close(repository);
@@ -103,10 +106,10 @@ public class GitContext implements Closeable
     {
       if (logger.isTraceEnabled())
       {
-        logger.trace("open git repository {}", directory);
+        logger.trace("borrow git repository {}", directory);
       }
 
-      repository = GitUtil.open(directory);
+      repository = GitUtil.openCached(directory);
     }
 
     return repository;
@@ -77,15 +77,13 @@ public class GitHookChangesetProvider implements HookChangesetProvider
   public synchronized HookChangesetResponse handleRequest(
     HookChangesetRequest request)
   {
-    if (response == null)
+    if (collector == null)
     {
-      GitHookChangesetCollector collector =
-        new GitHookChangesetCollector(receivePack, receiveCommands);
-
-      response = new HookChangesetResponse(collector.collectChangesets());
+      collector = new GitHookChangesetCollector(receivePack, receiveCommands);
     }
 
-    return response;
+    return new HookChangesetResponse(
+      collector.collectChangesets(request.isDisableModifications()), false);
   }
 
   //~--- fields ---------------------------------------------------------------
@@ -96,6 +94,6 @@ public class GitHookChangesetProvider implements HookChangesetProvider
   /** Field description */
   private ReceivePack receivePack;
 
-  /** Field description */
-  private HookChangesetResponse response;
+  /** collector for the new changesets */
+  private GitHookChangesetCollector collector;
 }
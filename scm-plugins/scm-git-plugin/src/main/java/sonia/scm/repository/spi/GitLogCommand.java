@@ -52,6 +52,7 @@ import org.slf4j.LoggerFactory;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
 import sonia.scm.repository.GitChangesetConverter;
+import sonia.scm.repository.GitCommitCountIndex;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.RepositoryException;
 import sonia.scm.util.IOUtil;
@@ -145,7 +146,6 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
     {
       IOUtil.close(converter);
       GitUtil.release(revWalk);
-      GitUtil.close(gr);
     }
 
     return changeset;
@@ -213,8 +213,11 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
         revWalk = new RevWalk(gr);
 
         converter = new GitChangesetConverter(gr, revWalk);
+        converter.setDisableModifications(request.isDisableModifications());
 
-        if (!Strings.isNullOrEmpty(request.getPath()))
+        boolean pathFiltered = !Strings.isNullOrEmpty(request.getPath());
+
+        if (pathFiltered)
         {
           revWalk.setTreeFilter(
             AndTreeFilter.create(
@@ -222,18 +225,25 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
         }
         
         ObjectId head = getBranchOrDefault(gr, request.getBranch());
+        int total = GitCommitCountIndex.UNKNOWN;
 
         if (head != null)
         {
-          if (startId != null)
-          {
-            revWalk.markStart(revWalk.lookupCommit(startId));
-          }
-          else
+          ObjectId startCommit = (startId != null)
+            ? startId
+            : head;
+
+          // the count index is only valid for the whole ancestry of a commit
+          GitCommitCountIndex index = null;
+
+          if (!pathFiltered && (endId == null))
           {
-            revWalk.markStart(revWalk.lookupCommit(head));
+            index = new GitCommitCountIndex(gr);
+            total = index.get(startCommit);
           }
 
+          revWalk.markStart(revWalk.lookupCommit(startCommit));
+
           Iterator<RevCommit> iterator = revWalk.iterator();
 
           while (iterator.hasNext())
@@ -252,10 +262,29 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
             {
               break;
             }
+
+            // total is known, so there is no need to walk past the page
+            if ((total != GitCommitCountIndex.UNKNOWN) && (limit >= 0)
+              && (counter >= start + limit))
+            {
+              break;
+            }
+          }
+
+          if ((index != null) && (total == GitCommitCountIndex.UNKNOWN))
+          {
+            logger.trace("store commit count {} of {} in index", counter,
+              startCommit.name());
+            index.put(startCommit, counter);
           }
         }
 
-        changesets = new ChangesetPagingResult(counter, changesetList);
+        if (total == GitCommitCountIndex.UNKNOWN)
+        {
+          total = counter;
+        }
+
+        changesets = new ChangesetPagingResult(total, changesetList);
       }
       else if (logger.isWarnEnabled())
       {
@@ -50,6 +50,7 @@ import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sonia.scm.repository.GitRefSnapshot;
 import sonia.scm.repository.GitRepositoryHandler;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.Repository;
@@ -291,6 +292,12 @@ public class GitPullCommand extends AbstractGitPushOrPullCommand
     {
       throw new RepositoryException("error durring pull", ex);
     }
+    finally
+    {
+
+      // a fetch does not trigger any hook, so we have to invalidate the refs
+      GitRefSnapshot.invalidate(git.getRepository().getDirectory());
+    }
 
     return response;
   }
@@ -35,19 +35,11 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
-import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.lib.ObjectId;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import sonia.scm.repository.GitUtil;
+import sonia.scm.repository.GitRefSnapshot;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryException;
 import sonia.scm.repository.Tag;
@@ -57,6 +49,7 @@ import sonia.scm.repository.Tag;
 import java.io.IOException;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -80,7 +73,8 @@ public class GitTagsCommand extends AbstractGitCommand implements TagsCommand
   //~--- get methods ----------------------------------------------------------
 
   /**
-   * Method description
+   * Returns the tags from the shared {@link GitRefSnapshot} of the
+   * repository. The tags of the snapshot are already peeled.
    *
    *
    * @return
@@ -91,108 +85,14 @@ public class GitTagsCommand extends AbstractGitCommand implements TagsCommand
   @Override
   public List<Tag> getTags() throws IOException, RepositoryException
   {
-    List<Tag> tags = null;
-
-    RevWalk revWalk = null;
-
-    try
-    {
-      final Git git = new Git(open());
+    GitRefSnapshot refs = GitRefSnapshot.get(open());
+    List<Tag> tags = Lists.newArrayList();
 
-      revWalk = new RevWalk(git.getRepository());
-
-      List<Ref> tagList = git.tagList().call();
-
-      tags = Lists.transform(tagList,
-        new TransformFuntion(git.getRepository(), revWalk));
-    }
-    catch (GitAPIException ex)
-    {
-      throw new RepositoryException("could not read tags from repository", ex);
-    }
-    finally
+    for (Map.Entry<String, ObjectId> e : refs.getTags().entrySet())
     {
-      GitUtil.release(revWalk);
+      tags.add(new Tag(e.getKey(), e.getValue().name()));
     }
 
     return tags;
   }
-
-  //~--- inner classes --------------------------------------------------------
-
-  /**
-   * Class description
-   *
-   *
-   * @version        Enter version here..., 12/07/06
-   * @author         Enter your name here...
-   */
-  private static class TransformFuntion implements Function<Ref, Tag>
-  {
-
-    /**
-     * the logger for TransformFuntion
-     */
-    private static final Logger logger =
-      LoggerFactory.getLogger(TransformFuntion.class);
-
-    //~--- constructors -------------------------------------------------------
-
-    /**
-     * Constructs ...
-     *
-     *
-     * @param repository
-     * @param revWalk
-     */
-    public TransformFuntion(org.eclipse.jgit.lib.Repository repository,
-      RevWalk revWalk)
-    {
-      this.repository = repository;
-      this.revWalk = revWalk;
-    }
-
-    //~--- methods ------------------------------------------------------------
-
-    /**
-     * Method description
-     *
-     *
-     * @param ref
-     *
-     * @return
-     */
-    @Override
-    public Tag apply(Ref ref)
-    {
-      Tag tag = null;
-
-      try
-      {
-        RevCommit commit = GitUtil.getCommit(repository, revWalk, ref);
-
-        if (commit != null)
-        {
-          String name = GitUtil.getTagName(ref);
-
-          tag = new Tag(name, commit.getId().name());
-        }
-
-      }
-      catch (IOException ex)
-      {
-        logger.error("could not get commit for tag", ex);
-      }
-
-      return tag;
-    }
-
-    //~--- fields -------------------------------------------------------------
-
-    /** Field description */
-    private org.eclipse.jgit.lib.Repository repository;
-
-    /** Field description */
-    private RevWalk revWalk;
-  }
 }
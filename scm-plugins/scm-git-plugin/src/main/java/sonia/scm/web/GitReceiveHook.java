@@ -44,7 +44,10 @@ import org.eclipse.jgit.transport.ReceivePack;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sonia.scm.repository.GitCommitCountIndex;
+import sonia.scm.repository.GitRefSnapshot;
 import sonia.scm.repository.GitRepositoryHandler;
+import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.RepositoryHookType;
 import sonia.scm.repository.RepositoryUtil;
 import sonia.scm.repository.spi.GitHookContextProvider;
@@ -173,6 +176,13 @@ public class GitReceiveHook implements PreReceiveHook, PostReceiveHook
 
     if (!receiveCommands.isEmpty())
     {
+      if (type == RepositoryHookType.POST_RECEIVE)
+      {
+        // refs are changed, hooks must not see the old snapshot
+        GitRefSnapshot.invalidate(rpack.getRepository().getDirectory());
+        updateCommitCountIndex(rpack, receiveCommands);
+      }
+
       handleReceiveCommands(rpack, receiveCommands, type);
     }
     else if (logger.isDebugEnabled())
@@ -207,6 +217,38 @@ public class GitReceiveHook implements PreReceiveHook, PostReceiveHook
     return RepositoryUtil.getRepositoryName(handler, directory);
   }
 
+  /**
+   * Updates the {@link GitCommitCountIndex} for all received branches, to
+   * avoid a walk over the whole history on the next log request.
+   *
+   *
+   * @param rpack receive pack
+   * @param receiveCommands received commands
+   */
+  private void updateCommitCountIndex(ReceivePack rpack,
+    List<ReceiveCommand> receiveCommands)
+  {
+    GitCommitCountIndex index =
+      new GitCommitCountIndex(rpack.getRepository());
+
+    for (ReceiveCommand rc : receiveCommands)
+    {
+      if ((rc.getType() != ReceiveCommand.Type.DELETE)
+        && GitUtil.isBranch(rc.getRefName()))
+      {
+        try
+        {
+          index.update(rc.getOldId(), rc.getNewId());
+        }
+        catch (IOException ex)
+        {
+          logger.warn("could not update commit count index of ".concat(
+            rc.getRefName()), ex);
+        }
+      }
+    }
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
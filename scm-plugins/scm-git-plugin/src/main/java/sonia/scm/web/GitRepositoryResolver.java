@@ -40,18 +40,16 @@ import com.google.inject.Inject;
 
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.lib.RepositoryCache;
-import org.eclipse.jgit.lib.RepositoryCache.FileKey;
 import org.eclipse.jgit.transport.resolver.RepositoryResolver;
 import org.eclipse.jgit.transport.resolver.ServiceNotAuthorizedException;
 import org.eclipse.jgit.transport.resolver.ServiceNotEnabledException;
-import org.eclipse.jgit.util.FS;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import sonia.scm.repository.GitConfig;
 import sonia.scm.repository.GitRepositoryHandler;
+import sonia.scm.repository.GitUtil;
 
 //~--- JDK imports ------------------------------------------------------------
 
@@ -120,7 +118,7 @@ public class GitRepositoryResolver implements RepositoryResolver<HttpServletRequ
         
         logger.debug("try to open git repository at {}", gitdir);
 
-        repository = RepositoryCache.open(FileKey.lenient(gitdir, FS.DETECTED), true);
+        repository = GitUtil.openCached(gitdir);
       }
       else
       {
@@ -42,7 +42,6 @@ import sonia.scm.plugin.ext.Extension;
 import sonia.scm.repository.GitRepositoryHandler;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryEvent;
-import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 
 /**
@@ -88,10 +87,7 @@ public class LfsStoreRemoveListener {
   private void removeLfsStore(Repository repository) {
     LOG.debug("remove all blobs from store, because corresponding git repository {} was removed", repository.getName());
     BlobStore blobStore = lfsBlobStoreFactory.getLfsBlobStore(repository);
-    for ( Blob blob : blobStore.getAll() ) {
-      LOG.trace("remove blob {}, because repository {} was removed", blob.getId(), repository.getName());
-      blobStore.remove(blob);
-    }
+    blobStore.clear();
   }
   
 }
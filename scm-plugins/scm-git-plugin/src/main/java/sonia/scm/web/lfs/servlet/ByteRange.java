@@ -0,0 +1,96 @@
+package sonia.scm.web.lfs.servlet;
+
+import com.google.common.base.Strings;
+
+/**
+ * A single byte range of a http {@code Range} header, as defined by RFC 7233. Only a single range is supported, headers
+ * with multiple ranges or other units are ignored and the whole content is served instead.
+ *
+ * @since 1.58
+ */
+final class ByteRange {
+
+  /**
+   * Marker for ranges which start behind the end of the content.
+   */
+  static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+  private static final String PREFIX = "bytes=";
+
+  private final long start;
+
+  private final long end;
+
+  private ByteRange(long start, long end) {
+
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Parses the value of a {@code Range} header.
+   *
+   * @param header value of the header, may be {@code null}
+   * @param size   size of the content
+   * @return the requested range, {@link #UNSATISFIABLE} or {@code null} if the whole content should be served
+   */
+  static ByteRange parse(String header, long size) {
+
+    if (Strings.isNullOrEmpty(header) || !header.startsWith(PREFIX) || header.indexOf(',') >= 0) {
+      return null;
+    }
+
+    String spec = header.substring(PREFIX.length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+
+    try {
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+
+      if (first.isEmpty()) {
+
+        // suffix range, the last n bytes of the content
+        long length = Long.parseLong(last);
+        if (length <= 0 || size == 0) {
+          return UNSATISFIABLE;
+        }
+        return new ByteRange(Math.max(0, size - length), size - 1);
+      }
+
+      long start = Long.parseLong(first);
+      long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+
+      if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+        return null;
+      } else if (start >= size) {
+        return UNSATISFIABLE;
+      }
+
+      return new ByteRange(start, end);
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  long getStart() {
+    return start;
+  }
+
+  long getEnd() {
+    return end;
+  }
+
+  long getLength() {
+    return end - start + 1;
+  }
+
+  /**
+   * Returns the value of the {@code Content-Range} header for this range.
+   */
+  String toContentRange(long size) {
+    return "bytes " + start + "-" + end + "/" + size;
+  }
+}
@@ -1,12 +1,14 @@
 package sonia.scm.web.lfs.servlet;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.ByteStreams;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.apache.http.HttpStatus;
 import org.eclipse.jgit.lfs.errors.CorruptLongObjectException;
 import org.eclipse.jgit.lfs.errors.InvalidLongObjectIdException;
+import org.eclipse.jgit.lfs.internal.LfsText;
 import org.eclipse.jgit.lfs.lib.AnyLongObjectId;
 import org.eclipse.jgit.lfs.lib.Constants;
 import org.eclipse.jgit.lfs.lib.LongObjectId;
@@ -26,10 +28,17 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.text.MessageFormat;
 
 /**
@@ -49,6 +58,8 @@ public class ScmFileTransferServlet extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
 
+  private static final String RANGE_UNIT_BYTES = "bytes";
+
   /**
    * Gson is used because the implementation was based on the jgit implementation. However the {@link LfsProtocolServlet} (which we do use in
    * {@link ScmLfsProtocolServlet}) also uses Gson, which currently ties us to Gson anyway.
@@ -158,7 +169,7 @@ public class ScmFileTransferServlet extends HttpServlet {
       if (isBlobPresent(savedBlob)) {
 
         logger.trace("----- Object {}: providing {} bytes", objectIdName, savedBlob.getSize());
-        writeBlobIntoResponse(savedBlob, response);
+        writeBlobIntoResponse(savedBlob, objectIdName, request, response);
       } else {
 
         sendErrorAndLog(response, HttpStatus.SC_NOT_FOUND, MessageFormat.format(LfsServerText.get().objectNotFound, objectIdName));
@@ -228,15 +239,53 @@ public class ScmFileTransferServlet extends HttpServlet {
     return savedBlob != null && savedBlob.getSize() >= 0;
   }
 
-  private void writeBlobIntoResponse(Blob savedBlob, HttpServletResponse response) throws IOException {
+  /**
+   * Writes the blob or the requested range of the blob into the response. The object id is used as strong entity tag,
+   * because the content of a blob can never change. A range is only served if the {@code If-Range} header is missing or
+   * matches the entity tag, otherwise the whole blob is written.
+   */
+  private void writeBlobIntoResponse(Blob savedBlob, String objectIdName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+    long size = savedBlob.getSize();
+    String etag = "\"" + objectIdName + "\"";
+
+    ByteRange range = null;
+    String ifRange = request.getHeader(HttpSupport.HDR_IF_RANGE);
+    if (ifRange == null || ifRange.equals(etag)) {
+      range = ByteRange.parse(request.getHeader(HttpSupport.HDR_RANGE), size);
+    }
+
+    response.setHeader(HttpSupport.HDR_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+    response.setHeader(HttpSupport.HDR_ETAG, etag);
+
+    if (range == ByteRange.UNSATISFIABLE) {
+
+      response.setHeader(HttpSupport.HDR_CONTENT_RANGE, RANGE_UNIT_BYTES + " */" + size);
+      sendErrorAndLog(response, HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE,
+        "range " + request.getHeader(HttpSupport.HDR_RANGE) + " is not satisfiable for " + size + " bytes");
+      return;
+    }
 
     try (ServletOutputStream responseOutputStream = response.getOutputStream();
          InputStream savedBlobInputStream = savedBlob.getInputStream()) {
 
-      response.addHeader(HttpSupport.HDR_CONTENT_LENGTH, String.valueOf(savedBlob.getSize()));
+      long offset = 0;
+      long length = size;
+
+      if (range != null) {
+
+        offset = range.getStart();
+        length = range.getLength();
+        logger.trace("----- providing range {}", range.toContentRange(size));
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(HttpSupport.HDR_CONTENT_RANGE, range.toContentRange(size));
+      }
+
+      response.addHeader(HttpSupport.HDR_CONTENT_LENGTH, String.valueOf(length));
       response.setContentType(Constants.HDR_APPLICATION_OCTET_STREAM);
 
-      IOUtil.copy(savedBlobInputStream, responseOutputStream);
+      copy(savedBlobInputStream, responseOutputStream, offset, length);
     } catch (IOException ex) {
 
       sendErrorAndLog(response, HttpStatus.SC_INTERNAL_SERVER_ERROR, ex);
@@ -244,20 +293,78 @@ public class ScmFileTransferServlet extends HttpServlet {
 
   }
 
+  /**
+   * Copies {@code length} bytes starting at {@code offset} from the input to the output. File based blobs are
+   * transferred by their {@link FileChannel}, which avoids the copy through a heap buffer and the reading of skipped
+   * bytes.
+   */
+  @VisibleForTesting
+  static void copy(InputStream input, OutputStream output, long offset, long length) throws IOException {
+
+    if (input instanceof FileInputStream) {
+
+      FileChannel channel = ((FileInputStream) input).getChannel();
+      WritableByteChannel target = Channels.newChannel(output);
+
+      long position = offset;
+      long end = offset + length;
+      while (position < end) {
+
+        long transferred = channel.transferTo(position, end - position, target);
+        if (transferred <= 0) {
+          throw new EOFException("blob is shorter than the requested range");
+        }
+        position += transferred;
+      }
+    } else {
+
+      ByteStreams.skipFully(input, offset);
+      long copied = ByteStreams.copy(ByteStreams.limit(input, length), output);
+      if (copied < length) {
+        throw new EOFException("blob is shorter than the requested range");
+      }
+    }
+  }
+
+  /**
+   * Stores the uploaded blob and computes its SHA-256 hash while streaming. The blob is only committed if the hash
+   * matches the requested object id, otherwise and on every other failure the blob is removed from the store. This
+   * ensures that neither corrupt nor incomplete uploads are served to other clients and that the upload can be
+   * retried.
+   */
   private void readBlobFromResponse(HttpServletRequest request, HttpServletResponse response, AnyLongObjectId objectId) throws IOException {
 
     Blob blob = blobStore.create(objectId.getName());
-    try (OutputStream blobOutputStream = blob.getOutputStream();
-         ServletInputStream requestInputStream = request.getInputStream()) {
+    boolean committed = false;
+    try {
+
+      MessageDigest digest = Constants.newMessageDigest();
+      try (OutputStream blobOutputStream = new DigestOutputStream(blob.getOutputStream(), digest);
+           ServletInputStream requestInputStream = request.getInputStream()) {
+
+        IOUtil.copy(requestInputStream, blobOutputStream);
+      }
+
+      LongObjectId contentHash = LongObjectId.fromRaw(digest.digest());
+      if (!contentHash.equals(objectId)) {
+        throw new CorruptLongObjectException(objectId, contentHash,
+          MessageFormat.format(LfsText.get().corruptLongObject, contentHash.name(), objectId.name()));
+      }
 
-      IOUtil.copy(requestInputStream, blobOutputStream);
       blob.commit();
+      committed = true;
 
       response.setContentType(Constants.CONTENT_TYPE_GIT_LFS_JSON);
       response.setStatus(HttpServletResponse.SC_OK);
     } catch (CorruptLongObjectException ex) {
 
       sendErrorAndLog(response, HttpStatus.SC_BAD_REQUEST, ex);
+    } finally {
+
+      if (!committed) {
+        logger.debug("---- removing uncommitted upload for LFS-Oid: {}", objectId.getName());
+        blobStore.remove(blob);
+      }
     }
 
 
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sonia.scm.repository.spi.AbstractGitCommandTestBase;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link GitCommitCountIndex}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class GitCommitCountIndexTest extends AbstractGitCommandTestBase
+{
+
+  /** head of master */
+  private static final ObjectId MASTER =
+    ObjectId.fromString("fcd0ef1831e4002ac43ea539f4094334c79ea9ec");
+
+  /** second commit of master */
+  private static final ObjectId MASTER_PARENT =
+    ObjectId.fromString("86a6645eceefe8b9a247db5eb16e3d89a7e6e6d1");
+
+  /** common ancestor of master and test-branch */
+  private static final ObjectId BASE =
+    ObjectId.fromString("592d797cd36432e591416e8b2b98154f4f163411");
+
+  /** head of test-branch */
+  private static final ObjectId TEST_BRANCH =
+    ObjectId.fromString("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4");
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Creates the index for the test repository.
+   *
+   * @throws IOException
+   */
+  @Before
+  public void setUpIndex() throws IOException
+  {
+    index = new GitCommitCountIndex(createContext().open());
+  }
+
+  /**
+   * Tests {@link GitCommitCountIndex#put(ObjectId, int)}.
+   */
+  @Test
+  public void testPutAndGet()
+  {
+    assertEquals(GitCommitCountIndex.UNKNOWN, index.get(MASTER));
+    index.put(MASTER, 4);
+    assertEquals(4, index.get(MASTER));
+    index.put(BASE, 2);
+    assertEquals(4, index.get(MASTER));
+    assertEquals(2, index.get(BASE));
+  }
+
+  /**
+   * Tests that the oldest entries are dropped.
+   */
+  @Test
+  public void testPutTrimsOldestEntries()
+  {
+    index.put(MASTER, 4);
+
+    for (int i = 0; i < GitCommitCountIndex.MAX_ENTRIES; i++)
+    {
+      index.put(ObjectId.fromRaw(new int[] { i, 0, 0, 0, 1 }), i);
+    }
+
+    assertEquals(GitCommitCountIndex.UNKNOWN, index.get(MASTER));
+  }
+
+  /**
+   * Tests {@link GitCommitCountIndex#update(ObjectId, ObjectId)} with a
+   * fast-forward.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testUpdateFastForward() throws IOException
+  {
+    index.put(BASE, 2);
+    index.update(BASE, MASTER);
+    assertEquals(4, index.get(MASTER));
+    index.update(BASE, TEST_BRANCH);
+    assertEquals(3, index.get(TEST_BRANCH));
+  }
+
+  /**
+   * Tests {@link GitCommitCountIndex#update(ObjectId, ObjectId)} with a new
+   * branch.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testUpdateNewBranch() throws IOException
+  {
+    index.put(BASE, 2);
+    index.update(ObjectId.zeroId(), TEST_BRANCH);
+    assertEquals(3, index.get(TEST_BRANCH));
+    index.update(ObjectId.zeroId(), MASTER);
+    assertEquals(4, index.get(MASTER));
+  }
+
+  /**
+   * Tests that a new branch without an indexed ancestor is left for the next
+   * log request, instead of walking the whole history.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testUpdateNewBranchWithoutIndexedAncestor() throws IOException
+  {
+    index.update(ObjectId.zeroId(), TEST_BRANCH);
+    assertEquals(GitCommitCountIndex.UNKNOWN, index.get(TEST_BRANCH));
+  }
+
+  /**
+   * Tests {@link GitCommitCountIndex#update(ObjectId, ObjectId)} with a non
+   * fast-forward and with an unknown old commit.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testUpdateSkipped() throws IOException
+  {
+    index.put(MASTER_PARENT, 3);
+    index.update(MASTER_PARENT, TEST_BRANCH);
+    assertEquals(GitCommitCountIndex.UNKNOWN, index.get(TEST_BRANCH));
+    index.update(BASE, MASTER);
+    assertEquals(GitCommitCountIndex.UNKNOWN, index.get(MASTER));
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** index under test */
+  private GitCommitCountIndex index;
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.ImmutableMap;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sonia.scm.repository.spi.AbstractGitCommandTestBase;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Map;
+
+/**
+ * Unit tests for {@link GitLastCommitIndex}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class GitLastCommitIndexTest extends AbstractGitCommandTestBase
+{
+
+  /** head of master */
+  private static final ObjectId MASTER =
+    ObjectId.fromString("fcd0ef1831e4002ac43ea539f4094334c79ea9ec");
+
+  /** common ancestor of master and test-branch */
+  private static final ObjectId BASE =
+    ObjectId.fromString("592d797cd36432e591416e8b2b98154f4f163411");
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Creates the index for the test repository.
+   *
+   * @throws IOException
+   */
+  @Before
+  public void setUpIndex() throws IOException
+  {
+    index = new GitLastCommitIndex(createContext().open());
+  }
+
+  /**
+   * Tests {@link GitLastCommitIndex#put(ObjectId, String, boolean, Map)}.
+   */
+  @Test
+  public void testPutAndGet()
+  {
+    Map<String, ObjectId> commits = ImmutableMap.of("a.txt", BASE,
+                                      "with space.txt", MASTER);
+
+    assertNull(index.get(MASTER, null, false));
+    index.put(MASTER, null, false, commits);
+    assertEquals(commits, index.get(MASTER, null, false));
+    assertEquals(commits, index.get(MASTER, "", false));
+    assertNull(index.get(MASTER, null, true));
+    assertNull(index.get(MASTER, "c", false));
+    assertNull(index.get(BASE, null, false));
+  }
+
+  /**
+   * Tests that the oldest entries are dropped.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testPutTrimsOldestEntries() throws IOException
+  {
+    Map<String, ObjectId> commits = ImmutableMap.of("a.txt", BASE);
+
+    index.put(MASTER, null, false, commits);
+
+    File directory = new File(createContext().open().getDirectory(),
+                       GitLastCommitIndex.DIRECTORY);
+
+    for (File file : directory.listFiles())
+    {
+      assertTrue(file.setLastModified(1000L));
+    }
+
+    for (int i = 0; i < GitLastCommitIndex.MAX_ENTRIES; i++)
+    {
+      index.put(BASE, "path-" + i, false, commits);
+    }
+
+    assertNull(index.get(MASTER, null, false));
+    assertEquals(commits, index.get(BASE, "path-0", false));
+    assertEquals(GitLastCommitIndex.MAX_ENTRIES, directory.list().length);
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** index under test */
+  private GitLastCommitIndex index;
+}
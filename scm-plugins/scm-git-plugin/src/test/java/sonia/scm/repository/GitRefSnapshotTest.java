@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+
+import org.junit.Test;
+
+import sonia.scm.repository.spi.AbstractGitCommandTestBase;
+
+import static org.hamcrest.Matchers.*;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link GitRefSnapshot}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class GitRefSnapshotTest extends AbstractGitCommandTestBase
+{
+
+  /**
+   * Tests {@link GitRefSnapshot#create(org.eclipse.jgit.lib.Repository)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testCreate() throws IOException
+  {
+    GitRefSnapshot refs = GitRefSnapshot.create(createContext().open());
+
+    assertThat(refs.getBranches().keySet(), contains("master", "test-branch"));
+    assertEquals("fcd0ef1831e4002ac43ea539f4094334c79ea9ec",
+      refs.getBranches().get("master").name());
+    assertThat(refs.getTags().keySet(), contains("test-tag"));
+    assertEquals("86a6645eceefe8b9a247db5eb16e3d89a7e6e6d1",
+      refs.getTags().get("test-tag").name());
+
+    ObjectId master =
+      ObjectId.fromString("fcd0ef1831e4002ac43ea539f4094334c79ea9ec");
+
+    assertThat(refs.getBranchesByCommit().get(master), contains("master"));
+
+    ObjectId tagged =
+      ObjectId.fromString("86a6645eceefe8b9a247db5eb16e3d89a7e6e6d1");
+
+    assertThat(refs.getTagsByCommit().get(tagged), contains("test-tag"));
+  }
+
+  /**
+   * Tests that the snapshot is shared until it is invalidated.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  @Test
+  public void testGetAndInvalidate() throws IOException, GitAPIException
+  {
+    org.eclipse.jgit.lib.Repository gr = createContext().open();
+    GitRefSnapshot refs = GitRefSnapshot.get(gr);
+
+    assertSame(refs, GitRefSnapshot.get(gr));
+
+    Git.wrap(gr).branchCreate().setName("new-branch").call();
+
+    // branch is not visible until the snapshot is invalidated
+    assertFalse(GitRefSnapshot.get(gr).getBranches().containsKey("new-branch"));
+
+    GitRefSnapshot.invalidate(repositoryDirectory);
+
+    GitRefSnapshot current = GitRefSnapshot.get(gr);
+
+    assertNotSame(refs, current);
+    assertTrue(current.getBranches().containsKey("new-branch"));
+  }
+}
@@ -35,11 +35,19 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
 import org.junit.Test;
 
 import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
+import sonia.scm.repository.GitLastCommitIndex;
+import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.RepositoryException;
+import sonia.scm.util.Util;
 
 import static org.junit.Assert.*;
 
@@ -223,6 +231,48 @@ public class GitBrowseCommandTest extends AbstractGitCommandTestBase
     assertEquals(5, foList.size());
   }
 
+  /**
+   * Tests that the last commits, which are resolved with a single walk and
+   * read from the index, match the last commit of a path filtered log.
+   *
+   * @throws GitAPIException
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void testRecursiveLastCommits()
+    throws IOException, RepositoryException, GitAPIException
+  {
+    BrowseCommandRequest request = new BrowseCommandRequest();
+
+    request.setRecursive(true);
+
+    List<FileObject> files =
+      createCommand().getBrowserResult(request).getFiles();
+    org.eclipse.jgit.lib.Repository repo = createContext().open();
+    ObjectId head = repo.resolve("master");
+
+    assertNotNull(new GitLastCommitIndex(repo).get(head, null, true));
+
+    List<FileObject> cached =
+      createCommand().getBrowserResult(request).getFiles();
+
+    assertEquals(files.size(), cached.size());
+
+    for (int i = 0; i < files.size(); i++)
+    {
+      FileObject file = files.get(i);
+      RevCommit commit = Util.getFirst(Git.wrap(repo).log().add(head).addPath(
+                           file.getPath()).setMaxCount(1).call());
+
+      assertEquals(file.getPath(), commit.getShortMessage(),
+        file.getDescription());
+      assertEquals(file.getPath(), GitUtil.getCommitTime(commit),
+        file.getLastModified().longValue());
+      assertEquals(file.getDescription(), cached.get(i).getDescription());
+    }
+  }
+
   /**
    * Method description
    *
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository.spi;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.eclipse.jgit.lib.Repository;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link GitContext}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class GitContextTest extends AbstractGitCommandTestBase
+{
+
+  /**
+   * Tests that all contexts of a repository share the same jgit repository.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenSharesRepository() throws IOException
+  {
+    Repository repository = createContext().open();
+    GitContext other = new GitContext(repositoryDirectory);
+
+    try
+    {
+      assertSame(repository, other.open());
+      assertSame(repository, other.open());
+    }
+    finally
+    {
+      other.close();
+    }
+
+    // the repository must still be usable after the other context was closed
+    assertNotNull(repository.resolve("master"));
+  }
+
+  /**
+   * Tests that a context can be reopened after it was closed.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReopenAfterClose() throws IOException
+  {
+    GitContext context = createContext();
+
+    context.open();
+    context.close();
+    assertNotNull(context.open().resolve("master"));
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+
+package sonia.scm.repository.spi;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.Lists;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.PackParser;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.ReceivePack;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.Modifications;
+import sonia.scm.web.CollectingPackParserListener;
+
+import static org.junit.Assert.*;
+
+import static org.mockito.Mockito.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.IOException;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link GitHookChangesetProvider}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class GitHookChangesetProviderTest extends AbstractGitCommandTestBase
+{
+
+  /**
+   * Prepares a receive pack, which has received the master and the
+   * test-branch.
+   *
+   * @throws IOException
+   */
+  @Before
+  public void setUpReceivePack() throws IOException
+  {
+    repository = createContext().open();
+
+    ReceivePack receivePack = new ReceivePack(repository);
+
+    // the pack parser returns no new object ids, so every commit is new
+    CollectingPackParserListener.set(receivePack);
+    CollectingPackParserListener.get(receivePack).after(mock(PackParser.class));
+
+    List<ReceiveCommand> commands = Lists.newArrayList(
+      command("refs/heads/master"), command("refs/heads/test-branch"));
+
+    provider = new GitHookChangesetProvider(receivePack, commands);
+  }
+
+  /**
+   * Tests that each changeset is returned once with all of its branches.
+   */
+  @Test
+  public void testHandleRequest()
+  {
+    List<Changeset> changesets = changesets(new HookChangesetRequest());
+
+    assertEquals(5, changesets.size());
+    assertEquals("435df2f061add3589cb326cc64be9b9c3897ceca", changesets.get(0).getId());
+    assertEquals("fcd0ef1831e4002ac43ea539f4094334c79ea9ec", changesets.get(3).getId());
+    assertEquals("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4", changesets.get(4).getId());
+    assertEquals(Lists.newArrayList("master"), changesets.get(3).getBranches());
+    assertEquals(Lists.newArrayList("master", "test-branch"), find(changesets,
+      "592d797cd36432e591416e8b2b98154f4f163411").getBranches());
+    assertNotNull(changesets.get(0).getModifications());
+  }
+
+  /**
+   * Tests that modifications are skipped and that every iteration creates new
+   * changeset objects.
+   */
+  @Test
+  public void testHandleRequestWithDisabledModifications()
+  {
+    HookChangesetRequest request = new HookChangesetRequest();
+
+    request.setDisableModifications(true);
+
+    HookChangesetResponse response = provider.handleRequest(request);
+
+    assertFalse(response.isShared());
+
+    List<Changeset> first = Lists.newArrayList(response.getChangesets());
+    List<Changeset> second = Lists.newArrayList(response.getChangesets());
+
+    assertEquals(5, first.size());
+    assertEquals(5, second.size());
+
+    for (int i = 0; i < first.size(); i++)
+    {
+      assertEquals(new Modifications(), first.get(i).getModifications());
+      assertEquals(first.get(i).getId(), second.get(i).getId());
+      assertNotSame(first.get(i), second.get(i));
+    }
+  }
+
+  private ReceiveCommand command(String ref) throws IOException
+  {
+    ObjectId head = repository.resolve(ref);
+
+    return new ReceiveCommand(ObjectId.zeroId(), head, ref);
+  }
+
+  private List<Changeset> changesets(HookChangesetRequest request)
+  {
+    return Lists.newArrayList(provider.handleRequest(request).getChangesets());
+  }
+
+  private Changeset find(List<Changeset> changesets, String id)
+  {
+    Changeset changeset = null;
+
+    for (Changeset c : changesets)
+    {
+      if (id.equals(c.getId()))
+      {
+        changeset = c;
+      }
+    }
+
+    return changeset;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** changeset provider */
+  private GitHookChangesetProvider provider;
+
+  /** git repository */
+  private Repository repository;
+}
@@ -50,6 +50,8 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import sonia.scm.repository.GitCommitCountIndex;
 import sonia.scm.repository.GitConstants;
 
 /**
@@ -195,6 +197,78 @@ public class GitLogCommandTest extends AbstractGitCommandTestBase
     assertEquals("592d797cd36432e591416e8b2b98154f4f163411", c2.getId());
   }
 
+  /**
+   * Tests log command with disabled modifications.
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void testGetAllWithDisabledModifications()
+    throws IOException, RepositoryException
+  {
+    LogCommandRequest request = new LogCommandRequest();
+
+    request.setDisableModifications(true);
+
+    ChangesetPagingResult result = createCommand().getChangesets(request);
+
+    assertEquals(4, result.getTotal());
+    assertEquals(4, result.getChangesets().size());
+
+    for (Changeset c : result.getChangesets())
+    {
+      assertTrue(c.getModifications().getAdded().isEmpty());
+      assertTrue(c.getModifications().getModified().isEmpty());
+      assertTrue(c.getModifications().getRemoved().isEmpty());
+    }
+
+    // modifications of a single changeset are available on demand
+    Changeset c = createCommand().getChangeset(
+                    result.getChangesets().get(3).getId());
+
+    assertThat(c.getModifications().getAdded(), contains("a.txt", "b.txt"));
+  }
+
+  /**
+   * Tests that the total of a paged request is read from the
+   * {@link GitCommitCountIndex}, after the first request has filled it.
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void testGetAllWithPagingUsesCommitCountIndex()
+    throws IOException, RepositoryException
+  {
+    LogCommandRequest request = new LogCommandRequest();
+
+    request.setPagingLimit(1);
+
+    ChangesetPagingResult result = createCommand().getChangesets(request);
+
+    assertEquals(4, result.getTotal());
+
+    GitCommitCountIndex index = new GitCommitCountIndex(createContext().open());
+    ObjectId head = ObjectId.fromString("fcd0ef1831e4002ac43ea539f4094334c79ea9ec");
+
+    assertEquals(4, index.get(head));
+
+    // a modified count proves, that the history is not walked again
+    index.put(head, 42);
+    result = createCommand().getChangesets(request);
+
+    assertEquals(42, result.getTotal());
+    assertEquals(1, result.getChangesets().size());
+    assertEquals(head.name(), result.getChangesets().get(0).getId());
+
+    // path filtered requests must not use the index
+    request.setPath("a.txt");
+    result = createCommand().getChangesets(request);
+
+    assertEquals(2, result.getTotal());
+  }
+
   /**
    * Method description
    *
@@ -32,8 +32,6 @@
 
 package sonia.scm.web.lfs;
 
-import com.google.common.collect.Lists;
-import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -44,7 +42,6 @@ import sonia.scm.HandlerEvent;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryEvent;
 import sonia.scm.repository.RepositoryTestData;
-import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 
 /**
@@ -91,26 +88,13 @@ public class LfsStoreRemoveListenerTest {
     Repository heartOfGold = RepositoryTestData.createHeartOfGold("git");
     
     when(lfsBlobStoreFactory.getLfsBlobStore(heartOfGold)).thenReturn(blobStore);
-    Blob blobA = mockBlob("a");
-    Blob blobB = mockBlob("b");
-    List<Blob> blobs = Lists.newArrayList(blobA, blobB);
-    when(blobStore.getAll()).thenReturn(blobs);
-    
     
     lfsStoreRemoveListener.handleRepositoryEvent(new RepositoryEvent(heartOfGold, HandlerEvent.DELETE));
-    verify(blobStore).getAll();
-    verify(blobStore).remove(blobA);
-    verify(blobStore).remove(blobB);
+    verify(blobStore).clear();
     
     verifyNoMoreInteractions(blobStore);
   }
   
-  private Blob mockBlob(String id) {
-    Blob blob = mock(Blob.class);
-    when(blob.getId()).thenReturn(id);
-    return blob;
-  }
-
   private RepositoryEvent event(HandlerEvent eventType) {
     return event(eventType, "git");
   }
@@ -0,0 +1,48 @@
+package sonia.scm.web.lfs.servlet;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link ByteRange}.
+ */
+public class ByteRangeTest {
+
+  @Test
+  public void shouldParseRanges() {
+
+    assertRange(ByteRange.parse("bytes=0-99", 1000), 0, 99);
+    assertRange(ByteRange.parse("bytes=100-", 1000), 100, 999);
+    assertRange(ByteRange.parse("bytes=900-2000", 1000), 900, 999);
+    assertRange(ByteRange.parse("bytes=-100", 1000), 900, 999);
+    assertRange(ByteRange.parse("bytes=-2000", 1000), 0, 999);
+  }
+
+  @Test
+  public void shouldIgnoreUnsupportedRanges() {
+
+    assertThat(ByteRange.parse(null, 1000), nullValue());
+    assertThat(ByteRange.parse("items=0-10", 1000), nullValue());
+    assertThat(ByteRange.parse("bytes=0-10,20-30", 1000), nullValue());
+    assertThat(ByteRange.parse("bytes=10-5", 1000), nullValue());
+    assertThat(ByteRange.parse("bytes=a-b", 1000), nullValue());
+  }
+
+  @Test
+  public void shouldDetectUnsatisfiableRanges() {
+
+    assertThat(ByteRange.parse("bytes=1000-", 1000), sameInstance(ByteRange.UNSATISFIABLE));
+    assertThat(ByteRange.parse("bytes=-0", 1000), sameInstance(ByteRange.UNSATISFIABLE));
+  }
+
+  private void assertRange(ByteRange range, long start, long end) {
+
+    assertThat(range.getStart(), is(start));
+    assertThat(range.getEnd(), is(end));
+    assertThat(range.getLength(), is(end - start + 1));
+  }
+}
@@ -1,17 +1,174 @@
 package sonia.scm.web.lfs.servlet;
 
+import com.google.common.base.Charsets;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sonia.scm.store.Blob;
+import sonia.scm.store.BlobStore;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Created by omilke on 16.05.2017.
  */
 public class ScmFileTransferServletTest {
 
+  private static final String CONTENT = "hello world";
+
+  /**
+   * sha256 of {@link #CONTENT}
+   */
+  private static final String CONTENT_OID = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+  private static final String OTHER_OID = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final BlobStore blobStore = mock(BlobStore.class);
+
+  private final Blob blob = mock(Blob.class);
+
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+
+  private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  private final ScmFileTransferServlet servlet = new ScmFileTransferServlet(blobStore);
+
+  @Test
+  public void shouldCommitVerifiedUpload() throws Exception {
+
+    upload(CONTENT_OID);
+
+    verify(blob).commit();
+    verify(blobStore, never()).remove(blob);
+    verify(response).setStatus(HttpServletResponse.SC_OK);
+    assertThat(output.toString("UTF-8"), is(CONTENT));
+  }
+
+  @Test
+  public void shouldRejectUploadWithWrongHash() throws Exception {
+
+    upload(OTHER_OID);
+
+    verify(blob, never()).commit();
+    verify(blobStore).remove(blob);
+    verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+  }
+
+  @Test
+  public void shouldDownloadWholeBlob() throws Exception {
+
+    download(null, null);
+
+    verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    verify(response).addHeader("Content-Length", "11");
+    verify(response).setHeader("ETag", "\"" + CONTENT_OID + "\"");
+    assertThat(output.toString("UTF-8"), is(CONTENT));
+  }
+
+  @Test
+  public void shouldDownloadRange() throws Exception {
+
+    download("bytes=6-", null);
+
+    verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    verify(response).setHeader("Content-Range", "bytes 6-10/11");
+    verify(response).addHeader("Content-Length", "5");
+    assertThat(output.toString("UTF-8"), is("world"));
+  }
+
+  @Test
+  public void shouldIgnoreRangeIfEntityTagDoesNotMatch() throws Exception {
+
+    download("bytes=6-", "\"" + OTHER_OID + "\"");
+
+    verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    assertThat(output.toString("UTF-8"), is(CONTENT));
+  }
+
+  @Test
+  public void shouldRejectUnsatisfiableRange() throws Exception {
+
+    download("bytes=11-", null);
+
+    verify(response).setHeader("Content-Range", "bytes */11");
+    verify(response).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+  }
+
+  @Test
+  public void shouldCopyRangeOfFile() throws Exception {
+
+    File file = temp.newFile();
+    Files.write(file.toPath(), CONTENT.getBytes(Charsets.UTF_8));
+
+    try (FileInputStream input = new FileInputStream(file)) {
+      ScmFileTransferServlet.copy(input, output, 2, 7);
+    }
+
+    assertThat(output.toString("UTF-8"), is("llo wor"));
+  }
+
+  private void upload(String oid) throws Exception {
+
+    when(request.getPathInfo()).thenReturn("/" + oid);
+    when(request.getInputStream()).thenReturn(new ServletInputStream() {
+
+      private final InputStream content = new ByteArrayInputStream(CONTENT.getBytes(Charsets.UTF_8));
+
+      @Override
+      public int read() throws IOException {
+        return content.read();
+      }
+    });
+    when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+    when(blobStore.create(oid)).thenReturn(blob);
+    when(blob.getOutputStream()).thenReturn(output);
+
+    servlet.doPut(request, response);
+  }
+
+  private void download(String range, String ifRange) throws Exception {
+
+    when(request.getPathInfo()).thenReturn("/" + CONTENT_OID);
+    when(request.getHeader("Range")).thenReturn(range);
+    when(request.getHeader("If-Range")).thenReturn(ifRange);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+      @Override
+      public void write(int b) {
+        output.write(b);
+      }
+    });
+    when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+    when(blobStore.get(CONTENT_OID)).thenReturn(blob);
+    when(blob.getSize()).thenReturn((long) CONTENT.length());
+    when(blob.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT.getBytes(Charsets.UTF_8)));
+
+    servlet.doGet(request, response);
+  }
+
   @Test
   public void hasObjectId() throws Exception {
 
@@ -131,6 +131,18 @@ public class HgConfig extends SimpleRepositoryConfig
     return enableHttpPostArgs;
   }
 
+  /**
+   * Returns true if the mercurial protocol requests are executed by a pool of
+   * long living hgweb workers, instead of a cgi process for each request.
+   *
+   * @return true if wsgi workers are enabled
+   *
+   * @since 1.58
+   */
+  public boolean isEnableWsgiWorkers() {
+    return enableWsgiWorkers;
+  }
+
   /**
    * Method description
    *
@@ -205,6 +217,18 @@ public class HgConfig extends SimpleRepositoryConfig
     this.enableHttpPostArgs = enableHttpPostArgs;
   }
 
+  /**
+   * Enables the execution of mercurial protocol requests by a pool of long
+   * living hgweb workers.
+   *
+   * @param enableWsgiWorkers true to enable wsgi workers
+   *
+   * @since 1.58
+   */
+  public void setEnableWsgiWorkers(boolean enableWsgiWorkers) {
+    this.enableWsgiWorkers = enableWsgiWorkers;
+  }
+
   /**
    * Method description
    *
@@ -242,6 +266,9 @@ public class HgConfig extends SimpleRepositoryConfig
 
   private boolean enableHttpPostArgs = false;
 
+  /** execute protocol requests with long living hgweb workers */
+  private boolean enableWsgiWorkers = false;
+
   /**
    * disable validation of ssl certificates for mercurial hook
    * @see <a href="https://goo.gl/zH5eY8">Issue 959</a>
@@ -64,8 +64,8 @@ public final class HgEnvironment
   /** Field description */
   private static final String ENV_URL = "SCM_URL";
 
-  /** Field description */
-  private static final String SCM_CREDENTIALS = "SCM_CREDENTIALS";
+  /** name of the environment variable, which contains the credentials */
+  public static final String SCM_CREDENTIALS = "SCM_CREDENTIALS";
 
   //~--- constructors ---------------------------------------------------------
 
@@ -38,6 +38,7 @@ package sonia.scm.repository.spi;
 import com.aragost.javahg.Changeset;
 import com.aragost.javahg.commands.AnnotateCommand;
 import com.aragost.javahg.commands.AnnotateLine;
+import com.aragost.javahg.internals.RuntimeIOException;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
@@ -102,25 +103,34 @@ public class HgBlameCommand extends AbstractCommand implements BlameCommand
   public BlameResult getBlameResult(BlameCommandRequest request)
     throws IOException, RepositoryException
   {
-    if (logger.isDebugEnabled())
+    try
     {
-      logger.debug("get blame result for {}", request);
-    }
+      if (logger.isDebugEnabled())
+      {
+        logger.debug("get blame result for {}", request);
+      }
 
-    AnnotateCommand cmd = AnnotateCommand.on(open());
+      AnnotateCommand cmd = AnnotateCommand.on(open());
 
-    cmd.rev(HgUtil.getRevision(request.getRevision()));
+      cmd.rev(HgUtil.getRevision(request.getRevision()));
 
-    List<BlameLine> blameLines = Lists.newArrayList();
-    List<AnnotateLine> lines = cmd.execute(request.getPath());
-    int counter = 0;
+      List<BlameLine> blameLines = Lists.newArrayList();
+      List<AnnotateLine> lines = cmd.execute(request.getPath());
+      int counter = 0;
 
-    for (AnnotateLine line : lines)
-    {
-      blameLines.add(convert(line, ++counter));
+      for (AnnotateLine line : lines)
+      {
+        blameLines.add(convert(line, ++counter));
+      }
+
+      return new BlameResult(blameLines);
     }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
 
-    return new BlameResult(blameLines);
+      throw ex;
+    }
   }
 
   //~--- methods --------------------------------------------------------------
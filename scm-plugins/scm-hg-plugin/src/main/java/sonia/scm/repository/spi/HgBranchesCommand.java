@@ -36,6 +36,7 @@ package sonia.scm.repository.spi;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.aragost.javahg.Changeset;
+import com.aragost.javahg.internals.RuntimeIOException;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
@@ -84,29 +85,38 @@ public class HgBranchesCommand extends AbstractCommand
   @Override
   public List<Branch> getBranches() throws RepositoryException, IOException
   {
-    List<com.aragost.javahg.commands.Branch> hgBranches =
-      com.aragost.javahg.commands.BranchesCommand.on(open()).execute();
-
-    List<Branch> branches = Lists.transform(hgBranches,
-                              new Function<com.aragost.javahg.commands.Branch,
-                                Branch>()
+    try
     {
+      List<com.aragost.javahg.commands.Branch> hgBranches =
+        com.aragost.javahg.commands.BranchesCommand.on(open()).execute();
 
-      @Override
-      public Branch apply(com.aragost.javahg.commands.Branch hgBranch)
+      List<Branch> branches = Lists.transform(hgBranches,
+                                new Function<com.aragost.javahg.commands.Branch,
+                                  Branch>()
       {
-        String node = null;
-        Changeset changeset = hgBranch.getBranchTip();
 
-        if (changeset != null)
+        @Override
+        public Branch apply(com.aragost.javahg.commands.Branch hgBranch)
         {
-          node = changeset.getNode();
+          String node = null;
+          Changeset changeset = hgBranch.getBranchTip();
+
+          if (changeset != null)
+          {
+            node = changeset.getNode();
+          }
+
+          return new Branch(hgBranch.getName(), node);
         }
+      });
 
-        return new Branch(hgBranch.getName(), node);
-      }
-    });
+      return branches;
+    }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
 
-    return branches;
+      throw ex;
+    }
   }
 }
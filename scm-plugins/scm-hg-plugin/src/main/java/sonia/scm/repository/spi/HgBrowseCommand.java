@@ -35,6 +35,8 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.aragost.javahg.internals.RuntimeIOException;
+
 import com.google.common.base.Strings;
 
 import sonia.scm.repository.BrowserResult;
@@ -82,37 +84,46 @@ public class HgBrowseCommand extends AbstractCommand implements BrowseCommand
   public BrowserResult getBrowserResult(BrowseCommandRequest request)
     throws IOException, RepositoryException
   {
-    HgFileviewCommand cmd = HgFileviewCommand.on(open());
-
-    if (!Strings.isNullOrEmpty(request.getRevision()))
+    try
     {
-      cmd.rev(request.getRevision());
-    }
+      HgFileviewCommand cmd = HgFileviewCommand.on(open());
 
-    if (!Strings.isNullOrEmpty(request.getPath()))
-    {
-      cmd.path(request.getPath());
-    }
+      if (!Strings.isNullOrEmpty(request.getRevision()))
+      {
+        cmd.rev(request.getRevision());
+      }
 
-    if (request.isDisableLastCommit())
-    {
-      cmd.disableLastCommit();
-    }
+      if (!Strings.isNullOrEmpty(request.getPath()))
+      {
+        cmd.path(request.getPath());
+      }
 
-    if (request.isRecursive())
-    {
-      cmd.recursive();
-    }
+      if (request.isDisableLastCommit())
+      {
+        cmd.disableLastCommit();
+      }
 
-    if (request.isDisableSubRepositoryDetection())
-    {
-      cmd.disableSubRepositoryDetection();
-    }
+      if (request.isRecursive())
+      {
+        cmd.recursive();
+      }
+
+      if (request.isDisableSubRepositoryDetection())
+      {
+        cmd.disableSubRepositoryDetection();
+      }
 
-    BrowserResult result = new BrowserResult();
+      BrowserResult result = new BrowserResult();
 
-    result.setFiles(cmd.execute());
+      result.setFiles(cmd.execute());
 
-    return result;
+      return result;
+    }
+    catch (IOException | RuntimeIOException ex)
+    {
+      getContext().discard();
+
+      throw ex;
+    }
   }
 }
@@ -35,6 +35,8 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.aragost.javahg.internals.RuntimeIOException;
+
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Closeables;
 
@@ -95,6 +97,12 @@ public class HgCatCommand extends AbstractCommand implements CatCommand
       input = cmd.execute(request.getPath());
       ByteStreams.copy(input, output);
     }
+    catch (IOException | RuntimeIOException ex)
+    {
+      getContext().discard();
+
+      throw ex;
+    }
     finally
     {
       Closeables.closeQuietly(input);
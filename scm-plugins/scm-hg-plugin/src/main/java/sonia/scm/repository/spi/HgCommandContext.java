@@ -36,9 +36,12 @@ package sonia.scm.repository.spi;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.aragost.javahg.Repository;
+import com.aragost.javahg.RepositoryConfiguration;
 
 import com.google.common.base.Strings;
 
+import org.apache.shiro.SecurityUtils;
+
 import sonia.scm.repository.HgConfig;
 import sonia.scm.repository.HgHookManager;
 import sonia.scm.repository.HgRepositoryHandler;
@@ -80,6 +83,32 @@ public class HgCommandContext implements Closeable
       handler.getHgContext().isPending());
   }
 
+  /**
+   * Constructs a new context, which borrows its command server from the given
+   * pool. Contexts for pending changesets are never pooled.
+   *
+   *
+   * @param hookManager hook manager
+   * @param handler repository handler
+   * @param repository repository
+   * @param directory repository directory
+   * @param pool command server pool
+   *
+   * @since 1.58
+   */
+  public HgCommandContext(HgHookManager hookManager,
+    HgRepositoryHandler handler, sonia.scm.repository.Repository repository,
+    File directory, HgCommandServerPool pool)
+  {
+    this(hookManager, handler, repository, directory,
+      handler.getHgContext().isPending());
+
+    if (!pending)
+    {
+      this.pool = pool;
+    }
+  }
+
   /**
    * Constructs ...
    *
@@ -98,6 +127,7 @@ public class HgCommandContext implements Closeable
     this.hookManager = hookManager;
     this.hanlder = hanlder;
     this.directory = directory;
+    this.repositoryId = repository.getId();
     this.encoding = repository.getProperty(PROPERTY_ENCODING);
     this.pending = pending;
 
@@ -120,7 +150,40 @@ public class HgCommandContext implements Closeable
   {
     if (repository != null)
     {
-      repository.close();
+      if (pool != null)
+      {
+        pool.release(repository);
+      }
+      else
+      {
+        repository.close();
+      }
+
+      repository = null;
+    }
+  }
+
+  /**
+   * Stops the command server of the context instead of giving it back to the
+   * pool. Commands must call this method, if the server failed with an io
+   * error. The next call of {@link #open()} starts a new server.
+   *
+   * @since 1.58
+   */
+  public void discard()
+  {
+    if (repository != null)
+    {
+      if (pool != null)
+      {
+        pool.discard(repository);
+      }
+      else
+      {
+        repository.close();
+      }
+
+      repository = null;
     }
   }
 
@@ -132,7 +195,25 @@ public class HgCommandContext implements Closeable
    */
   public Repository open()
   {
-    if (repository == null)
+    if ((repository == null) && (pool != null))
+    {
+      RepositoryConfiguration configuration =
+        HgUtil.createConfiguration(hanlder, hookManager, encoding, pending);
+
+      //J-
+      HgCommandServerPool.Key key = new HgCommandServerPool.Key(
+        repositoryId,
+        directory,
+        encoding,
+        hanlder.getConfig().getHgBinary(),
+        (String) SecurityUtils.getSubject().getPrincipal(),
+        configuration.getEnvironment()
+      );
+      //J+
+
+      repository = pool.borrow(key, configuration);
+    }
+    else if (repository == null)
     {
       repository = HgUtil.open(hanlder, hookManager, directory, encoding,
         pending);
@@ -171,6 +252,12 @@ public class HgCommandContext implements Closeable
   /** Field description */
   private boolean pending;
 
+  /** command server pool or null */
+  private HgCommandServerPool pool;
+
   /** Field description */
   private Repository repository;
+
+  /** id of the scm repository */
+  private String repositoryId;
 }
@@ -0,0 +1,888 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository.spi;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.aragost.javahg.Repository;
+import com.aragost.javahg.RepositoryConfiguration;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.HandlerEvent;
+import sonia.scm.plugin.ext.Extension;
+import sonia.scm.repository.HgEnvironment;
+import sonia.scm.repository.HgRepositoryHandler;
+import sonia.scm.repository.PostReceiveRepositoryHookEvent;
+import sonia.scm.repository.RepositoryEvent;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.Closeable;
+import java.io.File;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Pool of warm mercurial command servers. Starting a command server costs the
+ * startup of a python interpreter and the loading of the mercurial extensions,
+ * the pool keeps the servers alive between the requests of a repository. Idle
+ * servers are stopped after {@link #PROPERTY_IDLE_TIMEOUT} seconds, the pool
+ * keeps at most {@link #PROPERTY_MAX_PER_REPOSITORY} idle servers for each key
+ * and never more than {@link #PROPERTY_MAX_TOTAL} servers at all. If the limit
+ * is reached, new servers are started without pooling. The servers of a
+ * repository are stopped after each push and after the repository was deleted.
+ * Servers which failed with an io error are stopped by
+ * {@link #discard(Repository)} instead of being given back to the pool.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+@Singleton
+@Extension
+public class HgCommandServerPool implements ServletContextListener, Closeable
+{
+
+  /** system property for the idle timeout in seconds */
+  public static final String PROPERTY_IDLE_TIMEOUT =
+    "sonia.scm.hg.pool.idle-timeout";
+
+  /** system property for the maximum number of idle servers per repository */
+  public static final String PROPERTY_MAX_PER_REPOSITORY =
+    "sonia.scm.hg.pool.max-per-repository";
+
+  /** system property for the maximum number of pooled servers */
+  public static final String PROPERTY_MAX_TOTAL = "sonia.scm.hg.pool.max-total";
+
+  /** idle servers are checked before they are reused, after this time */
+  private static final long HEALTH_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+  /** name of the eviction thread */
+  private static final String THREAD_NAME = "HgCommandServerPool";
+
+  /**
+   * the logger for HgCommandServerPool
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(HgCommandServerPool.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new pool, which is configured by system properties.
+   *
+   */
+  @Inject
+  public HgCommandServerPool()
+  {
+    this(Integer.getInteger(PROPERTY_MAX_TOTAL, 16),
+      Integer.getInteger(PROPERTY_MAX_PER_REPOSITORY, 2),
+      TimeUnit.SECONDS.toMillis(Integer.getInteger(PROPERTY_IDLE_TIMEOUT,
+        300)));
+  }
+
+  /**
+   * Constructs a new pool.
+   *
+   *
+   * @param maxTotal maximum number of pooled servers
+   * @param maxPerRepository maximum number of idle servers per key
+   * @param idleTimeout idle timeout in milliseconds
+   */
+  HgCommandServerPool(int maxTotal, int maxPerRepository, long idleTimeout)
+  {
+    this.maxTotal = maxTotal;
+    this.maxPerRepository = maxPerRepository;
+    this.idleTimeout = idleTimeout;
+
+    //J-
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME)
+        .setDaemon(true)
+        .build()
+    );
+    //J+
+
+    long period = Math.max(idleTimeout / 2, 1000L);
+
+    this.executor.scheduleWithFixedDelay(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        evictIdle();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Borrows a command server for the given key. The server is taken from the
+   * pool or is started with the given configuration. Every borrowed server
+   * must be given back with {@link #release(Repository)}.
+   *
+   *
+   * @param key pool key
+   * @param configuration javahg configuration
+   *
+   * @return command server
+   */
+  public Repository borrow(Key key, RepositoryConfiguration configuration)
+  {
+    List<Entry> invalid = Lists.newArrayList();
+    Entry entry = null;
+    boolean pooled = false;
+
+    synchronized (this)
+    {
+      Deque<Entry> deque = idle.get(key);
+
+      while ((entry == null) && (deque != null) &&!deque.isEmpty())
+      {
+        entry = deque.pollFirst();
+
+        if (isExpired(entry, System.currentTimeMillis()))
+        {
+          invalid.add(entry);
+          entry = null;
+        }
+      }
+
+      removeIfEmpty(key, deque);
+      total -= invalid.size();
+
+      if ((entry == null) && (total >= maxTotal))
+      {
+        Entry eldest = removeEldestIdle();
+
+        if (eldest != null)
+        {
+          invalid.add(eldest);
+          total--;
+        }
+      }
+
+      if ((entry == null) && (total < maxTotal))
+      {
+        // reserve the slot before the server is started outside of the lock
+        total++;
+        pooled = true;
+      }
+    }
+
+    destroy(invalid);
+
+    if ((entry != null) &&!isHealthy(entry))
+    {
+      destroy(entry);
+
+      synchronized (this)
+      {
+        total--;
+      }
+
+      return borrow(key, configuration);
+    }
+
+    if (entry == null)
+    {
+      entry = open(key, configuration, pooled);
+    }
+
+    if (entry.key != null)
+    {
+      synchronized (this)
+      {
+        leased.put(entry.repository, entry);
+      }
+    }
+
+    return entry.repository;
+  }
+
+  /**
+   * Stops all servers of the pool.
+   *
+   */
+  @Override
+  public void close()
+  {
+    List<Entry> entries = Lists.newArrayList();
+
+    synchronized (this)
+    {
+      closed = true;
+
+      for (Deque<Entry> deque : idle.values())
+      {
+        entries.addAll(deque);
+      }
+
+      idle.clear();
+      total -= entries.size();
+
+      for (Entry entry : leased.values())
+      {
+        entry.stale = true;
+      }
+    }
+
+    executor.shutdownNow();
+    destroy(entries);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param sce
+   */
+  @Override
+  public void contextDestroyed(ServletContextEvent sce)
+  {
+    close();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param sce
+   */
+  @Override
+  public void contextInitialized(ServletContextEvent sce)
+  {
+
+    // do nothing
+  }
+
+  /**
+   * Stops a borrowed server instead of giving it back to the pool. This
+   * method must be used instead of {@link #release(Repository)}, if a command
+   * of the server failed with an io error, because the channel of the server
+   * could contain unread output or the server process could be gone.
+   *
+   *
+   * @param repository borrowed server
+   */
+  public void discard(Repository repository)
+  {
+    synchronized (this)
+    {
+      if (leased.remove(repository) != null)
+      {
+        total--;
+      }
+    }
+
+    logger.debug("stop command server, which failed with an io error");
+    destroy(repository);
+  }
+
+  /**
+   * Stops the servers of a repository after a push, because the servers
+   * could cache the state of the repository.
+   *
+   *
+   * @param event post receive event
+   */
+  @Subscribe
+  public void onEvent(PostReceiveRepositoryHookEvent event)
+  {
+    sonia.scm.repository.Repository repository = event.getRepository();
+
+    if ((repository != null)
+      && HgRepositoryHandler.TYPE_NAME.equals(repository.getType()))
+    {
+      invalidate(repository.getId());
+    }
+  }
+
+  /**
+   * Stops the servers of a deleted repository.
+   *
+   *
+   * @param event repository event
+   */
+  @Subscribe
+  public void onEvent(RepositoryEvent event)
+  {
+    sonia.scm.repository.Repository repository = event.getItem();
+
+    if ((event.getEventType() == HandlerEvent.DELETE)
+      && HgRepositoryHandler.TYPE_NAME.equals(repository.getType()))
+    {
+      invalidate(repository.getId());
+    }
+  }
+
+  /**
+   * Gives a borrowed server back to the pool. Servers which were invalidated
+   * during the lease, are stopped.
+   *
+   *
+   * @param repository borrowed server
+   */
+  public void release(Repository repository)
+  {
+    Entry entry;
+    boolean keep = false;
+
+    synchronized (this)
+    {
+      entry = leased.remove(repository);
+
+      if ((entry != null) &&!entry.stale &&!closed)
+      {
+        Deque<Entry> deque = idle.get(entry.key);
+
+        if (deque == null)
+        {
+          deque = new ArrayDeque<Entry>();
+          idle.put(entry.key, deque);
+        }
+
+        if (deque.size() < maxPerRepository)
+        {
+          entry.lastUsed = System.currentTimeMillis();
+          deque.addFirst(entry);
+          keep = true;
+        }
+        else
+        {
+          removeIfEmpty(entry.key, deque);
+        }
+      }
+
+      if ((entry != null) &&!keep)
+      {
+        total--;
+      }
+    }
+
+    if (!keep)
+    {
+      logger.trace("stop command server, which is not kept by the pool");
+      repository.close();
+    }
+  }
+
+  /**
+   * Stops the idle servers of the repository and marks the borrowed servers
+   * as stale, they are stopped as soon as they are given back.
+   *
+   *
+   * @param repositoryId id of the repository
+   */
+  void invalidate(String repositoryId)
+  {
+    List<Entry> invalid = Lists.newArrayList();
+
+    synchronized (this)
+    {
+      Iterator<Map.Entry<Key, Deque<Entry>>> it = idle.entrySet().iterator();
+
+      while (it.hasNext())
+      {
+        Map.Entry<Key, Deque<Entry>> e = it.next();
+
+        if (repositoryId.equals(e.getKey().repositoryId))
+        {
+          invalid.addAll(e.getValue());
+          it.remove();
+        }
+      }
+
+      total -= invalid.size();
+
+      for (Entry entry : leased.values())
+      {
+        if (repositoryId.equals(entry.key.repositoryId))
+        {
+          entry.stale = true;
+        }
+      }
+    }
+
+    logger.debug("invalidate command servers of repository {}", repositoryId);
+    destroy(invalid);
+  }
+
+  /**
+   * Runs a cheap command to check, if the server is still alive. The check
+   * is only executed if the server was idle for a while.
+   *
+   *
+   * @param repository command server
+   *
+   * @return true if the server is usable
+   */
+  @VisibleForTesting
+  boolean check(Repository repository)
+  {
+    boolean healthy = true;
+
+    try
+    {
+      com.aragost.javahg.commands.BranchesCommand.on(repository).execute();
+    }
+    catch (RuntimeException ex)
+    {
+      logger.debug("command server is not healthy", ex);
+      healthy = false;
+    }
+
+    return healthy;
+  }
+
+  /**
+   * Starts a new command server process.
+   *
+   *
+   * @param key pool key
+   * @param configuration javahg configuration
+   *
+   * @return command server
+   */
+  @VisibleForTesting
+  Repository start(Key key, RepositoryConfiguration configuration)
+  {
+    return Repository.open(configuration, key.directory);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entries
+   */
+  private void destroy(List<Entry> entries)
+  {
+    for (Entry entry : entries)
+    {
+      destroy(entry);
+    }
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entry
+   */
+  private void destroy(Entry entry)
+  {
+    destroy(entry.repository);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param repository
+   */
+  private void destroy(Repository repository)
+  {
+    try
+    {
+      repository.close();
+    }
+    catch (RuntimeException ex)
+    {
+      logger.warn("could not stop command server", ex);
+    }
+  }
+
+  /**
+   * Stops all servers which were idle for longer than the idle timeout.
+   *
+   */
+  private void evictIdle()
+  {
+    List<Entry> expired = Lists.newArrayList();
+    long now = System.currentTimeMillis();
+
+    synchronized (this)
+    {
+      Iterator<Deque<Entry>> it = idle.values().iterator();
+
+      while (it.hasNext())
+      {
+        Deque<Entry> deque = it.next();
+        Iterator<Entry> entries = deque.iterator();
+
+        while (entries.hasNext())
+        {
+          Entry entry = entries.next();
+
+          if (isExpired(entry, now))
+          {
+            expired.add(entry);
+            entries.remove();
+          }
+        }
+
+        if (deque.isEmpty())
+        {
+          it.remove();
+        }
+      }
+
+      total -= expired.size();
+    }
+
+    if (!expired.isEmpty())
+    {
+      logger.debug("stop {} idle command servers", expired.size());
+      destroy(expired);
+    }
+  }
+
+  /**
+   * Starts a new command server.
+   *
+   *
+   * @param key pool key
+   * @param configuration javahg configuration
+   * @param pooled true if the server is managed by the pool
+   *
+   * @return new entry
+   */
+  private Entry open(Key key, RepositoryConfiguration configuration,
+    boolean pooled)
+  {
+    logger.debug("start command server for repository {}, pooled: {}",
+      key.repositoryId, pooled);
+
+    try
+    {
+      return new Entry(pooled
+        ? key
+        : null, start(key, configuration));
+    }
+    catch (RuntimeException ex)
+    {
+      if (pooled)
+      {
+        synchronized (this)
+        {
+          total--;
+        }
+      }
+
+      throw ex;
+    }
+  }
+
+  /**
+   * Removes the idle server, which was not used for the longest time.
+   *
+   *
+   * @return eldest idle server or null
+   */
+  private Entry removeEldestIdle()
+  {
+    Key eldestKey = null;
+    Entry eldest = null;
+
+    for (Map.Entry<Key, Deque<Entry>> e : idle.entrySet())
+    {
+      Entry entry = e.getValue().peekLast();
+
+      if ((entry != null)
+        && ((eldest == null) || (entry.lastUsed < eldest.lastUsed)))
+      {
+        eldestKey = e.getKey();
+        eldest = entry;
+      }
+    }
+
+    if (eldest != null)
+    {
+      Deque<Entry> deque = idle.get(eldestKey);
+
+      deque.pollLast();
+      removeIfEmpty(eldestKey, deque);
+    }
+
+    return eldest;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param key
+   * @param deque
+   */
+  private void removeIfEmpty(Key key, Deque<Entry> deque)
+  {
+    if ((deque != null) && deque.isEmpty())
+    {
+      idle.remove(key);
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the number of servers, which are managed by the pool.
+   *
+   *
+   * @return number of borrowed and idle servers
+   */
+  synchronized int getTotal()
+  {
+    return total;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entry
+   * @param now
+   *
+   * @return
+   */
+  private boolean isExpired(Entry entry, long now)
+  {
+    return (now - entry.lastUsed) > idleTimeout;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entry
+   *
+   * @return
+   */
+  private boolean isHealthy(Entry entry)
+  {
+    return ((System.currentTimeMillis() - entry.lastUsed)
+      < HEALTH_CHECK_INTERVAL) || check(entry.repository);
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Key of pooled command servers. Servers are only shared between leases with
+   * the same repository, encoding, mercurial binary, user and process
+   * environment. The encrypted credentials are not part of the key, because
+   * they are encrypted again on every login. The user is part of the key
+   * instead, so that hooks which are triggered by a server are always
+   * executed with the credentials of the same user.
+   */
+  public static final class Key
+  {
+
+    /**
+     * Constructs a new key.
+     *
+     *
+     * @param repositoryId id of the repository
+     * @param directory directory of the repository
+     * @param encoding encoding of the repository
+     * @param hgBinary path to the mercurial binary
+     * @param principal name of the user or null
+     * @param environment environment of the command server
+     */
+    public Key(String repositoryId, File directory, String encoding,
+      String hgBinary, String principal, Map<String, String> environment)
+    {
+      this.repositoryId = repositoryId;
+      this.directory = directory;
+      this.encoding = encoding;
+      this.hgBinary = hgBinary;
+      this.principal = principal;
+
+      Map<String, String> env =
+        Maps.newHashMap(Maps.filterValues(environment, Predicates.notNull()));
+
+      env.remove(HgEnvironment.SCM_CREDENTIALS);
+      this.environment = ImmutableMap.copyOf(env);
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param obj
+     *
+     * @return
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj == null)
+      {
+        return false;
+      }
+
+      if (getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      final Key other = (Key) obj;
+
+      return Objects.equal(repositoryId, other.repositoryId)
+        && Objects.equal(directory, other.directory)
+        && Objects.equal(encoding, other.encoding)
+        && Objects.equal(hgBinary, other.hgBinary)
+        && Objects.equal(principal, other.principal)
+        && Objects.equal(environment, other.environment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @return
+     */
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode(repositoryId, directory, encoding, hgBinary,
+        principal, environment);
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** directory of the repository */
+    private final File directory;
+
+    /** encoding of the repository */
+    private final String encoding;
+
+    /** environment of the command server without credentials */
+    private final Map<String, String> environment;
+
+    /** path to the mercurial binary */
+    private final String hgBinary;
+
+    /** name of the user */
+    private final String principal;
+
+    /** id of the repository */
+    private final String repositoryId;
+  }
+
+  /**
+   * Command server and its pool state.
+   */
+  private static final class Entry
+  {
+
+    /**
+     * Constructs a new entry.
+     *
+     *
+     * @param key pool key or null, if the server is not pooled
+     * @param repository command server
+     */
+    Entry(Key key, Repository repository)
+    {
+      this.key = key;
+      this.repository = repository;
+      this.lastUsed = System.currentTimeMillis();
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** pool key or null, if the server is not pooled */
+    private final Key key;
+
+    /** command server */
+    private final Repository repository;
+
+    /** last time the server was given back to the pool */
+    private long lastUsed;
+
+    /** true if the server must not be reused */
+    private boolean stale;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** eviction executor */
+  private final ScheduledExecutorService executor;
+
+  /** idle timeout in milliseconds */
+  private final long idleTimeout;
+
+  /** idle servers by key, the most recently used server first */
+  private final Map<Key, Deque<Entry>> idle = Maps.newHashMap();
+
+  /** borrowed servers */
+  private final Map<Repository, Entry> leased = Maps.newIdentityHashMap();
+
+  /** maximum number of idle servers per key */
+  private final int maxPerRepository;
+
+  /** maximum number of pooled servers */
+  private final int maxTotal;
+
+  /** true if the pool was closed */
+  private boolean closed = false;
+
+  /** number of borrowed and idle servers */
+  private int total = 0;
+}
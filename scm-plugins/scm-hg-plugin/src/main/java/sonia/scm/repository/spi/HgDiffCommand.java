@@ -35,6 +35,8 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.aragost.javahg.internals.RuntimeIOException;
+
 import com.google.common.base.Strings;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Closeables;
@@ -115,6 +117,12 @@ public class HgDiffCommand extends AbstractCommand implements DiffCommand
       ByteStreams.copy(inputStream, output);
 
     }
+    catch (IOException | RuntimeIOException ex)
+    {
+      getContext().discard();
+
+      throw ex;
+    }
     finally
     {
       Closeables.closeQuietly(inputStream);
@@ -35,9 +35,12 @@ package sonia.scm.repository.spi;
 
 import com.aragost.javahg.Repository;
 
+import com.google.common.collect.AbstractIterator;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sonia.scm.repository.Changeset;
 import sonia.scm.repository.HgHookManager;
 import sonia.scm.repository.HgRepositoryHandler;
 import sonia.scm.repository.RepositoryHookType;
@@ -48,6 +51,10 @@ import sonia.scm.web.HgUtil;
 
 import java.io.File;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -55,6 +62,9 @@ import java.io.File;
 public class HgHookChangesetProvider implements HookChangesetProvider
 {
 
+  /** number of changesets which are read with a single log command */
+  private static final int CHUNK_SIZE = 500;
+
   /**
    * the logger for HgHookChangesetProvider
    */
@@ -97,34 +107,203 @@ public class HgHookChangesetProvider implements HookChangesetProvider
   @Override
   public synchronized HookChangesetResponse handleRequest(HookChangesetRequest request)
   {
-    if (response == null)
+    HookChangesetResponse response = null;
+    final boolean disableModifications = request.isDisableModifications();
+
+    if (revisions == null)
     {
-      Repository repository = null;
+      resolveRevisions(disableModifications);
+    }
+
+    if (revisions != null)
+    {
+      final int first = revisions[0];
+      final int last = revisions[1];
+
+      if (last - first < CHUNK_SIZE)
+      {
 
-      try
+        // the push fits into one chunk, which is kept for all hooks
+        response = new HookChangesetResponse(getFirstChunk(first, last,
+          disableModifications));
+      }
+      else
       {
-        repository = open();
+        response = new HookChangesetResponse(new Iterable<Changeset>()
+        {
+          @Override
+          public Iterator<Changeset> iterator()
+          {
+            return new ChangesetIterator(first, last, disableModifications);
+          }
+        }, false);
+      }
+    }
+
+    return response;
+  }
+
+  /**
+   * Reads the changesets of the given revision range.
+   *
+   *
+   * @param start first revision
+   * @param end last revision
+   * @param disableModifications true to skip the modifications
+   *
+   * @return changesets of the range
+   */
+  private List<Changeset> fetchChangesets(int start, int end,
+    boolean disableModifications)
+  {
+    Repository repository = null;
+
+    try
+    {
+      repository = open();
+
+      return fetchChangesets(repository, start, end, disableModifications);
+    }
+    finally
+    {
+      if (repository != null)
+      {
+        repository.close();
+      }
+    }
+  }
+
+  /**
+   * Reads the changesets of the given revision range from an open
+   * repository.
+   *
+   *
+   * @param repository open repository
+   * @param start first revision
+   * @param end last revision
+   * @param disableModifications true to skip the modifications
+   *
+   * @return changesets of the range
+   */
+  private List<Changeset> fetchChangesets(Repository repository, int start,
+    int end, boolean disableModifications)
+  {
+    HgLogChangesetCommand cmd = HgLogChangesetCommand.on(repository,
+                                  handler.getConfig());
 
-        HgLogChangesetCommand cmd = HgLogChangesetCommand.on(repository,
-                                      handler.getConfig());
+    return cmd.disableModifications(disableModifications).rev(
+      String.valueOf(start).concat(":").concat(String.valueOf(end))).execute();
+  }
+
+  /**
+   * Resolves the numbers of the first and the last revision of the push and
+   * reads the first chunk with the same command server.
+   *
+   *
+   * @param disableModifications true to skip the modifications
+   */
+  private void resolveRevisions(boolean disableModifications)
+  {
+    Repository repository = null;
 
-        response = new HookChangesetResponse(
-          cmd.rev(startRev.concat(":").concat(HgUtil.REVISION_TIP)).execute());
+    try
+    {
+      repository = open();
+
+      int first = HgLogChangesetCommand.on(repository,
+                    handler.getConfig()).rev(startRev).singleRevision();
+      int last = HgLogChangesetCommand.on(repository,
+                   handler.getConfig()).rev(
+                     HgUtil.REVISION_TIP).singleRevision();
+
+      if ((first >= 0) && (first <= last))
+      {
+        firstChunk = fetchChangesets(repository, first,
+          Math.min(first + CHUNK_SIZE - 1, last), disableModifications);
+        firstChunkModifications = !disableModifications;
       }
-      catch (Exception ex)
+
+      revisions = new int[] { first, last };
+    }
+    catch (Exception ex)
+    {
+      logger.error("could not retrieve changesets", ex);
+    }
+    finally
+    {
+      if (repository != null)
       {
-        logger.error("could not retrieve changesets", ex);
+        repository.close();
       }
-      finally
+    }
+  }
+
+  /**
+   * Returns the changesets of the first chunk and keeps them for the next
+   * request. The chunk is read again, if it was read without modifications
+   * and the request needs them.
+   *
+   *
+   * @param first first revision
+   * @param last last revision of the chunk
+   * @param disableModifications true to skip the modifications
+   *
+   * @return changesets of the first chunk
+   */
+  private List<Changeset> getFirstChunk(int first, int last,
+    boolean disableModifications)
+  {
+    List<Changeset> chunk = Collections.emptyList();
+
+    if ((first >= 0) && (first <= last))
+    {
+      if ((firstChunk == null)
+        || (!firstChunkModifications &&!disableModifications))
       {
-        if (repository != null)
+        try
         {
-          repository.close();
+          firstChunk = fetchChangesets(first, last, disableModifications);
+          firstChunkModifications = !disableModifications;
+          chunk = Collections.unmodifiableList(firstChunk);
         }
+        catch (Exception ex)
+        {
+          logger.error("could not retrieve changesets", ex);
+        }
+      }
+      else
+      {
+        chunk = Collections.unmodifiableList(firstChunk);
       }
     }
 
-    return response;
+    return chunk;
+  }
+
+  /**
+   * Hands the first chunk, which was read while resolving the revisions, to
+   * the first iteration of a large push. Later iterations read it again, so
+   * that no chunk of a large push is kept.
+   *
+   *
+   * @param disableModifications true to skip the modifications
+   *
+   * @return changesets of the first chunk or null
+   */
+  private synchronized List<Changeset> takeFirstChunk(
+    boolean disableModifications)
+  {
+    List<Changeset> chunk = null;
+
+    if ((firstChunk != null)
+      && (firstChunkModifications || disableModifications))
+    {
+      chunk = firstChunk;
+    }
+
+    firstChunk = null;
+
+    return chunk;
   }
 
   /**
@@ -146,6 +325,101 @@ public class HgHookChangesetProvider implements HookChangesetProvider
       pending);
   }
 
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Reads the changesets of the push in chunks, each chunk is read with a
+   * single log command.
+   */
+  private class ChangesetIterator extends AbstractIterator<Changeset>
+  {
+
+    /**
+     * Constructs a new ChangesetIterator.
+     *
+     *
+     * @param first first revision
+     * @param last last revision
+     * @param disableModifications true to skip the modifications
+     */
+    public ChangesetIterator(int first, int last, boolean disableModifications)
+    {
+      this.first = first;
+      this.next = first;
+      this.last = last;
+      this.disableModifications = disableModifications;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Changeset computeNext()
+    {
+      if (((chunk == null) || !chunk.hasNext()) && (next >= 0)
+        && (next <= last))
+      {
+        int end = Math.min(next + CHUNK_SIZE - 1, last);
+
+        try
+        {
+          List<Changeset> changesets = null;
+
+          if (next == first)
+          {
+            changesets = takeFirstChunk(disableModifications);
+          }
+
+          if (changesets == null)
+          {
+            changesets = fetchChangesets(next, end, disableModifications);
+          }
+
+          chunk = changesets.iterator();
+          next = end + 1;
+        }
+        catch (Exception ex)
+        {
+          logger.error("could not retrieve changesets", ex);
+          next = -1;
+        }
+      }
+
+      Changeset changeset;
+
+      if ((chunk != null) && chunk.hasNext())
+      {
+        changeset = chunk.next();
+      }
+      else
+      {
+        changeset = endOfData();
+      }
+
+      return changeset;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** changesets of the current chunk */
+    private Iterator<Changeset> chunk;
+
+    /** skip modifications */
+    private final boolean disableModifications;
+
+    /** first revision of the push */
+    private final int first;
+
+    /** last revision */
+    private final int last;
+
+    /** first revision of the next chunk */
+    private int next;
+  }
+
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
@@ -157,8 +431,14 @@ public class HgHookChangesetProvider implements HookChangesetProvider
   /** Field description */
   private String repositoryName;
 
-  /** Field description */
-  private HookChangesetResponse response;
+  /** changesets of the first chunk or null */
+  private List<Changeset> firstChunk;
+
+  /** true if the first chunk was read with modifications */
+  private boolean firstChunkModifications;
+
+  /** first and last revision of the push */
+  private int[] revisions;
 
   /** Field description */
   private String startRev;
@@ -35,6 +35,7 @@ package sonia.scm.repository.spi;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.aragost.javahg.commands.ExecutionException;
+import com.aragost.javahg.internals.RuntimeIOException;
 
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
@@ -109,6 +110,12 @@ public class HgIncomingCommand extends AbstractCommand
       changesets = on(repository).execute(remoteRepository.getAbsolutePath());
 
     }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
+
+      throw ex;
+    }
     catch (ExecutionException ex)
     {
       if (ex.getCommand().getReturnCode() == NO_INCOMING_CHANGESETS)
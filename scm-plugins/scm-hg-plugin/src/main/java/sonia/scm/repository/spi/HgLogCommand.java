@@ -35,6 +35,8 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.aragost.javahg.internals.RuntimeIOException;
+
 import com.google.common.base.Strings;
 
 import sonia.scm.repository.Changeset;
@@ -86,10 +88,19 @@ public class HgLogCommand extends AbstractCommand implements LogCommand
   public Changeset getChangeset(String id)
     throws IOException, RepositoryException
   {
-    com.aragost.javahg.Repository repository = open();
-    HgLogChangesetCommand cmd = on(repository);
+    try
+    {
+      com.aragost.javahg.Repository repository = open();
+      HgLogChangesetCommand cmd = on(repository);
 
-    return cmd.rev(id).single();
+      return cmd.rev(id).single();
+    }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
+
+      throw ex;
+    }
   }
 
   /**
@@ -107,72 +118,81 @@ public class HgLogCommand extends AbstractCommand implements LogCommand
   public ChangesetPagingResult getChangesets(LogCommandRequest request)
     throws IOException, RepositoryException
   {
-    ChangesetPagingResult result = null;
-
-    com.aragost.javahg.Repository repository = open();
-
-    if (!Strings.isNullOrEmpty(request.getPath())
-      ||!Strings.isNullOrEmpty(request.getBranch()))
-    {
-      result = collectSafely(repository, request);
-    }
-    else
+    try
     {
+      ChangesetPagingResult result = null;
 
-      int start = -1;
-      int end = 0;
+      com.aragost.javahg.Repository repository = open();
 
-      String startChangeset = request.getStartChangeset();
-      String endChangeset = request.getEndChangeset();
-
-      if (!Strings.isNullOrEmpty(startChangeset))
+      if (!Strings.isNullOrEmpty(request.getPath())
+        ||!Strings.isNullOrEmpty(request.getBranch()))
       {
-        start = on(repository).rev(startChangeset).singleRevision();
+        result = collectSafely(repository, request);
       }
-      else if (!Strings.isNullOrEmpty(endChangeset))
+      else
       {
-        end = on(repository).rev(endChangeset).singleRevision();
-      }
 
-      if (start < 0)
-      {
-        start = on(repository).rev("tip").singleRevision();
-      }
+        int start = -1;
+        int end = 0;
 
-      if (start >= 0)
-      {
+        String startChangeset = request.getStartChangeset();
+        String endChangeset = request.getEndChangeset();
 
-        int total = start - end + 1;
-
-        if (request.getPagingStart() > 0)
+        if (!Strings.isNullOrEmpty(startChangeset))
         {
-          start -= request.getPagingStart();
+          start = on(repository).rev(startChangeset).singleRevision();
         }
-
-        if (request.getPagingLimit() > 0)
+        else if (!Strings.isNullOrEmpty(endChangeset))
         {
-          end = start - request.getPagingLimit() + 1;
+          end = on(repository).rev(endChangeset).singleRevision();
         }
 
-        if (end < 0)
+        if (start < 0)
         {
-          end = 0;
+          start = on(repository).rev("tip").singleRevision();
         }
 
-        List<Changeset> changesets = on(repository).rev(start + ":"
-                                       + end).execute();
+        if (start >= 0)
+        {
 
-        result = new ChangesetPagingResult(total, changesets);
-      }
-      else
-      {
+          int total = start - end + 1;
+
+          if (request.getPagingStart() > 0)
+          {
+            start -= request.getPagingStart();
+          }
+
+          if (request.getPagingLimit() > 0)
+          {
+            end = start - request.getPagingLimit() + 1;
+          }
+
+          if (end < 0)
+          {
+            end = 0;
+          }
 
-        // empty repository
-        result = new ChangesetPagingResult(0, new ArrayList<Changeset>());
+          List<Changeset> changesets = on(repository).rev(start + ":"
+                                         + end).execute();
+
+          result = new ChangesetPagingResult(total, changesets);
+        }
+        else
+        {
+
+          // empty repository
+          result = new ChangesetPagingResult(0, new ArrayList<Changeset>());
+        }
       }
+
+      return result;
     }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
 
-    return result;
+      throw ex;
+    }
   }
 
   //~--- methods --------------------------------------------------------------
@@ -37,6 +37,7 @@ package sonia.scm.repository.spi;
 
 import com.aragost.javahg.Changeset;
 import com.aragost.javahg.commands.ExecutionException;
+import com.aragost.javahg.internals.RuntimeIOException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -108,6 +109,12 @@ public class HgPullCommand extends AbstractHgPushOrPullCommand
     {
       result = com.aragost.javahg.commands.PullCommand.on(open()).execute(url);
     }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
+
+      throw ex;
+    }
     catch (ExecutionException ex)
     {
       throw new RepositoryException("could not execute push command", ex);
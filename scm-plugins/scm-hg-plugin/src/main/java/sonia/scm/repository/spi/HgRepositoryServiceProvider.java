@@ -89,16 +89,17 @@ public class HgRepositoryServiceProvider extends RepositoryServiceProvider
    *
    * @param hookManager
    * @param handler
+   * @param pool
    * @param repository
    */
   HgRepositoryServiceProvider(HgRepositoryHandler handler,
-    HgHookManager hookManager, Repository repository)
+    HgHookManager hookManager, HgCommandServerPool pool, Repository repository)
   {
     this.repository = repository;
     this.handler = handler;
     this.repositoryDirectory = handler.getDirectory(repository);
     this.context = new HgCommandContext(hookManager, handler, repository,
-      repositoryDirectory);
+      repositoryDirectory, pool);
   }
 
   //~--- methods --------------------------------------------------------------
@@ -35,6 +35,8 @@ package sonia.scm.repository.spi;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.aragost.javahg.internals.RuntimeIOException;
+
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
@@ -77,25 +79,35 @@ public class HgTagsCommand extends AbstractCommand implements TagsCommand
   @Override
   public List<Tag> getTags()
   {
-    com.aragost.javahg.commands.TagsCommand cmd =
-      com.aragost.javahg.commands.TagsCommand.on(open());
+    try
+    {
+      com.aragost.javahg.commands.TagsCommand cmd =
+        com.aragost.javahg.commands.TagsCommand.on(open());
 
-    List<com.aragost.javahg.commands.Tag> tagList = cmd.includeTip().execute();
+      List<com.aragost.javahg.commands.Tag> tagList =
+        cmd.includeTip().execute();
 
-    List<Tag> tags = null;
+      List<Tag> tags = null;
 
-    // check for empty repository
-    if (Util.isNotEmpty(tagList) && tagList.get(0).getChangeset() != null)
-    {
-      tags = Lists.transform(tagList, new TagTransformer());
-    }
+      // check for empty repository
+      if (Util.isNotEmpty(tagList) && tagList.get(0).getChangeset() != null)
+      {
+        tags = Lists.transform(tagList, new TagTransformer());
+      }
 
-    if (tags == null)
-    {
-      tags = Lists.newArrayList();
+      if (tags == null)
+      {
+        tags = Lists.newArrayList();
+      }
+
+      return tags;
     }
+    catch (RuntimeIOException ex)
+    {
+      getContext().discard();
 
-    return tags;
+      throw ex;
+    }
   }
 
   //~--- inner classes --------------------------------------------------------
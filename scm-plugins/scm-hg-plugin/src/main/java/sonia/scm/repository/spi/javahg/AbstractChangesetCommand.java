@@ -84,6 +84,11 @@ public abstract class AbstractChangesetCommand extends AbstractCommand
     Utils.resourceAsFile("/sonia/scm/styles/changesets-eager.style",
       ImmutableMap.of("pattern", CHANGESET_PATTERN)).getPath();
 
+  /** style without the file modifications of the changesets */
+  protected static final String CHANGESET_BASIC_STYLE_PATH =
+    Utils.resourceAsFile("/sonia/scm/styles/changesets-basic.style",
+      ImmutableMap.of("pattern", CHANGESET_PATTERN)).getPath();
+
   /** Field description */
   private static final String NULL_ID =
     "0000000000000000000000000000000000000000";
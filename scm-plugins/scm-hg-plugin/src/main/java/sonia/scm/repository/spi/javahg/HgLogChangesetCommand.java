@@ -96,6 +96,22 @@ public class HgLogChangesetCommand extends AbstractChangesetCommand
     return this;
   }
 
+  /**
+   * Skips the file modifications of the changesets.
+   *
+   *
+   * @param disableModifications true to skip the modifications
+   *
+   * @return {@code this}
+   */
+  public HgLogChangesetCommand disableModifications(
+    boolean disableModifications)
+  {
+    this.disableModifications = disableModifications;
+
+    return this;
+  }
+
   /**
    * Method description
    *
@@ -106,7 +122,9 @@ public class HgLogChangesetCommand extends AbstractChangesetCommand
    */
   public List<Changeset> execute(String... files)
   {
-    cmdAppend("--style", CHANGESET_EAGER_STYLE_PATH);
+    cmdAppend("--style", disableModifications
+      ? CHANGESET_BASIC_STYLE_PATH
+      : CHANGESET_EAGER_STYLE_PATH);
 
     HgInputStream stream = launchStream(files);
 
@@ -206,4 +224,9 @@ public class HgLogChangesetCommand extends AbstractChangesetCommand
   {
     return "log";
   }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** skip file modifications */
+  private boolean disableModifications = false;
 }
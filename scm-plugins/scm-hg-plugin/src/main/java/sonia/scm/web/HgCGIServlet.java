@@ -35,7 +35,10 @@ package sonia.scm.web;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.Splitter;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -63,6 +66,7 @@ import java.io.File;
 import java.io.IOException;
 
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -89,6 +93,8 @@ public class HgCGIServlet extends HttpServlet
 
   private static final String ENV_HTTP_POST_ARGS = "SCM_HTTP_POST_ARGS";
 
+  private static final String ENV_PYTHON_PATH = "PYTHONPATH";
+
   /** Field description */
   public static final String ENV_SESSION_PREFIX = "SCM_";
 
@@ -114,12 +120,14 @@ public class HgCGIServlet extends HttpServlet
    * @param handler
    * @param hookManager
    * @param requestListenerUtil
+   * @param workerPool
    */
   @Inject
   public HgCGIServlet(CGIExecutorFactory cgiExecutorFactory,
     ScmConfiguration configuration, RepositoryProvider repositoryProvider,
     HgRepositoryHandler handler, HgHookManager hookManager,
-    RepositoryRequestListenerUtil requestListenerUtil)
+    RepositoryRequestListenerUtil requestListenerUtil,
+    HgWsgiWorkerPool workerPool)
   {
     this.cgiExecutorFactory = cgiExecutorFactory;
     this.configuration = configuration;
@@ -127,6 +135,7 @@ public class HgCGIServlet extends HttpServlet
     this.handler = handler;
     this.hookManager = hookManager;
     this.requestListenerUtil = requestListenerUtil;
+    this.workerPool = workerPool;
     this.exceptionHandler = new HgCGIExceptionHandler();
     this.command = HgPythonScript.HGWEB.getFile(SCMContext.getContext());
   }
@@ -302,12 +311,76 @@ public class HgCGIServlet extends HttpServlet
 
     String interpreter = getInterpreter();
 
+    if (!handler.getConfig().isEnableWsgiWorkers()
+      ||!processWithWorker(request, response, interpreter, environment))
+    {
+      if (interpreter != null)
+      {
+        executor.setInterpreter(interpreter);
+      }
+
+      executor.execute(command.getAbsolutePath());
+    }
+  }
+
+  /**
+   * Executes the request with a pooled hgweb worker, instead of starting a
+   * new cgi process. Returns false if no worker is available.
+   *
+   *
+   * @param request
+   * @param response
+   * @param interpreter
+   * @param environment cgi environment of the request
+   *
+   * @return true if the request was executed by a worker
+   *
+   * @throws IOException
+   */
+  private boolean processWithWorker(HttpServletRequest request,
+    HttpServletResponse response, String interpreter,
+    Map<String, String> environment)
+    throws IOException
+  {
+    List<String> workerCommand = Lists.newArrayList();
+
     if (interpreter != null)
     {
-      executor.setInterpreter(interpreter);
+      workerCommand.addAll(
+        Splitter.on(' ').omitEmptyStrings().splitToList(interpreter));
     }
 
-    executor.execute(command.getAbsolutePath());
+    workerCommand.add(HgPythonScript.HGWSGI.getFile(
+      SCMContext.getContext()).getAbsolutePath());
+
+    // mercurial must be importable, before the first request is received
+    Map<String, String> workerEnvironment = Maps.newHashMap(System.getenv());
+
+    workerEnvironment.put(ENV_PYTHON_PATH,
+      HgUtil.getPythonPath(handler.getConfig()));
+
+    HgWsgiWorker worker = workerPool.borrow(workerCommand, workerEnvironment);
+
+    if (worker == null)
+    {
+      logger.debug("all hgweb workers are busy, fall back to cgi");
+
+      return false;
+    }
+
+    boolean reusable = false;
+
+    try
+    {
+      worker.execute(environment, request.getInputStream(), response);
+      reusable = true;
+    }
+    finally
+    {
+      workerPool.release(worker, reusable);
+    }
+
+    return true;
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -359,4 +432,7 @@ public class HgCGIServlet extends HttpServlet
 
   /** Field description */
   private final RepositoryRequestListenerUtil requestListenerUtil;
+
+  /** pool of hgweb workers */
+  private final HgWsgiWorkerPool workerPool;
 }
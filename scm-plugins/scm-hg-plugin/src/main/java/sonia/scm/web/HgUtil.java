@@ -90,19 +90,21 @@ public final class HgUtil
   //~--- methods --------------------------------------------------------------
 
   /**
-   * Method description
+   * Creates the javahg configuration for a mercurial command server.
    *
    *
-   * @param handler
-   * @param hookManager
-   * @param directory
-   * @param encoding
-   * @param pending
+   * @param handler repository handler
+   * @param hookManager hook manager
+   * @param encoding encoding of the repository or null
+   * @param pending true to enable pending changesets
    *
-   * @return
+   * @return javahg configuration
+   *
+   * @since 1.58
    */
-  public static Repository open(HgRepositoryHandler handler,
-    HgHookManager hookManager, File directory, String encoding, boolean pending)
+  public static RepositoryConfiguration createConfiguration(
+    HgRepositoryHandler handler, HgHookManager hookManager, String encoding,
+    boolean pending)
   {
     String enc = encoding;
 
@@ -111,7 +113,7 @@ public final class HgUtil
       enc = handler.getConfig().getEncoding();
     }
 
-    RepositoryConfiguration repoConfiguration = RepositoryConfiguration.DEFAULT;
+    RepositoryConfiguration repoConfiguration = new RepositoryConfiguration();
 
     HgEnvironment.prepareEnvironment(repoConfiguration.getEnvironment(),
       handler, hookManager);
@@ -134,7 +136,26 @@ public final class HgUtil
 
     repoConfiguration.setHgBin(handler.getConfig().getHgBinary());
 
-    return Repository.open(repoConfiguration, directory);
+    return repoConfiguration;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param handler
+   * @param hookManager
+   * @param directory
+   * @param encoding
+   * @param pending
+   *
+   * @return
+   */
+  public static Repository open(HgRepositoryHandler handler,
+    HgHookManager hookManager, File directory, String encoding, boolean pending)
+  {
+    return Repository.open(createConfiguration(handler, hookManager, encoding,
+      pending), directory);
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -0,0 +1,426 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.web;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.io.ByteStreams;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.util.IOUtil;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Long living hgweb process, which executes mercurial protocol requests. The
+ * worker speaks a framed protocol over stdin and stdout, each frame starts
+ * with its length as 4 byte big endian integer and an empty frame marks the
+ * end of a stream. A request consists of the cgi environment, followed by the
+ * request body. The response consists of the status and headers, followed by
+ * the response body. See hgwsgi.py for the other side of the protocol.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+final class HgWsgiWorker
+{
+
+  /** size of body frames */
+  private static final int FRAME_SIZE = 8192;
+
+  /** separator of keys and values in environment and head frames */
+  private static final char SEPARATOR = '\0';
+
+  /**
+   * the logger for HgWsgiWorker
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(HgWsgiWorker.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new worker for the given process.
+   *
+   *
+   * @param process hgweb worker process
+   * @param signature command and environment of the process
+   */
+  HgWsgiWorker(final Process process, String signature)
+  {
+    this(process, process.getInputStream(), process.getOutputStream(),
+      signature);
+
+    Thread thread = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        logErrorStream(process.getErrorStream());
+      }
+    }, "HgWsgiWorker-stderr");
+
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Constructs a new worker for the given streams.
+   *
+   *
+   * @param process hgweb worker process or null
+   * @param input stdout of the worker
+   * @param output stdin of the worker
+   * @param signature command and environment of the process
+   */
+  HgWsgiWorker(Process process, InputStream input, OutputStream output,
+    String signature)
+  {
+    this.process = process;
+    this.input = new DataInputStream(new BufferedInputStream(input));
+    this.output = new DataOutputStream(new BufferedOutputStream(output));
+    this.signature = signature;
+    this.lastUsed = System.currentTimeMillis();
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Stops the worker process.
+   *
+   */
+  void destroy()
+  {
+    IOUtil.close(output);
+    IOUtil.close(input);
+
+    if (process != null)
+    {
+      process.destroy();
+    }
+  }
+
+  /**
+   * Executes a request. The request body is streamed to the worker and the
+   * response body is streamed to the servlet response. The worker must not
+   * be reused, if an exception is thrown.
+   *
+   *
+   * @param environment cgi environment of the request
+   * @param body request body
+   * @param response servlet response
+   *
+   * @throws IOException
+   */
+  void execute(Map<String, String> environment, InputStream body,
+    HttpServletResponse response)
+    throws IOException
+  {
+    requests++;
+    writeEnvironment(environment);
+
+    byte[] buffer = new byte[FRAME_SIZE];
+    int read = body.read(buffer);
+
+    while (read >= 0)
+    {
+      if (read > 0)
+      {
+        output.writeInt(read);
+        output.write(buffer, 0, read);
+      }
+
+      read = body.read(buffer);
+    }
+
+    output.writeInt(0);
+    output.flush();
+
+    boolean error = readHead(response);
+    OutputStream stream = null;
+    int length = input.readInt();
+
+    while (length > 0)
+    {
+      if (error)
+      {
+        ByteStreams.skipFully(input, length);
+      }
+      else
+      {
+        if (stream == null)
+        {
+          stream = response.getOutputStream();
+        }
+
+        ByteStreams.copy(ByteStreams.limit(input, length), stream);
+      }
+
+      length = input.readInt();
+    }
+
+    if (length < 0)
+    {
+      throw new IOException("received invalid frame from hgweb worker");
+    }
+
+    if (stream != null)
+    {
+      stream.flush();
+    }
+
+    lastUsed = System.currentTimeMillis();
+  }
+
+  /**
+   * Reads the error stream of the worker process and logs every line as
+   * warning, as the cgi executor does.
+   *
+   *
+   * @param stream error stream
+   */
+  private void logErrorStream(InputStream stream)
+  {
+    BufferedReader reader = null;
+
+    try
+    {
+      reader = new BufferedReader(new InputStreamReader(stream,
+        Charsets.UTF_8));
+
+      String line = reader.readLine();
+
+      while (line != null)
+      {
+        logger.warn(line);
+        line = reader.readLine();
+      }
+    }
+    catch (IOException ex)
+    {
+      logger.trace("error stream of hgweb worker closed", ex);
+    }
+    finally
+    {
+      IOUtil.close(reader);
+    }
+  }
+
+  /**
+   * Reads status and headers of the response. Status codes of 304 and above
+   * are send as error, like the cgi executor does.
+   *
+   *
+   * @param response servlet response
+   *
+   * @return true if the status was send as error
+   *
+   * @throws IOException
+   */
+  private boolean readHead(HttpServletResponse response) throws IOException
+  {
+    int length = input.readInt();
+
+    if (length <= 0)
+    {
+      throw new EOFException("missing response head from hgweb worker");
+    }
+
+    byte[] head = new byte[length];
+
+    input.readFully(head);
+
+    List<String> parts = Splitter.on(SEPARATOR).splitToList(new String(head,
+                           Charsets.ISO_8859_1));
+
+    for (int i = 1; i < parts.size() - 1; i += 2)
+    {
+      response.addHeader(parts.get(i), parts.get(i + 1));
+    }
+
+    String status = parts.get(0);
+    int index = status.indexOf(' ');
+    int code = Integer.parseInt((index > 0)
+      ? status.substring(0, index)
+      : status);
+
+    logger.debug("hgweb worker returned with status {}", code);
+
+    boolean error = code >= 304;
+
+    if (error)
+    {
+      response.sendError(code);
+    }
+    else
+    {
+      response.setStatus(code);
+    }
+
+    return error;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param environment
+   *
+   * @throws IOException
+   */
+  private void writeEnvironment(Map<String, String> environment)
+    throws IOException
+  {
+    StringBuilder buffer = new StringBuilder();
+
+    for (Map.Entry<String, String> e : environment.entrySet())
+    {
+      if (e.getValue() != null)
+      {
+        if (buffer.length() > 0)
+        {
+          buffer.append(SEPARATOR);
+        }
+
+        buffer.append(e.getKey()).append(SEPARATOR).append(e.getValue());
+      }
+    }
+
+    byte[] frame = buffer.toString().getBytes(Charsets.UTF_8);
+
+    output.writeInt(frame.length);
+    output.write(frame);
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the last time, the worker has finished a request.
+   *
+   *
+   * @return last usage in milliseconds
+   */
+  long getLastUsed()
+  {
+    return lastUsed;
+  }
+
+  /**
+   * Returns the number of executed requests.
+   *
+   *
+   * @return number of requests
+   */
+  int getRequests()
+  {
+    return requests;
+  }
+
+  /**
+   * Returns the command and environment of the worker process.
+   *
+   *
+   * @return signature of the process
+   */
+  String getSignature()
+  {
+    return signature;
+  }
+
+  /**
+   * Returns true if the worker process is still running.
+   *
+   *
+   * @return true if the process is running
+   */
+  boolean isAlive()
+  {
+    boolean alive = true;
+
+    if (process != null)
+    {
+      try
+      {
+        process.exitValue();
+        alive = false;
+      }
+      catch (IllegalThreadStateException ex)
+      {
+
+        // process is still running
+      }
+    }
+
+    return alive;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** stdout of the worker */
+  private final DataInputStream input;
+
+  /** stdin of the worker */
+  private final DataOutputStream output;
+
+  /** worker process or null */
+  private final Process process;
+
+  /** command and environment of the worker process */
+  private final String signature;
+
+  /** last time the worker has finished a request */
+  private long lastUsed;
+
+  /** number of executed requests */
+  private int requests;
+}
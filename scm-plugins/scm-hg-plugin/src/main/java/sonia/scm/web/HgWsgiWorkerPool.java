@@ -0,0 +1,441 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.web;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.plugin.ext.Extension;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Pool of long living hgweb workers, which are used by the
+ * {@link HgCGIServlet} if wsgi workers are enabled. Each worker executes one
+ * request at a time. If all {@link #PROPERTY_WORKERS} workers are busy, the
+ * servlet falls back to a cgi process. Workers are stopped after they were
+ * idle for {@link #PROPERTY_IDLE_TIMEOUT} seconds or after they have executed
+ * {@link #PROPERTY_MAX_REQUESTS} requests.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+@Singleton
+@Extension
+public class HgWsgiWorkerPool implements ServletContextListener, Closeable
+{
+
+  /** system property for the idle timeout in seconds */
+  public static final String PROPERTY_IDLE_TIMEOUT =
+    "sonia.scm.hg.wsgi.idle-timeout";
+
+  /** system property for the number of requests, before a worker is stopped */
+  public static final String PROPERTY_MAX_REQUESTS =
+    "sonia.scm.hg.wsgi.max-requests";
+
+  /** system property for the maximum number of workers */
+  public static final String PROPERTY_WORKERS = "sonia.scm.hg.wsgi.workers";
+
+  /** name of the eviction thread */
+  private static final String THREAD_NAME = "HgWsgiWorkerPool";
+
+  /**
+   * the logger for HgWsgiWorkerPool
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(HgWsgiWorkerPool.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new pool, which is configured by system properties.
+   *
+   */
+  @Inject
+  public HgWsgiWorkerPool()
+  {
+    this(Integer.getInteger(PROPERTY_WORKERS,
+      Math.max(2, Runtime.getRuntime().availableProcessors())),
+      Integer.getInteger(PROPERTY_MAX_REQUESTS, 1000),
+      TimeUnit.SECONDS.toMillis(Integer.getInteger(PROPERTY_IDLE_TIMEOUT,
+        300)));
+  }
+
+  /**
+   * Constructs a new pool.
+   *
+   *
+   * @param maxWorkers maximum number of workers
+   * @param maxRequests number of requests, before a worker is stopped
+   * @param idleTimeout idle timeout in milliseconds
+   */
+  HgWsgiWorkerPool(int maxWorkers, int maxRequests, long idleTimeout)
+  {
+    this.maxWorkers = maxWorkers;
+    this.maxRequests = maxRequests;
+    this.idleTimeout = idleTimeout;
+
+    //J-
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME)
+        .setDaemon(true)
+        .build()
+    );
+    //J+
+
+    long period = Math.max(idleTimeout / 2, 1000L);
+
+    this.executor.scheduleWithFixedDelay(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        evictIdle();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Borrows an idle worker, which was started with the same command and
+   * environment, or starts a new one. Returns null if all workers are busy.
+   * Every borrowed worker must be given back with
+   * {@link #release(HgWsgiWorker, boolean)}.
+   *
+   *
+   * @param command command of the worker process
+   * @param environment environment of the worker process
+   *
+   * @return worker or null
+   *
+   * @throws IOException
+   */
+  public HgWsgiWorker borrow(List<String> command,
+    Map<String, String> environment)
+    throws IOException
+  {
+    String signature = command.toString().concat(
+                         new TreeMap<String, String>(environment).toString());
+    List<HgWsgiWorker> invalid = Lists.newArrayList();
+    HgWsgiWorker worker = null;
+    boolean start = false;
+
+    synchronized (this)
+    {
+      long now = System.currentTimeMillis();
+
+      while ((worker == null) &&!idle.isEmpty())
+      {
+        worker = idle.pollFirst();
+
+        if (!signature.equals(worker.getSignature()) || isExpired(worker, now)
+          ||!worker.isAlive())
+        {
+          invalid.add(worker);
+          worker = null;
+        }
+      }
+
+      total -= invalid.size();
+
+      if ((worker == null) &&!closed && (total < maxWorkers))
+      {
+        // reserve the slot before the process is started outside of the lock
+        total++;
+        start = true;
+      }
+    }
+
+    destroy(invalid);
+
+    if (start)
+    {
+      try
+      {
+        logger.debug("start hgweb worker {}", command);
+        worker = start(command, environment, signature);
+      }
+      catch (IOException ex)
+      {
+        synchronized (this)
+        {
+          total--;
+        }
+
+        throw ex;
+      }
+      catch (RuntimeException ex)
+      {
+        synchronized (this)
+        {
+          total--;
+        }
+
+        throw ex;
+      }
+    }
+
+    return worker;
+  }
+
+  /**
+   * Stops all idle workers, busy workers are stopped as soon as they are given
+   * back.
+   *
+   */
+  @Override
+  public void close()
+  {
+    List<HgWsgiWorker> workers;
+
+    synchronized (this)
+    {
+      closed = true;
+      workers = Lists.newArrayList(idle);
+      idle.clear();
+      total -= workers.size();
+    }
+
+    executor.shutdownNow();
+    destroy(workers);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param sce
+   */
+  @Override
+  public void contextDestroyed(ServletContextEvent sce)
+  {
+    close();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param sce
+   */
+  @Override
+  public void contextInitialized(ServletContextEvent sce)
+  {
+
+    // do nothing
+  }
+
+  /**
+   * Gives a borrowed worker back to the pool.
+   *
+   *
+   * @param worker borrowed worker
+   * @param reusable false if the request has failed and the state of the
+   *   worker is unknown
+   */
+  public void release(HgWsgiWorker worker, boolean reusable)
+  {
+    boolean keep;
+
+    synchronized (this)
+    {
+      keep = reusable &&!closed && (worker.getRequests() < maxRequests)
+        && worker.isAlive();
+
+      if (keep)
+      {
+        idle.addFirst(worker);
+      }
+      else
+      {
+        total--;
+      }
+    }
+
+    if (!keep)
+    {
+      logger.debug("stop hgweb worker after {} requests",
+        worker.getRequests());
+      worker.destroy();
+    }
+  }
+
+  /**
+   * Starts a new worker process.
+   *
+   *
+   * @param command command of the worker process
+   * @param environment environment of the worker process
+   * @param signature command and environment of the process
+   *
+   * @return new worker
+   *
+   * @throws IOException
+   */
+  @VisibleForTesting
+  HgWsgiWorker start(List<String> command, Map<String, String> environment,
+    String signature)
+    throws IOException
+  {
+    ProcessBuilder builder = new ProcessBuilder(command);
+
+    builder.environment().clear();
+    builder.environment().putAll(environment);
+
+    return new HgWsgiWorker(builder.start(), signature);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param workers
+   */
+  private void destroy(List<HgWsgiWorker> workers)
+  {
+    for (HgWsgiWorker worker : workers)
+    {
+      worker.destroy();
+    }
+  }
+
+  /**
+   * Stops all workers which were idle for longer than the idle timeout.
+   *
+   */
+  private void evictIdle()
+  {
+    List<HgWsgiWorker> expired = Lists.newArrayList();
+    long now = System.currentTimeMillis();
+
+    synchronized (this)
+    {
+      Iterator<HgWsgiWorker> it = idle.iterator();
+
+      while (it.hasNext())
+      {
+        HgWsgiWorker worker = it.next();
+
+        if (isExpired(worker, now))
+        {
+          expired.add(worker);
+          it.remove();
+        }
+      }
+
+      total -= expired.size();
+    }
+
+    if (!expired.isEmpty())
+    {
+      logger.debug("stop {} idle hgweb workers", expired.size());
+      destroy(expired);
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the number of started workers.
+   *
+   *
+   * @return number of busy and idle workers
+   */
+  synchronized int getTotal()
+  {
+    return total;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param worker
+   * @param now
+   *
+   * @return
+   */
+  private boolean isExpired(HgWsgiWorker worker, long now)
+  {
+    return (now - worker.getLastUsed()) > idleTimeout;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** eviction executor */
+  private final ScheduledExecutorService executor;
+
+  /** idle workers, the most recently used worker first */
+  private final Deque<HgWsgiWorker> idle = new ArrayDeque<HgWsgiWorker>();
+
+  /** idle timeout in milliseconds */
+  private final long idleTimeout;
+
+  /** number of requests, before a worker is stopped */
+  private final int maxRequests;
+
+  /** maximum number of workers */
+  private final int maxWorkers;
+
+  /** true if the pool was closed */
+  private boolean closed = false;
+
+  /** number of busy and idle workers */
+  private int total = 0;
+}
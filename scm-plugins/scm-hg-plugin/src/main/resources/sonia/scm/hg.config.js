@@ -49,6 +49,7 @@ Sonia.hg.ConfigPanel = Ext.extend(Sonia.config.ConfigForm, {
   // TODO: i18n
   disableHookSSLValidationText: 'Disable SSL Validation on Hooks',
   enableHttpPostArgsText: 'Enable HttpPostArgs Protocol',
+  enableWsgiWorkersText: 'Enable WSGI Workers',
 
   // helpText
   hgBinaryHelpText: 'Location of Mercurial binary.',
@@ -68,6 +69,8 @@ Sonia.hg.ConfigPanel = Ext.extend(Sonia.config.ConfigForm, {
   enableHttpPostArgsHelpText: 'Enables the experimental HttpPostArgs Protocol of mercurial.\n\
     The HttpPostArgs Protocol uses the body of post requests to send the meta information instead of http headers.\
     This helps to reduce the header size of mercurial requests. HttpPostArgs is supported since mercurial 3.8.',
+  enableWsgiWorkersHelpText: 'Executes mercurial protocol requests with a pool of long living Python processes,\n\
+    instead of starting a new cgi process for each request.',
 
   initComponent: function(){
 
@@ -126,6 +129,12 @@ Sonia.hg.ConfigPanel = Ext.extend(Sonia.config.ConfigForm, {
         fieldLabel: this.enableHttpPostArgsText,
         inputValue: 'true',
         helpText: this.enableHttpPostArgsHelpText
+      },{
+        xtype: 'checkbox',
+        name: 'enableWsgiWorkers',
+        fieldLabel: this.enableWsgiWorkersText,
+        inputValue: 'true',
+        helpText: this.enableWsgiWorkersHelpText
       },{
         xtype: 'checkbox',
         name: 'disabled',
@@ -0,0 +1,226 @@
+#
+# Copyright (c) 2010, Sebastian Sdorra
+# All rights reserved.
+#
+# Redistribution and use in source and binary forms, with or without
+# modification, are permitted provided that the following conditions are met:
+#
+# 1. Redistributions of source code must retain the above copyright notice,
+#    this list of conditions and the following disclaimer.
+# 2. Redistributions in binary form must reproduce the above copyright notice,
+#    this list of conditions and the following disclaimer in the documentation
+#    and/or other materials provided with the distribution.
+# 3. Neither the name of SCM-Manager; nor the names of its
+#    contributors may be used to endorse or promote products derived from this
+#    software without specific prior written permission.
+#
+# THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+# AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+# IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+# DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+# DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+# (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+# LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+# ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+# (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+# SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+#
+# http://bitbucket.org/sdorra/scm-manager
+#
+#
+
+# Long living hgweb worker, which is used by the HgWsgiWorkerPool instead of
+# starting hgweb.py as cgi for each request. The worker reads requests from
+# stdin and writes responses to stdout. Every message is a sequence of frames,
+# each frame starts with its length as 4 byte big endian integer.
+#
+# request:  environment frame (NUL separated keys and values),
+#           body frames, empty frame
+# response: head frame (NUL separated status, header names and values),
+#           body frames, empty frame
+
+import os, sys, struct, traceback
+from mercurial import demandimport, ui as uimod, hg
+from mercurial.hgweb import hgweb
+
+demandimport.enable()
+
+# keep stdin and stdout for the protocol and redirect stdout to stderr, so that
+# output of extensions could not corrupt the protocol
+protocolIn = os.fdopen(os.dup(sys.stdin.fileno()), 'rb')
+protocolOut = os.fdopen(os.dup(sys.stdout.fileno()), 'wb')
+os.dup2(sys.stderr.fileno(), sys.stdout.fileno())
+
+if sys.platform == 'win32':
+  import msvcrt
+  msvcrt.setmode(protocolIn.fileno(), os.O_BINARY)
+  msvcrt.setmode(protocolOut.fileno(), os.O_BINARY)
+
+baseEnvironment = dict(os.environ)
+
+def readExactly(size):
+  data = b''
+  while len(data) < size:
+    chunk = protocolIn.read(size - len(data))
+    if not chunk:
+      return None
+    data += chunk
+  return data
+
+def readFrame():
+  head = readExactly(4)
+  if head is None:
+    return None
+  size = struct.unpack('>I', head)[0]
+  if size == 0:
+    return b''
+  data = readExactly(size)
+  if data is None:
+    raise EOFError('unexpected end of frame')
+  return data
+
+def writeFrame(data):
+  protocolOut.write(struct.pack('>I', len(data)))
+  if data:
+    protocolOut.write(data)
+
+class FramedInput(object):
+
+  def __init__(self):
+    self.buffer = b''
+    self.eof = False
+
+  def fill(self):
+    if not self.eof:
+      data = readFrame()
+      if not data:
+        self.eof = True
+      else:
+        self.buffer += data
+
+  def read(self, size=-1):
+    while not self.eof and (size < 0 or len(self.buffer) < size):
+      self.fill()
+    if size < 0 or size > len(self.buffer):
+      size = len(self.buffer)
+    data = self.buffer[:size]
+    self.buffer = self.buffer[size:]
+    return data
+
+  def readline(self, size=-1):
+    while not self.eof and self.buffer.find(b'\n') < 0 and (size < 0 or len(self.buffer) < size):
+      self.fill()
+    index = self.buffer.find(b'\n')
+    if index >= 0 and (size < 0 or index < size):
+      size = index + 1
+    return self.read(size)
+
+  def readlines(self, hint=-1):
+    return list(iter(self.readline, b''))
+
+  def __iter__(self):
+    return iter(self.readline, b'')
+
+  def drain(self):
+    # the request must be consumed completely, before the response is written
+    while not self.eof:
+      self.buffer = b''
+      self.fill()
+    self.buffer = b''
+
+class Response(object):
+
+  def __init__(self, input):
+    self.input = input
+    self.status = None
+    self.headers = []
+    self.sent = False
+
+  def start_response(self, status, headers, exc_info=None):
+    if exc_info and self.sent:
+      raise exc_info[1]
+    self.status = status
+    self.headers = headers
+    return self.write
+
+  def sendHead(self):
+    if not self.sent:
+      self.input.drain()
+      head = [self.status]
+      for name, value in self.headers:
+        head.append(name)
+        head.append(value)
+      writeFrame(b'\0'.join(head))
+      self.sent = True
+
+  def write(self, data):
+    self.sendHead()
+    if data:
+      writeFrame(data)
+
+  def finish(self):
+    self.sendHead()
+    writeFrame(b'')
+    protocolOut.flush()
+
+def createEnvironment(values):
+  environ = dict(baseEnvironment)
+  for i in range(0, len(values) - 1, 2):
+    environ[values[i]] = values[i + 1]
+  return environ
+
+def handle(values):
+  environ = createEnvironment(values)
+
+  # the hooks are reading their configuration from the process environment
+  os.environ.clear()
+  os.environ.update(environ)
+
+  input = FramedInput()
+  response = Response(input)
+
+  environ.setdefault('PATH_INFO', '')
+  environ['wsgi.input'] = input
+  environ['wsgi.errors'] = sys.stderr
+  environ['wsgi.version'] = (1, 0)
+  environ['wsgi.multithread'] = False
+  environ['wsgi.multiprocess'] = True
+  environ['wsgi.run_once'] = False
+  if environ.get('HTTPS', 'off').lower() in ('on', '1', 'yes'):
+    environ['wsgi.url_scheme'] = 'https'
+  else:
+    environ['wsgi.url_scheme'] = 'http'
+
+  try:
+    u = uimod.ui.load()
+
+    # pass SCM_HTTP_POST_ARGS to enable experimental httppostargs protocol of mercurial
+    # Issue 970: https://goo.gl/poascp
+    u.setconfig('experimental', 'httppostargs', environ['SCM_HTTP_POST_ARGS'])
+
+    r = hg.repository(u, environ['SCM_REPOSITORY_PATH'])
+    result = hgweb(r)(environ, response.start_response)
+    try:
+      for chunk in result:
+        response.write(chunk)
+    finally:
+      if hasattr(result, 'close'):
+        result.close()
+      if hasattr(r, 'close'):
+        r.close()
+  except Exception:
+    traceback.print_exc(file=sys.stderr)
+    if response.sent:
+      # the response is broken, the servlet stops the worker on end of stream
+      sys.exit(1)
+    response.status = '500 Internal Server Error'
+    response.headers = [('Content-Type', 'text/plain')]
+    response.write(b'internal server error')
+
+  response.finish()
+
+while True:
+  frame = readFrame()
+  if frame is None:
+    break
+  handle(frame.split(b'\0') if frame else [])
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository.spi;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.aragost.javahg.Repository;
+import com.aragost.javahg.RepositoryConfiguration;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static org.mockito.Mockito.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+
+import java.util.Map;
+
+/**
+ * Unit tests for {@link HgCommandServerPool}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class HgCommandServerPoolTest
+{
+
+  /** key of the first repository */
+  private static final HgCommandServerPool.Key KEY_ONE = createKey("one",
+                                                           "trillian", "a");
+
+  /** key of the first repository with credentials of a new login */
+  private static final HgCommandServerPool.Key KEY_ONE_RELOGIN =
+    createKey("one", "trillian", "b");
+
+  /** key of the first repository with another user */
+  private static final HgCommandServerPool.Key KEY_ONE_OTHER =
+    createKey("one", "dent", "c");
+
+  /** key of the second repository */
+  private static final HgCommandServerPool.Key KEY_TWO = createKey("two",
+                                                           "trillian", "a");
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Closes the pool.
+   */
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+    {
+      pool.close();
+    }
+  }
+
+  /**
+   * Tests that a released server is reused by the next lease.
+   */
+  @Test
+  public void testBorrowReusesServer()
+  {
+    pool = createPool(4, 2, 60000L);
+
+    Repository first = pool.borrow(KEY_ONE, configuration);
+
+    pool.release(first);
+
+    Repository second = pool.borrow(KEY_ONE, configuration);
+
+    assertSame(first, second);
+    pool.release(second);
+    verify(first, never()).close();
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests that servers are not shared between different keys.
+   */
+  @Test
+  public void testBorrowWithDifferentKeys()
+  {
+    pool = createPool(4, 2, 60000L);
+
+    Repository one = pool.borrow(KEY_ONE, configuration);
+
+    pool.release(one);
+
+    assertNotSame(one, pool.borrow(KEY_ONE_OTHER, configuration));
+    assertNotSame(one, pool.borrow(KEY_TWO, configuration));
+    assertEquals(3, pool.getTotal());
+  }
+
+  /**
+   * Tests that servers are shared between sessions of the same user, although
+   * the credentials are encrypted again on every login.
+   */
+  @Test
+  public void testBorrowWithNewCredentials()
+  {
+    pool = createPool(4, 2, 60000L);
+
+    Repository first = pool.borrow(KEY_ONE, configuration);
+
+    pool.release(first);
+
+    assertSame(first, pool.borrow(KEY_ONE_RELOGIN, configuration));
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests that a discarded server is stopped and not reused.
+   */
+  @Test
+  public void testDiscard()
+  {
+    pool = createPool(4, 2, 60000L);
+
+    Repository first = pool.borrow(KEY_ONE, configuration);
+
+    pool.discard(first);
+    verify(first).close();
+    assertEquals(0, pool.getTotal());
+
+    Repository second = pool.borrow(KEY_ONE, configuration);
+
+    assertNotSame(first, second);
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests the limit of idle servers per key.
+   */
+  @Test
+  public void testMaxPerRepository()
+  {
+    pool = createPool(4, 1, 60000L);
+
+    Repository first = pool.borrow(KEY_ONE, configuration);
+    Repository second = pool.borrow(KEY_ONE, configuration);
+
+    pool.release(first);
+    pool.release(second);
+    verify(first, never()).close();
+    verify(second).close();
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests that servers beyond the total limit are not pooled and that idle
+   * servers of other keys are stopped to make room.
+   */
+  @Test
+  public void testMaxTotal()
+  {
+    pool = createPool(1, 2, 60000L);
+
+    Repository first = pool.borrow(KEY_ONE, configuration);
+    Repository unpooled = pool.borrow(KEY_ONE, configuration);
+
+    assertEquals(1, pool.getTotal());
+    pool.release(unpooled);
+    verify(unpooled).close();
+
+    pool.release(first);
+
+    Repository other = pool.borrow(KEY_TWO, configuration);
+
+    verify(first).close();
+    assertNotSame(first, other);
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests that idle and borrowed servers of a repository are stopped after
+   * an invalidation.
+   */
+  @Test
+  public void testInvalidate()
+  {
+    pool = createPool(4, 2, 60000L);
+
+    Repository idle = pool.borrow(KEY_ONE, configuration);
+    Repository borrowed = pool.borrow(KEY_ONE, configuration);
+    Repository other = pool.borrow(KEY_TWO, configuration);
+
+    pool.release(idle);
+    pool.release(other);
+    pool.invalidate("one");
+    verify(idle).close();
+    verify(borrowed, never()).close();
+
+    pool.release(borrowed);
+    verify(borrowed).close();
+    verify(other, never()).close();
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests that expired servers are not reused.
+   */
+  @Test
+  public void testIdleTimeout()
+  {
+    pool = createPool(4, 2, -1L);
+
+    Repository first = pool.borrow(KEY_ONE, configuration);
+
+    pool.release(first);
+
+    Repository second = pool.borrow(KEY_ONE, configuration);
+
+    assertNotSame(first, second);
+    verify(first).close();
+    assertEquals(1, pool.getTotal());
+  }
+
+  /**
+   * Tests that the pool stops all servers on close.
+   */
+  @Test
+  public void testClose()
+  {
+    pool = createPool(4, 2, 60000L);
+
+    Repository idle = pool.borrow(KEY_ONE, configuration);
+    Repository borrowed = pool.borrow(KEY_ONE, configuration);
+
+    pool.release(idle);
+    pool.close();
+    verify(idle).close();
+    pool.release(borrowed);
+    verify(borrowed).close();
+    assertEquals(0, pool.getTotal());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param repositoryId
+   * @param principal
+   * @param credentials
+   *
+   * @return
+   */
+  private static HgCommandServerPool.Key createKey(String repositoryId,
+    String principal, String credentials)
+  {
+    Map<String, String> environment = ImmutableMap.of("SCM_CREDENTIALS",
+                                        credentials);
+
+    return new HgCommandServerPool.Key(repositoryId, new File(repositoryId),
+      "UTF-8", "hg", principal, environment);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param maxTotal
+   * @param maxPerRepository
+   * @param idleTimeout
+   *
+   * @return
+   */
+  private HgCommandServerPool createPool(int maxTotal, int maxPerRepository,
+    long idleTimeout)
+  {
+    return new HgCommandServerPool(maxTotal, maxPerRepository, idleTimeout)
+    {
+      @Override
+      Repository start(Key key, RepositoryConfiguration configuration)
+      {
+        return mock(Repository.class);
+      }
+    };
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** javahg configuration */
+  private final RepositoryConfiguration configuration =
+    mock(RepositoryConfiguration.class);
+
+  /** pool under test */
+  private HgCommandServerPool pool;
+}
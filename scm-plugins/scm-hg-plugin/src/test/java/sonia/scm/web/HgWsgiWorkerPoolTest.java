@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.web;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link HgWsgiWorkerPool}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class HgWsgiWorkerPoolTest
+{
+
+  /** command of the workers */
+  private static final List<String> COMMAND = ImmutableList.of("python",
+                                                "hgwsgi.py");
+
+  /** environment of the workers */
+  private static final Map<String, String> ENV = ImmutableMap.of("PYTHONPATH",
+                                                   "/opt/hg");
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Closes the pool.
+   */
+  @After
+  public void tearDown()
+  {
+    pool.close();
+  }
+
+  /**
+   * Tests that busy workers are not shared and exhausted pools return null.
+   *
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testBorrowExhausted() throws Exception
+  {
+    HgWsgiWorker one = pool.borrow(COMMAND, ENV);
+    HgWsgiWorker two = pool.borrow(COMMAND, ENV);
+
+    assertNotNull(one);
+    assertNotNull(two);
+    assertNotSame(one, two);
+    assertNull(pool.borrow(COMMAND, ENV));
+
+    pool.release(one, true);
+    assertSame(one, pool.borrow(COMMAND, ENV));
+    assertEquals(2, pool.getTotal());
+  }
+
+  /**
+   * Tests that workers are replaced after a failed request or if the
+   * environment has changed.
+   *
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testReplace() throws Exception
+  {
+    HgWsgiWorker worker = pool.borrow(COMMAND, ENV);
+
+    pool.release(worker, false);
+    assertEquals(0, pool.getTotal());
+
+    worker = pool.borrow(COMMAND, ENV);
+    pool.release(worker, true);
+
+    HgWsgiWorker other = pool.borrow(COMMAND,
+                           ImmutableMap.of("PYTHONPATH", "/usr/lib/hg"));
+
+    assertNotSame(worker, other);
+    assertEquals(1, pool.getTotal());
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** pool with two workers, which are not backed by processes */
+  private final HgWsgiWorkerPool pool = new HgWsgiWorkerPool(2, 100, 60000L)
+  {
+    @Override
+    HgWsgiWorker start(List<String> command, Map<String, String> environment,
+      String signature)
+    {
+      return new HgWsgiWorker(null, new ByteArrayInputStream(new byte[0]),
+        new ByteArrayOutputStream(), signature);
+    }
+  };
+}
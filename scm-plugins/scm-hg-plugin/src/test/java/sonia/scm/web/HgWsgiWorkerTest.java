@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.web;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static org.mockito.Mockito.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for {@link HgWsgiWorker}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class HgWsgiWorkerTest
+{
+
+  /**
+   * Tests that an error status is send as error and the body is skipped.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testExecuteWithError() throws IOException
+  {
+    ByteArrayOutputStream workerResponse = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream(workerResponse);
+
+    writeFrame(dos, "404 Not Found\0Content-Type\0text/plain");
+    writeFrame(dos, "not found");
+    dos.writeInt(0);
+
+    HgWsgiWorker worker = new HgWsgiWorker(null,
+                            new ByteArrayInputStream(
+                              workerResponse.toByteArray()),
+                            new ByteArrayOutputStream(), "sig");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    worker.execute(ImmutableMap.of("A", "a"),
+      new ByteArrayInputStream(new byte[0]), response);
+
+    verify(response).sendError(404);
+    verify(response, never()).getOutputStream();
+  }
+
+  /**
+   * Tests the framing of request and response.
+   *
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testExecute() throws IOException
+  {
+    ByteArrayOutputStream workerResponse = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream(workerResponse);
+
+    writeFrame(dos, "200 Script output follows\0Content-Type\0"
+      + "application/mercurial-0.1\0Content-Length\0" + "10");
+    writeFrame(dos, "hello ");
+    writeFrame(dos, "hg");
+    dos.writeInt(0);
+
+    ByteArrayOutputStream workerRequest = new ByteArrayOutputStream();
+    HgWsgiWorker worker = new HgWsgiWorker(null,
+                            new ByteArrayInputStream(
+                              workerResponse.toByteArray()), workerRequest,
+                                "sig");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream()
+    {
+      @Override
+      public void write(int b)
+      {
+        body.write(b);
+      }
+    });
+
+    worker.execute(ImmutableMap.of("QUERY_STRING", "cmd=capabilities",
+      "EMPTY", ""), new ByteArrayInputStream("body".getBytes(Charsets.UTF_8)),
+        response);
+
+    verify(response).setStatus(200);
+    verify(response).addHeader("Content-Type", "application/mercurial-0.1");
+    verify(response).addHeader("Content-Length", "10");
+    assertEquals("hello hg", body.toString("UTF-8"));
+    assertEquals(1, worker.getRequests());
+
+    DataInputStream request = new DataInputStream(
+                                new ByteArrayInputStream(
+                                  workerRequest.toByteArray()));
+
+    assertEquals("QUERY_STRING\0cmd=capabilities\0EMPTY\0", readFrame(request));
+    assertEquals("body", readFrame(request));
+    assertEquals(0, request.readInt());
+    assertEquals(-1, request.read());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param input
+   *
+   * @return
+   *
+   * @throws IOException
+   */
+  private String readFrame(DataInputStream input) throws IOException
+  {
+    byte[] frame = new byte[input.readInt()];
+
+    input.readFully(frame);
+
+    return new String(frame, Charsets.UTF_8);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param output
+   * @param value
+   *
+   * @throws IOException
+   */
+  private void writeFrame(DataOutputStream output, String value)
+    throws IOException
+  {
+    byte[] frame = value.getBytes(Charsets.UTF_8);
+
+    output.writeInt(frame.length);
+    output.write(frame);
+  }
+}
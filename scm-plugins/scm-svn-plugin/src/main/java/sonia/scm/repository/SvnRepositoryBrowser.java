@@ -43,15 +43,12 @@ import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNNodeKind;
 import org.tmatesoft.svn.core.SVNProperties;
 import org.tmatesoft.svn.core.SVNProperty;
-import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.io.SVNRepository;
-import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 
 import sonia.scm.util.Util;
 
 //~--- JDK imports ------------------------------------------------------------
 
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -110,7 +107,8 @@ public class SvnRepositoryBrowser implements RepositoryBrowser
     try
     {
       svnRepository = getSvnRepository();
-      svnRepository.getFile(path, revisionNumber, new SVNProperties(), output);
+      handler.getRevisionCache().getFile(handler.getDirectory(repository),
+        svnRepository, path, revisionNumber, output);
     }
     catch (SVNException ex)
     {
@@ -118,7 +116,7 @@ public class SvnRepositoryBrowser implements RepositoryBrowser
     }
     finally
     {
-      SvnUtil.closeSession(svnRepository);
+      handler.getSessionPool().release(svnRepository);
     }
   }
 
@@ -155,8 +153,8 @@ public class SvnRepositoryBrowser implements RepositoryBrowser
       svnRepository = getSvnRepository();
 
       Collection<SVNDirEntry> entries =
-        svnRepository.getDir(Util.nonNull(path), revisionNumber, null,
-                             (Collection) null);
+        handler.getRevisionCache().getDir(handler.getDirectory(repository),
+          svnRepository, Util.nonNull(path), revisionNumber);
       List<FileObject> children = new ArrayList<FileObject>();
       String basePath = Util.EMPTY_STRING;
 
@@ -186,7 +184,7 @@ public class SvnRepositoryBrowser implements RepositoryBrowser
     }
     finally
     {
-      SvnUtil.closeSession(svnRepository);
+      handler.getSessionPool().release(svnRepository);
     }
 
     return result;
@@ -305,9 +303,7 @@ public class SvnRepositoryBrowser implements RepositoryBrowser
    */
   private SVNRepository getSvnRepository() throws SVNException
   {
-    File directory = handler.getDirectory(repository);
-
-    return SVNRepositoryFactory.create(SVNURL.fromFile(directory));
+    return handler.getSessionPool().borrow(handler.getDirectory(repository));
   }
 
   //~--- fields ---------------------------------------------------------------
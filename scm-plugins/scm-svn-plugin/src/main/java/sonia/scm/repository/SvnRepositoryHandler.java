@@ -130,6 +130,42 @@ public class SvnRepositoryHandler
     }
   }
 
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Closes the pooled sessions of all repositories.
+   *
+   *
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException
+  {
+    sessionPool.close();
+    super.close();
+  }
+
+  /**
+   * Closes the pooled sessions and removes the cached revisions of the
+   * repository, before the repository is deleted.
+   *
+   *
+   * @param repository
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Override
+  public void delete(Repository repository)
+    throws RepositoryException, IOException
+  {
+    File directory = getDirectory(repository);
+
+    sessionPool.invalidate(directory);
+    revisionCache.invalidate(directory);
+    super.delete(repository);
+  }
+
   //~--- get methods ----------------------------------------------------------
 
   /**
@@ -253,6 +289,28 @@ public class SvnRepositoryHandler
     return new SvnRepositoryBrowser(this, repository);
   }
 
+  /**
+   * Returns the cache for the data of committed revisions.
+   *
+   *
+   * @return revision cache
+   */
+  public SvnRevisionCache getRevisionCache()
+  {
+    return revisionCache;
+  }
+
+  /**
+   * Returns the pool of the svn sessions.
+   *
+   *
+   * @return session pool
+   */
+  public SvnSessionPool getSessionPool()
+  {
+    return sessionPool;
+  }
+
   /**
    * Method description
    *
@@ -372,4 +430,12 @@ public class SvnRepositoryHandler
   {
     return SvnConfig.class;
   }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** cache for the data of committed revisions */
+  private final SvnRevisionCache revisionCache = new SvnRevisionCache();
+
+  /** pool of the svn sessions */
+  private final SvnSessionPool sessionPool = new SvnSessionPool();
 }
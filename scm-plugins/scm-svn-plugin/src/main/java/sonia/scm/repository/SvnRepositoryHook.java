@@ -105,6 +105,10 @@ public class SvnRepositoryHook implements FSHook
 
     if (FSHooks.SVN_REPOS_HOOK_POST_COMMIT.equals(event.getType()))
     {
+
+      // pooled sessions could still see the state before the commit
+      handler.getSessionPool().invalidate(directory);
+
       String[] args = event.getArgs();
 
       if (Util.isNotEmpty(args))
@@ -149,6 +153,13 @@ public class SvnRepositoryHook implements FSHook
         logger.warn("no arguments found on pre commit hook");
       }
     }
+    else if (FSHooks.SVN_REPOS_HOOK_POST_REVPROP_CHANGE.equals(event.getType()))
+    {
+
+      // cached directory entries contain the author and the message
+      handler.getSessionPool().invalidate(directory);
+      handler.getRevisionCache().invalidate(directory);
+    }
   }
 
   /**
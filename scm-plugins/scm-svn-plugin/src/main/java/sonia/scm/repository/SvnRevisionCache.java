@@ -0,0 +1,592 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Cache for the data of committed revisions. The content of a path in a
+ * committed revision never changes, so the entries are keyed by repository,
+ * revision and path and are never outdated by a commit. The cache is bounded
+ * by the estimated memory of its entries ({@link #PROPERTY_MAX_SIZE}) and
+ * stores no single value which is larger than
+ * {@link #PROPERTY_MAX_ENTRY_SIZE}. The entries of a repository are removed,
+ * if a revision property was changed or the repository was deleted.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public class SvnRevisionCache
+{
+
+  /** system property for the maximum size of a single value in kilobytes */
+  public static final String PROPERTY_MAX_ENTRY_SIZE =
+    "sonia.scm.svn.revision-cache.max-entry-size";
+
+  /** system property for the maximum size of the cache in megabytes */
+  public static final String PROPERTY_MAX_SIZE =
+    "sonia.scm.svn.revision-cache.max-size";
+
+  /** estimated weight of a key or an entry without its strings */
+  private static final int OVERHEAD = 128;
+
+  /** variant for directory entries */
+  private static final String VARIANT_DIR = "dir";
+
+  /** variant for file contents */
+  private static final String VARIANT_FILE = "file";
+
+  /**
+   * the logger for SvnRevisionCache
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(SvnRevisionCache.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new cache, which is configured by system properties.
+   *
+   */
+  public SvnRevisionCache()
+  {
+    this(Integer.getInteger(PROPERTY_MAX_SIZE, 32) * 1024L * 1024L,
+      Integer.getInteger(PROPERTY_MAX_ENTRY_SIZE, 256) * 1024);
+  }
+
+  /**
+   * Constructs a new cache.
+   *
+   *
+   * @param maxSize maximum size of the cache in bytes
+   * @param maxEntrySize maximum size of a single value in bytes
+   */
+  SvnRevisionCache(long maxSize, int maxEntrySize)
+  {
+    this.maxEntrySize = maxEntrySize;
+
+    //J-
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxSize)
+      .weigher(new Weigher<Key, Value>()
+      {
+        @Override
+        public int weigh(Key key, Value value)
+        {
+          return key.weight + value.weight;
+        }
+      })
+      .build();
+    //J+
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Removes all entries of the repository.
+   *
+   *
+   * @param directory repository directory
+   */
+  public void invalidate(File directory)
+  {
+    File canonical = SvnUtil.getCanonicalDirectory(directory);
+    Iterator<Key> it = cache.asMap().keySet().iterator();
+
+    while (it.hasNext())
+    {
+      if (canonical.equals(it.next().directory))
+      {
+        it.remove();
+      }
+    }
+
+    logger.debug("invalidate cached revisions of {}", canonical);
+  }
+
+  /**
+   * Stores a value for a path of a committed revision.
+   *
+   *
+   * @param directory repository directory
+   * @param revision committed revision
+   * @param path path in the revision
+   * @param variant kind of the value, the variant must be unique for each
+   *   type of value
+   * @param value value to store
+   * @param weight estimated size of the value in bytes
+   */
+  public void put(File directory, long revision, String path, String variant,
+    Object value, int weight)
+  {
+    if (weight <= maxEntrySize)
+    {
+      cache.put(createKey(directory, revision, path, variant),
+        new Value(value, weight));
+    }
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param directory
+   * @param revision
+   * @param path
+   * @param variant
+   *
+   * @return
+   */
+  private Key createKey(File directory, long revision, String path,
+    String variant)
+  {
+    return new Key(SvnUtil.getCanonicalDirectory(directory), revision,
+      Strings.nullToEmpty(path), variant);
+  }
+
+  /**
+   * Resolves the latest revision, because only the data of a fixed revision
+   * can be cached.
+   *
+   *
+   * @param session
+   * @param revision
+   *
+   * @return
+   *
+   * @throws SVNException
+   */
+  private long resolve(SVNRepository session, long revision)
+    throws SVNException
+  {
+    return (revision < 0)
+      ? session.getLatestRevision()
+      : revision;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entries
+   *
+   * @return
+   */
+  private int weigh(Collection<SVNDirEntry> entries)
+  {
+    int weight = OVERHEAD;
+
+    for (SVNDirEntry entry : entries)
+    {
+      weight += OVERHEAD
+        + 2 * (Strings.nullToEmpty(entry.getName()).length()
+          + Strings.nullToEmpty(entry.getAuthor()).length()
+          + Strings.nullToEmpty(entry.getCommitMessage()).length());
+    }
+
+    return weight;
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns a value, which was stored with
+   * {@link #put(File, long, String, String, Object, int)}.
+   *
+   *
+   * @param directory repository directory
+   * @param revision committed revision
+   * @param path path in the revision
+   * @param variant kind of the value
+   *
+   * @return cached value or null
+   */
+  public Object get(File directory, long revision, String path,
+    String variant)
+  {
+    Value value = cache.getIfPresent(createKey(directory, revision, path,
+                    variant));
+
+    return (value != null)
+      ? value.value
+      : null;
+  }
+
+  /**
+   * Returns the entries of a directory in a revision. The entries are read
+   * with the given session, if they are not cached.
+   *
+   *
+   * @param directory repository directory
+   * @param session session of the repository
+   * @param path path of the directory
+   * @param revision revision or -1 for the latest revision
+   *
+   * @return unmodifiable entries of the directory
+   *
+   * @throws SVNException
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<SVNDirEntry> getDir(File directory, SVNRepository session,
+    String path, long revision)
+    throws SVNException
+  {
+    long resolved = resolve(session, revision);
+    Collection<SVNDirEntry> entries =
+      (Collection<SVNDirEntry>) get(directory, resolved, path, VARIANT_DIR);
+
+    if (entries == null)
+    {
+      entries = ImmutableList.copyOf(session.getDir(path, resolved, null,
+        (Collection) null));
+      put(directory, resolved, path, VARIANT_DIR, entries, weigh(entries));
+    }
+
+    return entries;
+  }
+
+  /**
+   * Writes the content of a file in a revision to the output stream. The
+   * content is read with the given session, if it is not cached.
+   *
+   *
+   * @param directory repository directory
+   * @param session session of the repository
+   * @param path path of the file
+   * @param revision revision or -1 for the latest revision
+   * @param output target of the content
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  public void getFile(File directory, SVNRepository session, String path,
+    long revision, OutputStream output)
+    throws IOException, SVNException
+  {
+    long resolved = resolve(session, revision);
+    byte[] content = (byte[]) get(directory, resolved, path, VARIANT_FILE);
+
+    if (content == null)
+    {
+      CapturingOutputStream capturing = new CapturingOutputStream(output,
+                                          maxEntrySize);
+
+      session.getFile(path, resolved, null, capturing);
+      content = capturing.getContent();
+
+      if (content != null)
+      {
+        put(directory, resolved, path, VARIANT_FILE, content,
+          content.length + OVERHEAD);
+      }
+    }
+    else
+    {
+      output.write(content);
+    }
+  }
+
+  /**
+   * Returns the maximum size of a single value in bytes.
+   *
+   *
+   * @return maximum size of a value
+   */
+  public int getMaxEntrySize()
+  {
+    return maxEntrySize;
+  }
+
+  /**
+   * Returns the number of cached values.
+   *
+   *
+   * @return number of values
+   */
+  long size()
+  {
+    return cache.size();
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Output stream which writes to the target stream and keeps a copy of the
+   * written bytes, as long as they do not exceed the limit.
+   */
+  private static final class CapturingOutputStream extends FilterOutputStream
+  {
+
+    /**
+     * Constructs a new stream.
+     *
+     *
+     * @param output target stream
+     * @param limit maximum number of captured bytes
+     */
+    CapturingOutputStream(OutputStream output, int limit)
+    {
+      super(output);
+      this.limit = limit;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param b
+     *
+     * @throws IOException
+     */
+    @Override
+    public void write(int b) throws IOException
+    {
+      out.write(b);
+      capture(new byte[] { (byte) b }, 0, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param b
+     * @param off
+     * @param len
+     *
+     * @throws IOException
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      out.write(b, off, len);
+      capture(b, off, len);
+    }
+
+    /**
+     * Method description
+     *
+     *
+     * @param b
+     * @param off
+     * @param len
+     */
+    private void capture(byte[] b, int off, int len)
+    {
+      if (buffer != null)
+      {
+        if ((buffer.size() + len) <= limit)
+        {
+          buffer.write(b, off, len);
+        }
+        else
+        {
+          buffer = null;
+        }
+      }
+    }
+
+    //~--- get methods --------------------------------------------------------
+
+    /**
+     * Returns the captured content or null, if the content was too large.
+     *
+     *
+     * @return captured content or null
+     */
+    byte[] getContent()
+    {
+      return (buffer != null)
+        ? buffer.toByteArray()
+        : null;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** maximum number of captured bytes */
+    private final int limit;
+
+    /** captured bytes */
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+  }
+
+
+  /**
+   * Key of a cached value.
+   */
+  private static final class Key
+  {
+
+    /**
+     * Constructs a new key.
+     *
+     *
+     * @param directory canonical repository directory
+     * @param revision committed revision
+     * @param path path in the revision
+     * @param variant kind of the value
+     */
+    Key(File directory, long revision, String path, String variant)
+    {
+      this.directory = directory;
+      this.revision = revision;
+      this.path = path;
+      this.variant = variant;
+      this.weight = OVERHEAD + 2 * (path.length() + variant.length());
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param obj
+     *
+     * @return
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj == null)
+      {
+        return false;
+      }
+
+      if (getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      final Key other = (Key) obj;
+
+      return (revision == other.revision)
+        && Objects.equal(directory, other.directory)
+        && Objects.equal(path, other.path)
+        && Objects.equal(variant, other.variant);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @return
+     */
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode(directory, revision, path, variant);
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** canonical repository directory */
+    private final File directory;
+
+    /** path in the revision */
+    private final String path;
+
+    /** committed revision */
+    private final long revision;
+
+    /** kind of the value */
+    private final String variant;
+
+    /** estimated size of the key in bytes */
+    private final int weight;
+  }
+
+
+  /**
+   * Cached value and its estimated size.
+   */
+  private static final class Value
+  {
+
+    /**
+     * Constructs a new value.
+     *
+     *
+     * @param value cached value
+     * @param weight estimated size in bytes
+     */
+    Value(Object value, int weight)
+    {
+      this.value = value;
+      this.weight = weight;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** cached value */
+    private final Object value;
+
+    /** estimated size in bytes */
+    private final int weight;
+  }
+
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** cached values */
+  private final Cache<Key, Value> cache;
+
+  /** maximum size of a single value in bytes */
+  private final int maxEntrySize;
+}
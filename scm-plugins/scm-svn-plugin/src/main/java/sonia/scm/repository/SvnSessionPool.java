@@ -0,0 +1,497 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.Closeable;
+import java.io.File;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of opened FSFS sessions. Opening a session reads the format, the uuid
+ * and the configuration of the repository, the pool keeps the sessions of a
+ * repository between the requests. Idle sessions are closed after
+ * {@link #PROPERTY_IDLE_TIMEOUT} seconds and the pool keeps at most
+ * {@link #PROPERTY_MAX_PER_REPOSITORY} idle sessions for each repository.
+ * The sessions of a repository are closed after each commit and after the
+ * repository was deleted.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public class SvnSessionPool implements Closeable
+{
+
+  /** system property for the idle timeout in seconds */
+  public static final String PROPERTY_IDLE_TIMEOUT =
+    "sonia.scm.svn.pool.idle-timeout";
+
+  /** system property for the maximum number of idle sessions per repository */
+  public static final String PROPERTY_MAX_PER_REPOSITORY =
+    "sonia.scm.svn.pool.max-per-repository";
+
+  /** name of the eviction thread */
+  private static final String THREAD_NAME = "SvnSessionPool";
+
+  /**
+   * the logger for SvnSessionPool
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(SvnSessionPool.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new pool, which is configured by system properties.
+   *
+   */
+  public SvnSessionPool()
+  {
+    this(Integer.getInteger(PROPERTY_MAX_PER_REPOSITORY, 4),
+      TimeUnit.SECONDS.toMillis(Integer.getInteger(PROPERTY_IDLE_TIMEOUT,
+        300)));
+  }
+
+  /**
+   * Constructs a new pool.
+   *
+   *
+   * @param maxPerRepository maximum number of idle sessions per repository
+   * @param idleTimeout idle timeout in milliseconds
+   */
+  SvnSessionPool(int maxPerRepository, long idleTimeout)
+  {
+    this.maxPerRepository = maxPerRepository;
+    this.idleTimeout = idleTimeout;
+
+    //J-
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME)
+        .setDaemon(true)
+        .build()
+    );
+    //J+
+
+    long period = Math.max(idleTimeout / 2, 1000L);
+
+    this.executor.scheduleWithFixedDelay(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        evictIdle();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Borrows a session for the repository in the given directory. The session
+   * is taken from the pool or is opened. Every borrowed session must be given
+   * back with {@link #release(SVNRepository)}.
+   *
+   *
+   * @param directory repository directory
+   *
+   * @return session for the repository
+   *
+   * @throws SVNException
+   */
+  public SVNRepository borrow(File directory) throws SVNException
+  {
+    File key = SvnUtil.getCanonicalDirectory(directory);
+    List<Entry> expired = Lists.newArrayList();
+    Entry entry = null;
+
+    synchronized (this)
+    {
+      Deque<Entry> deque = idle.get(key);
+
+      while ((entry == null) && (deque != null) &&!deque.isEmpty())
+      {
+        entry = deque.pollFirst();
+
+        if (isExpired(entry, System.currentTimeMillis()))
+        {
+          expired.add(entry);
+          entry = null;
+        }
+      }
+
+      removeIfEmpty(key, deque);
+    }
+
+    destroy(expired);
+
+    if (entry == null)
+    {
+      logger.trace("open svn session for {}", key);
+
+      SVNURL url = SVNURL.fromFile(key);
+
+      entry = new Entry(key, url, open(url));
+    }
+
+    synchronized (this)
+    {
+      leased.put(entry.session, entry);
+    }
+
+    return entry.session;
+  }
+
+  /**
+   * Closes all sessions of the pool.
+   *
+   */
+  @Override
+  public void close()
+  {
+    List<Entry> entries = Lists.newArrayList();
+
+    synchronized (this)
+    {
+      closed = true;
+
+      for (Deque<Entry> deque : idle.values())
+      {
+        entries.addAll(deque);
+      }
+
+      idle.clear();
+
+      for (Entry entry : leased.values())
+      {
+        entry.stale = true;
+      }
+    }
+
+    executor.shutdownNow();
+    destroy(entries);
+  }
+
+  /**
+   * Closes the idle sessions of the repository and marks the borrowed
+   * sessions as stale, they are closed as soon as they are given back.
+   *
+   *
+   * @param directory repository directory
+   */
+  public void invalidate(File directory)
+  {
+    File key = SvnUtil.getCanonicalDirectory(directory);
+    Deque<Entry> invalid;
+
+    synchronized (this)
+    {
+      invalid = idle.remove(key);
+
+      for (Entry entry : leased.values())
+      {
+        if (key.equals(entry.directory))
+        {
+          entry.stale = true;
+        }
+      }
+    }
+
+    logger.debug("invalidate svn sessions of {}", key);
+
+    if (invalid != null)
+    {
+      destroy(invalid);
+    }
+  }
+
+  /**
+   * Gives a borrowed session back to the pool. Sessions which were
+   * invalidated during the lease or which were moved to another location,
+   * are closed.
+   *
+   *
+   * @param session borrowed session, can be null
+   */
+  public void release(SVNRepository session)
+  {
+    if (session == null)
+    {
+      return;
+    }
+
+    boolean keep = false;
+
+    synchronized (this)
+    {
+      Entry entry = leased.remove(session);
+
+      if ((entry != null) &&!entry.stale &&!closed
+        && entry.url.equals(session.getLocation()))
+      {
+        Deque<Entry> deque = idle.get(entry.directory);
+
+        if (deque == null)
+        {
+          deque = new ArrayDeque<Entry>();
+          idle.put(entry.directory, deque);
+        }
+
+        if (deque.size() < maxPerRepository)
+        {
+          entry.lastUsed = System.currentTimeMillis();
+          deque.addFirst(entry);
+          keep = true;
+        }
+        else
+        {
+          removeIfEmpty(entry.directory, deque);
+        }
+      }
+    }
+
+    if (!keep)
+    {
+      logger.trace("close svn session, which is not kept by the pool");
+      SvnUtil.closeSession(session);
+    }
+  }
+
+  /**
+   * Opens a new session.
+   *
+   *
+   * @param url url of the repository
+   *
+   * @return new session
+   *
+   * @throws SVNException
+   */
+  @VisibleForTesting
+  SVNRepository open(SVNURL url) throws SVNException
+  {
+    return SVNRepositoryFactory.create(url);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entries
+   */
+  private void destroy(Iterable<Entry> entries)
+  {
+    for (Entry entry : entries)
+    {
+      SvnUtil.closeSession(entry.session);
+    }
+  }
+
+  /**
+   * Closes all sessions which were idle for longer than the idle timeout.
+   *
+   */
+  private void evictIdle()
+  {
+    List<Entry> expired = Lists.newArrayList();
+    long now = System.currentTimeMillis();
+
+    synchronized (this)
+    {
+      Iterator<Deque<Entry>> it = idle.values().iterator();
+
+      while (it.hasNext())
+      {
+        Deque<Entry> deque = it.next();
+        Iterator<Entry> entries = deque.iterator();
+
+        while (entries.hasNext())
+        {
+          Entry entry = entries.next();
+
+          if (isExpired(entry, now))
+          {
+            expired.add(entry);
+            entries.remove();
+          }
+        }
+
+        if (deque.isEmpty())
+        {
+          it.remove();
+        }
+      }
+    }
+
+    if (!expired.isEmpty())
+    {
+      logger.debug("close {} idle svn sessions", expired.size());
+      destroy(expired);
+    }
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param key
+   * @param deque
+   */
+  private void removeIfEmpty(File key, Deque<Entry> deque)
+  {
+    if ((deque != null) && deque.isEmpty())
+    {
+      idle.remove(key);
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the number of idle sessions.
+   *
+   *
+   * @return number of idle sessions
+   */
+  synchronized int getIdleCount()
+  {
+    int count = 0;
+
+    for (Deque<Entry> deque : idle.values())
+    {
+      count += deque.size();
+    }
+
+    return count;
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param entry
+   * @param now
+   *
+   * @return
+   */
+  private boolean isExpired(Entry entry, long now)
+  {
+    return (now - entry.lastUsed) > idleTimeout;
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Session and its pool state.
+   */
+  private static final class Entry
+  {
+
+    /**
+     * Constructs a new entry.
+     *
+     *
+     * @param directory canonical repository directory
+     * @param url root url of the repository
+     * @param session opened session
+     */
+    Entry(File directory, SVNURL url, SVNRepository session)
+    {
+      this.directory = directory;
+      this.url = url;
+      this.session = session;
+      this.lastUsed = System.currentTimeMillis();
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** canonical repository directory */
+    private final File directory;
+
+    /** session */
+    private final SVNRepository session;
+
+    /** root url of the repository */
+    private final SVNURL url;
+
+    /** last time the session was given back to the pool */
+    private long lastUsed;
+
+    /** true if the session must not be reused */
+    private boolean stale;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** eviction executor */
+  private final ScheduledExecutorService executor;
+
+  /** idle timeout in milliseconds */
+  private final long idleTimeout;
+
+  /** idle sessions by repository directory, the most recently used first */
+  private final Map<File, Deque<Entry>> idle = Maps.newHashMap();
+
+  /** borrowed sessions */
+  private final Map<SVNRepository, Entry> leased = Maps.newIdentityHashMap();
+
+  /** maximum number of idle sessions per repository */
+  private final int maxPerRepository;
+
+  /** true if the pool was closed */
+  private boolean closed = false;
+}
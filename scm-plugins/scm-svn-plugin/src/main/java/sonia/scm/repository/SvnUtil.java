@@ -58,6 +58,7 @@ import sonia.scm.util.Util;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 
@@ -353,6 +354,34 @@ public final class SvnUtil
 
   //~--- get methods ----------------------------------------------------------
 
+  /**
+   * Returns the canonical directory of a repository, because the hooks of
+   * svnkit could use another path for the same repository.
+   *
+   *
+   * @param directory repository directory
+   *
+   * @return canonical directory or the absolute directory, if the canonical
+   *   path could not be resolved
+   */
+  public static File getCanonicalDirectory(File directory)
+  {
+    File canonical;
+
+    try
+    {
+      canonical = directory.getCanonicalFile();
+    }
+    catch (IOException ex)
+    {
+      logger.warn("could not resolve canonical path of ".concat(
+        directory.getPath()), ex);
+      canonical = directory.getAbsoluteFile();
+    }
+
+    return canonical;
+  }
+
   /**
    * Method description
    *
@@ -64,9 +64,11 @@ public abstract class AbstractSvnHookChangesetProvider
    * Method description
    *
    *
+   * @param disableModifications true to skip the modifications
+   *
    * @return
    */
-  protected abstract Changeset fetchChangeset();
+  protected abstract Changeset fetchChangeset(boolean disableModifications);
 
   /**
    * Method description
@@ -80,9 +82,13 @@ public abstract class AbstractSvnHookChangesetProvider
   public synchronized HookChangesetResponse handleRequest(
     HookChangesetRequest request)
   {
-    if (response == null)
+    boolean disableModifications = request.isDisableModifications();
+
+    // fetch the changeset again, if it was fetched without modifications
+    if ((response == null)
+      || (modificationsDisabled && !disableModifications))
     {
-      Changeset c = fetchChangeset();
+      Changeset c = fetchChangeset(disableModifications);
       Iterable<Changeset> iterable;
 
       if (c == null)
@@ -95,6 +101,7 @@ public abstract class AbstractSvnHookChangesetProvider
       }
 
       response = new HookChangesetResponse(iterable);
+      modificationsDisabled = disableModifications;
     }
 
     return response;
@@ -102,6 +109,9 @@ public abstract class AbstractSvnHookChangesetProvider
 
   //~--- fields ---------------------------------------------------------------
 
+  /** the cached changeset was fetched without modifications */
+  private boolean modificationsDisabled;
+
   /** Field description */
   private HookChangesetResponse response;
 }
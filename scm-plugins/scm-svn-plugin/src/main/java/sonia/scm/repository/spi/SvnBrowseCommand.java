@@ -121,9 +121,15 @@ public class SvnBrowseCommand extends AbstractSvnCommand
     try
     {
       SVNRepository svnRepository = open();
+
+      // resolve head, so that the result names the browsed revision
+      if (revisionNumber < 0)
+      {
+        revisionNumber = svnRepository.getLatestRevision();
+      }
+
       Collection<SVNDirEntry> entries =
-        svnRepository.getDir(Util.nonNull(path), revisionNumber, null,
-          (Collection) null);
+        context.getDir(Util.nonNull(path), revisionNumber);
       List<FileObject> children = Lists.newArrayList();
       String basePath = createBasePath(path);
 
@@ -184,8 +190,7 @@ public class SvnBrowseCommand extends AbstractSvnCommand
       if (fo.isDirectory())
       {
         Collection<SVNDirEntry> subEntries =
-          svnRepository.getDir(Util.nonNull(fo.getPath()), revisionNumber,
-            null, (Collection) null);
+          context.getDir(Util.nonNull(fo.getPath()), revisionNumber);
 
         browseRecursive(svnRepository, revisionNumber, request, children,
           subEntries, createBasePath(fo.getPath()));
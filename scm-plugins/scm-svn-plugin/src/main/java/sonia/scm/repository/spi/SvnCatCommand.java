@@ -39,8 +39,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.tmatesoft.svn.core.SVNException;
-import org.tmatesoft.svn.core.SVNProperties;
-import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.wc.SVNClientManager;
 import org.tmatesoft.svn.core.wc.admin.SVNLookClient;
 
@@ -128,21 +126,19 @@ public class SvnCatCommand extends AbstractSvnCommand implements CatCommand
    * @param output
    * @param revision
    *
+   * @throws IOException
    * @throws RepositoryException
    */
   private void getCatFromRevision(CatCommandRequest request,
     OutputStream output, long revision)
-    throws RepositoryException
+    throws IOException, RepositoryException
   {
     logger.debug("try to read content from revision {} and path {}", revision,
       request.getPath());
 
     try
     {
-      SVNRepository svnRepository = open();
-
-      svnRepository.getFile(request.getPath(), revision, new SVNProperties(),
-        output);
+      context.getFile(request.getPath(), revision, output);
     }
     catch (SVNException ex)
     {
@@ -37,11 +37,14 @@ package sonia.scm.repository.spi;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.tmatesoft.svn.core.SVNDirEntry;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 
+import sonia.scm.repository.SvnRevisionCache;
+import sonia.scm.repository.SvnSessionPool;
 import sonia.scm.repository.SvnUtil;
 
 //~--- JDK imports ------------------------------------------------------------
@@ -49,6 +52,9 @@ import sonia.scm.repository.SvnUtil;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Collection;
 
 /**
  *
@@ -72,8 +78,25 @@ public class SvnContext implements Closeable
    * @param directory
    */
   public SvnContext(File directory)
+  {
+    this(directory, null, null);
+  }
+
+  /**
+   * Constructs a new context, which leases its session from the given pool
+   * and reads committed revisions through the given cache.
+   *
+   *
+   * @param directory repository directory
+   * @param pool session pool or null to open an unpooled session
+   * @param revisionCache revision cache or null to read without caching
+   */
+  public SvnContext(File directory, SvnSessionPool pool,
+    SvnRevisionCache revisionCache)
   {
     this.directory = directory;
+    this.pool = pool;
+    this.revisionCache = revisionCache;
   }
 
   //~--- methods --------------------------------------------------------------
@@ -92,7 +115,16 @@ public class SvnContext implements Closeable
       logger.trace("close svn repository {}", directory);
     }
 
-    SvnUtil.closeSession(repository);
+    if (pool != null)
+    {
+      pool.release(repository);
+    }
+    else
+    {
+      SvnUtil.closeSession(repository);
+    }
+
+    repository = null;
   }
 
   /**
@@ -125,7 +157,14 @@ public class SvnContext implements Closeable
         logger.trace("open svn repository {}", directory);
       }
 
-      repository = SVNRepositoryFactory.create(createUrl());
+      if (pool != null)
+      {
+        repository = pool.borrow(directory);
+      }
+      else
+      {
+        repository = SVNRepositoryFactory.create(createUrl());
+      }
     }
 
     return repository;
@@ -144,11 +183,72 @@ public class SvnContext implements Closeable
     return directory;
   }
 
+  /**
+   * Returns the entries of a directory in a revision, from the revision cache
+   * if the context has one.
+   *
+   *
+   * @param path path of the directory
+   * @param revision revision or -1 for the latest revision
+   *
+   * @return entries of the directory
+   *
+   * @throws SVNException
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<SVNDirEntry> getDir(String path, long revision)
+    throws SVNException
+  {
+    Collection<SVNDirEntry> entries;
+
+    if (revisionCache != null)
+    {
+      entries = revisionCache.getDir(directory, open(), path, revision);
+    }
+    else
+    {
+      entries = open().getDir(path, revision, null, (Collection) null);
+    }
+
+    return entries;
+  }
+
+  /**
+   * Writes the content of a file in a revision to the output stream, from
+   * the revision cache if the context has one.
+   *
+   *
+   * @param path path of the file
+   * @param revision revision or -1 for the latest revision
+   * @param output target of the content
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  public void getFile(String path, long revision, OutputStream output)
+    throws IOException, SVNException
+  {
+    if (revisionCache != null)
+    {
+      revisionCache.getFile(directory, open(), path, revision, output);
+    }
+    else
+    {
+      open().getFile(path, revision, null, output);
+    }
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
   private File directory;
 
+  /** session pool or null */
+  private final SvnSessionPool pool;
+
+  /** revision cache or null */
+  private final SvnRevisionCache revisionCache;
+
   /** Field description */
   private SVNRepository repository;
 }
@@ -169,14 +169,16 @@ public class SvnLogCommand extends AbstractSvnCommand implements LogCommand
     {
       SVNRepository repo = open();
 
+      boolean changedPaths = !request.isDisableModifications();
+
       if ((startRevision > 0) || (pathArray != null))
       {
         changesets = getChangesets(repo, startRevision, endRevision, start,
-          limit, pathArray);
+          limit, pathArray, changedPaths);
       }
       else
       {
-        changesets = getChangesets(repo, start, limit);
+        changesets = getChangesets(repo, start, limit, changedPaths);
       }
     }
     catch (SVNException ex)
@@ -228,13 +230,14 @@ public class SvnLogCommand extends AbstractSvnCommand implements LogCommand
    * @param repo
    * @param start
    * @param limit
+   * @param changedPaths
    *
    * @return
    *
    * @throws SVNException
    */
   private ChangesetPagingResult getChangesets(SVNRepository repo, int start,
-    int limit)
+    int limit, boolean changedPaths)
     throws SVNException
   {
     long latest = repo.getLatestRevision();
@@ -246,7 +249,7 @@ public class SvnLogCommand extends AbstractSvnCommand implements LogCommand
     if (startRev > 0)
     {
       logger.debug("fetch changeset from {} to {}", startRev, endRev);
-      repo.log(null, startRev, endRev, true, true,
+      repo.log(null, startRev, endRev, changedPaths, true,
         new ChangesetCollector(changesets));
     }
 
@@ -254,7 +257,13 @@ public class SvnLogCommand extends AbstractSvnCommand implements LogCommand
   }
 
   /**
-   * Method description
+   * Returns a page of the changesets between the start and the end revision,
+   * which are touching the given path. The revisions of the page are
+   * collected first, without changed paths and revision properties. The
+   * changesets are only created for the revisions of the page. The history
+   * is not scanned beyond the first revision after the page, so the total is
+   * an estimate if there are more changesets: it counts one more changeset
+   * than the ones up to the end of the page.
    *
    *
    * @param repo
@@ -263,66 +272,71 @@ public class SvnLogCommand extends AbstractSvnCommand implements LogCommand
    * @param start
    * @param limit
    * @param path
+   * @param changedPaths
    *
    * @return
    *
    * @throws SVNException
    */
   private ChangesetPagingResult getChangesets(SVNRepository repo,
-    long startRevision, long endRevision, int start, int limit, String[] path)
+    long startRevision, long endRevision, int start, int limit, String[] path,
+    boolean changedPaths)
     throws SVNException
   {
-    long startRev;
     long endRev = Math.max(endRevision, 0);
     long maxRev = repo.getLatestRevision();
+    long startRev = maxRev;
 
     if (startRevision >= 0l)
     {
-      startRev = startRevision;
+      startRev = Math.min(startRevision, maxRev);
     }
-    else
+
+    if (start < 0)
     {
-      startRev = maxRev;
+      start = 0;
     }
 
-    List<SVNLogEntry> changesetList = Lists.newArrayList();
-
-    logger.debug("fetch changeset from {} to {} for path {}", startRev, endRev,
-      path);
+    // read one revision more than required, to detect further pages
+    long logLimit = 0l;
 
-    Collection<SVNLogEntry> entries = repo.log(path, null, startRev, endRev,
-                                        true, true);
-
-    for (SVNLogEntry entry : entries)
+    if (limit > 0)
     {
-      if (entry.getRevision() <= maxRev)
-      {
-        changesetList.add(entry);
-      }
+      logLimit = start + limit + 1l;
     }
 
-    int total = changesetList.size();
-    int max = limit + start;
+    logger.debug("fetch revisions from {} to {} for path {}", startRev,
+      endRev, path);
+
+    RevisionCollector revisions = new RevisionCollector();
+
+    repo.log(path, startRev, endRev, false, true, logLimit, false,
+      new String[0], revisions);
+
+    int total = revisions.getRevisions().size();
     int end = total;
 
-    if ((max > 0) && (end > max))
+    if ((limit > 0) && (end > start + limit))
     {
-      end = max;
+      end = start + limit;
     }
 
-    if (start < 0)
+    List<Changeset> changesets = Lists.newArrayList();
+
+    if (start < end)
     {
-      start = 0;
-    }
+      List<Long> page = revisions.getRevisions().subList(start, end);
+      long pageStartRev = page.get(0);
+      long pageEndRev = page.get(page.size() - 1);
 
-    logger.trace(
-      "create sublist from {} to {} of total {} collected changesets", start,
-      end, total);
+      logger.trace("fetch page of {} changesets from {} to {}", page.size(),
+        pageStartRev, pageEndRev);
 
-    changesetList = changesetList.subList(start, end);
+      repo.log(path, pageStartRev, pageEndRev, changedPaths, true, page.size(),
+        false, null, new ChangesetCollector(changesets));
+    }
 
-    return new ChangesetPagingResult(total,
-      SvnUtil.createChangesets(changesetList));
+    return new ChangesetPagingResult(total, changesets);
   }
 
   //~--- inner classes --------------------------------------------------------
@@ -366,4 +380,44 @@ public class SvnLogCommand extends AbstractSvnCommand implements LogCommand
     /** Field description */
     private final Collection<Changeset> changesets;
   }
+
+
+  /**
+   * Collects only the revision numbers of the log entries.
+   */
+  private static class RevisionCollector implements ISVNLogEntryHandler
+  {
+
+    /**
+     * Method description
+     *
+     *
+     * @param logEntry
+     *
+     * @throws SVNException
+     */
+    @Override
+    public void handleLogEntry(SVNLogEntry logEntry) throws SVNException
+    {
+      revisions.add(logEntry.getRevision());
+    }
+
+    //~--- get methods --------------------------------------------------------
+
+    /**
+     * Returns the collected revisions in log order.
+     *
+     *
+     * @return collected revisions
+     */
+    public List<Long> getRevisions()
+    {
+      return revisions;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** collected revisions */
+    private final List<Long> revisions = Lists.newArrayList();
+  }
 }
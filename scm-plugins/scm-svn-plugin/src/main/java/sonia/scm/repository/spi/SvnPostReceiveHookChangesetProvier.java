@@ -102,10 +102,12 @@ public class SvnPostReceiveHookChangesetProvier
    * Method description
    *
    *
+   * @param disableModifications
+   *
    * @return
    */
   @Override
-  protected Changeset fetchChangeset()
+  protected Changeset fetchChangeset(boolean disableModifications)
   {
     Changeset changeset = null;
     SVNRepository repository = null;
@@ -116,7 +118,8 @@ public class SvnPostReceiveHookChangesetProvier
         SVNRepositoryFactory.create(SVNURL.fromFile(repositoryDirectory));
 
       Collection<SVNLogEntry> enties = repository.log(new String[] { "" },
-                                         null, revision, revision, true, true);
+                                         null, revision, revision,
+                                         !disableModifications, true);
 
       if (Util.isNotEmpty(enties))
       {
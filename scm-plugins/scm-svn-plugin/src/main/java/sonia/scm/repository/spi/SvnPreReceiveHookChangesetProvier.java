@@ -101,10 +101,12 @@ public class SvnPreReceiveHookChangesetProvier
    * Method description
    *
    *
+   * @param disableModifications
+   *
    * @return
    */
   @Override
-  protected Changeset fetchChangeset()
+  protected Changeset fetchChangeset(boolean disableModifications)
   {
     Changeset changeset = null;
     SVNClientManager cm = null;
@@ -124,8 +126,11 @@ public class SvnPreReceiveHookChangesetProvier
         changeset = SvnUtil.createChangeset(entry);
         changeset.setId(SvnUtil.createTransactionEntryId(transaction));
 
-        clientManager.doGetChanged(repositoryDirectory, transaction,
-          new SvnModificationHandler(changeset), true);
+        if (!disableModifications)
+        {
+          clientManager.doGetChanged(repositoryDirectory, transaction,
+            new SvnModificationHandler(changeset), true);
+        }
 
       }
       else if (logger.isWarnEnabled())
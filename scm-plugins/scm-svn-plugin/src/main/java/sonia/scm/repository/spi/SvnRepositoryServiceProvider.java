@@ -76,7 +76,8 @@ public class SvnRepositoryServiceProvider extends RepositoryServiceProvider
     Repository repository)
   {
     this.repository = repository;
-    this.context = new SvnContext(handler.getDirectory(repository));
+    this.context = new SvnContext(handler.getDirectory(repository),
+      handler.getSessionPool(), handler.getRevisionCache());
   }
 
   //~--- methods --------------------------------------------------------------
@@ -35,6 +35,7 @@ package sonia.scm.web;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.Strings;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -48,13 +49,22 @@ import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryProvider;
 import sonia.scm.repository.RepositoryRequestListenerUtil;
 import sonia.scm.repository.SvnRepositoryHandler;
+import sonia.scm.repository.SvnRevisionCache;
 import sonia.scm.util.AssertUtil;
 import sonia.scm.util.HttpUtil;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.io.File;
 import java.io.IOException;
 
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
@@ -71,6 +81,29 @@ public class SvnDAVServlet extends DAVServlet
   /** Field description */
   private static final String HEADER_CONTEXTPATH = "X-Forwarded-Ctx";
 
+  /** request headers, which disable the revision cache */
+  private static final String[] HEADERS_UNCACHEABLE =
+  {
+    "Range", "If-Match", "If-Modified-Since", "If-None-Match", "If-Range",
+    "If-Unmodified-Since"
+  };
+
+  /** accept encoding header, the encoding of the content depends on it */
+  private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+  /** prefix of the subversion request headers */
+  private static final String HEADER_SVN_PREFIX = "x-svn-";
+
+  /** method of cacheable requests */
+  private static final String METHOD_GET = "GET";
+
+  /**
+   * version, revision root and baseline collection resources of a fixed
+   * revision, their content never changes
+   */
+  private static final Pattern PATTERN_REVISION_RESOURCE =
+    Pattern.compile("^/!svn/(ver|rvr|bc)/(\\d{1,18})(/.*)?$");
+
   /** Field description */
   private static final long serialVersionUID = -1462257085465785945L;
 
@@ -124,8 +157,9 @@ public class SvnDAVServlet extends DAVServlet
       if (repositoryRequestListenerUtil.callListeners(request, response,
         repository))
       {
-        super.service(new SvnHttpServletRequestWrapper(request,
-          repositoryProvider), response);
+        service(repository,
+          new SvnHttpServletRequestWrapper(request, repositoryProvider),
+          response);
       }
       else if (logger.isDebugEnabled())
       {
@@ -139,8 +173,134 @@ public class SvnDAVServlet extends DAVServlet
     }
   }
 
+  /**
+   * Serves requests to resources of a fixed revision from the revision cache
+   * and records the responses of such requests for the next client, because
+   * build servers often checkout the same revision again and again.
+   *
+   *
+   * @param repository requested repository
+   * @param request wrapped http request
+   * @param response http response
+   *
+   * @throws IOException
+   * @throws ServletException
+   */
+  private void service(Repository repository, HttpServletRequest request,
+    HttpServletResponse response)
+    throws ServletException, IOException
+  {
+    Matcher matcher = null;
+
+    if (isCacheable(request))
+    {
+      matcher = PATTERN_REVISION_RESOURCE.matcher(request.getPathInfo());
+    }
+
+    if ((matcher != null) && matcher.matches())
+    {
+      File directory = handler.getDirectory(repository);
+      SvnRevisionCache cache = handler.getRevisionCache();
+      long revision = Long.parseLong(matcher.group(2));
+      String path = Strings.nullToEmpty(matcher.group(3));
+      String variant = createVariant(request, matcher.group(1));
+      SvnRevisionResponse cached = (SvnRevisionResponse) cache.get(directory,
+                                     revision, path, variant);
+
+      if (cached != null)
+      {
+        logger.trace("replay cached response for {} at revision {}", path,
+          revision);
+        cached.replay(response);
+      }
+      else
+      {
+        SvnRevisionResponse.Recorder recorder =
+          new SvnRevisionResponse.Recorder(response, cache.getMaxEntrySize());
+
+        super.service(request, recorder);
+
+        SvnRevisionResponse recorded = recorder.getRecordedResponse();
+
+        if (recorded != null)
+        {
+          cache.put(directory, revision, path, variant, recorded,
+            recorded.getWeight());
+        }
+      }
+    }
+    else
+    {
+      super.service(request, response);
+    }
+  }
+
+  /**
+   * Creates the variant of a cached response from the resource type and the
+   * request headers, which could change the response of svnkit.
+   *
+   *
+   * @param request http request
+   * @param type type of the resource
+   *
+   * @return variant of the response
+   */
+  private String createVariant(HttpServletRequest request, String type)
+  {
+    Map<String, String> headers =
+      new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    Enumeration<?> names = request.getHeaderNames();
+
+    while (names.hasMoreElements())
+    {
+      String name = (String) names.nextElement();
+
+      if (name.toLowerCase(Locale.ENGLISH).startsWith(HEADER_SVN_PREFIX))
+      {
+        headers.put(name, request.getHeader(name));
+      }
+    }
+
+    headers.put(HEADER_ACCEPT_ENCODING,
+      Strings.nullToEmpty(request.getHeader(HEADER_ACCEPT_ENCODING)));
+
+    StringBuilder variant = new StringBuilder("dav:").append(type);
+
+    for (Map.Entry<String, String> e : headers.entrySet())
+    {
+      variant.append('\n').append(e.getKey().toLowerCase(Locale.ENGLISH));
+      variant.append(':').append(e.getValue());
+    }
+
+    return variant.toString();
+  }
+
   //~--- get methods ----------------------------------------------------------
 
+  /**
+   * Returns true, if the response to the request could be served from the
+   * revision cache. Conditional and range requests are passed to svnkit as
+   * well as requests to repositories with path based authorization, because
+   * their responses depend on the client or on the user.
+   *
+   *
+   * @param request http request
+   *
+   * @return true if the request is cacheable
+   */
+  private boolean isCacheable(HttpServletRequest request)
+  {
+    boolean cacheable = METHOD_GET.equals(request.getMethod())
+      && (super.getDAVConfig().getSVNAccess() == null);
+
+    for (int i = 0; cacheable && (i < HEADERS_UNCACHEABLE.length); i++)
+    {
+      cacheable = request.getHeader(HEADERS_UNCACHEABLE[i]) == null;
+    }
+
+    return cacheable;
+  }
+
   /**
    * Method description
    *
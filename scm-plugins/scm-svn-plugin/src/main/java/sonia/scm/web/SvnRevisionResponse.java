@@ -0,0 +1,611 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.web;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Recorded response of a dav request to an immutable revision resource. The
+ * response is stored in the revision cache and is replayed for the next
+ * request to the same resource.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+final class SvnRevisionResponse
+{
+
+  /** date header of the response */
+  private static final String HEADER_DATE = "Date";
+
+  /** estimated weight of a response or a header without its strings */
+  private static final int OVERHEAD = 128;
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new recorded response.
+   *
+   *
+   * @param contentType content type
+   * @param headers headers in the order in which they were written, the
+   *   values are strings, longs for date headers or ints for int headers
+   * @param body response body
+   */
+  private SvnRevisionResponse(String contentType,
+    List<Map.Entry<String, Object>> headers, byte[] body)
+  {
+    this.contentType = contentType;
+    this.headers = ImmutableList.copyOf(headers);
+    this.body = body;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Writes the recorded response.
+   *
+   *
+   * @param response http response
+   *
+   * @throws IOException
+   */
+  void replay(HttpServletResponse response) throws IOException
+  {
+    response.setStatus(HttpServletResponse.SC_OK);
+
+    if (contentType != null)
+    {
+      response.setContentType(contentType);
+    }
+
+    for (Map.Entry<String, Object> header : headers)
+    {
+      Object value = header.getValue();
+
+      if (value instanceof Long)
+      {
+        response.addDateHeader(header.getKey(), (Long) value);
+      }
+      else if (value instanceof Integer)
+      {
+        response.addIntHeader(header.getKey(), (Integer) value);
+      }
+      else
+      {
+        response.addHeader(header.getKey(), (String) value);
+      }
+    }
+
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the estimated size of the response in bytes.
+   *
+   *
+   * @return estimated size
+   */
+  int getWeight()
+  {
+    int weight = OVERHEAD + body.length;
+
+    for (Map.Entry<String, Object> header : headers)
+    {
+      weight += OVERHEAD
+        + 2 * (header.getKey().length()
+          + String.valueOf(header.getValue()).length());
+    }
+
+    return weight;
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Response wrapper, which writes through to the wrapped response and
+   * records the status, the headers and the body. Responses with another
+   * status than 200, html responses and bodies larger than the limit are not
+   * recorded.
+   */
+  static final class Recorder extends HttpServletResponseWrapper
+  {
+
+    /**
+     * Constructs a new recorder.
+     *
+     *
+     * @param response wrapped response
+     * @param limit maximum size of the recorded body
+     */
+    Recorder(HttpServletResponse response, int limit)
+    {
+      super(response);
+      this.limit = limit;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param name
+     * @param date
+     */
+    @Override
+    public void addDateHeader(String name, long date)
+    {
+      record(name, date);
+      super.addDateHeader(name, date);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param name
+     * @param value
+     */
+    @Override
+    public void addHeader(String name, String value)
+    {
+      record(name, value);
+      super.addHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param name
+     * @param value
+     */
+    @Override
+    public void addIntHeader(String name, int value)
+    {
+      record(name, value);
+      super.addIntHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     */
+    @Override
+    public void reset()
+    {
+      recordable = false;
+      super.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     */
+    @Override
+    public void resetBuffer()
+    {
+      recordable = false;
+      super.resetBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param sc
+     *
+     * @throws IOException
+     */
+    @Override
+    public void sendError(int sc) throws IOException
+    {
+      recordable = false;
+      super.sendError(sc);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param sc
+     * @param msg
+     *
+     * @throws IOException
+     */
+    @Override
+    public void sendError(int sc, String msg) throws IOException
+    {
+      recordable = false;
+      super.sendError(sc, msg);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param location
+     *
+     * @throws IOException
+     */
+    @Override
+    public void sendRedirect(String location) throws IOException
+    {
+      recordable = false;
+      super.sendRedirect(location);
+    }
+
+    //~--- get methods --------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @return
+     *
+     * @throws IOException
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException
+    {
+      if (stream == null)
+      {
+        stream = new RecordingStream(super.getOutputStream());
+      }
+
+      return stream;
+    }
+
+    /**
+     * Returns the recorded response or null, if the response could not be
+     * recorded.
+     *
+     *
+     * @return recorded response or null
+     */
+    SvnRevisionResponse getRecordedResponse()
+    {
+      SvnRevisionResponse response = null;
+
+      if (recordable && (status == HttpServletResponse.SC_OK)
+        && (body != null) &&!isHtml())
+      {
+        response = new SvnRevisionResponse(getContentType(), headers,
+          body.toByteArray());
+      }
+
+      return response;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @return
+     *
+     * @throws IOException
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException
+    {
+      recordable = false;
+
+      return super.getWriter();
+    }
+
+    /**
+     * Method description
+     *
+     *
+     * @return
+     */
+    private boolean isHtml()
+    {
+      String contentType = getContentType();
+
+      return (contentType != null) && contentType.startsWith("text/html");
+    }
+
+    //~--- set methods --------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param name
+     * @param date
+     */
+    @Override
+    public void setDateHeader(String name, long date)
+    {
+      removeHeader(name);
+      record(name, date);
+      super.setDateHeader(name, date);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param name
+     * @param value
+     */
+    @Override
+    public void setHeader(String name, String value)
+    {
+      removeHeader(name);
+      record(name, value);
+      super.setHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param name
+     * @param value
+     */
+    @Override
+    public void setIntHeader(String name, int value)
+    {
+      removeHeader(name);
+      record(name, value);
+      super.setIntHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param sc
+     */
+    @Override
+    public void setStatus(int sc)
+    {
+      status = sc;
+      super.setStatus(sc);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     *
+     * @param sc
+     * @param sm
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm)
+    {
+      status = sc;
+      super.setStatus(sc, sm);
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * Records a header, the date header of the response is not recorded
+     * because it must not be replayed.
+     *
+     *
+     * @param name name of the header
+     * @param value string, long for date headers or int for int headers
+     */
+    private void record(String name, Object value)
+    {
+      if (!HEADER_DATE.equalsIgnoreCase(name))
+      {
+        headers.add(Maps.immutableEntry(name, value));
+      }
+    }
+
+    /**
+     * Method description
+     *
+     *
+     * @param b
+     * @param off
+     * @param len
+     */
+    private void record(byte[] b, int off, int len)
+    {
+      if (body != null)
+      {
+        if ((body.size() + len) <= limit)
+        {
+          body.write(b, off, len);
+        }
+        else
+        {
+          body = null;
+        }
+      }
+    }
+
+    /**
+     * Method description
+     *
+     *
+     * @param name
+     */
+    private void removeHeader(String name)
+    {
+      for (int i = headers.size() - 1; i >= 0; i--)
+      {
+        if (headers.get(i).getKey().equalsIgnoreCase(name))
+        {
+          headers.remove(i);
+        }
+      }
+    }
+
+    //~--- inner classes ------------------------------------------------------
+
+    /**
+     * Output stream which writes through to the response stream and records
+     * the written bytes.
+     */
+    private final class RecordingStream extends ServletOutputStream
+    {
+
+      /**
+       * Constructs a new stream.
+       *
+       *
+       * @param stream output stream of the wrapped response
+       */
+      RecordingStream(ServletOutputStream stream)
+      {
+        this.stream = stream;
+      }
+
+      //~--- methods ----------------------------------------------------------
+
+      /**
+       * {@inheritDoc}
+       *
+       *
+       * @throws IOException
+       */
+      @Override
+      public void close() throws IOException
+      {
+        stream.close();
+      }
+
+      /**
+       * {@inheritDoc}
+       *
+       *
+       * @throws IOException
+       */
+      @Override
+      public void flush() throws IOException
+      {
+        stream.flush();
+      }
+
+      /**
+       * {@inheritDoc}
+       *
+       *
+       * @param b
+       *
+       * @throws IOException
+       */
+      @Override
+      public void write(int b) throws IOException
+      {
+        stream.write(b);
+        record(new byte[] { (byte) b }, 0, 1);
+      }
+
+      /**
+       * {@inheritDoc}
+       *
+       *
+       * @param b
+       * @param off
+       * @param len
+       *
+       * @throws IOException
+       */
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+        stream.write(b, off, len);
+        record(b, off, len);
+      }
+
+      //~--- fields -----------------------------------------------------------
+
+      /** output stream of the wrapped response */
+      private final ServletOutputStream stream;
+    }
+
+
+    //~--- fields -------------------------------------------------------------
+
+    /** recorded headers */
+    private final List<Map.Entry<String, Object>> headers =
+      Lists.newArrayList();
+
+    /** maximum size of the recorded body */
+    private final int limit;
+
+    /** recorded body or null, if the body exceeds the limit */
+    private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    /** false if the response could not be replayed */
+    private boolean recordable = true;
+
+    /** recorded status */
+    private int status = HttpServletResponse.SC_OK;
+
+    /** recording output stream */
+    private RecordingStream stream;
+  }
+
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** response body */
+  private final byte[] body;
+
+  /** content type */
+  private final String contentType;
+
+  /** headers in the order in which they were written */
+  private final List<Map.Entry<String, Object>> headers;
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+import sonia.scm.repository.spi.AbstractSvnCommandTestBase;
+
+import static org.junit.Assert.*;
+
+import static org.mockito.Mockito.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Collection;
+
+/**
+ * Unit tests for {@link SvnRevisionCache}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class SvnRevisionCacheTest extends AbstractSvnCommandTestBase
+{
+
+  /**
+   * Opens a spied session of the test repository.
+   *
+   * @throws SVNException
+   */
+  @Before
+  public void openSession() throws SVNException
+  {
+    session = spy(
+      SVNRepositoryFactory.create(SVNURL.fromFile(repositoryDirectory)));
+  }
+
+  /**
+   * Closes the session.
+   */
+  @After
+  public void closeSession()
+  {
+    SvnUtil.closeSession(session);
+  }
+
+  /**
+   * Tests that directory entries are read only once.
+   *
+   * @throws SVNException
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGetDir() throws SVNException
+  {
+    SvnRevisionCache cache = new SvnRevisionCache(1024 * 1024, 1024);
+    Collection<SVNDirEntry> first = cache.getDir(repositoryDirectory, session,
+                                      "c", 5);
+    Collection<SVNDirEntry> second = cache.getDir(repositoryDirectory,
+                                       session, "c", 5);
+
+    assertEquals(2, first.size());
+    assertSame(first, second);
+    verify(session, times(1)).getDir(eq("c"), eq(5L),
+      any(SVNProperties.class), any(Collection.class));
+  }
+
+  /**
+   * Tests that the latest revision is resolved before the cache is used.
+   *
+   * @throws SVNException
+   */
+  @Test
+  public void testGetDirWithLatestRevision() throws SVNException
+  {
+    SvnRevisionCache cache = new SvnRevisionCache(1024 * 1024, 1024);
+    Collection<SVNDirEntry> latest = cache.getDir(repositoryDirectory, session,
+                                       "", -1);
+
+    assertSame(latest, cache.getDir(repositoryDirectory, session, "",
+      session.getLatestRevision()));
+  }
+
+  /**
+   * Tests that small files are read only once.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testGetFile() throws IOException, SVNException
+  {
+    SvnRevisionCache cache = new SvnRevisionCache(1024 * 1024, 1024);
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+    cache.getFile(repositoryDirectory, session, "a.txt", 5, first);
+    cache.getFile(repositoryDirectory, session, "a.txt", 5, second);
+
+    assertTrue(first.size() > 0);
+    assertArrayEquals(first.toByteArray(), second.toByteArray());
+    verify(session, times(1)).getFile(eq("a.txt"), eq(5L),
+      any(SVNProperties.class), any(OutputStream.class));
+  }
+
+  /**
+   * Tests that files, which are larger than the maximum entry size, are not
+   * cached, but are written completely.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testGetFileLargerThanMaxEntrySize()
+    throws IOException, SVNException
+  {
+    SvnRevisionCache cache = new SvnRevisionCache(1024 * 1024, 4);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    cache.getFile(repositoryDirectory, session, "a.txt", 5, output);
+
+    assertTrue(output.size() > 4);
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Tests that invalidate removes only the entries of the repository.
+   */
+  @Test
+  public void testInvalidate()
+  {
+    SvnRevisionCache cache = new SvnRevisionCache(1024 * 1024, 1024);
+    File other = new File(repositoryDirectory, "other");
+
+    cache.put(repositoryDirectory, 1, "a.txt", "test", "a", 1);
+    cache.put(other, 1, "a.txt", "test", "b", 1);
+    cache.invalidate(repositoryDirectory);
+    assertNull(cache.get(repositoryDirectory, 1, "a.txt", "test"));
+    assertEquals("b", cache.get(other, 1, "a.txt", "test"));
+  }
+
+  /**
+   * Tests that values are stored by variant and that values larger than the
+   * maximum entry size are not stored.
+   */
+  @Test
+  public void testPut()
+  {
+    SvnRevisionCache cache = new SvnRevisionCache(1024 * 1024, 1024);
+
+    cache.put(repositoryDirectory, 1, "a.txt", "one", "a", 1);
+    cache.put(repositoryDirectory, 1, "a.txt", "two", "b", 2048);
+    assertEquals("a", cache.get(repositoryDirectory, 1, "a.txt", "one"));
+    assertNull(cache.get(repositoryDirectory, 1, "a.txt", "two"));
+    assertNull(cache.get(repositoryDirectory, 2, "a.txt", "one"));
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** spied session of the test repository */
+  private SVNRepository session;
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import static org.junit.Assert.*;
+
+import static org.mockito.Mockito.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link SvnSessionPool}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class SvnSessionPoolTest
+{
+
+  /**
+   * Closes the pool.
+   */
+  @After
+  public void tearDown()
+  {
+    if (pool != null)
+    {
+      pool.close();
+    }
+  }
+
+  /**
+   * Tests that a released session is reused by the next lease.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testBorrowReusesSession() throws IOException, SVNException
+  {
+    pool = createPool(2, 60000L);
+
+    File directory = tempFolder.newFolder();
+    SVNRepository first = pool.borrow(directory);
+
+    pool.release(first);
+
+    SVNRepository second = pool.borrow(directory);
+
+    assertSame(first, second);
+    pool.release(second);
+    verify(first, never()).closeSession();
+    assertEquals(1, pool.getIdleCount());
+  }
+
+  /**
+   * Tests that sessions are not shared between repositories and that other
+   * paths to the same directory share the sessions.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testBorrowWithDifferentDirectories()
+    throws IOException, SVNException
+  {
+    pool = createPool(2, 60000L);
+
+    File directory = tempFolder.newFolder("one");
+    SVNRepository one = pool.borrow(directory);
+
+    pool.release(one);
+    assertNotSame(one, pool.borrow(tempFolder.newFolder("two")));
+    assertSame(one, pool.borrow(new File(directory, "../one")));
+  }
+
+  /**
+   * Tests the limit of idle sessions per repository.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testMaxPerRepository() throws IOException, SVNException
+  {
+    pool = createPool(1, 60000L);
+
+    File directory = tempFolder.newFolder();
+    SVNRepository first = pool.borrow(directory);
+    SVNRepository second = pool.borrow(directory);
+
+    pool.release(first);
+    pool.release(second);
+    verify(first, never()).closeSession();
+    verify(second).closeSession();
+    assertEquals(1, pool.getIdleCount());
+  }
+
+  /**
+   * Tests that idle and borrowed sessions of a repository are closed after
+   * an invalidation.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testInvalidate() throws IOException, SVNException
+  {
+    pool = createPool(2, 60000L);
+
+    File directory = tempFolder.newFolder("one");
+    SVNRepository idle = pool.borrow(directory);
+    SVNRepository borrowed = pool.borrow(directory);
+    SVNRepository other = pool.borrow(tempFolder.newFolder("two"));
+
+    pool.release(idle);
+    pool.release(other);
+    pool.invalidate(directory);
+    verify(idle).closeSession();
+    verify(borrowed, never()).closeSession();
+
+    pool.release(borrowed);
+    verify(borrowed).closeSession();
+    verify(other, never()).closeSession();
+    assertEquals(1, pool.getIdleCount());
+  }
+
+  /**
+   * Tests that expired sessions are not reused.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testIdleTimeout() throws IOException, SVNException
+  {
+    pool = createPool(2, -1L);
+
+    File directory = tempFolder.newFolder();
+    SVNRepository first = pool.borrow(directory);
+
+    pool.release(first);
+
+    SVNRepository second = pool.borrow(directory);
+
+    assertNotSame(first, second);
+    verify(first).closeSession();
+  }
+
+  /**
+   * Tests that sessions, which were moved to another location, are not kept.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testReleaseMovedSession() throws IOException, SVNException
+  {
+    pool = createPool(2, 60000L);
+
+    File directory = tempFolder.newFolder();
+    SVNRepository session = pool.borrow(directory);
+
+    when(session.getLocation()).thenReturn(
+      SVNURL.fromFile(new File(directory, "trunk")));
+    pool.release(session);
+    verify(session).closeSession();
+    assertEquals(0, pool.getIdleCount());
+  }
+
+  /**
+   * Tests that the pool closes all sessions on close.
+   *
+   * @throws IOException
+   * @throws SVNException
+   */
+  @Test
+  public void testClose() throws IOException, SVNException
+  {
+    pool = createPool(2, 60000L);
+
+    File directory = tempFolder.newFolder();
+    SVNRepository idle = pool.borrow(directory);
+    SVNRepository borrowed = pool.borrow(directory);
+
+    pool.release(idle);
+    pool.close();
+    verify(idle).closeSession();
+    pool.release(borrowed);
+    verify(borrowed).closeSession();
+    assertEquals(0, pool.getIdleCount());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param maxPerRepository
+   * @param idleTimeout
+   *
+   * @return
+   */
+  private SvnSessionPool createPool(int maxPerRepository, long idleTimeout)
+  {
+    return new SvnSessionPool(maxPerRepository, idleTimeout)
+    {
+      @Override
+      SVNRepository open(SVNURL url)
+      {
+        SVNRepository session = mock(SVNRepository.class);
+
+        when(session.getLocation()).thenReturn(url);
+
+        return session;
+      }
+    };
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** Field description */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /** pool under test */
+  private SvnSessionPool pool;
+}
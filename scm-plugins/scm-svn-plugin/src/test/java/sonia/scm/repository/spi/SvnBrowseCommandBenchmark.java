@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository.spi;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import sonia.scm.repository.BrowserResult;
+import sonia.scm.repository.RepositoryException;
+import sonia.scm.repository.SvnRevisionCache;
+import sonia.scm.repository.SvnSessionPool;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares small browse requests with a new session for each request against
+ * browse requests with sessions from the {@link SvnSessionPool} and against
+ * browse requests, which are served by the {@link SvnRevisionCache}. The
+ * benchmark is not executed during the build, it can be started with the main
+ * method from the test classpath.
+ *
+ * @author Sebastian Sdorra
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SvnBrowseCommandBenchmark extends AbstractSvnCommandTestBase
+{
+
+  /**
+   * Starts the benchmark.
+   *
+   *
+   * @param args unused
+   *
+   * @throws RunnerException
+   */
+  public static void main(String[] args) throws RunnerException
+  {
+    Options options = new OptionsBuilder().include(
+                        SvnBrowseCommandBenchmark.class.getSimpleName()).build();
+
+    new Runner(options).run();
+  }
+
+  /**
+   * Extracts the test repository and creates the session pool and the
+   * revision cache.
+   *
+   *
+   * @throws IOException
+   */
+  @Setup
+  public void setUp() throws IOException
+  {
+    tempFolder.create();
+    before();
+    pool = new SvnSessionPool();
+    revisionCache = new SvnRevisionCache();
+  }
+
+  /**
+   * Closes the session pool and removes the test repository.
+   *
+   */
+  @TearDown
+  public void tearDown()
+  {
+    pool.close();
+    tempFolder.delete();
+  }
+
+  /**
+   * Browses the path with a session from the pool.
+   *
+   *
+   * @return browser result
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Benchmark
+  public BrowserResult pooled() throws IOException, RepositoryException
+  {
+    return browse(new SvnContext(repositoryDirectory, pool, null));
+  }
+
+  /**
+   * Browses the path with a session from the pool and the revision cache.
+   *
+   *
+   * @return browser result
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Benchmark
+  public BrowserResult pooledAndCached()
+    throws IOException, RepositoryException
+  {
+    return browse(new SvnContext(repositoryDirectory, pool, revisionCache));
+  }
+
+  /**
+   * Browses the path with a new session.
+   *
+   *
+   * @return browser result
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Benchmark
+  public BrowserResult unpooled() throws IOException, RepositoryException
+  {
+    return browse(new SvnContext(repositoryDirectory));
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param context
+   *
+   * @return
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  private BrowserResult browse(SvnContext context)
+    throws IOException, RepositoryException
+  {
+    BrowseCommandRequest request = new BrowseCommandRequest();
+
+    request.setPath(path);
+
+    try
+    {
+      return new SvnBrowseCommand(context, repository).getBrowserResult(
+        request);
+    }
+    finally
+    {
+      context.close();
+    }
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** path to browse */
+  @Param({ "", "c" })
+  private String path;
+
+  /** session pool */
+  private SvnSessionPool pool;
+
+  /** revision cache */
+  private SvnRevisionCache revisionCache;
+}
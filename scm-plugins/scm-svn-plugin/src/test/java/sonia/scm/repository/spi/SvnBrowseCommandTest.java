@@ -37,6 +37,8 @@ package sonia.scm.repository.spi;
 
 import org.junit.Test;
 
+import org.tmatesoft.svn.core.SVNException;
+
 import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
 import sonia.scm.repository.RepositoryException;
@@ -82,6 +84,26 @@ public class SvnBrowseCommandTest extends AbstractSvnCommandTestBase
     assertEquals("c", c.getPath());
   }
 
+  /**
+   * Tests that a browse of the head names the latest revision.
+   *
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   * @throws SVNException
+   */
+  @Test
+  public void testBrowseResolvesHead()
+    throws IOException, RepositoryException, SVNException
+  {
+    BrowserResult result =
+      createCommand().getBrowserResult(new BrowseCommandRequest());
+
+    assertNotNull(result);
+    assertEquals(String.valueOf(createContext().open().getLatestRevision()),
+      result.getRevision());
+  }
+
   /**
    * Method description
    *
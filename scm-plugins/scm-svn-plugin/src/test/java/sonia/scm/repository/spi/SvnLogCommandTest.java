@@ -96,6 +96,72 @@ public class SvnLogCommandTest extends AbstractSvnCommandTestBase
     assertEquals("1", result.getChangesets().get(2).getId());
   }
 
+  /**
+   * Tests paging of the history of a path. The total is only an estimate, if
+   * there are more changesets after the page.
+   *
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void testGetAllByPathWithPaging()
+    throws IOException, RepositoryException
+  {
+    LogCommandRequest request = new LogCommandRequest();
+
+    request.setPath("a.txt");
+    request.setPagingStart(1);
+    request.setPagingLimit(1);
+
+    ChangesetPagingResult result = createCommand().getChangesets(request);
+
+    assertNotNull(result);
+    assertEquals(3, result.getTotal());
+    assertEquals(1, result.getChangesets().size());
+    assertEquals("3", result.getChangesets().get(0).getId());
+    assertEquals("a.txt",
+      result.getChangesets().get(0).getModifications().getModified().get(0));
+
+    request.setPagingStart(2);
+    request.setPagingLimit(2);
+    result = createCommand().getChangesets(request);
+
+    assertEquals(3, result.getTotal());
+    assertEquals(1, result.getChangesets().size());
+    assertEquals("1", result.getChangesets().get(0).getId());
+
+    request.setPagingStart(3);
+    result = createCommand().getChangesets(request);
+
+    assertEquals(3, result.getTotal());
+    assertTrue(result.getChangesets().isEmpty());
+  }
+
+  /**
+   * Tests that the changed paths are not fetched, if the modifications are
+   * disabled.
+   *
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void testGetAllByPathWithoutModifications()
+    throws IOException, RepositoryException
+  {
+    LogCommandRequest request = new LogCommandRequest();
+
+    request.setPath("a.txt");
+    request.setDisableModifications(true);
+
+    ChangesetPagingResult result = createCommand().getChangesets(request);
+
+    assertEquals(3, result.getChangesets().size());
+    assertTrue(
+      result.getChangesets().get(1).getModifications().getModified().isEmpty());
+  }
+
   /**
    *  Method description
    *
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.web;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static org.mockito.Mockito.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for {@link SvnRevisionResponse}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class SvnRevisionResponseTest
+{
+
+  /** content of the test responses */
+  private static final byte[] CONTENT = "hello".getBytes();
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Tests that a recorded response is replayed with its headers and body.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRecordAndReplay() throws IOException
+  {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    HttpServletResponse response = createResponse(written, "text/plain");
+    SvnRevisionResponse.Recorder recorder =
+      new SvnRevisionResponse.Recorder(response, 1024);
+
+    recorder.setHeader("ETag", "\"1//a.txt\"");
+    recorder.setDateHeader("Last-Modified", 42L);
+    recorder.setHeader("Date", "now");
+    recorder.getOutputStream().write(CONTENT);
+    assertArrayEquals(CONTENT, written.toByteArray());
+
+    SvnRevisionResponse recorded = recorder.getRecordedResponse();
+
+    assertNotNull(recorded);
+    assertTrue(recorded.getWeight() > CONTENT.length);
+
+    ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+    HttpServletResponse other = createResponse(replayed, null);
+
+    recorded.replay(other);
+    verify(other).setStatus(HttpServletResponse.SC_OK);
+    verify(other).setContentType("text/plain");
+    verify(other).addHeader("ETag", "\"1//a.txt\"");
+    verify(other).addDateHeader("Last-Modified", 42L);
+    verify(other, never()).addHeader(eq("Date"), anyString());
+    verify(other).setContentLength(CONTENT.length);
+    assertArrayEquals(CONTENT, replayed.toByteArray());
+  }
+
+  /**
+   * Tests that error responses are not recorded.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRecordError() throws IOException
+  {
+    SvnRevisionResponse.Recorder recorder = createRecorder("text/plain",
+                                              1024);
+
+    recorder.sendError(HttpServletResponse.SC_NOT_FOUND);
+    assertNull(recorder.getRecordedResponse());
+
+    recorder = createRecorder("text/plain", 1024);
+    recorder.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertNull(recorder.getRecordedResponse());
+  }
+
+  /**
+   * Tests that html responses are not recorded, because they contain links
+   * which depend on the request.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRecordHtml() throws IOException
+  {
+    SvnRevisionResponse.Recorder recorder =
+      createRecorder("text/html; charset=UTF-8", 1024);
+
+    recorder.getOutputStream().write(CONTENT);
+    assertNull(recorder.getRecordedResponse());
+  }
+
+  /**
+   * Tests that bodies larger than the limit are written, but not recorded.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRecordLargeBody() throws IOException
+  {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    SvnRevisionResponse.Recorder recorder =
+      new SvnRevisionResponse.Recorder(createResponse(written, "text/plain"),
+        CONTENT.length - 1);
+
+    recorder.getOutputStream().write(CONTENT);
+    assertArrayEquals(CONTENT, written.toByteArray());
+    assertNull(recorder.getRecordedResponse());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param contentType
+   * @param limit
+   *
+   * @return
+   *
+   * @throws IOException
+   */
+  private SvnRevisionResponse.Recorder createRecorder(String contentType,
+    int limit)
+    throws IOException
+  {
+    return new SvnRevisionResponse.Recorder(
+      createResponse(new ByteArrayOutputStream(), contentType), limit);
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @param output
+   * @param contentType
+   *
+   * @return
+   *
+   * @throws IOException
+   */
+  private HttpServletResponse createResponse(
+    final ByteArrayOutputStream output, String contentType)
+    throws IOException
+  {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    when(response.getContentType()).thenReturn(contentType);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream()
+    {
+      @Override
+      public void write(int b)
+      {
+        output.write(b);
+      }
+    });
+
+    return response;
+  }
+}
@@ -40,6 +40,7 @@ import sonia.scm.Filter;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -50,7 +51,7 @@ import java.util.Map;
  * @param <K>
  * @param <V>
  */
-public class MapCache<K, V> implements Cache<K, V>
+public class MapCache<K, V> implements RegionCache<K, V>
 {
 
   /**
@@ -131,6 +132,37 @@ public class MapCache<K, V> implements Cache<K, V>
     return result;
   }
 
+  /**
+   * Method description
+   *
+   *
+   * @param region
+   *
+   * @return
+   *
+   * @since 1.58
+   */
+  @Override
+  public boolean removeRegion(String region)
+  {
+    boolean result = false;
+    Iterator<K> it = map.keySet().iterator();
+
+    while (it.hasNext())
+    {
+      K key = it.next();
+
+      if ((key instanceof RegionKey)
+        && region.equals(((RegionKey) key).getRegion()))
+      {
+        it.remove();
+        result = true;
+      }
+    }
+
+    return result;
+  }
+
   //~--- get methods ----------------------------------------------------------
 
   /**
@@ -34,6 +34,8 @@ package sonia.scm.store;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
 
 import org.junit.Before;
@@ -49,7 +51,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  *
@@ -228,6 +232,45 @@ public abstract class BlobStoreTestBase extends AbstractTestBase
     assertTrue(c3);
   }
 
+  /**
+   * Tests that the iterator returns every blob exactly once, if the store is
+   * read in pages.
+   *
+   */
+  @Test
+  public void testIteratorPaging()
+  {
+    Set<String> ids = Sets.newHashSet();
+
+    for (int i = 0; i < 20; i++)
+    {
+      ids.add(store.create().getId());
+    }
+
+    Set<String> found = Sets.newHashSet();
+    String start = null;
+    int pages = 0;
+
+    do
+    {
+      Iterator<Blob> page = Iterators.limit(store.iterator(start), 7);
+
+      start = null;
+
+      while (page.hasNext())
+      {
+        start = page.next().getId();
+        assertTrue("blob returned twice", found.add(start));
+      }
+
+      pages++;
+    }
+    while (start != null);
+
+    assertEquals(ids, found);
+    assertEquals(4, pages);
+  }
+
   /**
    * Method description
    *
@@ -32,6 +32,14 @@
 
 package sonia.scm.store;
 
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -47,6 +55,42 @@ public abstract class ConfigurationEntryStoreTestBase extends KeyValueStoreTestB
    */
   protected abstract ConfigurationEntryStoreFactory createConfigurationStoreFactory();
 
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Method description
+   *
+   */
+  @Test
+  public void testBulkUpdate()
+  {
+    ConfigurationEntryStore<StoreObject> ces = getDataStore();
+
+    // bulk updates are optional
+    assumeTrue(ces instanceof BulkConfigurationEntryStore);
+    ces.put("1", new StoreObject("test-1"));
+
+    BulkConfigurationEntryStore<StoreObject> bces =
+      (BulkConfigurationEntryStore<StoreObject>) ces;
+
+    bces.update(new BulkUpdate<StoreObject>()
+    {
+
+      @Override
+      public void apply(DataStore<StoreObject> store)
+      {
+        store.put("2", new StoreObject("test-2"));
+        store.put("3", new StoreObject("test-3"));
+        store.remove("1");
+      }
+    });
+
+    ces = getDataStore();
+    assertNull(ces.get("1"));
+    assertEquals("test-2", ces.get("2").getValue());
+    assertEquals("test-3", ces.get("3").getValue());
+  }
+
   //~--- get methods ----------------------------------------------------------
 
   /**
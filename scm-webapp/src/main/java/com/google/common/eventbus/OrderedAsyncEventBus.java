@@ -0,0 +1,621 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package com.google.common.eventbus;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.event.Coalescable;
+import sonia.scm.event.Coalesce;
+import sonia.scm.event.HandlerStatistics;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous {@link EventBus} with a bounded queue. Each handler receives
+ * its events in the order in which they were posted, but different handlers
+ * are called in parallel by the threads of the executor. If the queue is full,
+ * the posting thread waits until queued events are handled. Events for
+ * handlers, which are annotated with {@link Coalesce}, are merged within the
+ * configured time window.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public class OrderedAsyncEventBus extends EventBus
+{
+
+  /** maximum time in seconds the posting thread waits for a full queue */
+  private static final long BACKPRESSURE_TIMEOUT = 30;
+
+  /**
+   * the logger for OrderedAsyncEventBus
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(OrderedAsyncEventBus.class);
+
+  /** closes the time windows of coalesced events */
+  private static final ScheduledExecutorService coalescingExecutor =
+    Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("EventBusCoalescing-%d")
+        .setDaemon(true).build());
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new OrderedAsyncEventBus.
+   *
+   *
+   * @param executor executor for the handlers
+   * @param capacity maximum number of queued events
+   */
+  public OrderedAsyncEventBus(Executor executor, int capacity)
+  {
+    this.executor = executor;
+    this.capacity = capacity;
+    this.permits = new Semaphore(capacity);
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the maximum number of queued events.
+   *
+   *
+   * @return maximum number of queued events
+   */
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  /**
+   * Returns statistics about the calls of each handler.
+   *
+   *
+   * @return handler statistics
+   */
+  public List<HandlerStatistics> getHandlerStatistics()
+  {
+    return Lists.newArrayList(statistics.values());
+  }
+
+  /**
+   * Returns the number of queued events, which are not handled yet.
+   *
+   *
+   * @return number of queued events
+   */
+  public int getQueueSize()
+  {
+    return queueSize.get();
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param object
+   */
+  @Override
+  public void register(Object object)
+  {
+    super.register(object);
+
+    for (Method method : object.getClass().getMethods())
+    {
+      Coalesce coalesce = method.getAnnotation(Coalesce.class);
+
+      if ((coalesce != null) && method.isAnnotationPresent(Subscribe.class))
+      {
+        logger.debug("coalesce events of {} within {}ms", method,
+          coalesce.window());
+        coalescingWindows.put(new EventHandler(object, method),
+          coalesce.window());
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param object
+   */
+  @Override
+  public void unregister(Object object)
+  {
+    super.unregister(object);
+
+    for (Method method : object.getClass().getMethods())
+    {
+      coalescingWindows.remove(new EventHandler(object, method));
+    }
+  }
+
+  /**
+   * Queues the event for the handler.
+   *
+   *
+   * @param event event
+   * @param wrapper handler
+   */
+  @Override
+  void dispatch(Object event, EventHandler wrapper)
+  {
+    Subject subject = SecurityUtils.getSubject();
+    Long window = coalescingWindows.get(wrapper);
+
+    if ((window == null) || !coalesce(event, wrapper, subject, window))
+    {
+      enqueue(event, wrapper, subject, acquire(event));
+    }
+  }
+
+  /**
+   * Opens a new time window for the event or merges the event into an already
+   * opened window.
+   *
+   *
+   * @param event event
+   * @param wrapper handler
+   * @param subject subject of the posting thread
+   * @param window time window in milliseconds
+   *
+   * @return true if the event was merged and must not be delivered now
+   */
+  private boolean coalesce(Object event, EventHandler wrapper,
+    Subject subject, long window)
+  {
+    Object key = (event instanceof Coalescable)
+      ? ((Coalescable) event).getCoalescingKey()
+      : null;
+
+    if (key == null)
+    {
+      return false;
+    }
+
+    Entry<EventHandler, Object> windowKey = Maps.immutableEntry(wrapper, key);
+
+    synchronized (openWindows)
+    {
+      CoalescedEvent merged = openWindows.get(windowKey);
+
+      if (merged != null)
+      {
+        logger.trace("merge {} with previous event for {}", event, wrapper);
+        merged.event = event;
+        merged.subject = subject;
+
+        return true;
+      }
+
+      openWindows.put(windowKey, new CoalescedEvent());
+    }
+
+    closeWindow(windowKey, window);
+
+    return false;
+  }
+
+  /**
+   * Closes the time window after the given delay and delivers the last merged
+   * event. The delivery opens a new window.
+   *
+   *
+   * @param windowKey handler and key of the window
+   * @param window time window in milliseconds
+   */
+  private void closeWindow(final Entry<EventHandler, Object> windowKey,
+    final long window)
+  {
+    coalescingExecutor.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        EventHandler wrapper = windowKey.getKey();
+        boolean registered = coalescingWindows.containsKey(wrapper);
+        CoalescedEvent merged;
+
+        synchronized (openWindows)
+        {
+          merged = openWindows.remove(windowKey);
+
+          if (registered && (merged.event != null))
+          {
+            openWindows.put(windowKey, new CoalescedEvent());
+          }
+        }
+
+        if (registered && (merged.event != null))
+        {
+          // never block the coalescing thread on a full queue
+          enqueue(merged.event, wrapper, merged.subject, permits.tryAcquire());
+          closeWindow(windowKey, window);
+        }
+      }
+    }, window, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queues the event for the handler.
+   *
+   *
+   * @param event event
+   * @param wrapper handler
+   * @param subject subject which is associated with the handler call
+   * @param permit true if a place in the queue was acquired
+   */
+  private void enqueue(Object event, EventHandler wrapper, Subject subject,
+    boolean permit)
+  {
+    Runnable task = new EventTask(event, wrapper, permit);
+
+    // handle the event with the subject of the posting thread
+    task = subject.associateWith(task);
+    queueSize.incrementAndGet();
+
+    HandlerQueue queue;
+
+    do
+    {
+      queue = queues.get(wrapper);
+
+      if (queue == null)
+      {
+        queue = new HandlerQueue(wrapper);
+
+        HandlerQueue other = queues.putIfAbsent(wrapper, queue);
+
+        if (other != null)
+        {
+          queue = other;
+        }
+      }
+    }
+    while (!queue.offer(task));
+  }
+
+  /**
+   * Acquires a place in the queue. Handler threads never wait for a place,
+   * because the queue could only be emptied by handler threads.
+   *
+   *
+   * @param event event to queue
+   *
+   * @return true if a place was acquired
+   */
+  private boolean acquire(Object event)
+  {
+    boolean permit = permits.tryAcquire();
+
+    if (!permit && !Boolean.TRUE.equals(handlerThread.get()))
+    {
+      logger.debug("event queue is full, wait before posting {}", event);
+
+      try
+      {
+        permit = permits.tryAcquire(BACKPRESSURE_TIMEOUT, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException ex)
+      {
+        Thread.currentThread().interrupt();
+      }
+
+      if (!permit)
+      {
+        logger.warn("event queue is still full, post {} anyway", event);
+      }
+    }
+
+    return permit;
+  }
+
+  /**
+   * Returns the statistics for the given handler.
+   *
+   *
+   * @param wrapper handler
+   *
+   * @return statistics of the handler
+   */
+  private HandlerStatistics getStatistics(EventHandler wrapper)
+  {
+    String name = wrapper.toString();
+    HandlerStatistics hs = statistics.get(name);
+
+    if (hs == null)
+    {
+      hs = new HandlerStatistics(name);
+
+      HandlerStatistics other = statistics.putIfAbsent(name, hs);
+
+      if (other != null)
+      {
+        hs = other;
+      }
+    }
+
+    return hs;
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Last merged event of an open time window.
+   */
+  private static class CoalescedEvent
+  {
+
+    /** last merged event or null */
+    private Object event;
+
+    /** subject of the thread which has posted the last merged event */
+    private Subject subject;
+  }
+
+
+  /**
+   * Handles a single event.
+   */
+  private class EventTask implements Runnable
+  {
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param event
+     * @param wrapper
+     * @param permit
+     */
+    public EventTask(Object event, EventHandler wrapper, boolean permit)
+    {
+      this.event = event;
+      this.wrapper = wrapper;
+      this.permit = permit;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * Method description
+     *
+     */
+    @Override
+    public void run()
+    {
+      long start = System.nanoTime();
+
+      handlerThread.set(Boolean.TRUE);
+
+      try
+      {
+        OrderedAsyncEventBus.super.dispatch(event, wrapper);
+      }
+      finally
+      {
+        handlerThread.remove();
+        getStatistics(wrapper).record(System.nanoTime() - start);
+        queueSize.decrementAndGet();
+
+        if (permit)
+        {
+          permits.release();
+        }
+      }
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** Field description */
+    private final Object event;
+
+    /** Field description */
+    private final boolean permit;
+
+    /** Field description */
+    private final EventHandler wrapper;
+  }
+
+
+  /**
+   * Queue of the events for a single handler. Only one event of the queue is
+   * handled at a time, the queue is removed as soon as it is empty.
+   */
+  private class HandlerQueue implements Runnable
+  {
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param wrapper
+     */
+    public HandlerQueue(EventHandler wrapper)
+    {
+      this.wrapper = wrapper;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * Method description
+     *
+     */
+    @Override
+    public void run()
+    {
+      Runnable task;
+
+      synchronized (this)
+      {
+        task = tasks.poll();
+      }
+
+      try
+      {
+        task.run();
+      }
+      finally
+      {
+        boolean next;
+
+        synchronized (this)
+        {
+          next = !tasks.isEmpty();
+
+          if (!next)
+          {
+            closed = true;
+            queues.remove(wrapper, this);
+          }
+        }
+
+        // continue with the next event, after other handlers had their turn
+        if (next)
+        {
+          executor.execute(this);
+        }
+      }
+    }
+
+    /**
+     * Adds the task to the queue.
+     *
+     *
+     * @param task task
+     *
+     * @return false if the queue was already closed
+     */
+    boolean offer(Runnable task)
+    {
+      boolean start;
+
+      synchronized (this)
+      {
+        if (closed)
+        {
+          return false;
+        }
+
+        tasks.add(task);
+        start = !running;
+        running = true;
+      }
+
+      if (start)
+      {
+        executor.execute(this);
+      }
+
+      return true;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** Field description */
+    private final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+
+    /** Field description */
+    private final EventHandler wrapper;
+
+    /** Field description */
+    private boolean closed = false;
+
+    /** Field description */
+    private boolean running = false;
+  }
+
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** maximum number of queued events */
+  private final int capacity;
+
+  /** time windows of the handlers with coalesced events */
+  private final ConcurrentMap<EventHandler, Long> coalescingWindows =
+    Maps.newConcurrentMap();
+
+  /** open time windows by handler and key, guarded by itself */
+  private final Map<Entry<EventHandler, Object>, CoalescedEvent> openWindows =
+    Maps.newHashMap();
+
+  /** executor for the handlers */
+  private final Executor executor;
+
+  /** marks the threads, which are currently calling a handler */
+  private final ThreadLocal<Boolean> handlerThread = new ThreadLocal<Boolean>();
+
+  /** places in the queue */
+  private final Semaphore permits;
+
+  /** event queues of the handlers */
+  private final ConcurrentMap<EventHandler, HandlerQueue> queues =
+    Maps.newConcurrentMap();
+
+  /** number of queued events */
+  private final AtomicInteger queueSize = new AtomicInteger();
+
+  /** statistics of the handlers by name */
+  private final ConcurrentMap<String, HandlerStatistics> statistics =
+    Maps.newConcurrentMap();
+}
@@ -47,6 +47,7 @@ import sonia.scm.cache.CacheManager;
 import sonia.scm.group.GroupManager;
 import sonia.scm.plugin.DefaultPluginLoader;
 import sonia.scm.repository.RepositoryManager;
+import sonia.scm.store.ConfigurationEntryStoreFactory;
 import sonia.scm.store.StoreFactory;
 import sonia.scm.upgrade.UpgradeManager;
 import sonia.scm.user.UserManager;
@@ -55,6 +56,8 @@ import sonia.scm.web.security.AuthenticationManager;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.io.Closeable;
+
 import java.util.List;
 
 import javax.servlet.ServletContext;
@@ -96,6 +99,15 @@ public class ScmContextListener extends GuiceServletContextListener
       // close UserManager
       IOUtil.close(globalInjector.getInstance(UserManager.class));
 
+      // close ConfigurationEntryStoreFactory, writes pending changes
+      ConfigurationEntryStoreFactory configurationEntryStoreFactory =
+        globalInjector.getInstance(ConfigurationEntryStoreFactory.class);
+
+      if (configurationEntryStoreFactory instanceof Closeable)
+      {
+        IOUtil.close((Closeable) configurationEntryStoreFactory);
+      }
+
       // close StoreFactory
       IOUtil.close(globalInjector.getInstance(StoreFactory.class));
 
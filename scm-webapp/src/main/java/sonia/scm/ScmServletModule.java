@@ -98,7 +98,7 @@ import sonia.scm.security.DefaultSecuritySystem;
 import sonia.scm.security.EncryptionHandler;
 import sonia.scm.security.KeyGenerator;
 import sonia.scm.security.LoginAttemptHandler;
-import sonia.scm.security.MessageDigestEncryptionHandler;
+import sonia.scm.security.PBKDF2EncryptionHandler;
 import sonia.scm.security.RepositoryPermissionResolver;
 import sonia.scm.security.SecurityContext;
 import sonia.scm.security.SecuritySystem;
@@ -291,7 +291,7 @@ public class ScmServletModule extends ServletModule
     // note CipherUtil uses an other generator
     bind(KeyGenerator.class).to(DefaultKeyGenerator.class);
     bind(CipherHandler.class).toInstance(cu.getCipherHandler());
-    bind(EncryptionHandler.class, MessageDigestEncryptionHandler.class);
+    bind(EncryptionHandler.class, PBKDF2EncryptionHandler.class);
     bind(FileSystem.class, DefaultFileSystem.class);
 
     // bind health check stuff
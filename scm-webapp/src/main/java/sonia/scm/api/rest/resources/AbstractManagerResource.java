@@ -406,6 +406,28 @@ public abstract class AbstractManagerResource<T extends ModelObject,
             throwable)).build();
   }
 
+  /**
+   * Returns a sorted page of items without sorting all items by reflection.
+   * Subclasses can override this method, if the manager provides an index for
+   * the given property. The default implementation returns null, which means
+   * the items are sorted by a {@link BeanComparator}.
+   *
+   *
+   * @param sortby name of the property
+   * @param desc true for descending order
+   * @param start index of the first item
+   * @param limit maximum number of items, -1 for all items
+   *
+   * @return sorted items or null if the property is not indexed
+   *
+   * @since 1.58
+   */
+  protected Collection<T> fetchSortedItems(String sortby, boolean desc,
+    int start, int limit)
+  {
+    return null;
+  }
+
   /**
    * Method description
    *
@@ -569,7 +591,20 @@ public abstract class AbstractManagerResource<T extends ModelObject,
 
     Collection<T> items = null;
 
-    if (limit > 0)
+    if (Util.isNotEmpty(sortby))
+    {
+      items = fetchSortedItems(sortby, desc, (limit > 0)
+        ? start
+        : 0, (limit > 0)
+               ? limit
+               : -1);
+    }
+
+    if (items != null)
+    {
+      logger.trace("fetched items sorted by {} from the sort index", sortby);
+    }
+    else if (limit > 0)
     {
       if (Util.isEmpty(sortby))
       {
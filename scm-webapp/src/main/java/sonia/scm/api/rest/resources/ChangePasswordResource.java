@@ -48,6 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.api.rest.RestActionResult;
 import sonia.scm.security.EncryptionHandler;
+import sonia.scm.security.Passwords;
 import sonia.scm.security.ScmSecurityException;
 import sonia.scm.user.User;
 import sonia.scm.user.UserException;
@@ -153,7 +154,8 @@ public class ChangePasswordResource
     {
       User dbUser = userManager.get(currentUser.getName());
 
-      if (encryptionHandler.encrypt(oldPassword).equals(dbUser.getPassword()))
+      if (Passwords.matches(encryptionHandler, oldPassword,
+        dbUser.getPassword()))
       {
         dbUser.setPassword(encryptionHandler.encrypt(newPassword));
         userManager.modify(dbUser);
@@ -35,7 +35,11 @@ package sonia.scm.api.rest.resources;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Closeables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -55,15 +59,19 @@ import sonia.scm.repository.Branches;
 import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.FileObject;
 import sonia.scm.repository.HealthChecker;
 import sonia.scm.repository.Permission;
 import sonia.scm.repository.PermissionType;
+import sonia.scm.repository.Person;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryException;
 import sonia.scm.repository.RepositoryIsNotArchivedException;
 import sonia.scm.repository.RepositoryManager;
 import sonia.scm.repository.RepositoryNotFoundException;
+import sonia.scm.repository.RepositorySortKey;
 import sonia.scm.repository.RepositoryUtil;
+import sonia.scm.repository.SortedRepositoryManager;
 import sonia.scm.repository.Tags;
 import sonia.scm.repository.api.BlameCommandBuilder;
 import sonia.scm.repository.api.BrowseCommandBuilder;
@@ -86,6 +94,7 @@ import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -97,8 +106,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
@@ -119,6 +131,19 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   /** Field description */
   public static final String PATH_PART = "repositories";
 
+  /** cache control extension for responses, which never change */
+  private static final String CACHE_IMMUTABLE = "immutable";
+
+  /** matcher for hex revisions */
+  private static final CharMatcher HEX =
+    CharMatcher.anyOf("0123456789abcdefABCDEF");
+
+  /** header for content negotiated responses */
+  private static final String HEADER_VARY = "Vary";
+
+  /** max age of responses for full revisions, one year */
+  private static final int MAX_AGE_IMMUTABLE = 31536000;
+
   /** the logger for RepositoryResource */
   private static final Logger logger =
     LoggerFactory.getLogger(RepositoryResource.class);
@@ -359,6 +384,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   /**
    * Returns a annotate/blame view for the given path.
    *
+   * @param request the current request
    * @param id the id of the repository
    * @param revision the revision of the file
    * @param path the path of the file
@@ -378,10 +404,20 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   })
   @TypeHint(BlameResult.class)
   @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-  public Response getBlame(@PathParam("id") String id,
-    @QueryParam("revision") String revision, @QueryParam("path") String path)
+  public Response getBlame(@Context Request request,
+    @PathParam("id") String id, @QueryParam("revision") String revision,
+    @QueryParam("path") String path)
     throws RepositoryException, IOException
   {
+    EntityTag etag = createImmutableEntityTag("blame", id, revision, path);
+    Response.ResponseBuilder notModified =
+      evaluateImmutablePreconditions(request, id, etag);
+
+    if (notModified != null)
+    {
+      return notModified.build();
+    }
+
     Response response = null;
     RepositoryService service = null;
 
@@ -401,7 +437,8 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
 
       if (blamePagingResult != null)
       {
-        response = Response.ok(blamePagingResult).build();
+        response = cacheImmutable(Response.ok(blamePagingResult),
+          etag).build();
       }
       else
       {
@@ -490,6 +527,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   /**
    * Returns a list of folders and files for the given folder.
    *
+   * @param request the current request
    * @param id the id of the repository
    * @param revision the revision of the file
    * @param path the path of the folder
@@ -514,6 +552,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
   //J-
   public Response getBrowserResult(
+    @Context Request request,
     @PathParam("id") String id,
     @QueryParam("revision") String revision, 
     @QueryParam("path") String path,
@@ -523,6 +562,17 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
     throws RepositoryException, IOException
   //J+
   {
+    EntityTag etag = createImmutableEntityTag("browse", id, revision, path,
+                       disableLastCommit, disableSubRepositoryDetection,
+                       recursive);
+    Response.ResponseBuilder notModified =
+      evaluateImmutablePreconditions(request, id, etag);
+
+    if (notModified != null)
+    {
+      return notModified.build();
+    }
+
     Response response = null;
     RepositoryService service = null;
 
@@ -550,13 +600,27 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
 
       BrowserResult result = builder.getBrowserResult();
 
-      if (result != null)
+      if (result == null)
       {
-        response = Response.ok(result).build();
+        response = Response.status(Response.Status.NOT_FOUND).build();
+      }
+      else if (etag != null)
+      {
+        response = cacheImmutable(Response.ok(result), etag).build();
+      }
+      else if (isResolvedRevision(result.getRevision()))
+      {
+
+        // the revision was resolved to a commit, which can move on, the
+        // content is part of the tag, because revision properties can change
+        etag = createEntityTag("browse", id, result.getRevision(), path,
+          disableLastCommit, disableSubRepositoryDetection, recursive,
+          hashContent(result));
+        response = evaluateResolvedPreconditions(request, result, etag);
       }
       else
       {
-        response = Response.status(Response.Status.NOT_FOUND).build();
+        response = Response.ok(result).build();
       }
     }
     catch (RepositoryNotFoundException ex)
@@ -615,6 +679,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
    * Returns the {@link Changeset} from the given repository
    * with the specified revision.
    *
+   * @param request the current request
    * @param id the id of the repository
    * @param revision the revision of the changeset
    *
@@ -633,13 +698,24 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   })
   @TypeHint(Changeset.class)
   @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-  public Response getChangeset(@PathParam("id") String id,
-    @PathParam("revision") String revision)
+  public Response getChangeset(@Context Request request,
+    @PathParam("id") String id, @PathParam("revision") String revision)
     throws IOException, RepositoryException
   {
     Response response = null;
+    EntityTag etag = createImmutableEntityTag("changeset", id, revision);
+    Response.ResponseBuilder notModified = null;
+
+    if (Util.isNotEmpty(id))
+    {
+      notModified = evaluateImmutablePreconditions(request, id, etag);
+    }
 
-    if (Util.isNotEmpty(id) && Util.isNotEmpty(revision))
+    if (notModified != null)
+    {
+      response = notModified.build();
+    }
+    else if (Util.isNotEmpty(id) && Util.isNotEmpty(revision))
     {
       RepositoryService service = null;
 
@@ -649,13 +725,22 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
 
         Changeset changeset = service.getLogCommand().getChangeset(revision);
 
-        if (changeset != null)
+        if (changeset == null)
         {
-          response = Response.ok(changeset).build();
+          response = Response.status(Status.NOT_FOUND).build();
+        }
+        else if (etag != null)
+        {
+          response = cacheImmutable(Response.ok(changeset), etag).build();
         }
         else
         {
-          response = Response.status(Status.NOT_FOUND).build();
+
+          // the revision was resolved to a changeset, e.g. a branch name, the
+          // content is part of the tag, because revision properties can change
+          etag = createEntityTag("changeset", id, changeset.getId(),
+            hashContent(changeset));
+          response = evaluateResolvedPreconditions(request, changeset, etag);
         }
       }
       catch (RepositoryNotFoundException ex)
@@ -693,6 +778,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
    * @param branch name of the branch
    * @param start the start value for paging
    * @param limit the limit value for paging
+   * @param disableModifications true disables the calculation of modifications
    *
    * @return a list of {@link Changeset} for the given repository
    *
@@ -716,7 +802,8 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
     @QueryParam("revision") String revision,
     @QueryParam("branch") String branch,
     @DefaultValue("0") @QueryParam("start") int start, 
-    @DefaultValue("20") @QueryParam("limit") int limit
+    @DefaultValue("20") @QueryParam("limit") int limit,
+    @QueryParam("disableModifications") @DefaultValue("false") boolean disableModifications
   ) throws RepositoryException, IOException
   //J+
   {
@@ -746,6 +833,8 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
         builder.setBranch(branch);
       }
 
+      builder.setDisableModifications(disableModifications);
+
       changesets =
         builder.setPagingStart(start).setPagingLimit(limit).getChangesets();
 
@@ -777,6 +866,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   /**
    * Returns the content of a file.
    *
+   * @param request the current request
    * @param id the id of the repository
    * @param revision the revision of the file
    * @param path path to the file
@@ -793,9 +883,19 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   })
   @TypeHint(StreamingOutput.class)
   @Produces({ MediaType.APPLICATION_OCTET_STREAM })
-  public Response getContent(@PathParam("id") String id,
-    @QueryParam("revision") String revision, @QueryParam("path") String path)
+  public Response getContent(@Context Request request,
+    @PathParam("id") String id, @QueryParam("revision") String revision,
+    @QueryParam("path") String path)
   {
+    EntityTag etag = createImmutableEntityTag("content", id, revision, path);
+    Response.ResponseBuilder notModified =
+      evaluateImmutablePreconditions(request, id, etag);
+
+    if (notModified != null)
+    {
+      return notModified.build();
+    }
+
     Response response;
     StreamingOutput output;
     RepositoryService service;
@@ -821,8 +921,8 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
 
       String contentDispositionName = getContentDispositionNameFromPath(path);
 
-      response = Response.ok(output).header("Content-Disposition",
-        contentDispositionName).build();
+      response = cacheImmutable(Response.ok(output), etag).header(
+        "Content-Disposition", contentDispositionName).build();
     }
     catch (RepositoryNotFoundException ex)
     {
@@ -845,6 +945,7 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   /**
    * Returns the modifications of a {@link Changeset}.
    *
+   * @param request the current request
    * @param id the id of the repository
    * @param revision the revision of the file
    * @param path path to the file
@@ -865,9 +966,9 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
   })
   @TypeHint(DiffStreamingOutput.class)
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
-  public Response getDiff(@PathParam("id") String id,
-    @QueryParam("revision") String revision, @QueryParam("path") String path,
-    @QueryParam("format") DiffFormat format)
+  public Response getDiff(@Context Request request,
+    @PathParam("id") String id, @QueryParam("revision") String revision,
+    @QueryParam("path") String path, @QueryParam("format") DiffFormat format)
     throws RepositoryException, IOException
   {
     AssertUtil.assertIsNotEmpty(id);
@@ -879,6 +980,16 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
      */
     HttpUtil.checkForCRLFInjection(revision);
 
+    EntityTag etag = createImmutableEntityTag("diff", id, revision, path,
+                       format);
+    Response.ResponseBuilder notModified =
+      evaluateImmutablePreconditions(request, id, etag);
+
+    if (notModified != null)
+    {
+      return notModified.build();
+    }
+
     RepositoryService service;
     Response response;
 
@@ -907,8 +1018,9 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
                       revision).concat(".diff");
       String contentDispositionName = getContentDispositionName(name);
 
-      response = Response.ok(new DiffStreamingOutput(service,
-        builder)).header("Content-Disposition", contentDispositionName).build();
+      response = cacheImmutable(Response.ok(new DiffStreamingOutput(service,
+        builder)), etag).header("Content-Disposition",
+          contentDispositionName).build();
     }
     catch (RepositoryNotFoundException ex)
     {
@@ -1004,6 +1116,36 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
     ;
   }
 
+  /**
+   * Reads the page from the sort index of the repository manager, if the
+   * manager is a {@link SortedRepositoryManager} and there is a
+   * {@link RepositorySortKey} for the property.
+   *
+   *
+   * @param sortby
+   * @param desc
+   * @param start
+   * @param limit
+   *
+   * @return
+   */
+  @Override
+  protected Collection<Repository> fetchSortedItems(String sortby,
+    boolean desc, int start, int limit)
+  {
+    Collection<Repository> repositories = null;
+    RepositorySortKey key = RepositorySortKey.fromProperty(sortby);
+
+    if ((key != null)
+      && (repositoryManager instanceof SortedRepositoryManager))
+    {
+      repositories = ((SortedRepositoryManager) repositoryManager).getAll(key,
+        desc, start, limit);
+    }
+
+    return repositories;
+  }
+
   /**
    * Method description
    *
@@ -1071,6 +1213,237 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
 
   //~--- methods --------------------------------------------------------------
 
+  /**
+   * Adds the entity tag and cache headers for a response, which can never
+   * change, because the request names a full revision. Nothing is added if
+   * the entity tag is null.
+   *
+   *
+   * @param builder response builder
+   * @param etag entity tag or null
+   *
+   * @return response builder
+   */
+  private Response.ResponseBuilder cacheImmutable(
+    Response.ResponseBuilder builder, EntityTag etag)
+  {
+    if (etag != null)
+    {
+      CacheControl cc = new CacheControl();
+
+      cc.setPrivate(true);
+      cc.setMaxAge(MAX_AGE_IMMUTABLE);
+      cc.getCacheExtension().put(CACHE_IMMUTABLE, null);
+      builder.tag(etag).cacheControl(cc).header(HEADER_VARY,
+        HttpHeaders.ACCEPT);
+    }
+
+    return builder;
+  }
+
+  /**
+   * Creates a strong entity tag from the endpoint, the repository, the
+   * revision and the parameters of a request.
+   *
+   *
+   * @param endpoint name of the endpoint
+   * @param id id of the repository
+   * @param revision revision id
+   * @param parameters other parameters, which change the response
+   *
+   * @return strong entity tag
+   */
+  private EntityTag createEntityTag(String endpoint, String id,
+    String revision, Object... parameters)
+  {
+    Hasher hasher = Hashing.sha1().newHasher();
+
+    hasher.putString(endpoint, Charsets.UTF_8);
+    hasher.putChar('\0').putString(id, Charsets.UTF_8);
+    hasher.putChar('\0').putString(revision, Charsets.UTF_8);
+
+    for (Object parameter : parameters)
+    {
+      hasher.putChar('\0').putString(String.valueOf(parameter),
+        Charsets.UTF_8);
+    }
+
+    return new EntityTag(hasher.hash().toString());
+  }
+
+  /**
+   * Creates a hash of the parts of a changeset, which can change without a
+   * new revision, e.g. the log message of a subversion revision.
+   *
+   *
+   * @param changeset changeset
+   *
+   * @return hash of the content
+   */
+  private String hashContent(Changeset changeset)
+  {
+    Hasher hasher = Hashing.sha1().newHasher();
+    Person author = changeset.getAuthor();
+
+    if (author != null)
+    {
+      putContent(hasher, author.getName());
+      putContent(hasher, author.getMail());
+    }
+
+    putContent(hasher, changeset.getDescription());
+    putContent(hasher, changeset.getDate());
+    putContent(hasher, changeset.getBranches());
+    putContent(hasher, changeset.getTags());
+
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Creates a hash of the files of a browser result. The descriptions and
+   * dates of the files are taken from the last commits, which can change
+   * without a new revision, e.g. the log message of a subversion revision.
+   *
+   *
+   * @param result browser result
+   *
+   * @return hash of the content
+   */
+  private String hashContent(BrowserResult result)
+  {
+    Hasher hasher = Hashing.sha1().newHasher();
+    List<FileObject> files = result.getFiles();
+
+    if (files != null)
+    {
+      for (FileObject file : files)
+      {
+        putContent(hasher, file.getPath());
+        putContent(hasher, file.getDescription());
+        putContent(hasher, file.getLastModified());
+        putContent(hasher, file.getLength());
+        putContent(hasher, file.isDirectory());
+      }
+    }
+
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Adds a value and a separator to the hash.
+   *
+   *
+   * @param hasher hasher
+   * @param value value or null
+   */
+  private void putContent(Hasher hasher, Object value)
+  {
+    hasher.putString(String.valueOf(value), Charsets.UTF_8).putChar('\0');
+  }
+
+  /**
+   * Creates the entity tag for a request, which names a full revision. Such
+   * a request can be answered without resolving the revision, because its
+   * response never changes.
+   *
+   *
+   * @param endpoint name of the endpoint
+   * @param id id of the repository
+   * @param revision requested revision
+   * @param parameters other parameters, which change the response
+   *
+   * @return strong entity tag or null, if the revision is not a full revision
+   */
+  private EntityTag createImmutableEntityTag(String endpoint, String id,
+    String revision, Object... parameters)
+  {
+    EntityTag etag = null;
+
+    if (isFullRevision(revision))
+    {
+      etag = createEntityTag(endpoint, id, revision, parameters);
+    }
+
+    return etag;
+  }
+
+  /**
+   * Evaluates the conditional headers of a request for a full revision,
+   * before any repository service is opened. The read permission is checked
+   * by the repository manager.
+   *
+   *
+   * @param request current request
+   * @param id id of the repository
+   * @param etag entity tag or null
+   *
+   * @return not modified response builder or null
+   */
+  private Response.ResponseBuilder evaluateImmutablePreconditions(
+    Request request, String id, EntityTag etag)
+  {
+    Response.ResponseBuilder builder = null;
+
+    if ((etag != null) && (repositoryManager.get(id) != null))
+    {
+      builder = request.evaluatePreconditions(etag);
+
+      if (builder != null)
+      {
+        logger.trace("revision of {} is not modified", id);
+        cacheImmutable(builder, etag);
+      }
+    }
+
+    return builder;
+  }
+
+  /**
+   * Evaluates the conditional headers of a request, after its revision was
+   * resolved. The response must be revalidated by the client, because the
+   * requested branch or tag can move on.
+   *
+   *
+   * @param request current request
+   * @param entity response entity
+   * @param etag entity tag of the resolved revision
+   *
+   * @return response
+   */
+  private Response evaluateResolvedPreconditions(Request request,
+    Object entity, EntityTag etag)
+  {
+    Response.ResponseBuilder builder = request.evaluatePreconditions(etag);
+
+    if (builder == null)
+    {
+      builder = Response.ok(entity);
+    }
+
+    CacheControl cc = new CacheControl();
+
+    cc.setPrivate(true);
+    cc.setNoCache(true);
+
+    return builder.tag(etag).cacheControl(cc).header(HEADER_VARY,
+      HttpHeaders.ACCEPT).build();
+  }
+
+  /**
+   * Returns true if the revision of a result names a commit. Providers
+   * which could not resolve the head return no revision or a negative
+   * revision, such as -1 for the head of a subversion repository.
+   *
+   *
+   * @param revision revision of the result
+   *
+   * @return true if the revision names a commit
+   */
+  private boolean isResolvedRevision(String revision)
+  {
+    return !Strings.isNullOrEmpty(revision) && !revision.startsWith("-");
+  }
+
   /**
    * Method description
    *
@@ -1137,6 +1510,22 @@ public class RepositoryResource extends AbstractManagerResource<Repository, Repo
     return getContentDispositionName(name);
   }
 
+  /**
+   * Returns true if the revision is a full hash of a commit, which can never
+   * change.
+   *
+   *
+   * @param revision revision
+   *
+   * @return true if the revision is a full revision
+   */
+  private boolean isFullRevision(String revision)
+  {
+    return (revision != null)
+      && ((revision.length() == 40) || (revision.length() == 64))
+      && HEX.matchesAllOf(revision);
+  }
+
   /**
    * Method description
    *
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.cache;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the keys of a cache by their region. The index is filled on every
+ * put of a {@link RegionKey}, keys of elements which are evicted or expired by
+ * the cache are not removed immediately. Instead the index removes the keys of
+ * elements, which are no longer part of the cache, whenever its size has
+ * doubled since the last cleanup. The index is shared between all wrappers of
+ * the same cache.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ *
+ * @param <K> type of keys
+ */
+final class CacheRegionIndex<K>
+{
+
+  /** minimum size of the index before a cleanup is started */
+  private static final int CLEANUP_THRESHOLD = 64;
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new index.
+   *
+   *
+   * @param cached predicate which returns true, if the key is still cached
+   */
+  CacheRegionIndex(Predicate<Object> cached)
+  {
+    this.cached = cached;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Adds the key to the index, if it is a {@link RegionKey}. The key must be
+   * added after the element was put into the cache.
+   *
+   *
+   * @param key cache key
+   */
+  void add(K key)
+  {
+    if (key instanceof RegionKey)
+    {
+      add(((RegionKey) key).getRegion(), key);
+    }
+  }
+
+  /**
+   * Removes all keys from the index.
+   *
+   */
+  synchronized void clear()
+  {
+    regions.clear();
+    size = 0;
+    cleanupSize = CLEANUP_THRESHOLD;
+  }
+
+  /**
+   * Removes the key from the index.
+   *
+   *
+   * @param key cache key
+   */
+  synchronized void remove(Object key)
+  {
+    if (key instanceof RegionKey)
+    {
+      Set<K> keys = regions.get(((RegionKey) key).getRegion());
+
+      if ((keys != null) && keys.remove(key))
+      {
+        size--;
+      }
+    }
+  }
+
+  /**
+   * Removes the region from the index and returns all of its keys.
+   *
+   *
+   * @param region name of the region
+   *
+   * @return keys of the region
+   */
+  synchronized Set<K> removeRegion(String region)
+  {
+    Set<K> keys = regions.remove(region);
+
+    if (keys == null)
+    {
+      keys = ImmutableSet.of();
+    }
+    else
+    {
+      size -= keys.size();
+    }
+
+    return keys;
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the amount of keys in the index.
+   *
+   *
+   * @return amount of keys
+   */
+  synchronized int size()
+  {
+    return size;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  private synchronized void add(String region, K key)
+  {
+    Set<K> keys = regions.get(region);
+
+    if (keys == null)
+    {
+      keys = Sets.newHashSet();
+      regions.put(region, keys);
+    }
+
+    if (keys.add(key))
+    {
+      size++;
+
+      if (size > cleanupSize)
+      {
+        cleanup();
+      }
+    }
+  }
+
+  private void cleanup()
+  {
+    Iterator<Set<K>> regionIterator = regions.values().iterator();
+
+    while (regionIterator.hasNext())
+    {
+      Set<K> keys = regionIterator.next();
+      Iterator<K> keyIterator = keys.iterator();
+
+      while (keyIterator.hasNext())
+      {
+        if (!cached.apply(keyIterator.next()))
+        {
+          keyIterator.remove();
+          size--;
+        }
+      }
+
+      if (keys.isEmpty())
+      {
+        regionIterator.remove();
+      }
+    }
+
+    cleanupSize = Math.max(CLEANUP_THRESHOLD, size * 2);
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** predicate to check if a key is still cached */
+  private final Predicate<Object> cached;
+
+  /** keys by region */
+  private final Map<String, Set<K>> regions = Maps.newHashMap();
+
+  /** amount of keys in the index */
+  private int size = 0;
+
+  /** size of the index which starts the next cleanup */
+  private int cleanupSize = CLEANUP_THRESHOLD;
+}
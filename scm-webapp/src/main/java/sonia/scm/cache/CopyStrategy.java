@@ -43,6 +43,9 @@ import java.io.IOException;
 import java.util.Locale;
 
 /**
+ * Strategy which defines if and how objects are copied, when they are read
+ * from or written to a cache. All copying strategies, except
+ * {@link #STRUCTURAL}, use java serialization to create the copy.
  *
  * @author Sebastian Sdorra
  */
@@ -50,7 +53,31 @@ public enum CopyStrategy
 {
 
   NONE("none", false, false), READ("read", true, false),
-    WRITE("write", false, true), READWRITE("read-write", true, true);
+    WRITE("write", false, true), READWRITE("read-write", true, true),
+
+  /**
+   * Copies on read and on write like {@link #READWRITE}, but uses the copy
+   * constructors of the repository model objects (changesets, browser and
+   * blame results) instead of java serialization. Objects of other types are
+   * copied with java serialization.
+   *
+   * @since 1.58
+   */
+  STRUCTURAL("structural", true, true)
+  {
+    @Override
+    <T> T copy(T object)
+    {
+      T copy = StructuralCopy.copy(object);
+
+      if (copy == null)
+      {
+        copy = super.copy(object);
+      }
+
+      return copy;
+    }
+  };
 
   /**
    * Constructs ...
@@ -96,7 +123,7 @@ public enum CopyStrategy
   public <T> T copyOnRead(T object)
   {
     return copyOnRead
-      ? deepCopy(object)
+      ? copy(object)
       : object;
   }
 
@@ -112,7 +139,7 @@ public enum CopyStrategy
   public <T> T copyOnWrite(T object)
   {
     return copyOnWrite
-      ? deepCopy(object)
+      ? copy(object)
       : object;
   }
 
@@ -132,15 +159,15 @@ public enum CopyStrategy
   //~--- methods --------------------------------------------------------------
 
   /**
-   * Method description
+   * Creates a copy of the given object.
    *
    *
-   * @param object
-   * @param <T>
+   * @param object object to copy
+   * @param <T> type of object
    *
-   * @return
+   * @return copy of the object
    */
-  private <T> T deepCopy(T object)
+  <T> T copy(T object)
   {
     T copy = null;
 
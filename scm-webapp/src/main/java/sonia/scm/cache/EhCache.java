@@ -36,6 +36,7 @@ package sonia.scm.cache;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
 
 import net.sf.ehcache.Element;
 
@@ -47,6 +48,7 @@ import sonia.scm.Filter;
 //~--- JDK imports ------------------------------------------------------------
 
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  *
@@ -55,7 +57,7 @@ import java.util.Iterator;
  * @param <K>
  * @param <V>
  */
-public class EhCache<K, V> implements Cache<K, V>
+public class EhCache<K, V> implements RegionCache<K, V>
 {
 
   /** the logger for EhCache */
@@ -71,13 +73,56 @@ public class EhCache<K, V> implements Cache<K, V>
    * @param name
    */
   public EhCache(net.sf.ehcache.Cache cache, String name)
+  {
+    this(cache, EhCache.<K>createRegionIndex(cache), name);
+  }
+
+  /**
+   * Constructs a new EhCache, which shares the region index with all other
+   * wrappers of the same cache.
+   *
+   *
+   * @param cache ehcache implementation
+   * @param regionIndex region index of the cache
+   * @param name name of the cache
+   *
+   * @since 1.58
+   */
+  EhCache(net.sf.ehcache.Cache cache, CacheRegionIndex<K> regionIndex,
+    String name)
   {
     this.cache = cache;
+    this.regionIndex = regionIndex;
     this.name = name;
   }
 
   //~--- methods --------------------------------------------------------------
 
+  /**
+   * Creates a region index for the given ehcache. The index must be shared by
+   * all wrappers of the cache.
+   *
+   *
+   * @param cache ehcache implementation
+   * @param <K> type of keys
+   *
+   * @return region index
+   *
+   * @since 1.58
+   */
+  static <K> CacheRegionIndex<K> createRegionIndex(
+    final net.sf.ehcache.Cache cache)
+  {
+    return new CacheRegionIndex<K>(new Predicate<Object>()
+    {
+      @Override
+      public boolean apply(Object key)
+      {
+        return cache.isKeyInCache(key);
+      }
+    });
+  }
+
   /**
    * Method description
    *
@@ -91,6 +136,7 @@ public class EhCache<K, V> implements Cache<K, V>
     }
 
     cache.removeAll();
+    regionIndex.clear();
   }
 
   /**
@@ -118,6 +164,7 @@ public class EhCache<K, V> implements Cache<K, V>
   public void put(K key, V value)
   {
     cache.put(new Element(key, value));
+    regionIndex.add(key);
   }
 
   /**
@@ -131,6 +178,8 @@ public class EhCache<K, V> implements Cache<K, V>
   @Override
   public boolean remove(K key)
   {
+    regionIndex.remove(key);
+
     return cache.remove(key);
   }
 
@@ -164,6 +213,31 @@ public class EhCache<K, V> implements Cache<K, V>
     return result;
   }
 
+  /**
+   * Removes all elements of the region, by using the region index instead of
+   * iterating over all keys.
+   *
+   *
+   * @param region name of the region
+   *
+   * @return true if the operation was successful
+   *
+   * @since 1.58
+   */
+  @Override
+  public boolean removeRegion(String region)
+  {
+    Set<K> keys = regionIndex.removeRegion(region);
+
+    for (K key : keys)
+    {
+      // the element could already be evicted
+      cache.remove(key);
+    }
+
+    return !keys.isEmpty();
+  }
+
   //~--- get methods ----------------------------------------------------------
 
   /**
@@ -207,4 +281,7 @@ public class EhCache<K, V> implements Cache<K, V>
 
   /** Field description */
   private String name;
+
+  /** index of the keys by region */
+  private final CacheRegionIndex<K> regionIndex;
 }
@@ -35,6 +35,7 @@ package sonia.scm.cache;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
 import com.google.inject.Singleton;
 
@@ -46,6 +47,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 
+import java.util.Map;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -106,6 +109,7 @@ public class EhCacheManager implements CacheManager
   public void close() throws IOException
   {
     cacheManager.shutdown();
+    regionIndices.clear();
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -139,11 +143,25 @@ public class EhCacheManager implements CacheManager
       c = cacheManager.getCache(name);
     }
 
-    return new EhCache<K, V>(c, name);
+    @SuppressWarnings("unchecked")
+    CacheRegionIndex<K> regionIndex =
+      (CacheRegionIndex<K>) regionIndices.get(c);
+
+    if (regionIndex == null)
+    {
+      regionIndex = EhCache.createRegionIndex(c);
+      regionIndices.put(c, regionIndex);
+    }
+
+    return new EhCache<K, V>(c, regionIndex, name);
   }
 
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
   private net.sf.ehcache.CacheManager cacheManager;
+
+  /** region indices by cache, the index is shared by all wrappers of a cache */
+  private final Map<net.sf.ehcache.Cache, CacheRegionIndex<?>> regionIndices =
+    Maps.newIdentityHashMap();
 }
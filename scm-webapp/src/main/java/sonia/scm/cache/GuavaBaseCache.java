@@ -30,6 +30,7 @@
  */
 package sonia.scm.cache;
 
+import com.google.common.base.Predicate;
 import com.google.common.cache.Cache;
 import com.google.common.collect.Sets;
 import java.util.Set;
@@ -56,10 +57,16 @@ public abstract class GuavaBaseCache<K, V> {
 
   protected com.google.common.cache.Cache<K, V> cache;
   protected CopyStrategy copyStrategy = CopyStrategy.NONE;
+  protected final CacheRegionIndex<K> regionIndex;
   private final String name;
 
   GuavaBaseCache(com.google.common.cache.Cache<K, V> cache, CopyStrategy copyStrategy, String name) {
+    this(cache, createRegionIndex(cache), copyStrategy, name);
+  }
+
+  GuavaBaseCache(com.google.common.cache.Cache<K, V> cache, CacheRegionIndex<K> regionIndex, CopyStrategy copyStrategy, String name) {
     this.cache = cache;
+    this.regionIndex = regionIndex;
     this.name = name;
 
     if (copyStrategy != null) {
@@ -67,11 +74,31 @@ public abstract class GuavaBaseCache<K, V> {
     }
   }
 
+  /**
+   * Creates a region index for the given guava cache. The index must be shared by all wrappers of the cache.
+   *
+   * @param cache guava cache
+   * @param <K> type of keys
+   *
+   * @return region index
+   *
+   * @since 1.58
+   */
+  static <K> CacheRegionIndex<K> createRegionIndex(final com.google.common.cache.Cache<K, ?> cache) {
+    return new CacheRegionIndex<>(new Predicate<Object>() {
+      @Override
+      public boolean apply(Object key) {
+        return cache.asMap().containsKey(key);
+      }
+    });
+  }
+
   //~--- methods --------------------------------------------------------------
 
   public void clear() {
     logger.debug("clear cache {}", name);
     cache.invalidateAll();
+    regionIndex.clear();
   }
 
   public boolean contains(K key) {
@@ -96,6 +123,29 @@ public abstract class GuavaBaseCache<K, V> {
 
     return result;
   }
+
+  /**
+   * Removes all elements of the region, by using the region index instead of iterating over all keys.
+   *
+   * @param region name of the region
+   *
+   * @return true if elements were removed
+   *
+   * @since 1.58
+   */
+  public boolean removeRegion(String region) {
+    Set<K> keysToRemove = regionIndex.removeRegion(region);
+
+    boolean result = false;
+
+    if (!keysToRemove.isEmpty()) {
+      logger.trace("remove {} elements of region {} from cache {}", keysToRemove.size(), region, name);
+      cache.invalidateAll(keysToRemove);
+      result = true;
+    }
+
+    return result;
+  }
   
   public V get(K key) {
     V value = cache.getIfPresent(key);
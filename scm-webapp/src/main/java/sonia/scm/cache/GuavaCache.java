@@ -41,20 +41,26 @@ package sonia.scm.cache;
  * @param <K>
  * @param <V>
  */
-public class GuavaCache<K, V> extends GuavaBaseCache<K, V> implements Cache<K, V> {
+public class GuavaCache<K, V> extends GuavaBaseCache<K, V> implements RegionCache<K, V> {
 
   GuavaCache(com.google.common.cache.Cache<K, V> cache, CopyStrategy copyStrategy, String name) {
     super(cache, copyStrategy, name);
   }
+
+  GuavaCache(com.google.common.cache.Cache<K, V> cache, CacheRegionIndex<K> regionIndex, CopyStrategy copyStrategy, String name) {
+    super(cache, regionIndex, copyStrategy, name);
+  }
   
   @Override
   public void put(K key, V value) {
     cache.put(key, copyStrategy.copyOnWrite(value));
+    regionIndex.add(key);
   }
 
   @Override
   public boolean remove(K key) {
     cache.invalidate(key);
+    regionIndex.remove(key);
 
     return true;
   }  
@@ -100,6 +100,7 @@ public class GuavaCacheManager implements CacheManager, org.apache.shiro.cache.C
 
     for (CacheWithConfiguration c : cacheMap.values()) {
       c.cache.invalidateAll();
+      c.regionIndex.clear();
     }
 
     cacheMap.clear();
@@ -127,22 +128,24 @@ public class GuavaCacheManager implements CacheManager, org.apache.shiro.cache.C
   @Override
   public <K, V> GuavaCache<K, V> getCache(Class<K> key, Class<V> value, String name) {
     CacheWithConfiguration<K, V> cw = getCacheWithConfiguration(name);
-    return new GuavaCache<>(cw.cache, cw.configuration.getCopyStrategy(), name);
+    return new GuavaCache<>(cw.cache, cw.regionIndex, cw.configuration.getCopyStrategy(), name);
   }
   
   @Override
   public <K, V> GuavaSecurityCache<K, V> getCache(String name) throws CacheException {
     CacheWithConfiguration<K, V> cw = getCacheWithConfiguration(name);
-    return new GuavaSecurityCache<>(cw.cache, cw.configuration.getCopyStrategy(), name);
+    return new GuavaSecurityCache<>(cw.cache, cw.regionIndex, cw.configuration.getCopyStrategy(), name);
   }
 
   private static class CacheWithConfiguration<K,V> {
   
     private final com.google.common.cache.Cache<K,V> cache;
+    private final CacheRegionIndex<K> regionIndex;
     private final GuavaCacheConfiguration configuration;
 
     private CacheWithConfiguration(com.google.common.cache.Cache<K, V> cache, GuavaCacheConfiguration configuration) {
       this.cache = cache;
+      this.regionIndex = GuavaBaseCache.createRegionIndex(cache);
       this.configuration = configuration;
     }
     
@@ -50,11 +50,16 @@ public class GuavaSecurityCache<K, V> extends GuavaBaseCache<K, V> implements or
   GuavaSecurityCache(Cache<K, V> cache, CopyStrategy copyStrategy, String name) {
     super(cache, copyStrategy, name);
   }
+
+  GuavaSecurityCache(Cache<K, V> cache, CacheRegionIndex<K> regionIndex, CopyStrategy copyStrategy, String name) {
+    super(cache, regionIndex, copyStrategy, name);
+  }
   
   @Override
   public V put(K key, V value) throws CacheException {
     V previousValue = cache.getIfPresent(key);
     cache.put(key, value);
+    regionIndex.add(key);
     return previousValue;
   }
 
@@ -62,6 +67,7 @@ public class GuavaSecurityCache<K, V> extends GuavaBaseCache<K, V> implements or
   public V remove(K key) throws CacheException {
     V previousValue = cache.getIfPresent(key);
     cache.invalidate(key);
+    regionIndex.remove(key);
     return previousValue;
   }
 
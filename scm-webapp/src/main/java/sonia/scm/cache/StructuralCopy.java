@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.cache;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+
+import sonia.scm.repository.BlameLine;
+import sonia.scm.repository.BlameResult;
+import sonia.scm.repository.BrowserResult;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.FileObject;
+import sonia.scm.repository.Modifications;
+import sonia.scm.repository.Person;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Map;
+
+/**
+ * Creates copies of the model objects, which are stored in the repository
+ * command caches, by using their copy constructors instead of a java
+ * serialization round trip. Only objects of exactly the registered types are
+ * copied, subclasses could carry additional state and are left to the
+ * serialization based copy.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+final class StructuralCopy
+{
+
+  /** copy functions by type */
+  private static final Map<Class<?>, Function<Object, Object>> COPIERS =
+    ImmutableMap.<Class<?>, Function<Object, Object>>builder()
+      .put(ChangesetPagingResult.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new ChangesetPagingResult((ChangesetPagingResult) input);
+        }
+      })
+      .put(Changeset.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new Changeset((Changeset) input);
+        }
+      })
+      .put(BrowserResult.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new BrowserResult((BrowserResult) input);
+        }
+      })
+      .put(FileObject.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new FileObject((FileObject) input);
+        }
+      })
+      .put(BlameResult.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new BlameResult((BlameResult) input);
+        }
+      })
+      .put(BlameLine.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new BlameLine((BlameLine) input);
+        }
+      })
+      .put(Modifications.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new Modifications((Modifications) input);
+        }
+      })
+      .put(Person.class, new Function<Object, Object>()
+      {
+        @Override
+        public Object apply(Object input)
+        {
+          return new Person((Person) input);
+        }
+      })
+      .build();
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs ...
+   *
+   */
+  private StructuralCopy() {}
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Returns a copy of the given object or {@code null}, if the type of the
+   * object is not supported.
+   *
+   *
+   * @param object object to copy
+   * @param <T> type of object
+   *
+   * @return copy of the object or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T copy(T object)
+  {
+    T copy = null;
+    Function<Object, Object> copier = COPIERS.get(object.getClass());
+
+    if (copier != null)
+    {
+      copy = (T) copier.apply(object);
+    }
+
+    return copy;
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.event;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.List;
+
+/**
+ * Management interface of the asynchronous part of the {@link ScmEventBus}.
+ * The statistics are published via jmx with the name
+ * {@link GuavaScmEventBus#OBJECT_NAME}.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public interface EventBusStatisticsMXBean
+{
+
+  /**
+   * Returns the number of threads, which are currently handling events.
+   *
+   *
+   * @return number of active threads
+   */
+  public int getActiveThreads();
+
+  /**
+   * Returns the maximum number of queued events. If the queue is full, the
+   * posting thread has to wait until an event was handled.
+   *
+   *
+   * @return maximum number of queued events
+   */
+  public int getCapacity();
+
+  /**
+   * Returns statistics about the calls of each asynchronous handler.
+   *
+   *
+   * @return handler statistics
+   */
+  public List<HandlerStatistics> getHandlerStatistics();
+
+  /**
+   * Returns the maximum number of threads for asynchronous handlers.
+   *
+   *
+   * @return maximum number of threads
+   */
+  public int getMaxThreads();
+
+  /**
+   * Returns the number of queued events, which are not handled yet.
+   *
+   *
+   * @return number of queued events
+   */
+  public int getQueueSize();
+}
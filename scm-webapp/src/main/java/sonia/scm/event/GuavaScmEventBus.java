@@ -34,28 +34,66 @@ package sonia.scm.event;
 
 //~--- non-JDK imports --------------------------------------------------------
 
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.OrderedAsyncEventBus;
 import com.google.common.eventbus.ThrowingEventBus;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import org.apache.shiro.concurrent.SubjectAwareExecutorService;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 //~--- JDK imports ------------------------------------------------------------
 
-import java.util.concurrent.Executors;
+import java.lang.management.ManagementFactory;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
+ * {@link ScmEventBus} implementation which is based on the guava
+ * {@link EventBus}. Asynchronous handlers are called by a bounded pool of
+ * threads, the number of threads can be configured with the system property
+ * {@link #PROPERTY_THREADS} and the maximum number of queued events with the
+ * system property {@link #PROPERTY_CAPACITY}. Statistics about the queue and
+ * the handlers are published via jmx.
  *
  * @author Sebastian Sdorra
  */
 public class GuavaScmEventBus extends ScmEventBus
+  implements EventBusStatisticsMXBean
 {
 
+  /**
+   * name of the jmx bean
+   * @since 1.58
+   */
+  public static final String OBJECT_NAME = "sonia.scm:type=EventBus";
+
+  /**
+   * system property for the maximum number of queued events
+   * @since 1.58
+   */
+  public static final String PROPERTY_CAPACITY = "sonia.scm.event.capacity";
+
+  /**
+   * system property for the number of threads for asynchronous handlers
+   * @since 1.58
+   */
+  public static final String PROPERTY_THREADS = "sonia.scm.event.threads";
+
+  /** default maximum number of queued events */
+  private static final int DEFAULT_CAPACITY = 10000;
+
+  /** idle threads are stopped after the keep alive time in seconds */
+  private static final long KEEP_ALIVE = 60;
+
   /** Field description */
   private static final String THREAD_NAME = "EventBus-%s";
 
@@ -75,13 +113,24 @@ public class GuavaScmEventBus extends ScmEventBus
   {
     eventBus = new ThrowingEventBus();
 
+    int threads = Integer.getInteger(PROPERTY_THREADS,
+                    Math.max(4,
+                      Runtime.getRuntime().availableProcessors() * 2));
+    int capacity = Integer.getInteger(PROPERTY_CAPACITY, DEFAULT_CAPACITY);
+
+    logger.debug("create async event bus with {} threads and capacity of {}",
+      threads, capacity);
+
     //J-
     ThreadFactory factory = new ThreadFactoryBuilder()
       .setNameFormat(THREAD_NAME).build();
-    asyncEventBus = new AsyncEventBus(
-      new SubjectAwareExecutorService(Executors.newCachedThreadPool(factory))
+    executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE,
+      TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), factory
     );
     //J+
+    executor.allowCoreThreadTimeOut(true);
+    asyncEventBus = new OrderedAsyncEventBus(executor, capacity);
+    registerMBean();
   }
 
   //~--- methods --------------------------------------------------------------
@@ -168,10 +217,99 @@ public class GuavaScmEventBus extends ScmEventBus
     }
   }
 
+  /**
+   * Publishes the statistics of the event bus via jmx. An already registered
+   * event bus is replaced.
+   */
+  private void registerMBean()
+  {
+    try
+    {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+
+      if (server.isRegistered(name))
+      {
+        server.unregisterMBean(name);
+      }
+
+      server.registerMBean(this, name);
+    }
+    catch (JMException ex)
+    {
+      logger.warn("could not register event bus statistics", ex);
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @return
+   */
+  @Override
+  public int getActiveThreads()
+  {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @return
+   */
+  @Override
+  public int getCapacity()
+  {
+    return asyncEventBus.getCapacity();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @return
+   */
+  @Override
+  public List<HandlerStatistics> getHandlerStatistics()
+  {
+    return asyncEventBus.getHandlerStatistics();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @return
+   */
+  @Override
+  public int getMaxThreads()
+  {
+    return executor.getMaximumPoolSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @return
+   */
+  @Override
+  public int getQueueSize()
+  {
+    return asyncEventBus.getQueueSize();
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** asynchronous event bus */
-  private AsyncEventBus asyncEventBus;
+  private OrderedAsyncEventBus asyncEventBus;
+
+  /** executor for asynchronous handlers */
+  private ThreadPoolExecutor executor;
 
   /** synchronous event bus */
   private EventBus eventBus;
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.event;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the calls of a single asynchronous event handler.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public final class HandlerStatistics
+{
+
+  /**
+   * Constructs new statistics for the given handler.
+   *
+   *
+   * @param name name of the handler
+   */
+  public HandlerStatistics(String name)
+  {
+    this.name = name;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Records a call of the handler.
+   *
+   *
+   * @param nanos duration of the call in nanoseconds
+   */
+  public void record(long nanos)
+  {
+    count.incrementAndGet();
+    totalTime.addAndGet(nanos);
+
+    long max = maxTime.get();
+
+    while ((nanos > max) && !maxTime.compareAndSet(max, nanos))
+    {
+      max = maxTime.get();
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the average duration of a call in microseconds.
+   *
+   *
+   * @return average duration in microseconds
+   */
+  public long getAverageTime()
+  {
+    long c = count.get();
+
+    return (c > 0)
+      ? TimeUnit.NANOSECONDS.toMicros(totalTime.get() / c)
+      : 0;
+  }
+
+  /**
+   * Returns the number of calls.
+   *
+   *
+   * @return number of calls
+   */
+  public long getCount()
+  {
+    return count.get();
+  }
+
+  /**
+   * Returns the duration of the slowest call in microseconds.
+   *
+   *
+   * @return maximum duration in microseconds
+   */
+  public long getMaxTime()
+  {
+    return TimeUnit.NANOSECONDS.toMicros(maxTime.get());
+  }
+
+  /**
+   * Returns the name of the handler.
+   *
+   *
+   * @return name of the handler
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** number of calls */
+  private final AtomicLong count = new AtomicLong();
+
+  /** slowest call in nanoseconds */
+  private final AtomicLong maxTime = new AtomicLong();
+
+  /** name of the handler */
+  private final String name;
+
+  /** sum of all calls in nanoseconds */
+  private final AtomicLong totalTime = new AtomicLong();
+}
@@ -78,6 +78,7 @@ import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -87,6 +88,7 @@ import javax.servlet.http.HttpServletRequest;
  */
 @Singleton
 public class DefaultRepositoryManager extends AbstractRepositoryManager
+  implements SortedRepositoryManager
 {
 
   /** Field description */
@@ -200,6 +202,7 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager
 
     fireEvent(repository, HandlerEvent.BEFORE_CREATE);
     repositoryDAO.add(repository);
+    pathIndexVersion.incrementAndGet();
     fireEvent(repository, HandlerEvent.CREATE);
   }
 
@@ -251,6 +254,7 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager
       fireEvent(repository, HandlerEvent.BEFORE_DELETE);
       getHandler(repository).delete(repository);
       repositoryDAO.delete(repository);
+      pathIndexVersion.incrementAndGet();
     }
     else
     {
@@ -561,6 +565,45 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager
     return getAll(null, start, limit);
   }
 
+  /**
+   * Method description
+   *
+   *
+   * @param key
+   * @param desc
+   * @param start
+   * @param limit
+   *
+   * @return
+   */
+  @Override
+  public Collection<Repository> getAll(RepositorySortKey key, boolean desc,
+    int start, int limit)
+  {
+    List<Repository> repositories = Lists.newArrayList();
+    int index = 0;
+
+    for (Repository repository : getSortedFromDAO(key, desc))
+    {
+      if ((limit >= 0) && (repositories.size() >= limit))
+      {
+        break;
+      }
+
+      if (handlerMap.containsKey(repository.getType()) && isReader(repository))
+      {
+        if (index >= start)
+        {
+          repositories.add(repository.clone());
+        }
+
+        index++;
+      }
+    }
+
+    return repositories;
+  }
+
   /**
    * Method description
    *
@@ -700,11 +743,11 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager
 
     if (handlerMap.containsKey(type))
     {
-      Collection<Repository> repositories = repositoryDAO.getAll();
-
-      for (Repository r : repositories)
+      for (String id : getPathIndex().getCandidates(type, uri))
       {
-        if (repositoryMatcher.matches(r, type, uri))
+        Repository r = repositoryDAO.get(id);
+
+        if ((r != null) && repositoryMatcher.matches(r, type, uri))
         {
           assertIsReader(r);
           repository = r.clone();
@@ -973,6 +1016,64 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager
     return handler;
   }
 
+  /**
+   * Returns the index of the repository paths. The index is recreated, if
+   * repositories were created or deleted since the index was built.
+   *
+   *
+   * @return index of repository paths
+   */
+  private RepositoryPathIndex getPathIndex()
+  {
+    RepositoryPathIndex index = pathIndex;
+
+    // read the version before the repositories, a concurrent change
+    // leads to an outdated version and to a rebuild on the next request
+    long version = pathIndexVersion.get();
+
+    if ((index == null) || (index.getVersion() != version))
+    {
+      logger.debug("create repository path index");
+      index = new RepositoryPathIndex(version, repositoryDAO.getAll());
+      pathIndex = index;
+    }
+
+    return index;
+  }
+
+  /**
+   * Returns all repositories of the dao sorted by the given key. The sort
+   * index is used, if the dao is a {@link SortedRepositoryDAO}, otherwise the
+   * repositories are sorted in memory.
+   *
+   *
+   * @param key
+   * @param desc
+   *
+   * @return
+   */
+  private Collection<Repository> getSortedFromDAO(RepositorySortKey key,
+    boolean desc)
+  {
+    if (repositoryDAO instanceof SortedRepositoryDAO)
+    {
+      return ((SortedRepositoryDAO) repositoryDAO).getAll(key, desc);
+    }
+
+    Comparator<Repository> comparator = key.getComparator();
+
+    if (desc)
+    {
+      comparator = Collections.reverseOrder(comparator);
+    }
+
+    List<Repository> repositories = Lists.newArrayList(repositoryDAO.getAll());
+
+    Collections.sort(repositories, comparator);
+
+    return repositories;
+  }
+
   /**
    * Method description
    *
@@ -1030,4 +1131,10 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager
   private Set<Type> types;
   
   private RepositoryMatcher repositoryMatcher;
+
+  /** index of repository paths or null */
+  private volatile RepositoryPathIndex pathIndex;
+
+  /** incremented whenever a repository is created or deleted */
+  private final AtomicLong pathIndexVersion = new AtomicLong();
 }
@@ -40,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import sonia.scm.EagerSingleton;
+import sonia.scm.event.Coalesce;
 import sonia.scm.plugin.ext.Extension;
 import sonia.scm.web.security.AdministrationContext;
 import sonia.scm.web.security.PrivilegedAction;
@@ -90,6 +91,7 @@ public final class LastModifiedUpdateListener
    * @param event
    */
   @Subscribe
+  @Coalesce
   public void onPostReceive(PostReceiveRepositoryHookEvent event)
   {
     final Repository repository = event.getRepository();
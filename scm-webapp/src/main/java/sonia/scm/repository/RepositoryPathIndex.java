@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.repository;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of repository names by type, which is able to find all repositories
+ * whose names are a prefix of a requested path. The names are stored in a
+ * radix tree for each type, so the lookup depends only on the length of the
+ * path and not on the number of repositories. The index is immutable, it must
+ * be recreated if repositories are created or deleted.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+final class RepositoryPathIndex
+{
+
+  /**
+   * Creates a new index for the given repositories.
+   *
+   *
+   * @param version version of the repositories
+   * @param repositories repositories to index
+   */
+  RepositoryPathIndex(long version, Collection<Repository> repositories)
+  {
+    this.version = version;
+
+    for (Repository repository : repositories)
+    {
+      Node root = roots.get(repository.getType());
+
+      if (root == null)
+      {
+        root = new Node("");
+        roots.put(repository.getType(), root);
+      }
+
+      root.insert(repository.getName(), repository.getId());
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns the ids of all repositories of the given type, whose names are a
+   * prefix of the path. The longest name comes first.
+   *
+   *
+   * @param type type of the repositories
+   * @param path requested path without context and type
+   *
+   * @return ids of the matching repositories
+   */
+  List<String> getCandidates(String type, String path)
+  {
+    List<String> candidates = Lists.newArrayList();
+    Node node = roots.get(type);
+    int offset = 0;
+
+    while (node != null)
+    {
+      if (node.id != null)
+      {
+        candidates.add(0, node.id);
+      }
+
+      node = (offset < path.length())
+        ? node.next(path, offset)
+        : null;
+
+      if (node != null)
+      {
+        offset += node.label.length();
+      }
+    }
+
+    return candidates;
+  }
+
+  /**
+   * Returns the version of the repositories, from which the index was
+   * created.
+   *
+   *
+   * @return version of the repositories
+   */
+  long getVersion()
+  {
+    return version;
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Node of the radix tree.
+   */
+  private static final class Node
+  {
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param label
+     */
+    private Node(String label)
+    {
+      this.label = label;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * Inserts the name below this node.
+     *
+     *
+     * @param name repository name
+     * @param repositoryId repository id
+     */
+    private void insert(String name, String repositoryId)
+    {
+      Node node = this;
+      int offset = 0;
+
+      while (offset < name.length())
+      {
+        char c = name.charAt(offset);
+        Node child = node.children.get(c);
+
+        if (child == null)
+        {
+          child = new Node(name.substring(offset));
+          node.children.put(c, child);
+          offset = name.length();
+        }
+        else
+        {
+          int common = commonPrefix(child.label, name, offset);
+
+          if (common < child.label.length())
+          {
+
+            // split the label of the child
+            Node split = new Node(child.label.substring(0, common));
+
+            child.label = child.label.substring(common);
+            split.children.put(child.label.charAt(0), child);
+            node.children.put(c, split);
+            child = split;
+          }
+
+          offset += common;
+        }
+
+        node = child;
+      }
+
+      node.id = repositoryId;
+    }
+
+    /**
+     * Returns the child, whose label matches the path at the given offset.
+     *
+     *
+     * @param path requested path
+     * @param offset offset of the label in the path
+     *
+     * @return matching child or null
+     */
+    private Node next(String path, int offset)
+    {
+      Node child = children.get(path.charAt(offset));
+
+      if ((child != null) && !path.startsWith(child.label, offset))
+      {
+        child = null;
+      }
+
+      return child;
+    }
+
+    /**
+     * Returns the length of the common prefix of the label and the name
+     * starting at the offset.
+     *
+     *
+     * @param label label of a node
+     * @param name repository name
+     * @param offset offset in the name
+     *
+     * @return length of the common prefix
+     */
+    private static int commonPrefix(String label, String name, int offset)
+    {
+      int max = Math.min(label.length(), name.length() - offset);
+      int i = 0;
+
+      while ((i < max) && (label.charAt(i) == name.charAt(offset + i)))
+      {
+        i++;
+      }
+
+      return i;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** child nodes by the first character of their label */
+    private final Map<Character, Node> children = Maps.newHashMap();
+
+    /** id of the repository, whose name ends at this node */
+    private String id;
+
+    /** part of the name, which is represented by this node */
+    private String label;
+  }
+
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** radix tree for each repository type */
+  private final Map<String, Node> roots = Maps.newHashMap();
+
+  /** version of the repositories */
+  private final long version;
+}
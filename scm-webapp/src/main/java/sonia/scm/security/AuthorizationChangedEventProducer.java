@@ -35,6 +35,7 @@ import com.google.common.eventbus.Subscribe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEvent;
 import sonia.scm.ModificationHandlerEvent;
 import sonia.scm.event.HandlerEventBase;
 import sonia.scm.event.ScmEventBus;
@@ -50,7 +51,8 @@ import sonia.scm.user.UserModificationEvent;
 
 /**
  * Receives all kinds of events, which affects authorization relevant data and fires an 
- * {@link AuthorizationChangedEvent} if authorization data has changed.
+ * {@link AuthorizationChangedEvent} if authorization data has changed. Deletions and changes which could remove 
+ * permissions are fired as revoking events, which are never coalesced.
  * 
  * @author Sebastian Sdorra
  * @since 1.52
@@ -100,7 +102,11 @@ public class AuthorizationChangedEventProducer {
     logger.debug(
       "fire authorization changed event for user {}, because of user {} event", username, event.getEventType()
     );
-    fireEventForUser(username);
+    fireEventForUser(username, isDeleteEvent(event));
+  }
+  
+  private boolean isDeleteEvent(HandlerEventBase<?> event) {
+    return event.getEventType() == HandlerEvent.DELETE;
   }
   
   private void handleUserModificationEvent(UserModificationEvent event) {
@@ -111,7 +117,7 @@ public class AuthorizationChangedEventProducer {
         "fire authorization changed event for user {}, because of a authorization relevant field has changed", 
         username
       );
-      fireEventForUser(username);
+      fireEventForUser(username, isAuthorizationRevoked(event.getItem(), beforeModification));
     } else {
       logger.debug(
         "authorization changed event for user {} is not fired, because no authorization relevant field has changed", 
@@ -124,8 +130,16 @@ public class AuthorizationChangedEventProducer {
     return user.isAdmin() != beforeModification.isAdmin() || user.isActive() != beforeModification.isActive();
   }
 
-  private void fireEventForUser(String username) {
-    sendEvent(AuthorizationChangedEvent.createForUser(username));
+  private boolean isAuthorizationRevoked(User user, User beforeModification) {
+    return (beforeModification.isAdmin() && !user.isAdmin()) || (beforeModification.isActive() && !user.isActive());
+  }
+
+  private void fireEventForUser(String username, boolean revoking) {
+    if (revoking) {
+      sendEvent(AuthorizationChangedEvent.createRevokingForUser(username));
+    } else {
+      sendEvent(AuthorizationChangedEvent.createForUser(username));
+    }
   }
 
   /**
@@ -155,7 +169,7 @@ public class AuthorizationChangedEventProducer {
       logger.debug(
         "fire authorization changed event, because a relevant field of repository {} has changed", repository.getName()
       );
-      fireEventForEveryUser();
+      fireEventForEveryUser(isAuthorizationRevoked(repository, event.getItemBeforeModification()));
     } else {
       logger.debug(
         "authorization changed event is not fired, because non relevant field of repository {} has changed",
@@ -170,8 +184,18 @@ public class AuthorizationChangedEventProducer {
       || ! repository.getPermissions().equals(beforeModification.getPermissions());
   }
   
-  private void fireEventForEveryUser() {
-    sendEvent(AuthorizationChangedEvent.createForEveryUser());
+  private boolean isAuthorizationRevoked(Repository repository, Repository beforeModification) {
+    return (repository.isArchived() && !beforeModification.isArchived())
+      || (beforeModification.isPublicReadable() && !repository.isPublicReadable())
+      || ! repository.getPermissions().containsAll(beforeModification.getPermissions());
+  }
+  
+  private void fireEventForEveryUser(boolean revoking) {
+    if (revoking) {
+      sendEvent(AuthorizationChangedEvent.createRevokingForEveryUser());
+    } else {
+      sendEvent(AuthorizationChangedEvent.createForEveryUser());
+    }
   }
   
   private void handleRepositoryEvent(RepositoryEvent event){
@@ -179,7 +203,7 @@ public class AuthorizationChangedEventProducer {
       "fire authorization changed event, because of received {} event for repository {}", 
       event.getEventType(), event.getItem().getName()
     );
-    fireEventForEveryUser();
+    fireEventForEveryUser(isDeleteEvent(event));
   }
 
   /**
@@ -192,28 +216,30 @@ public class AuthorizationChangedEventProducer {
   public void onEvent(StoredAssignedPermissionEvent event) {
     if (event.getEventType().isPost()) {
       StoredAssignedPermission permission = event.getPermission();
+      // only new permissions could not remove access, modified permissions could replace a wider one
+      boolean revoking = event.getEventType() != HandlerEvent.CREATE;
       if (permission.isGroupPermission()) {
-        handleGroupPermissionChange(permission);
+        handleGroupPermissionChange(permission, revoking);
       } else {
-        handleUserPermissionChange(permission);
+        handleUserPermissionChange(permission, revoking);
       }
     }
   }
   
-  private void handleGroupPermissionChange(StoredAssignedPermission permission) {
+  private void handleGroupPermissionChange(StoredAssignedPermission permission, boolean revoking) {
     logger.debug(
       "fire authorization changed event, because global group permission {} has changed", 
       permission.getId()
     );
-    fireEventForEveryUser();
+    fireEventForEveryUser(revoking);
   }
   
-  private void handleUserPermissionChange(StoredAssignedPermission permission) {
+  private void handleUserPermissionChange(StoredAssignedPermission permission, boolean revoking) {
     logger.debug(
         "fire authorization changed event for user {}, because permission {} has changed", 
         permission.getName(), permission.getId()
     );
-    fireEventForUser(permission.getName());    
+    fireEventForUser(permission.getName(), revoking);    
   }
 
   /**
@@ -241,7 +267,7 @@ public class AuthorizationChangedEventProducer {
     Group group = event.getItem();
     if (isAuthorizationDataModified(group, event.getItemBeforeModification())) {
       logger.debug("fire authorization changed event, because group {} has changed", group.getId());
-      fireEventForEveryUser();
+      fireEventForEveryUser(isAuthorizationRevoked(group, event.getItemBeforeModification()));
     } else {
       logger.debug(
         "authorization changed event is not fired, because non relevant field of group {} has changed", 
@@ -254,13 +280,17 @@ public class AuthorizationChangedEventProducer {
     return !group.getMembers().equals(beforeModification.getMembers());
   }
   
+  private boolean isAuthorizationRevoked(Group group, Group beforeModification) {
+    return !group.getMembers().containsAll(beforeModification.getMembers());
+  }
+  
   private void handleGroupEvent(GroupEvent event){
     logger.debug(
       "fire authorization changed event, because of received group event {} for group {}", 
       event.getEventType(), 
       event.getItem().getId()
     );
-    fireEventForEveryUser();    
+    fireEventForEveryUser(isDeleteEvent(event));    
   }
   
   @VisibleForTesting
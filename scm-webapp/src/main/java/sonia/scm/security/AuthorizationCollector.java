@@ -57,12 +57,10 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.event.Coalesce;
 import sonia.scm.group.GroupNames;
 import sonia.scm.repository.PermissionType;
-import sonia.scm.repository.Repository;
-import sonia.scm.repository.RepositoryDAO;
 import sonia.scm.user.User;
-import sonia.scm.util.Util;
 
 //~--- JDK imports ------------------------------------------------------------
 
@@ -98,17 +96,17 @@ public class AuthorizationCollector
    *
    *
    * @param cacheManager
-   * @param repositoryDAO
+   * @param permissionIndex
    * @param securitySystem
    * @param resolver
    */
   @Inject
   public AuthorizationCollector(CacheManager cacheManager,
-    RepositoryDAO repositoryDAO, SecuritySystem securitySystem,
+    RepositoryPermissionIndex permissionIndex, SecuritySystem securitySystem,
     PermissionResolver resolver)
   {
     this.cache = cacheManager.getCache(CacheKey.class, AuthorizationInfo.class, CACHE_NAME);
-    this.repositoryDAO = repositoryDAO;
+    this.permissionIndex = permissionIndex;
     this.securitySystem = securitySystem;
     this.resolver = resolver;
   }
@@ -155,7 +153,10 @@ public class AuthorizationCollector
 
     GroupNames groupNames = principals.oneByType(GroupNames.class);
 
-    CacheKey cacheKey = new CacheKey(user.getId(), groupNames);
+    // the version must be read before the permissions are collected, entries
+    // of an outdated version are never read again
+    CacheKey cacheKey = new CacheKey(user.getId(), groupNames,
+                          permissionIndex.getVersion());
 
     AuthorizationInfo info = cache.get(cacheKey);
 
@@ -215,7 +216,8 @@ public class AuthorizationCollector
   }
 
   /**
-   * Method description
+   * Collects the repository permissions of the user from the inverted
+   * permission index.
    *
    *
    *
@@ -227,59 +229,16 @@ public class AuthorizationCollector
   private void collectRepositoryPermissions(Builder<Permission> builder,
     User user, GroupNames groups)
   {
-    for (Repository repository : repositoryDAO.getAll())
-    {
-      collectRepositoryPermissions(builder, repository, user, groups);
-    }
-  }
-
-  /**
-   * Method description
-   *
-   *
-   *
-   * @param builder
-   * @param repository
-   * @param user
-   * @param groups
-   */
-  private void collectRepositoryPermissions(Builder<Permission> builder,
-    Repository repository, User user, GroupNames groups)
-  {
-    List<sonia.scm.repository.Permission> repositoryPermissions
-      = repository.getPermissions();
-
-    if (Util.isNotEmpty(repositoryPermissions))
-    {
-      boolean hasPermission = false;
-      for (sonia.scm.repository.Permission permission : repositoryPermissions)
-      {
-        if (isUserPermitted(user, groups, permission))
-        {
-          hasPermission = true;
-          RepositoryPermission rp = new RepositoryPermission(repository,
-            permission.getType());
+    List<RepositoryPermission> permissions =
+      permissionIndex.getPermissions(user, groups);
 
-          if (logger.isTraceEnabled())
-          {
-            logger.trace("add repository permission {} for user {} at repository {}", rp,
-              user.getName(), repository.getName());
-          }
-
-          builder.add(rp);
-        }
-      }
-
-      if (!hasPermission && logger.isTraceEnabled())
-      {
-        logger.trace("no permission for user {} defined at repository {}", user.getName(), repository.getName());
-      }
-    }
-    else if (logger.isTraceEnabled())
+    if (logger.isTraceEnabled())
     {
-      logger.trace("repository {} has no permission entries",
-        repository.getName());
+      logger.trace("add repository permissions {} for user {}", permissions,
+        user.getName());
     }
+
+    builder.addAll(permissions);
   }
 
   /**
@@ -326,7 +285,7 @@ public class AuthorizationCollector
       permissions = builder.build();
     }
 
-    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo(roles);
+    RepositoryAuthorizationInfo info = new RepositoryAuthorizationInfo(roles);
     info.addObjectPermissions(permissions);
     
     if (logger.isTraceEnabled()){
@@ -380,7 +339,15 @@ public class AuthorizationCollector
     //J+
   }
   
+  /**
+   * Invalidates the cached authorization data. Events which only add
+   * permissions are coalesced, revoking events are never merged and are
+   * processed immediately (see {@link AuthorizationChangedEvent#isRevoking()}).
+   *
+   * @param event authorization changed event
+   */
   @Subscribe
+  @Coalesce(window = 500)
   public void invalidateCache(AuthorizationChangedEvent event) {
     if (event.isEveryUserAffected()) {
       invalidateUserCache(event.getNameOfAffectedUser());
@@ -422,11 +389,13 @@ public class AuthorizationCollector
      *
      * @param username
      * @param groupnames
+     * @param version
      */
-    private CacheKey(String username, GroupNames groupnames)
+    private CacheKey(String username, GroupNames groupnames, long version)
     {
       this.username = username;
       this.groupnames = groupnames;
+      this.version = version;
     }
 
     //~--- methods ------------------------------------------------------------
@@ -450,7 +419,8 @@ public class AuthorizationCollector
       final CacheKey other = (CacheKey) obj;
 
       return Objects.equal(username, other.username)
-        && Objects.equal(groupnames, other.groupnames);
+        && Objects.equal(groupnames, other.groupnames)
+        && (version == other.version);
     }
 
     /**
@@ -459,7 +429,7 @@ public class AuthorizationCollector
     @Override
     public int hashCode()
     {
-      return Objects.hashCode(username, groupnames);
+      return Objects.hashCode(username, groupnames, version);
     }
 
     //~--- fields -------------------------------------------------------------
@@ -469,6 +439,9 @@ public class AuthorizationCollector
 
     /** Field description */
     private final String username;
+
+    /** version of the repository permission index */
+    private final long version;
   }
 
   //~--- fields ---------------------------------------------------------------
@@ -476,8 +449,8 @@ public class AuthorizationCollector
   /** Field description */
   private Cache<CacheKey, AuthorizationInfo> cache;
 
-  /** Field description */
-  private RepositoryDAO repositoryDAO;
+  /** inverted index of repository permissions */
+  private RepositoryPermissionIndex permissionIndex;
 
   /** Field description */
   private PermissionResolver resolver;
@@ -53,8 +53,11 @@ import sonia.scm.HandlerEvent;
 import sonia.scm.event.ScmEventBus;
 import sonia.scm.event.Subscriber;
 import sonia.scm.group.GroupEvent;
+import sonia.scm.store.BulkConfigurationEntryStore;
+import sonia.scm.store.BulkUpdate;
 import sonia.scm.store.ConfigurationEntryStore;
 import sonia.scm.store.ConfigurationEntryStoreFactory;
+import sonia.scm.store.DataStore;
 import sonia.scm.user.UserEvent;
 
 //~--- JDK imports ------------------------------------------------------------
@@ -240,11 +243,20 @@ public class DefaultSecuritySystem implements SecuritySystem
     assertIsAdmin();
     validatePermission(permission);
 
-    synchronized (store)
+    final String id = permission.getId();
+    final AssignedPermission ap = new AssignedPermission(permission);
+
+    // replace the permission with a single write of the store
+    update(new BulkUpdate<AssignedPermission>()
     {
-      store.remove(permission.getId());
-      store.put(permission.getId(), new AssignedPermission(permission));
-    }
+
+      @Override
+      public void apply(DataStore<AssignedPermission> store)
+      {
+        store.remove(id);
+        store.put(id, ap);
+      }
+    });
 
     //J-
     ScmEventBus.getInstance().post(
@@ -349,11 +361,35 @@ public class DefaultSecuritySystem implements SecuritySystem
    */
   private void deletePermissions(Predicate<AssignedPermission> predicate)
   {
-    List<StoredAssignedPermission> permissions = getPermissions(predicate);
+    final List<StoredAssignedPermission> permissions =
+      getPermissions(predicate);
 
-    for (StoredAssignedPermission permission : permissions)
+    if (!permissions.isEmpty())
     {
-      deletePermission(permission);
+      assertIsAdmin();
+
+      // remove all permissions with a single write of the store
+      update(new BulkUpdate<AssignedPermission>()
+      {
+
+        @Override
+        public void apply(DataStore<AssignedPermission> store)
+        {
+          for (StoredAssignedPermission permission : permissions)
+          {
+            store.remove(permission.getId());
+          }
+        }
+      });
+
+      for (StoredAssignedPermission permission : permissions)
+      {
+        //J-
+        ScmEventBus.getInstance().post(
+          new StoredAssignedPermissionEvent(HandlerEvent.CREATE, permission)
+        );
+        //J+
+      }
     }
   }
 
@@ -429,6 +465,26 @@ public class DefaultSecuritySystem implements SecuritySystem
     availablePermissions = builder.build();
   }
 
+  /**
+   * Applies the bulk update with a single write, if the store supports bulk
+   * updates. Otherwise the changes are applied directly to the store.
+   *
+   *
+   * @param update bulk update
+   */
+  @SuppressWarnings("unchecked")
+  private void update(BulkUpdate<AssignedPermission> update)
+  {
+    if (store instanceof BulkConfigurationEntryStore)
+    {
+      ((BulkConfigurationEntryStore<AssignedPermission>) store).update(update);
+    }
+    else
+    {
+      update.apply(store);
+    }
+  }
+
   /**
    * Method description
    *
@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.security;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+
+import sonia.scm.repository.PermissionType;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link SimpleAuthorizationInfo} which keeps its {@link RepositoryPermission}s
+ * in a map by repository id. This allows checks for repository permissions in
+ * constant time, instead of calling {@link Permission#implies(Permission)} for
+ * each granted permission.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+public final class RepositoryAuthorizationInfo extends SimpleAuthorizationInfo
+{
+
+  /** Field description */
+  private static final long serialVersionUID = -4532711424366284571L;
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new RepositoryAuthorizationInfo.
+   *
+   *
+   * @param roles granted roles
+   */
+  public RepositoryAuthorizationInfo(Set<String> roles)
+  {
+    super(roles);
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param permission
+   */
+  @Override
+  public void addObjectPermission(Permission permission)
+  {
+    super.addObjectPermission(permission);
+    index(permission);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param permissions
+   */
+  @Override
+  public void addObjectPermissions(Collection<Permission> permissions)
+  {
+    super.addObjectPermissions(permissions);
+
+    for (Permission permission : permissions)
+    {
+      index(permission);
+    }
+  }
+
+  /**
+   * Returns true if the requested repository permission is implied by one of
+   * the granted permissions.
+   *
+   *
+   * @param requested requested repository permission
+   *
+   * @return true if the permission is granted
+   */
+  public boolean isPermitted(RepositoryPermission requested)
+  {
+    PermissionType granted = wildcard;
+
+    if (!RepositoryPermission.WILDCARD.equals(requested.getRepositoryId()))
+    {
+      granted = max(granted, grants.get(requested.getRepositoryId()));
+    }
+
+    boolean permitted = (granted != null)
+      && (granted.getValue() >= requested.getPermissionType().getValue());
+
+    // other permission types are able to imply repository permissions, too
+    for (int i = 0; !permitted && (i < otherPermissions.size()); i++)
+    {
+      permitted = otherPermissions.get(i).implies(requested);
+    }
+
+    return permitted;
+  }
+
+  //~--- set methods ----------------------------------------------------------
+
+  /**
+   * {@inheritDoc}
+   *
+   *
+   * @param objectPermissions
+   */
+  @Override
+  public void setObjectPermissions(Set<Permission> objectPermissions)
+  {
+    super.setObjectPermissions(objectPermissions);
+    grants.clear();
+    otherPermissions.clear();
+    wildcard = null;
+
+    if (objectPermissions != null)
+    {
+      for (Permission permission : objectPermissions)
+      {
+        index(permission);
+      }
+    }
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Method description
+   *
+   *
+   * @param first
+   * @param second
+   *
+   * @return
+   */
+  private PermissionType max(PermissionType first, PermissionType second)
+  {
+    PermissionType type = first;
+
+    if ((type == null)
+      || ((second != null) && (second.getValue() > type.getValue())))
+    {
+      type = second;
+    }
+
+    return type;
+  }
+
+  /**
+   * Adds the permission to the map of repository grants or to the list of
+   * other permissions.
+   *
+   *
+   * @param permission granted permission
+   */
+  private void index(Permission permission)
+  {
+    if (permission instanceof RepositoryPermission)
+    {
+      RepositoryPermission rp = (RepositoryPermission) permission;
+      String id = rp.getRepositoryId();
+
+      if (RepositoryPermission.WILDCARD.equals(id))
+      {
+        wildcard = max(wildcard, rp.getPermissionType());
+      }
+      else
+      {
+        grants.put(id, max(grants.get(id), rp.getPermissionType()));
+      }
+    }
+    else if (permission != null)
+    {
+      otherPermissions.add(permission);
+    }
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** highest granted permission type by repository id */
+  private final Map<String, PermissionType> grants = Maps.newHashMap();
+
+  /** granted permissions, which are not repository permissions */
+  private final List<Permission> otherPermissions = Lists.newArrayList();
+
+  /** highest permission type, which is granted for all repositories */
+  private PermissionType wildcard;
+}
@@ -0,0 +1,385 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.security;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sonia.scm.HandlerEvent;
+import sonia.scm.group.GroupNames;
+import sonia.scm.repository.Permission;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryDAO;
+import sonia.scm.repository.RepositoryEvent;
+import sonia.scm.user.User;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of the permissions of all repositories. The index maps user
+ * and group names to the {@link RepositoryPermission}s, which are granted to
+ * them. The index is created from the {@link RepositoryDAO} on first access
+ * and is updated for each created, modified or deleted repository.
+ *
+ * @author Sebastian Sdorra
+ * @since 1.58
+ */
+@Singleton
+public class RepositoryPermissionIndex
+{
+
+  /**
+   * the logger for RepositoryPermissionIndex
+   */
+  private static final Logger logger =
+    LoggerFactory.getLogger(RepositoryPermissionIndex.class);
+
+  //~--- constructors ---------------------------------------------------------
+
+  /**
+   * Constructs a new RepositoryPermissionIndex.
+   *
+   *
+   * @param repositoryDAO repository dao
+   */
+  @Inject
+  public RepositoryPermissionIndex(RepositoryDAO repositoryDAO)
+  {
+    this.repositoryDAO = repositoryDAO;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Updates the index for a created, modified or deleted repository.
+   *
+   *
+   * @param event repository event
+   */
+  @Subscribe
+  public void onEvent(RepositoryEvent event)
+  {
+    HandlerEvent type = event.getEventType();
+    Repository repository = event.getItem();
+
+    if (type.isPost() && (repository != null))
+    {
+      synchronized (this)
+      {
+        if (repositoryGrants != null)
+        {
+          List<Permission> permissions = (type == HandlerEvent.DELETE)
+            ? null
+            : repository.getPermissions();
+
+          update(repository.getId(), permissions);
+        }
+      }
+    }
+  }
+
+  //~--- get methods ----------------------------------------------------------
+
+  /**
+   * Returns all repository permissions which are granted to the user or to
+   * one of the groups.
+   *
+   *
+   * @param user user
+   * @param groups groups of the user
+   *
+   * @return granted repository permissions
+   */
+  public synchronized List<RepositoryPermission> getPermissions(User user,
+    GroupNames groups)
+  {
+    init();
+
+    List<RepositoryPermission> permissions = Lists.newArrayList();
+
+    append(permissions, userPermissions.get(user.getName()));
+
+    if (groups != null)
+    {
+      for (String group : groups)
+      {
+        append(permissions, groupPermissions.get(group));
+      }
+    }
+
+    return permissions;
+  }
+
+  /**
+   * Returns the version of the index. The version is incremented, whenever
+   * granted permissions have changed.
+   *
+   *
+   * @return version of the index
+   */
+  public synchronized long getVersion()
+  {
+    return version;
+  }
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Method description
+   *
+   *
+   * @param permissions
+   * @param granted
+   */
+  private void append(List<RepositoryPermission> permissions,
+    Set<RepositoryPermission> granted)
+  {
+    if (granted != null)
+    {
+      permissions.addAll(granted);
+    }
+  }
+
+  /**
+   * Adds or removes the grant to or from the index.
+   *
+   *
+   * @param grant grant
+   * @param add true to add the grant
+   */
+  private void index(Grant grant, boolean add)
+  {
+    Map<String, Set<RepositoryPermission>> map = grant.group
+      ? groupPermissions
+      : userPermissions;
+    Set<RepositoryPermission> granted = map.get(grant.name);
+
+    if (add)
+    {
+      if (granted == null)
+      {
+        granted = Sets.newHashSet();
+        map.put(grant.name, granted);
+      }
+
+      granted.add(grant.permission);
+    }
+    else if (granted != null)
+    {
+      granted.remove(grant.permission);
+
+      if (granted.isEmpty())
+      {
+        map.remove(grant.name);
+      }
+    }
+  }
+
+  /**
+   * Creates the index on first access.
+   */
+  private void init()
+  {
+    if (repositoryGrants == null)
+    {
+      logger.debug("create repository permission index");
+
+      repositoryGrants = Maps.newHashMap();
+
+      for (Repository repository : repositoryDAO.getAll())
+      {
+        update(repository.getId(), repository.getPermissions());
+      }
+    }
+  }
+
+  /**
+   * Replaces the indexed grants of the repository.
+   *
+   *
+   * @param repositoryId id of the repository
+   * @param permissions new permissions or null if the repository was deleted
+   */
+  private void update(String repositoryId, List<Permission> permissions)
+  {
+    Set<Grant> newGrants = Sets.newHashSet();
+
+    if (permissions != null)
+    {
+      for (Permission permission : permissions)
+      {
+        if ((permission.getName() != null) && (permission.getType() != null))
+        {
+          newGrants.add(new Grant(repositoryId, permission));
+        }
+      }
+    }
+
+    Set<Grant> oldGrants = repositoryGrants.get(repositoryId);
+
+    if (oldGrants == null)
+    {
+      oldGrants = ImmutableSet.of();
+    }
+
+    if (!oldGrants.equals(newGrants))
+    {
+      logger.trace("update permissions of repository {} in index",
+        repositoryId);
+
+      for (Grant grant : oldGrants)
+      {
+        index(grant, false);
+      }
+
+      for (Grant grant : newGrants)
+      {
+        index(grant, true);
+      }
+
+      if (newGrants.isEmpty())
+      {
+        repositoryGrants.remove(repositoryId);
+      }
+      else
+      {
+        repositoryGrants.put(repositoryId, newGrants);
+      }
+
+      version++;
+    }
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Immutable copy of a permission entry of a repository.
+   */
+  private static final class Grant
+  {
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param repositoryId
+     * @param permission
+     */
+    private Grant(String repositoryId, Permission permission)
+    {
+      this.name = permission.getName();
+      this.group = permission.isGroupPermission();
+      this.permission = new RepositoryPermission(repositoryId,
+        permission.getType());
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj == null)
+      {
+        return false;
+      }
+
+      if (getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      final Grant other = (Grant) obj;
+
+      return name.equals(other.name) && (group == other.group)
+        && permission.equals(other.permission);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode(name, group, permission);
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** true for group permissions */
+    private final boolean group;
+
+    /** name of the user or group */
+    private final String name;
+
+    /** granted permission */
+    private final RepositoryPermission permission;
+  }
+
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** granted repository permissions by group name */
+  private final Map<String, Set<RepositoryPermission>> groupPermissions =
+    Maps.newHashMap();
+
+  /** repository dao */
+  private final RepositoryDAO repositoryDAO;
+
+  /** granted repository permissions by user name */
+  private final Map<String, Set<RepositoryPermission>> userPermissions =
+    Maps.newHashMap();
+
+  /** indexed grants by repository id or null before init */
+  private Map<String, Set<Grant>> repositoryGrants;
+
+  /** incremented whenever granted permissions have changed */
+  private long version = 0;
+}
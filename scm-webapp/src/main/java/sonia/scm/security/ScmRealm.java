@@ -47,6 +47,7 @@ import org.apache.shiro.authc.UnknownAccountException;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authc.pam.UnsupportedTokenException;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
@@ -57,6 +58,7 @@ import sonia.scm.web.security.AuthenticationState;
 
 //~--- JDK imports ------------------------------------------------------------
 
+import java.util.Collection;
 
 /**
  * SCM-Manager authentication realm.
@@ -150,6 +152,37 @@ public class ScmRealm extends AuthorizingRealm {
     return authzCollector.collect(principals);
   }
 
+  /**
+   * Checks repository permissions with a lookup by repository id, if the
+   * authorization info was created by the {@link AuthorizationCollector}. All
+   * other checks, and permissions which have to be resolved first, are
+   * delegated to the default implementation, which calls implies on each
+   * granted permission.
+   *
+   * @param permission requested permission
+   * @param info authorization info of the subject
+   *
+   * @return true if the permission is granted
+   */
+  @Override
+  protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+    if (permission instanceof RepositoryPermission && info instanceof RepositoryAuthorizationInfo) {
+      if (((RepositoryAuthorizationInfo) info).isPermitted((RepositoryPermission) permission)) {
+        return true;
+      }
+      if (!hasUnresolvedPermissions(info)) {
+        return false;
+      }
+    }
+    return super.isPermitted(permission, info);
+  }
+
+  private boolean hasUnresolvedPermissions(AuthorizationInfo info) {
+    Collection<String> stringPermissions = info.getStringPermissions();
+    return getRolePermissionResolver() != null
+      || (stringPermissions != null && !stringPermissions.isEmpty());
+  }
+
   @Subscribe
   public void invalidateCache(AuthorizationChangedEvent event) {
     if (event.isEveryUserAffected()) {
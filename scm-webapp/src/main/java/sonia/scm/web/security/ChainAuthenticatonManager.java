@@ -36,6 +36,7 @@ package sonia.scm.web.security;
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
@@ -48,7 +49,7 @@ import sonia.scm.SCMContextProvider;
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
 import sonia.scm.config.ScmConfiguration;
-import sonia.scm.security.EncryptionHandler;
+import sonia.scm.security.EncryptionException;
 import sonia.scm.user.User;
 import sonia.scm.user.UserManager;
 import sonia.scm.util.AssertUtil;
@@ -60,13 +61,27 @@ import sonia.scm.util.Util;
 import java.io.IOException;
 import java.io.Serializable;
 
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
 import java.util.List;
 import java.util.Set;
 
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
+ * Authenticates users with the chain of {@link AuthenticationHandler}s and
+ * caches successful results for a short time. The cache does not store the
+ * password or a stored password hash. It stores a HMAC of the credentials,
+ * which is keyed with a random key of the running process. So the expensive
+ * password hash of the handlers runs only once per credentials and cache
+ * period, and not on every request of a clone.
  *
  * @author Sebastian Sdorra
  */
@@ -77,6 +92,12 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
   /** Field description */
   public static final String CACHE_NAME = "sonia.cache.auth";
 
+  /** algorithm of the credentials hash */
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+
+  /** length of the credentials hash key in bytes */
+  private static final int MAC_KEY_LENGTH = 32;
+
   /** the logger for ChainAuthenticatonManager */
   private static final Logger logger =
     LoggerFactory.getLogger(ChainAuthenticatonManager.class);
@@ -92,7 +113,6 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
    * @param configuration
    * @param userManager
    * @param authenticationHandlerSet
-   * @param encryptionHandler
    * @param cacheManager
    * @param authenticationListeners
    */
@@ -100,14 +120,14 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
   public ChainAuthenticatonManager(ScmConfiguration configuration,
     UserManager userManager,
     Set<AuthenticationHandler> authenticationHandlerSet,
-    EncryptionHandler encryptionHandler, CacheManager cacheManager,
+    CacheManager cacheManager,
     Set<AuthenticationListener> authenticationListeners)
   {
     AssertUtil.assertIsNotEmpty(authenticationHandlerSet);
     AssertUtil.assertIsNotNull(cacheManager);
     this.configuration = configuration;
     this.authenticationHandlers = sort(userManager, authenticationHandlerSet);
-    this.encryptionHandler = encryptionHandler;
+    this.credentialsKey = createCredentialsKey();
     this.cache = cacheManager.getCache(String.class,
       AuthenticationCacheValue.class, CACHE_NAME);
 
@@ -137,8 +157,8 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
     AssertUtil.assertIsNotEmpty(username);
     AssertUtil.assertIsNotEmpty(password);
 
-    String encryptedPassword = encryptionHandler.encrypt(password);
-    AuthenticationResult ar = getCached(username, encryptedPassword);
+    byte[] credentials = hashCredentials(username, password);
+    AuthenticationResult ar = getCached(username, credentials);
 
     if (ar == null)
     {
@@ -153,7 +173,7 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
       if ((ar != null) && ar.isCacheable())
       {
         cache.put(username,
-          new AuthenticationCacheValue(ar, encryptedPassword));
+          new AuthenticationCacheValue(ar, credentials));
       }
     }
     else if (logger.isDebugEnabled())
@@ -204,6 +224,35 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
     }
   }
 
+  /**
+   * Creates a fast keyed hash of the credentials, which is used to compare
+   * the credentials with those of the cached authentication result.
+   *
+   *
+   * @param username username
+   * @param password password
+   *
+   * @return hash of the credentials
+   */
+  @VisibleForTesting
+  byte[] hashCredentials(String username, String password)
+  {
+    try
+    {
+      Mac mac = Mac.getInstance(MAC_ALGORITHM);
+
+      mac.init(credentialsKey);
+      mac.update(username.getBytes(Charsets.UTF_8));
+      mac.update((byte) 0);
+
+      return mac.doFinal(password.getBytes(Charsets.UTF_8));
+    }
+    catch (GeneralSecurityException ex)
+    {
+      throw new EncryptionException(ex);
+    }
+  }
+
   /**
    * Method description
    *
@@ -220,6 +269,22 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
           &&!configuration.isSkipFailedAuthenticators()));
   }
 
+  /**
+   * Creates the random key of the credentials hash. The key lives only in
+   * the running process, so cached hashes are useless outside of it.
+   *
+   *
+   * @return random key
+   */
+  private SecretKey createCredentialsKey()
+  {
+    byte[] key = new byte[MAC_KEY_LENGTH];
+
+    new SecureRandom().nextBytes(key);
+
+    return new SecretKeySpec(key, MAC_ALGORITHM);
+  }
+
   /**
    * Method description
    *
@@ -327,21 +392,18 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
    *
    *
    * @param username
-   * @param encryptedPassword
+   * @param credentials
    *
    * @return
    */
-  private AuthenticationResult getCached(String username,
-    String encryptedPassword)
+  private AuthenticationResult getCached(String username, byte[] credentials)
   {
     AuthenticationResult result = null;
     AuthenticationCacheValue value = cache.get(username);
 
     if (value != null)
     {
-      String cachedPassword = value.password;
-
-      if (cachedPassword.equals(encryptedPassword))
+      if (MessageDigest.isEqual(value.credentials, credentials))
       {
         result = value.authenticationResult;
       }
@@ -363,7 +425,7 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
   {
 
     /** Field description */
-    private static final long serialVersionUID = 2201116145941277549L;
+    private static final long serialVersionUID = -2725318264981529130L;
 
     //~--- constructors -------------------------------------------------------
 
@@ -373,14 +435,15 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
      *
      *
      * @param ar
-     * @param password
+     * @param credentials
      */
-    public AuthenticationCacheValue(AuthenticationResult ar, String password)
+    public AuthenticationCacheValue(AuthenticationResult ar,
+      byte[] credentials)
     {
       this.authenticationResult =
         new AuthenticationResult(ar.getUser().clone(), ar.getGroups(),
           ar.getState());
-      this.password = password;
+      this.credentials = credentials;
     }
 
     //~--- fields -------------------------------------------------------------
@@ -388,8 +451,8 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
     /** Field description */
     private AuthenticationResult authenticationResult;
 
-    /** Field description */
-    private String password;
+    /** keyed hash of the credentials */
+    private byte[] credentials;
   }
 
 
@@ -404,6 +467,6 @@ public class ChainAuthenticatonManager extends AbstractAuthenticationManager
   /** Field description */
   private final ScmConfiguration configuration;
 
-  /** Field description */
-  private final EncryptionHandler encryptionHandler;
+  /** process local key of the credentials hash */
+  private final SecretKey credentialsKey;
 }
@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory;
 
 import sonia.scm.SCMContextProvider;
 import sonia.scm.security.EncryptionHandler;
+import sonia.scm.security.Passwords;
 import sonia.scm.user.User;
 import sonia.scm.user.UserManager;
 
@@ -191,9 +192,8 @@ public class DefaultAuthenticationHandler implements AuthenticationHandler
           String password)
   {
     AuthenticationResult result = null;
-    String encryptedPassword = encryptionHandler.encrypt(password);
 
-    if (!encryptedPassword.equalsIgnoreCase(user.getPassword()))
+    if (!Passwords.matches(encryptionHandler, password, user.getPassword()))
     {
       user = null;
 
@@ -0,0 +1,198 @@
+package sonia.scm.api.rest.resources;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import sonia.scm.cache.MapCacheManager;
+import sonia.scm.config.ScmConfiguration;
+import sonia.scm.repository.BrowserResult;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.FileObject;
+import sonia.scm.repository.Person;
+import sonia.scm.repository.PreProcessorUtil;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+import sonia.scm.repository.spi.BrowseCommand;
+import sonia.scm.repository.spi.BrowseCommandRequest;
+import sonia.scm.repository.spi.LogCommand;
+import sonia.scm.repository.spi.RepositoryServiceProvider;
+import sonia.scm.repository.spi.RepositoryServiceResolver;
+import sonia.scm.util.MockUtil;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RepositoryResourceTest {
+
+  private static final String REVISION = "a3b1f9d2c44e5f6a7b8c9d0e1f2a3b4c5d6e7f80";
+
+  @Mock
+  private RepositoryManager repositoryManager;
+
+  @Mock
+  private Request request;
+
+  @Mock
+  private BrowseCommand browseCommand;
+
+  @Mock
+  private LogCommand logCommand;
+
+  private RepositoryResource resource;
+
+  private Repository repository;
+
+  @Before
+  public void setUp() {
+    repository = new Repository("42", "git", "hitchhiker");
+    when(repositoryManager.get("42")).thenReturn(repository);
+
+    // without a service factory every request, which opens a repository service, fails
+    resource = new RepositoryResource(new ScmConfiguration(), repositoryManager, null, null);
+  }
+
+  @Test
+  public void shouldAnswerNotModifiedBeforeOpeningTheRepositoryService() throws Exception {
+    when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+
+    Response response = resource.getContent(request, "42", REVISION, "README.md");
+
+    assertEquals(304, response.getStatus());
+    assertTrue(response.getMetadata().getFirst("Cache-Control").toString().contains("immutable"));
+  }
+
+  @Test
+  public void shouldCreateEntityTagsForEachRepresentation() throws Exception {
+    when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+
+    resource.getContent(request, "42", REVISION, "README.md");
+    resource.getContent(request, "42", REVISION, "pom.xml");
+    resource.getChangeset(request, "42", REVISION);
+
+    ArgumentCaptor<EntityTag> captor = ArgumentCaptor.forClass(EntityTag.class);
+    verify(request, times(3)).evaluatePreconditions(captor.capture());
+
+    EntityTag readme = captor.getAllValues().get(0);
+    assertNotEquals(readme, captor.getAllValues().get(1));
+    assertNotEquals(readme, captor.getAllValues().get(2));
+    assertEquals(false, readme.isWeak());
+  }
+
+  @Test
+  public void shouldNotCreateEntityTagForUnresolvedHead() throws Exception {
+    when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+
+    // e.g. subversion, which answers a browse of the head with revision -1
+    BrowserResult head = new BrowserResult();
+    head.setRevision("-1");
+    when(browseCommand.getBrowserResult(any(BrowseCommandRequest.class))).thenReturn(head);
+
+    ThreadContext.bind(MockUtil.createAdminSubject());
+    resource = new RepositoryResource(new ScmConfiguration(), repositoryManager, createServiceFactory(), null);
+
+    Response response = resource.getBrowserResult(request, "42", null, "trunk", false, false, false);
+
+    assertEquals(200, response.getStatus());
+    assertNull(response.getMetadata().getFirst("ETag"));
+    verify(request, never()).evaluatePreconditions(any(EntityTag.class));
+  }
+
+  @Test
+  public void shouldChangeEntityTagOfResolvedChangesetWithItsLogMessage() throws Exception {
+    ThreadContext.bind(MockUtil.createAdminSubject());
+
+    // e.g. a changed svn:log property of subversion revision 5
+    Object before = getChangesetEntityTag(createChangeset("first message"));
+    Object after = getChangesetEntityTag(createChangeset("changed message"));
+
+    assertNotNull(before);
+    assertNotEquals(before, after);
+    assertEquals(before, getChangesetEntityTag(createChangeset("first message")));
+  }
+
+  @Test
+  public void shouldChangeEntityTagOfResolvedBrowseWithTheLastCommit() throws Exception {
+    ThreadContext.bind(MockUtil.createAdminSubject());
+
+    Object before = getBrowseEntityTag(createBrowserResult("first message"));
+    Object after = getBrowseEntityTag(createBrowserResult("changed message"));
+
+    assertNotNull(before);
+    assertNotEquals(before, after);
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
+  private Object getChangesetEntityTag(Changeset changeset) throws Exception {
+    when(logCommand.getChangeset("5")).thenReturn(changeset);
+    resource = new RepositoryResource(new ScmConfiguration(), repositoryManager, createServiceFactory(), null);
+
+    Response response = resource.getChangeset(request, "42", "5");
+
+    assertEquals(200, response.getStatus());
+    return response.getMetadata().getFirst("ETag");
+  }
+
+  private Object getBrowseEntityTag(BrowserResult result) throws Exception {
+    when(browseCommand.getBrowserResult(any(BrowseCommandRequest.class))).thenReturn(result);
+    resource = new RepositoryResource(new ScmConfiguration(), repositoryManager, createServiceFactory(), null);
+
+    Response response = resource.getBrowserResult(request, "42", "5", "trunk", false, false, false);
+
+    assertEquals(200, response.getStatus());
+    return response.getMetadata().getFirst("ETag");
+  }
+
+  private Changeset createChangeset(String description) {
+    return new Changeset("5", 1L, new Person("trillian"), description);
+  }
+
+  private BrowserResult createBrowserResult(String description) {
+    FileObject file = new FileObject();
+    file.setName("a.txt");
+    file.setPath("trunk/a.txt");
+    file.setDescription(description);
+
+    BrowserResult result = new BrowserResult();
+    result.setRevision("5");
+    result.setFiles(Lists.newArrayList(file));
+    return result;
+  }
+
+  private RepositoryServiceFactory createServiceFactory() {
+    RepositoryServiceProvider provider = mock(RepositoryServiceProvider.class);
+    when(provider.getBrowseCommand()).thenReturn(browseCommand);
+    when(provider.getLogCommand()).thenReturn(logCommand);
+
+    RepositoryServiceResolver resolver = mock(RepositoryServiceResolver.class);
+    when(resolver.reslove(repository)).thenReturn(provider);
+
+    return new RepositoryServiceFactory(new MapCacheManager(), repositoryManager,
+      ImmutableSet.of(resolver), mock(PreProcessorUtil.class));
+  }
+}
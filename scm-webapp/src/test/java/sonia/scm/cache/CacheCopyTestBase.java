@@ -122,6 +122,27 @@ public abstract class CacheCopyTestBase
     assertEquals(1, mo.getVersion());
   }
 
+  /**
+   * Tests the structural strategy with an object, which is copied with java
+   * serialization.
+   *
+   */
+  @Test
+  public void testStructuralCopy()
+  {
+    Cache<String, MutableObject> cache = createCache(CopyStrategy.STRUCTURAL);
+    MutableObject mo = new MutableObject(1);
+
+    cache.put("a", mo);
+    mo.setVersion(2);
+    mo = cache.get("a");
+    assertEquals(1, mo.getVersion());
+
+    mo.setVersion(2);
+    mo = cache.get("a");
+    assertEquals(1, mo.getVersion());
+  }
+
   /**
    * Method description
    *
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.cache;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Set;
+
+/**
+ * Unit tests for {@link CacheRegionIndex}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class CacheRegionIndexTest
+{
+
+  /**
+   * Tests add and remove of keys and regions.
+   *
+   */
+  @Test
+  public void testRemoveRegion()
+  {
+    CacheRegionIndex<Object> index = createIndex();
+
+    index.add(new Key("a", 1));
+    index.add(new Key("a", 2));
+    index.add(new Key("b", 1));
+    index.add("no region key");
+    assertEquals(3, index.size());
+
+    assertEquals(Sets.newHashSet(new Key("a", 1), new Key("a", 2)),
+      index.removeRegion("a"));
+    assertTrue(index.removeRegion("a").isEmpty());
+    assertEquals(1, index.size());
+
+    index.remove(new Key("b", 1));
+    assertEquals(0, index.size());
+    assertTrue(index.removeRegion("b").isEmpty());
+  }
+
+  /**
+   * Tests that the keys of evicted elements are removed from the index.
+   *
+   */
+  @Test
+  public void testCleanup()
+  {
+    CacheRegionIndex<Object> index = createIndex();
+
+    // simulate a cache which holds only the last ten elements
+    for (int i = 0; i < 1000; i++)
+    {
+      Key key = new Key("a", i);
+
+      cached.add(key);
+      cached.remove(new Key("a", i - 10));
+      index.add(key);
+    }
+
+    assertTrue(index.size() <= 128);
+
+    Set<Object> keys = index.removeRegion("a");
+
+    assertTrue(keys.containsAll(cached));
+    assertEquals(0, index.size());
+  }
+
+  /**
+   * Tests clear of the index.
+   *
+   */
+  @Test
+  public void testClear()
+  {
+    CacheRegionIndex<Object> index = createIndex();
+
+    index.add(new Key("a", 1));
+    index.clear();
+    assertEquals(0, index.size());
+    assertTrue(index.removeRegion("a").isEmpty());
+  }
+
+  private CacheRegionIndex<Object> createIndex()
+  {
+    return new CacheRegionIndex<Object>(new Predicate<Object>()
+    {
+      @Override
+      public boolean apply(Object key)
+      {
+        return cached.contains(key);
+      }
+    });
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Cache key with region.
+   */
+  private static class Key implements RegionKey
+  {
+
+    /**
+     * Constructs a new key.
+     *
+     *
+     * @param region
+     * @param id
+     */
+    public Key(String region, int id)
+    {
+      this.region = region;
+      this.id = id;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj == null)
+      {
+        return false;
+      }
+
+      if (getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      final Key other = (Key) obj;
+
+      return Objects.equal(region, other.region) && (id == other.id);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode(region, id);
+    }
+
+    //~--- get methods --------------------------------------------------------
+
+    @Override
+    public String getRegion()
+    {
+      return region;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** Field description */
+    private final int id;
+
+    /** Field description */
+    private final String region;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** keys of the simulated cache */
+  private final Set<Object> cached = Sets.newHashSet();
+}
@@ -34,6 +34,8 @@ package sonia.scm.cache;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.base.Objects;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +45,10 @@ import sonia.scm.util.IOUtil;
 
 import static org.junit.Assert.*;
 
+//~--- JDK imports ------------------------------------------------------------
+
+import java.io.Serializable;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -156,6 +162,106 @@ public abstract class CacheTestBase
     assertNotNull(cache.get("a-2"));
   }
 
+  /**
+   * Tests that only the elements of the region are removed.
+   *
+   */
+  @Test
+  public void testRemoveRegion()
+  {
+    Cache<RegionTestKey, String> testCache = cm.getCache(RegionTestKey.class,
+                                               String.class, "region-test");
+
+    assertTrue(testCache instanceof RegionCache);
+
+    RegionCache<RegionTestKey, String> regionCache =
+      (RegionCache<RegionTestKey, String>) testCache;
+
+    regionCache.put(new RegionTestKey("a", "1"), "test123");
+    regionCache.put(new RegionTestKey("a", "2"), "test123");
+    regionCache.put(new RegionTestKey("b", "1"), "test123");
+
+    assertTrue(regionCache.removeRegion("a"));
+    assertFalse(regionCache.removeRegion("c"));
+    assertNull(regionCache.get(new RegionTestKey("a", "1")));
+    assertNull(regionCache.get(new RegionTestKey("a", "2")));
+    assertNotNull(regionCache.get(new RegionTestKey("b", "1")));
+
+    // elements which are put after the region was removed, must be indexed
+    regionCache.put(new RegionTestKey("a", "1"), "test123");
+    assertTrue(regionCache.removeRegion("a"));
+    assertNull(regionCache.get(new RegionTestKey("a", "1")));
+  }
+
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Serializable cache key with region.
+   */
+  private static class RegionTestKey implements RegionKey, Serializable
+  {
+
+    /** Field description */
+    private static final long serialVersionUID = 2351093470148591834L;
+
+    //~--- constructors -------------------------------------------------------
+
+    /**
+     * Constructs a new key.
+     *
+     *
+     * @param region
+     * @param id
+     */
+    public RegionTestKey(String region, String id)
+    {
+      this.region = region;
+      this.id = id;
+    }
+
+    //~--- methods ------------------------------------------------------------
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj == null)
+      {
+        return false;
+      }
+
+      if (getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      final RegionTestKey other = (RegionTestKey) obj;
+
+      return Objects.equal(region, other.region) && Objects.equal(id, other.id);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode(region, id);
+    }
+
+    //~--- get methods --------------------------------------------------------
+
+    @Override
+    public String getRegion()
+    {
+      return region;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** Field description */
+    private final String id;
+
+    /** Field description */
+    private final String region;
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
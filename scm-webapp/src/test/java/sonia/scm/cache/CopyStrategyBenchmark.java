@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.cache;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.Modifications;
+import sonia.scm.repository.Person;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serialization based {@link CopyStrategy#READWRITE} with the
+ * {@link CopyStrategy#STRUCTURAL} strategy for a changeset paging result, which
+ * is the most expensive value of the repository command caches. The benchmark
+ * is not executed during the build, it can be started with the main method
+ * from the test classpath.
+ *
+ * @author Sebastian Sdorra
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyStrategyBenchmark
+{
+
+  /**
+   * Starts the benchmark.
+   *
+   *
+   * @param args unused
+   *
+   * @throws RunnerException
+   */
+  public static void main(String[] args) throws RunnerException
+  {
+    Options options = new OptionsBuilder().include(
+                        CopyStrategyBenchmark.class.getSimpleName()).build();
+
+    new Runner(options).run();
+  }
+
+  /**
+   * Creates a changeset paging result with the configured amount of
+   * changesets.
+   *
+   */
+  @Setup
+  public void setUp()
+  {
+    List<Changeset> changesets = new ArrayList<Changeset>(size);
+
+    for (int i = 0; i < size; i++)
+    {
+      Changeset changeset = new Changeset(String.valueOf(i),
+                              System.currentTimeMillis(),
+                              new Person("Arthur Dent",
+                                "arthur.dent@hitchhiker.com"), "changeset " + i);
+
+      changeset.getParents().add(String.valueOf(i + 1));
+      changeset.getBranches().add("master");
+
+      Modifications modifications = changeset.getModifications();
+
+      modifications.getAdded().add("src/main/java/Added" + i + ".java");
+      modifications.getModified().add("src/main/java/Modified" + i + ".java");
+      modifications.getModified().add("pom.xml");
+      changesets.add(changeset);
+    }
+
+    result = new ChangesetPagingResult(size, changesets);
+  }
+
+  /**
+   * Copies the result with java serialization.
+   *
+   *
+   * @return copy
+   */
+  @Benchmark
+  public ChangesetPagingResult readWrite()
+  {
+    return CopyStrategy.READWRITE.copyOnRead(result);
+  }
+
+  /**
+   * Copies the result with the copy constructors of the model.
+   *
+   *
+   * @return copy
+   */
+  @Benchmark
+  public ChangesetPagingResult structural()
+  {
+    return CopyStrategy.STRUCTURAL.copyOnRead(result);
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** amount of changesets */
+  @Param({ "20", "100" })
+  private int size;
+
+  /** result to copy */
+  private ChangesetPagingResult result;
+}
@@ -78,6 +78,7 @@ public class EhCacheCopyTest extends CacheCopyTestBase
         break;
 
       case READWRITE :
+      case STRUCTURAL :
         cc.setCopyOnRead(true);
         cc.setCopyOnWrite(true);
 
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.cache;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import sonia.scm.repository.BlameLine;
+import sonia.scm.repository.BlameResult;
+import sonia.scm.repository.BrowserResult;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.FileObject;
+import sonia.scm.repository.Modifications;
+import sonia.scm.repository.Person;
+import sonia.scm.repository.SubRepository;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link StructuralCopy}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class StructuralCopyTest
+{
+
+  /**
+   * Tests copy of a changeset paging result.
+   *
+   */
+  @Test
+  public void testCopyChangesetPagingResult()
+  {
+    Changeset changeset = createChangeset();
+    ChangesetPagingResult result = new ChangesetPagingResult(42,
+                                     Lists.newArrayList(changeset));
+    ChangesetPagingResult copy = StructuralCopy.copy(result);
+
+    assertEquals(result, copy);
+    assertNotSame(result.getChangesets(), copy.getChangesets());
+
+    Changeset changesetCopy = copy.getChangesets().get(0);
+
+    assertNotSame(changeset, changesetCopy);
+    assertNotSame(changeset.getAuthor(), changesetCopy.getAuthor());
+    assertNotSame(changeset.getModifications(),
+      changesetCopy.getModifications());
+    assertNotSame(changeset.getProperties(), changesetCopy.getProperties());
+
+    // changes of the copy must not affect the original
+    changesetCopy.getModifications().getAdded().add("c.txt");
+    changesetCopy.getAuthor().setName("Tricia McMillan");
+    changesetCopy.setProperty("b", "c");
+    assertEquals(Lists.newArrayList("a.txt"),
+      changeset.getModifications().getAdded());
+    assertEquals("Arthur Dent", changeset.getAuthor().getName());
+    assertNull(changeset.getProperty("b"));
+  }
+
+  /**
+   * Tests that missing values are not replaced with empty ones.
+   *
+   */
+  @Test
+  public void testCopyKeepsNullValues()
+  {
+    Changeset copy = StructuralCopy.copy(new Changeset("1", 1L, null));
+
+    assertEquals("1", copy.getId());
+    assertNull(copy.getAuthor());
+    assertEquals(new Changeset("1", 1L, null), copy);
+  }
+
+  /**
+   * Tests copy of a browser result.
+   *
+   */
+  @Test
+  public void testCopyBrowserResult()
+  {
+    FileObject file = new FileObject();
+
+    file.setName("a.txt");
+    file.setPath("dir/a.txt");
+    file.setLength(12L);
+    file.setLastModified(1L);
+    file.setSubRepository(new SubRepository("http://hitchhiker.com/sub"));
+
+    BrowserResult result = new BrowserResult("1", null, "master",
+                             Lists.newArrayList(file));
+    BrowserResult copy = StructuralCopy.copy(result);
+
+    assertEquals(result, copy);
+
+    FileObject fileCopy = copy.getFiles().get(0);
+
+    assertNotSame(file, fileCopy);
+    assertNotSame(file.getSubRepository(), fileCopy.getSubRepository());
+  }
+
+  /**
+   * Tests copy of a blame result.
+   *
+   */
+  @Test
+  public void testCopyBlameResult()
+  {
+    BlameLine line = new BlameLine(1, "1", 1L, new Person("Arthur Dent"),
+                       "first commit", "hello");
+    BlameResult result = new BlameResult(Lists.newArrayList(line));
+    BlameResult copy = StructuralCopy.copy(result);
+
+    assertEquals(result, copy);
+    assertNotSame(line, copy.getLine(0));
+    assertNotSame(line.getAuthor(), copy.getLine(0).getAuthor());
+  }
+
+  /**
+   * Tests that unsupported types and subclasses are not copied.
+   *
+   */
+  @Test
+  public void testCopyUnsupported()
+  {
+    assertNull(StructuralCopy.copy("abc"));
+    assertNull(StructuralCopy.copy(new Changeset()
+    {
+      private static final long serialVersionUID = 1L;
+    }));
+  }
+
+  /**
+   * Tests the structural copy strategy.
+   *
+   */
+  @Test
+  public void testCopyStrategy()
+  {
+    Changeset changeset = createChangeset();
+    Changeset copy = CopyStrategy.STRUCTURAL.copyOnRead(changeset);
+
+    assertEquals(changeset, copy);
+    assertNotSame(changeset, copy);
+    assertEquals("abc", CopyStrategy.STRUCTURAL.copyOnWrite("abc"));
+    assertEquals(CopyStrategy.STRUCTURAL,
+      CopyStrategy.fromString("structural"));
+  }
+
+  private Changeset createChangeset()
+  {
+    Changeset changeset = new Changeset("1", 1L,
+                            new Person("Arthur Dent", "arthur@hitchhiker.com"),
+                            "first commit");
+
+    changeset.setModifications(
+      new Modifications(Lists.newArrayList("a.txt"),
+        Lists.newArrayList("b.txt")));
+    changeset.getBranches().add("master");
+    changeset.getParents().add("0");
+    changeset.setProperty("a", "b");
+
+    return changeset;
+  }
+}
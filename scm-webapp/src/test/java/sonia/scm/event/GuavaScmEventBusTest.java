@@ -35,6 +35,7 @@ package sonia.scm.event;
 
 //~--- non-JDK imports --------------------------------------------------------
 
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.Subscribe;
 
 import org.apache.shiro.mgt.DefaultSecurityManager;
@@ -54,6 +55,11 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 /**
  *
  * @author Sebastian Sdorra
@@ -106,6 +112,101 @@ public class GuavaScmEventBusTest extends AbstractTestBase
     assertNotEquals(thread, currentThread);
   }
 
+  /**
+   * Method description
+   *
+   *
+   * @throws InterruptedException
+   */
+  @Test
+  public void testAsyncPostOrder() throws InterruptedException
+  {
+    final List<Integer> received =
+      Collections.synchronizedList(Lists.<Integer>newArrayList());
+    final CountDownLatch latch = new CountDownLatch(100);
+
+    GuavaScmEventBus eventBus = new GuavaScmEventBus();
+
+    eventBus.register(new Object()
+    {
+      @Subscribe
+      public void handleEvent(Integer event)
+      {
+        received.add(event);
+        latch.countDown();
+      }
+    }, true);
+
+    for (int i = 0; i < 100; i++)
+    {
+      eventBus.post(i);
+    }
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+    for (int i = 0; i < 100; i++)
+    {
+      assertEquals(Integer.valueOf(i), received.get(i));
+    }
+
+    // statistics are recorded after the handler has returned
+    for (int i = 0; (eventBus.getQueueSize() > 0) && (i < 100); i++)
+    {
+      Thread.sleep(10l);
+    }
+
+    assertEquals(0, eventBus.getQueueSize());
+
+    List<HandlerStatistics> statistics = eventBus.getHandlerStatistics();
+
+    assertEquals(1, statistics.size());
+    assertEquals(100, statistics.get(0).getCount());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @throws InterruptedException
+   */
+  @Test
+  public void testCoalescedPost() throws InterruptedException
+  {
+    final List<String> received =
+      Collections.synchronizedList(Lists.<String>newArrayList());
+    final CountDownLatch latch = new CountDownLatch(3);
+
+    GuavaScmEventBus eventBus = new GuavaScmEventBus();
+
+    eventBus.register(new Object()
+    {
+      @Subscribe
+      @Coalesce(window = 200)
+      public void handleEvent(KeyedEvent event)
+      {
+        received.add(event.key.concat("-").concat(event.value));
+        latch.countDown();
+      }
+    }, true);
+
+    for (int i = 0; i < 10; i++)
+    {
+      eventBus.post(new KeyedEvent("a", String.valueOf(i)));
+    }
+
+    eventBus.post(new KeyedEvent("b", "0"));
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+    // wait for a further window, to ensure no more events are delivered
+    Thread.sleep(400l);
+
+    assertEquals(3, received.size());
+    assertTrue(received.contains("a-0"));
+    assertTrue(received.contains("b-0"));
+    assertEquals("a-9", received.get(2));
+  }
+
   /**
    * Method description
    *
@@ -179,6 +280,51 @@ public class GuavaScmEventBusTest extends AbstractTestBase
     eventBus.post(new Object());
   }
 
+  //~--- inner classes --------------------------------------------------------
+
+  /**
+   * Event which is merged by its key.
+   */
+  private static class KeyedEvent implements Coalescable
+  {
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param key
+     * @param value
+     */
+    public KeyedEvent(String key, String value)
+    {
+      this.key = key;
+      this.value = value;
+    }
+
+    //~--- get methods --------------------------------------------------------
+
+    /**
+     * Method description
+     *
+     *
+     * @return
+     */
+    @Override
+    public Object getCoalescingKey()
+    {
+      return key;
+    }
+
+    //~--- fields -------------------------------------------------------------
+
+    /** Field description */
+    private final String key;
+
+    /** Field description */
+    private final String value;
+  }
+
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
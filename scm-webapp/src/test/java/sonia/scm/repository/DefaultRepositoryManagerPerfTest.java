@@ -67,6 +67,7 @@ import sonia.scm.config.ScmConfiguration;
 import sonia.scm.security.AuthorizationCollector;
 import sonia.scm.security.DefaultKeyGenerator;
 import sonia.scm.security.KeyGenerator;
+import sonia.scm.security.RepositoryPermissionIndex;
 import sonia.scm.security.RepositoryPermissionResolver;
 import sonia.scm.security.SecuritySystem;
 import sonia.scm.user.UserTestData;
@@ -134,7 +135,7 @@ public class DefaultRepositoryManagerPerfTest {
     setUpTestRepositories();
     
     GuavaCacheManager cacheManager = new GuavaCacheManager();
-    authzCollector = new AuthorizationCollector(cacheManager, repositoryDAO, securitySystem, new RepositoryPermissionResolver());
+    authzCollector = new AuthorizationCollector(cacheManager, new RepositoryPermissionIndex(repositoryDAO), securitySystem, new RepositoryPermissionResolver());
     DefaultSecurityManager securityManager = new DefaultSecurityManager(new DummyRealm(authzCollector, cacheManager));
     
     ThreadContext.bind(securityManager);
@@ -53,9 +53,14 @@ import static org.mockito.Mockito.*;
 //~--- JDK imports ------------------------------------------------------------
 
 import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -92,6 +97,89 @@ public class DefaultRepositoryManagerTest extends RepositoryManagerTestBase
     assertNull(m.getFromUri("/git/project1/test-3/ka/some/path"));
   }
 
+  /**
+   * Method description
+   *
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void getRepositoryFromNestedRequestUriTest()
+    throws RepositoryException, IOException
+  {
+    RepositoryManager m = createManager();
+    m.init(contextProvider);
+
+    createRepository(m, new Repository("1", "git", "project1"));
+    createRepository(m, new Repository("2", "git", "project1/test-1"));
+    createRepository(m, new Repository("3", "hg", "project1/test-2"));
+
+    assertEquals("project1", m.getFromUri("/git/project1/info/refs").getName());
+    assertEquals("project1/test-1", m.getFromUri("/git/project1/test-1/info/refs").getName());
+    assertEquals("project1", m.getFromUri("/git/project1/test-2").getName());
+    assertEquals("project1/test-2", m.getFromUri("/hg/project1/test-2").getName());
+    assertNull(m.getFromUri("/git/project"));
+    assertNull(m.getFromUri("/git/project11"));
+
+    // the index must reflect deleted and created repositories
+    m.delete(m.getFromUri("/git/project1/test-1"));
+    assertEquals("project1", m.getFromUri("/git/project1/test-1/info/refs").getName());
+    createRepository(m, new Repository("4", "git", "project1/test-1"));
+    assertEquals("project1/test-1", m.getFromUri("/git/project1/test-1/info/refs").getName());
+  }
+
+  /**
+   * Method description
+   *
+   *
+   * @throws IOException
+   * @throws RepositoryException
+   */
+  @Test
+  public void getAllSortedAndPagedTest()
+    throws RepositoryException, IOException
+  {
+    DefaultRepositoryManager m = createManager();
+    m.init(contextProvider);
+
+    createRepository(m, new Repository("1", "hg", "scm"));
+    createRepository(m, new Repository("2", "git", "abc"));
+    createRepository(m, new Repository("3", "git", "zeta"));
+    createRepository(m, new Repository("4", "hg", "mid"));
+
+    assertNames(m.getAll(RepositorySortKey.NAME, false, 0, -1), "abc", "mid",
+      "scm", "zeta");
+    assertNames(m.getAll(RepositorySortKey.NAME, false, 1, 2), "mid", "scm");
+    assertNames(m.getAll(RepositorySortKey.NAME, true, 1, 2), "scm", "mid");
+    assertNames(m.getAll(RepositorySortKey.NAME, false, 3, 2), "zeta");
+
+    for (Repository r : m.getAll(RepositorySortKey.TYPE, false, 0, 2))
+    {
+      assertEquals("git", r.getType());
+    }
+
+    // the index must reflect deleted and modified repositories
+    m.delete(m.get("hg", "mid"));
+
+    Repository zeta = m.get("git", "zeta");
+
+    zeta.setDescription("last");
+    m.modify(zeta);
+
+    assertNames(m.getAll(RepositorySortKey.NAME, false, 0, -1), "abc", "scm",
+      "zeta");
+    assertNames(m.getAll(RepositorySortKey.TYPE, true, 0, 1), "scm");
+    assertEquals("last",
+      m.getAll(RepositorySortKey.NAME, true, 0, 1).iterator().next()
+        .getDescription());
+
+    // returned repositories must not be the instances of the index
+    m.getAll(RepositorySortKey.NAME, false, 0, 1).iterator().next().setName(
+      "xyz");
+    assertNames(m.getAll(RepositorySortKey.NAME, false, 0, 1), "abc");
+  }
+
   //~--- methods --------------------------------------------------------------
 
   /**
@@ -198,4 +286,24 @@ public class DefaultRepositoryManagerTest extends RepositoryManagerTestBase
   {
     m.create(repository);
   }
+
+  /**
+   * Method description
+   *
+   *
+   * @param repositories
+   * @param names
+   */
+  private void assertNames(Collection<Repository> repositories,
+    String... names)
+  {
+    List<String> found = new ArrayList<String>();
+
+    for (Repository repository : repositories)
+    {
+      found.add(repository.getName());
+    }
+
+    assertEquals(Arrays.asList(names), found);
+  }
 }
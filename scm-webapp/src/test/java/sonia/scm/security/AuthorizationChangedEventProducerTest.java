@@ -75,6 +75,21 @@ public class AuthorizationChangedEventProducerTest {
     
     producer.onEvent(new UserEvent(user, HandlerEvent.CREATE));
     assertUserEventIsFired("dent");
+    assertNotRevoking();
+    
+    producer.onEvent(new UserEvent(user, HandlerEvent.DELETE));
+    assertUserEventIsFired("dent");
+    assertRevoking();
+  }
+  
+  private void assertRevoking(){
+    assertTrue(producer.event.isRevoking());
+    assertNull(producer.event.getCoalescingKey());
+  }
+  
+  private void assertNotRevoking(){
+    assertFalse(producer.event.isRevoking());
+    assertNotNull(producer.event.getCoalescingKey());
   }
   
   private void assertEventIsNotFired(){
@@ -110,6 +125,11 @@ public class AuthorizationChangedEventProducerTest {
     
     producer.onEvent(new UserModificationEvent(userModified, user, HandlerEvent.CREATE));
     assertUserEventIsFired("dent");
+    assertNotRevoking();
+    
+    producer.onEvent(new UserModificationEvent(user, userModified, HandlerEvent.MODIFY));
+    assertUserEventIsFired("dent");
+    assertRevoking();
   }
   
   /**
@@ -124,6 +144,11 @@ public class AuthorizationChangedEventProducerTest {
     
     producer.onEvent(new GroupEvent(group, HandlerEvent.CREATE));
     assertGlobalEventIsFired();
+    assertNotRevoking();
+    
+    producer.onEvent(new GroupEvent(group, HandlerEvent.DELETE));
+    assertGlobalEventIsFired();
+    assertRevoking();
   }
   
   private void assertGlobalEventIsFired(){
@@ -148,6 +173,11 @@ public class AuthorizationChangedEventProducerTest {
     modifiedGroup.add("test");
     producer.onEvent(new GroupModificationEvent(modifiedGroup, group, HandlerEvent.MODIFY));
     assertGlobalEventIsFired();
+    assertNotRevoking();
+    
+    producer.onEvent(new GroupModificationEvent(group, modifiedGroup, HandlerEvent.MODIFY));
+    assertGlobalEventIsFired();
+    assertRevoking();
   }
   
   /**
@@ -162,6 +192,11 @@ public class AuthorizationChangedEventProducerTest {
     
     producer.onEvent(new RepositoryEvent(repository, HandlerEvent.CREATE));
     assertGlobalEventIsFired();
+    assertNotRevoking();
+    
+    producer.onEvent(new RepositoryEvent(repository, HandlerEvent.DELETE));
+    assertGlobalEventIsFired();
+    assertRevoking();
   }
   
  /**
@@ -191,6 +226,16 @@ public class AuthorizationChangedEventProducerTest {
     repositoryModified.setPermissions(Lists.newArrayList(new sonia.scm.repository.Permission("test123")));
     producer.onEvent(new RepositoryModificationEvent(repositoryModified, repository, HandlerEvent.CREATE));
     assertGlobalEventIsFired();
+    assertRevoking();
+    
+    resetStoredEvent();
+    
+    repositoryModified.setPermissions(Lists.newArrayList(
+      new sonia.scm.repository.Permission("test"), new sonia.scm.repository.Permission("test123")
+    ));
+    producer.onEvent(new RepositoryModificationEvent(repositoryModified, repository, HandlerEvent.CREATE));
+    assertGlobalEventIsFired();
+    assertNotRevoking();
     
     resetStoredEvent();
 
@@ -240,6 +285,11 @@ public class AuthorizationChangedEventProducerTest {
     
     producer.onEvent(new StoredAssignedPermissionEvent(HandlerEvent.CREATE, userPermission));
     assertUserEventIsFired("trillian");
+    assertNotRevoking();
+    
+    producer.onEvent(new StoredAssignedPermissionEvent(HandlerEvent.DELETE, userPermission));
+    assertUserEventIsFired("trillian");
+    assertRevoking();
   }
   
   private static class StoringAuthorizationChangedEventProducer extends AuthorizationChangedEventProducer {
@@ -100,7 +100,7 @@ public class AuthorizationCollectorTest {
     when(cacheManager.getCache(Mockito.any(Class.class), Mockito.any(Class.class), Mockito.any(String.class)))
       .thenReturn(cache);
     
-    collector = new AuthorizationCollector(cacheManager, repositoryDAO, securitySystem, resolver);
+    collector = new AuthorizationCollector(cacheManager, new RepositoryPermissionIndex(repositoryDAO), securitySystem, resolver);
   }
 
   /**
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+package sonia.scm.security;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import org.apache.shiro.authz.Permission;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sonia.scm.repository.PermissionType;
+
+/**
+ * Unit tests for {@link RepositoryAuthorizationInfo}.
+ * 
+ * @author Sebastian Sdorra
+ */
+public class RepositoryAuthorizationInfoTest {
+
+  /**
+   * Tests the lookup of granted repository permissions.
+   */
+  @Test
+  public void testIsPermitted() {
+    RepositoryAuthorizationInfo info = create(
+      new RepositoryPermission("one", PermissionType.READ),
+      new RepositoryPermission("two", PermissionType.WRITE),
+      new RepositoryPermission("two", PermissionType.READ)
+    );
+    
+    assertTrue(info.isPermitted(new RepositoryPermission("one", PermissionType.READ)));
+    assertFalse(info.isPermitted(new RepositoryPermission("one", PermissionType.WRITE)));
+    assertTrue(info.isPermitted(new RepositoryPermission("two", PermissionType.WRITE)));
+    assertFalse(info.isPermitted(new RepositoryPermission("two", PermissionType.OWNER)));
+    assertFalse(info.isPermitted(new RepositoryPermission("three", PermissionType.READ)));
+    assertFalse(info.isPermitted(new RepositoryPermission(RepositoryPermission.WILDCARD, PermissionType.READ)));
+  }
+  
+  /**
+   * Tests the wildcard permission of administrators.
+   */
+  @Test
+  public void testIsPermittedWithWildcard() {
+    RepositoryAuthorizationInfo info = create(
+      new RepositoryPermission(RepositoryPermission.WILDCARD, PermissionType.WRITE),
+      new RepositoryPermission("one", PermissionType.OWNER)
+    );
+    
+    assertTrue(info.isPermitted(new RepositoryPermission("two", PermissionType.WRITE)));
+    assertFalse(info.isPermitted(new RepositoryPermission("two", PermissionType.OWNER)));
+    assertTrue(info.isPermitted(new RepositoryPermission("one", PermissionType.OWNER)));
+    assertTrue(info.isPermitted(new RepositoryPermission(RepositoryPermission.WILDCARD, PermissionType.WRITE)));
+    assertFalse(info.isPermitted(new RepositoryPermission(RepositoryPermission.WILDCARD, PermissionType.OWNER)));
+  }
+  
+  /**
+   * Tests that the lookup returns the same results as implies.
+   */
+  @Test
+  public void testIsPermittedMatchesImplies() {
+    Set<Permission> granted = ImmutableSet.<Permission>of(
+      new RepositoryPermission("one", PermissionType.READ),
+      new RepositoryPermission("two", PermissionType.OWNER),
+      new RepositoryPermission(RepositoryPermission.WILDCARD, PermissionType.READ)
+    );
+    RepositoryAuthorizationInfo info = new RepositoryAuthorizationInfo(null);
+    info.setObjectPermissions(granted);
+    
+    for (String id : new String[] { "one", "two", "three", RepositoryPermission.WILDCARD }) {
+      for (PermissionType type : PermissionType.values()) {
+        RepositoryPermission requested = new RepositoryPermission(id, type);
+        assertEquals(requested.toString(), implies(granted, requested), info.isPermitted(requested));
+      }
+    }
+  }
+  
+  /**
+   * Tests that non repository permissions are used as fallback.
+   */
+  @Test
+  public void testIsPermittedWithOtherPermission() {
+    RepositoryAuthorizationInfo info = create(new Permission() {
+      @Override
+      public boolean implies(Permission p) {
+        return true;
+      }
+    });
+    
+    assertTrue(info.isPermitted(new RepositoryPermission("one", PermissionType.OWNER)));
+  }
+  
+  private boolean implies(Set<Permission> granted, Permission requested) {
+    for (Permission permission : granted) {
+      if (permission.implies(requested)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  private RepositoryAuthorizationInfo create(Permission... permissions) {
+    RepositoryAuthorizationInfo info = new RepositoryAuthorizationInfo(null);
+    for (Permission permission : permissions) {
+      info.addObjectPermission(permission);
+    }
+    return info;
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+
+package sonia.scm.security;
+
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.shiro.authz.Permission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import sonia.scm.repository.PermissionType;
+
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the permission check of shiro, which calls implies on each granted
+ * permission, with the lookup of the {@link RepositoryAuthorizationInfo}. Each
+ * invocation checks the permission for every repository, which is what the
+ * repository overview does. The benchmark is not executed during the build, it
+ * can be started with the main method from the test classpath.
+ *
+ * @author Sebastian Sdorra
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryPermissionBenchmark
+{
+
+  /** amount of repositories */
+  private static final int REPOSITORIES = 10000;
+
+  //~--- methods --------------------------------------------------------------
+
+  /**
+   * Starts the benchmark.
+   *
+   *
+   * @param args unused
+   *
+   * @throws RunnerException
+   */
+  public static void main(String[] args) throws RunnerException
+  {
+    Options options = new OptionsBuilder().include(
+                        RepositoryPermissionBenchmark.class.getSimpleName()).build();
+
+    new Runner(options).run();
+  }
+
+  /**
+   * Grants read permissions for the configured amount of repositories and
+   * creates the requested permissions for all repositories.
+   *
+   */
+  @Setup
+  public void setUp()
+  {
+    info = new RepositoryAuthorizationInfo(ImmutableSet.of(Role.USER));
+
+    for (int i = 0; i < grants; i++)
+    {
+      info.addObjectPermission(new RepositoryPermission(String.valueOf(i),
+        PermissionType.READ));
+    }
+
+    requested = new RepositoryPermission[REPOSITORIES];
+
+    for (int i = 0; i < REPOSITORIES; i++)
+    {
+      requested[i] = new RepositoryPermission(String.valueOf(i),
+        PermissionType.READ);
+    }
+  }
+
+  /**
+   * Checks all repositories with implies on each granted permission.
+   *
+   *
+   * @return amount of permitted repositories
+   */
+  @Benchmark
+  public int implies()
+  {
+    Collection<Permission> permissions = info.getObjectPermissions();
+    int permitted = 0;
+
+    for (RepositoryPermission rp : requested)
+    {
+      for (Permission permission : permissions)
+      {
+        if (permission.implies(rp))
+        {
+          permitted++;
+
+          break;
+        }
+      }
+    }
+
+    return permitted;
+  }
+
+  /**
+   * Checks all repositories with the lookup by repository id.
+   *
+   *
+   * @return amount of permitted repositories
+   */
+  @Benchmark
+  public int lookup()
+  {
+    int permitted = 0;
+
+    for (RepositoryPermission rp : requested)
+    {
+      if (info.isPermitted(rp))
+      {
+        permitted++;
+      }
+    }
+
+    return permitted;
+  }
+
+  //~--- fields ---------------------------------------------------------------
+
+  /** amount of granted repository permissions */
+  @Param({ "100", "10000" })
+  private int grants;
+
+  /** authorization info with the granted permissions */
+  private RepositoryAuthorizationInfo info;
+
+  /** requested permissions */
+  private RepositoryPermission[] requested;
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2014, Sebastian Sdorra
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 3. Neither the name of SCM-Manager; nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED.  IN NO EVENT SHALL THE REGENTS OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * http://bitbucket.org/sdorra/scm-manager
+ *
+ */
+
+package sonia.scm.security;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import sonia.scm.HandlerEvent;
+import sonia.scm.group.GroupNames;
+import sonia.scm.repository.Permission;
+import sonia.scm.repository.PermissionType;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryDAO;
+import sonia.scm.repository.RepositoryEvent;
+import sonia.scm.repository.RepositoryModificationEvent;
+import sonia.scm.repository.RepositoryTestData;
+import sonia.scm.user.User;
+import sonia.scm.user.UserTestData;
+
+/**
+ * Unit tests for {@link RepositoryPermissionIndex}.
+ * 
+ * @author Sebastian Sdorra
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RepositoryPermissionIndexTest {
+  
+  @Mock
+  private RepositoryDAO repositoryDAO;
+  
+  private RepositoryPermissionIndex index;
+  
+  private Repository heartOfGold;
+  
+  private final User trillian = UserTestData.createTrillian();
+  
+  private final GroupNames groups = new GroupNames("crew");
+  
+  /**
+   * Set up object to test.
+   */
+  @Before
+  public void setUp() {
+    heartOfGold = RepositoryTestData.createHeartOfGold();
+    heartOfGold.setId("one");
+    heartOfGold.setPermissions(Lists.newArrayList(new Permission("trillian")));
+    Repository puzzle42 = RepositoryTestData.create42Puzzle();
+    puzzle42.setId("two");
+    puzzle42.setPermissions(Lists.newArrayList(
+      new Permission("crew", PermissionType.WRITE, true),
+      new Permission("dent", PermissionType.OWNER)
+    ));
+    when(repositoryDAO.getAll()).thenReturn(Lists.newArrayList(heartOfGold, puzzle42));
+    index = new RepositoryPermissionIndex(repositoryDAO);
+  }
+
+  /**
+   * Tests {@link RepositoryPermissionIndex#getPermissions(User, GroupNames)}.
+   */
+  @Test
+  public void testGetPermissions() {
+    assertThat(index.getPermissions(trillian, groups), containsInAnyOrder(
+      new RepositoryPermission("one", PermissionType.READ),
+      new RepositoryPermission("two", PermissionType.WRITE)
+    ));
+    assertThat(index.getPermissions(trillian, new GroupNames()), contains(
+      new RepositoryPermission("one", PermissionType.READ)
+    ));
+    verify(repositoryDAO, times(1)).getAll();
+  }
+  
+  /**
+   * Tests the incremental update of the index.
+   */
+  @Test
+  public void testUpdate() {
+    index.getPermissions(trillian, groups);
+    long version = index.getVersion();
+    
+    // modification without permission changes
+    Repository modified = heartOfGold.clone();
+    modified.setDescription("modified");
+    index.onEvent(new RepositoryModificationEvent(modified, heartOfGold, HandlerEvent.MODIFY));
+    assertEquals(version, index.getVersion());
+    
+    modified = heartOfGold.clone();
+    modified.setPermissions(Lists.newArrayList(new Permission("trillian", PermissionType.OWNER)));
+    index.onEvent(new RepositoryModificationEvent(modified, heartOfGold, HandlerEvent.MODIFY));
+    assertThat(index.getVersion(), greaterThan(version));
+    assertThat(index.getPermissions(trillian, new GroupNames()), contains(
+      new RepositoryPermission("one", PermissionType.OWNER)
+    ));
+    
+    index.onEvent(new RepositoryEvent(modified, HandlerEvent.DELETE));
+    assertThat(index.getPermissions(trillian, new GroupNames()), empty());
+    
+    Repository created = RepositoryTestData.createRestaurantAtTheEndOfTheUniverse();
+    created.setId("three");
+    created.setPermissions(Lists.newArrayList(new Permission("trillian")));
+    index.onEvent(new RepositoryEvent(created, HandlerEvent.CREATE));
+    assertThat(index.getPermissions(trillian, new GroupNames()), contains(
+      new RepositoryPermission("three", PermissionType.READ)
+    ));
+  }
+
+}
@@ -494,7 +494,7 @@ public class ScmRealmTest
     
     AuthorizationCollector authzCollector = new AuthorizationCollector(
       cacheManager,
-      repositoryDAO,
+      new RepositoryPermissionIndex(repositoryDAO),
       securitySystem, 
       new RepositoryPermissionResolver()
     );
@@ -43,7 +43,6 @@ import sonia.scm.AbstractTestBase;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.cache.MapCacheManager;
 import sonia.scm.config.ScmConfiguration;
-import sonia.scm.security.MessageDigestEncryptionHandler;
 import sonia.scm.user.User;
 import sonia.scm.user.UserManager;
 import sonia.scm.user.UserTestData;
@@ -57,6 +56,7 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
 
@@ -122,6 +122,57 @@ public class ChainAuthenticationManagerTest extends AbstractTestBase
     assertEquals("perfectsType", result.getUser().getType());
   }
 
+  /**
+   * Tests that the cached result is only used for the same credentials.
+   *
+   */
+  @Test
+  public void testAuthenticateCached()
+  {
+    manager = createManager();
+
+    AuthenticationResult result = manager.authenticate(request, response,
+                                    trillian.getName(), "trillian123");
+
+    assertNotNull(result);
+
+    // the handler accepts only the new password from now on
+    trillian.setPassword("trillian456");
+    result = manager.authenticate(request, response, trillian.getName(),
+      "trillian123");
+    assertNotNull(result);
+    assertUserEquals(trillian, result.getUser());
+    result = manager.authenticate(request, response, trillian.getName(),
+      "trillian456");
+    assertNotNull(result);
+    result = manager.authenticate(request, response, trillian.getName(),
+      "trillian789");
+    assertNull(result);
+  }
+
+  /**
+   * Tests the keyed hash of the credentials.
+   *
+   */
+  @Test
+  public void testHashCredentials()
+  {
+    manager = createManager();
+
+    byte[] hash = manager.hashCredentials("trillian", "trillian123");
+
+    assertArrayEquals(hash,
+      manager.hashCredentials("trillian", "trillian123"));
+    assertFalse(Arrays.equals(hash,
+      manager.hashCredentials("trillian", "trillian124")));
+    assertFalse(Arrays.equals(hash,
+      manager.hashCredentials("trillia", "ntrillian123")));
+
+    // the key is random for each manager
+    assertFalse(Arrays.equals(hash,
+      createManager().hashCredentials("trillian", "trillian123")));
+  }
+
   /**
    * Method description
    *
@@ -254,8 +305,7 @@ public class ChainAuthenticationManagerTest extends AbstractTestBase
 
     when(userManager.getDefaultType()).thenReturn(defaultType);
     manager = new ChainAuthenticatonManager(configuration, userManager,
-      handlerSet, new MessageDigestEncryptionHandler(), new MapCacheManager(),
-      Collections.EMPTY_SET);
+      handlerSet, new MapCacheManager(), Collections.EMPTY_SET);
     manager.init(contextProvider);
 
     return manager;
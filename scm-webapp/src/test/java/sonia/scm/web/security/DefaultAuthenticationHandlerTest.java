@@ -42,6 +42,7 @@ import org.junit.Test;
 import sonia.scm.AbstractTestBase;
 import sonia.scm.security.EncryptionHandler;
 import sonia.scm.security.MessageDigestEncryptionHandler;
+import sonia.scm.security.PBKDF2EncryptionHandler;
 import sonia.scm.store.JAXBStoreFactory;
 import sonia.scm.store.StoreFactory;
 import sonia.scm.user.DefaultUserManager;
@@ -85,6 +86,22 @@ public class DefaultAuthenticationHandlerTest extends AbstractTestBase
     assertNull(result.getUser());
   }
 
+  /**
+   * Tests that unsalted hashes of older versions are accepted.
+   *
+   */
+  @Test
+  public void testAuthenticateLegacyHash()
+  {
+    AuthenticationResult result = handler.authenticate(request, reponse,
+                                    "trillian", "trilliansPWD");
+
+    assertNotNull(result);
+    assertTrue(result.getState() == AuthenticationState.SUCCESS);
+    result = handler.authenticate(request, reponse, "trillian", "otherPWD");
+    assertTrue(result.getState() == AuthenticationState.FAILED);
+  }
+
   /**
    * Method description
    *
@@ -127,11 +144,16 @@ public class DefaultAuthenticationHandlerTest extends AbstractTestBase
   @Override
   protected void postSetUp() throws Exception
   {
-    EncryptionHandler enc = new MessageDigestEncryptionHandler();
+    EncryptionHandler enc = new PBKDF2EncryptionHandler(1000);
 
     slarti = UserTestData.createSlarti();
     slarti.setPassword(enc.encrypt("slartisPWD"));
 
+    User legacy = UserTestData.createTrillian();
+
+    legacy.setPassword(
+      new MessageDigestEncryptionHandler().encrypt("trilliansPWD"));
+
     StoreFactory storeFactory = new JAXBStoreFactory();
 
     storeFactory.init(contextProvider);
@@ -149,6 +171,7 @@ public class DefaultAuthenticationHandlerTest extends AbstractTestBase
 
     userManager.init(contextProvider);
     userManager.create(slarti);
+    userManager.create(legacy);
     clearSubject();
 
     handler = new DefaultAuthenticationHandler(userManager, enc);